@@ -54,3 +54,55 @@ COMMENT ON COLUMN vector_relation.file_hash IS '文档哈希值';
 COMMENT ON COLUMN vector_relation.file_name IS '文档名称';
 COMMENT ON COLUMN vector_relation.created_at IS '创建时间';
 COMMENT ON COLUMN vector_relation.updated_at IS '更新时间';
+
+-- 创建向量分块表(记录文档对应的向量记录，同名文件重新上传时按分块增量更新)
+CREATE TABLE IF NOT EXISTS vector_chunk
+(
+    relation_id  BIGINT      NOT NULL, -- 文档关系ID
+    vector_id    uuid        NOT NULL, -- 向量记录ID
+    content_hash VARCHAR(64) NOT NULL  -- 分块内容哈希值
+);
+
+-- 创建单独索引
+CREATE INDEX IF NOT EXISTS idx_vector_chunk_relation ON vector_chunk (relation_id);
+CREATE INDEX IF NOT EXISTS idx_vector_chunk_vector ON vector_chunk (vector_id);
+
+-- 添加注释
+COMMENT ON TABLE vector_chunk IS '向量分块表';
+COMMENT ON COLUMN vector_chunk.relation_id IS '文档关系ID(vector_relation.id)';
+COMMENT ON COLUMN vector_chunk.vector_id IS '向量记录ID(vector_knowledge.id)';
+COMMENT ON COLUMN vector_chunk.content_hash IS '分块内容哈希值(SHA-256)';
+
+-- 创建待确认向量表(写入向量库与保存分块记录无法在同一事务中完成，遗留的向量在同名文件下次入库时清理)
+CREATE TABLE IF NOT EXISTS vector_chunk_pending
+(
+    vector_id  uuid PRIMARY KEY,                                    -- 向量记录ID
+    file_name  VARCHAR(255) NOT NULL,                               -- 文档名称
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP  -- 创建时间
+);
+
+-- 创建单独索引
+CREATE INDEX IF NOT EXISTS idx_vector_chunk_pending_file ON vector_chunk_pending (file_name);
+
+-- 添加注释
+COMMENT ON TABLE vector_chunk_pending IS '待确认向量表';
+COMMENT ON COLUMN vector_chunk_pending.vector_id IS '向量记录ID(vector_knowledge.id)';
+COMMENT ON COLUMN vector_chunk_pending.file_name IS '文档名称';
+COMMENT ON COLUMN vector_chunk_pending.created_at IS '创建时间';
+
+-- 创建分块向量缓存表(内容未变化的分块重新入库时不再调用嵌入模型)
+CREATE TABLE IF NOT EXISTS embedding_cache
+(
+    content_hash VARCHAR(64)  NOT NULL,                              -- 分块内容哈希值
+    model        VARCHAR(128) NOT NULL,                              -- 嵌入模型
+    embedding    vector       NOT NULL,                              -- 向量(维度由模型决定)
+    created_at   TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP, -- 创建时间
+    PRIMARY KEY (content_hash, model)
+);
+
+-- 添加注释
+COMMENT ON TABLE embedding_cache IS '分块向量缓存表';
+COMMENT ON COLUMN embedding_cache.content_hash IS '分块内容哈希值(SHA-256)';
+COMMENT ON COLUMN embedding_cache.model IS '嵌入模型';
+COMMENT ON COLUMN embedding_cache.embedding IS '向量(维度由模型决定)';
+COMMENT ON COLUMN embedding_cache.created_at IS '创建时间';
@@ -1,5 +1,6 @@
 package cn.onism.mcp;
 
+import cn.onism.mcp.config.RagProperties;
 import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
@@ -13,7 +14,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
  * @date 2025-03-27
  */
 @SpringBootApplication
-@EnableConfigurationProperties(DataSourceProperties.class)
+@EnableConfigurationProperties({DataSourceProperties.class, RagProperties.class})
 public class McpDemoApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,8 @@
 package cn.onism.mcp.config;
 
+import cn.onism.mcp.service.embedding.BatchingEmbeddingModel;
+import cn.onism.mcp.service.embedding.EmbeddingCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.ollama.OllamaEmbeddingModel;
@@ -20,6 +23,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 @Configuration
 public class RagEmbeddingConfig {
 
+    /**
+     * 向量模型
+     */
+    private static final String EMBEDDING_MODEL = "nomic-embed-text";
+
     @Resource
     private OllamaApi ollamaApi;
 
@@ -28,14 +36,29 @@ public class RagEmbeddingConfig {
         return new TokenTextSplitter();
     }
 
-    @Bean
-    public EmbeddingModel embeddingModel() {
-        return OllamaEmbeddingModel.builder()
+    /**
+     * 嵌入模型(按 token 分批、限制并发并重试，分块向量按内容哈希缓存)
+     *
+     * @param jdbcTemplate  JDBC 模板(向量缓存表)
+     * @param ragProperties RAG 知识库属性
+     * @param meterRegistry 指标注册表
+     * @return {@link BatchingEmbeddingModel }
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BatchingEmbeddingModel embeddingModel(JdbcTemplate jdbcTemplate, RagProperties ragProperties,
+                                                 MeterRegistry meterRegistry) {
+        EmbeddingModel ollamaEmbeddingModel = OllamaEmbeddingModel.builder()
                 .ollamaApi(ollamaApi)
                 // 设置向量模型
-                .defaultOptions(OllamaOptions.builder().model("nomic-embed-text")
+                .defaultOptions(OllamaOptions.builder().model(EMBEDDING_MODEL)
                         .numBatch(1024).build())
                 .build();
+        RagProperties.EmbeddingProperty config = ragProperties.getEmbedding();
+        EmbeddingCache cache = config.getCacheEntries() > 0 || config.isCachePersistent()
+                ? new EmbeddingCache(jdbcTemplate, EMBEDDING_MODEL, config.getCacheEntries(),
+                config.isCachePersistent(), meterRegistry)
+                : null;
+        return new BatchingEmbeddingModel(ollamaEmbeddingModel, config, cache, meterRegistry);
     }
 
     /**
@@ -0,0 +1,203 @@
+package cn.onism.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * RAG 知识库属性
+ *
+ * @author Onism
+ * @date 2025-08-17
+ */
+@ConfigurationProperties(prefix = "spring.ai.rag", ignoreInvalidFields = true)
+public class RagProperties {
+
+    /**
+     * 文档入库配置
+     */
+    private IngestProperty ingest = new IngestProperty();
+
+    /**
+     * 嵌入模型调用配置
+     */
+    private EmbeddingProperty embedding = new EmbeddingProperty();
+
+    public IngestProperty getIngest() {
+        return ingest;
+    }
+
+    public void setIngest(IngestProperty ingest) {
+        this.ingest = ingest;
+    }
+
+    public EmbeddingProperty getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(EmbeddingProperty embedding) {
+        this.embedding = embedding;
+    }
+
+    public static class IngestProperty {
+
+        /**
+         * 每批写入向量库的分块数(每批调用一次嵌入模型并批量插入)
+         */
+        private int batchSize = 64;
+        /**
+         * 分割前缓冲的文本字符数(达到后在段落/句子边界处切出一段进行分割)，内存占用与文档大小无关
+         */
+        private int windowChars = 32 * 1024;
+        /**
+         * 异步入库的并发任务数
+         */
+        private int workers = 2;
+        /**
+         * 异步入库的排队任务数上限(排满后拒绝新的上传)
+         */
+        private int queueCapacity = 16;
+        /**
+         * 入库任务结束后状态的保留时长(单位：秒)
+         */
+        private long jobRetention = 3600;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getWindowChars() {
+            return windowChars;
+        }
+
+        public void setWindowChars(int windowChars) {
+            this.windowChars = windowChars;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getJobRetention() {
+            return jobRetention;
+        }
+
+        public void setJobRetention(long jobRetention) {
+            this.jobRetention = jobRetention;
+        }
+    }
+
+    public static class EmbeddingProperty {
+
+        /**
+         * 单次请求的最大文本数
+         */
+        private int maxBatchSize = 16;
+        /**
+         * 单次请求的最大 token 数(估算值，单个文本超出时单独请求)
+         */
+        private int maxBatchTokens = 8192;
+        /**
+         * 同时进行中的请求数上限(全部入库任务共享)
+         */
+        private int maxInFlight = 4;
+        /**
+         * 单次请求的最大尝试次数(含首次)
+         */
+        private int maxAttempts = 3;
+        /**
+         * 首次重试的退避时长(单位：毫秒)，之后每次翻倍
+         */
+        private long initialBackoff = 500;
+        /**
+         * 退避时长上限(单位：毫秒)
+         */
+        private long maxBackoff = 10000;
+        /**
+         * 内存中缓存的分块向量数(按分块内容哈希缓存，内容未变化的分块不再调用嵌入模型)
+         */
+        private long cacheEntries = 10000;
+        /**
+         * 是否将分块向量持久化到 embedding_cache 表(重启后仍可命中)
+         */
+        private boolean cachePersistent = true;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getMaxBatchTokens() {
+            return maxBatchTokens;
+        }
+
+        public void setMaxBatchTokens(int maxBatchTokens) {
+            this.maxBatchTokens = maxBatchTokens;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public long getCacheEntries() {
+            return cacheEntries;
+        }
+
+        public void setCacheEntries(long cacheEntries) {
+            this.cacheEntries = cacheEntries;
+        }
+
+        public boolean isCachePersistent() {
+            return cachePersistent;
+        }
+
+        public void setCachePersistent(boolean cachePersistent) {
+            this.cachePersistent = cachePersistent;
+        }
+    }
+}
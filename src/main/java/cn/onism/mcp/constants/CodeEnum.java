@@ -41,6 +41,11 @@ public enum CodeEnum {
      */
     SYSTEM_REPAIR(501, "系统维护中，请稍后！"),
 
+    /**
+     * 入库任务繁忙
+     */
+    INGEST_BUSY(503, "文档入库任务排队已满，请稍后重试！"),
+
     /**
      * 服务异常
      */
@@ -0,0 +1,90 @@
+package cn.onism.mcp.controller;
+
+import cn.onism.mcp.common.Result;
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 数据源管理控制器
+ * <p>
+ * 运行时注册、注销数据源与调整连接池大小，无需重启服务(不会中断进行中的会话)；
+ * 需配置 spring.ai.datasources.admin.enabled=true 才会开放
+ *
+ * @author Onism
+ * @date 2025-08-05
+ */
+@RestController
+@RequestMapping("/admin/datasources")
+@ConditionalOnProperty(prefix = "spring.ai.datasources.admin", name = "enabled", havingValue = "true")
+public class DataSourceAdminController {
+
+    @Resource
+    private DataSourceManager dataSourceManager;
+
+    @GetMapping
+    public Result<List<DataSourceInfo>> list() {
+        return Result.success(dataSourceManager.getStrategies().stream()
+                .map(DataSourceInfo::of)
+                .toList());
+    }
+
+    /**
+     * 注册数据源(ID 已存在时替换，旧连接池在进行中的查询结束后关闭)
+     */
+    @PostMapping
+    public Result<String> register(@RequestBody DataSourceProperties.DataSourceProperty config) {
+        try {
+            boolean replaced = dataSourceManager.register(config);
+            return Result.success(replaced ? "replaced" : "registered");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Result.fail(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public Result<String> deregister(@PathVariable String id) {
+        try {
+            dataSourceManager.deregister(id);
+            return Result.success();
+        } catch (IllegalArgumentException e) {
+            return Result.fail(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/pool")
+    public Result<String> resize(@PathVariable String id,
+                                 @RequestParam int maxPoolSize,
+                                 @RequestParam(defaultValue = "-1") int minIdle) {
+        try {
+            dataSourceManager.resize(id, maxPoolSize, minIdle);
+            return Result.success();
+        } catch (IllegalArgumentException e) {
+            return Result.fail(e.getMessage());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DataSourceInfo {
+        private String id;
+        private String type;
+        private int maxPoolSize;
+        private int minIdle;
+        private boolean poolCreated;
+        private String circuitState;
+
+        static DataSourceInfo of(DataSourceStrategy strategy) {
+            DataSourceProperties.DataSourceProperty config = strategy.getConfig();
+            return new DataSourceInfo(strategy.getId(), strategy.getDbType(), config.getMaxPoolSize(),
+                    config.getMinIdle(), strategy.isPoolCreated(), strategy.getCircuitState().name());
+        }
+    }
+}
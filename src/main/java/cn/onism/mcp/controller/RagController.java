@@ -1,7 +1,8 @@
 package cn.onism.mcp.controller;
 
 import cn.onism.mcp.common.Result;
-import cn.onism.mcp.service.DocumentService;
+import cn.onism.mcp.service.IngestionService;
+import cn.onism.mcp.service.ingest.IngestionJob;
 import cn.onism.mcp.service.search.InternetSearchService;
 import jakarta.annotation.Resource;
 import org.springframework.ai.chat.client.ChatClient;
@@ -34,7 +35,7 @@ public class RagController {
     private VectorStore vectorStore;
 
     @Resource
-    private DocumentService documentService;
+    private IngestionService ingestionService;
 
     @Resource
     private InternetSearchService internetSearchService;
@@ -45,14 +46,24 @@ public class RagController {
             问题：{question}
             """;
 
+    /**
+     * 上传文档：暂存后提交到后台入库，立即返回任务 ID(通过 /rag/upload/{jobId} 查询进度)
+     */
     @PostMapping("/upload")
     public Result<String> upload(@RequestParam("file") MultipartFile file) {
         try {
-            documentService.processDocument(file);
+            return Result.success(ingestionService.submit(file).getId());
         } catch (IOException e) {
             return Result.<String>fail().message(e.getMessage());
         }
-        return Result.success();
+    }
+
+    /**
+     * 查询入库任务的阶段、已嵌入分块数、吞吐量与错误信息
+     */
+    @GetMapping("/upload/{jobId}")
+    public Result<IngestionJob> uploadStatus(@PathVariable String jobId) {
+        return Result.success(ingestionService.getJob(jobId));
     }
 
     @GetMapping("/inquire")
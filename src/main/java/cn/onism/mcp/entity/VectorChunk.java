@@ -0,0 +1,30 @@
+package cn.onism.mcp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 向量分块实体类(文档关系与向量库记录的对应关系，表 vector_chunk)
+ *
+ * @author Onism
+ * @date 2025-08-21
+ */
+@Data
+@AllArgsConstructor
+public class VectorChunk {
+
+    /**
+     * 所属文档关系 ID，未记录分块的旧数据为空
+     */
+    private Long relationId;
+
+    /**
+     * 向量库记录 ID(vector_knowledge.id)
+     */
+    private String vectorId;
+
+    /**
+     * 分块内容哈希值
+     */
+    private String contentHash;
+}
@@ -0,0 +1,161 @@
+package cn.onism.mcp.repository;
+
+import cn.onism.mcp.entity.VectorChunk;
+import jakarta.annotation.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 向量分块存储库
+ * <p>
+ * 一个文档的分块数可达数千，使用 JDBC 批量读写(JPA 自增主键无法批量插入)
+ *
+ * @author Onism
+ * @date 2025-08-21
+ */
+@Repository
+public class VectorChunkRepository {
+
+    /**
+     * 单条 SQL 的 ID 数上限
+     */
+    private static final int IN_LIST_SIZE = 500;
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按文档关系 ID 获取
+     *
+     * @param relationIds 文档关系 ID
+     * @return {@link List }<{@link VectorChunk }>
+     */
+    public List<VectorChunk> findByRelationIds(List<Long> relationIds) {
+        List<VectorChunk> chunks = new ArrayList<>();
+        for (List<?> part : partition(relationIds)) {
+            chunks.addAll(jdbcTemplate.query("SELECT relation_id, vector_id::text, content_hash FROM vector_chunk "
+                            + "WHERE relation_id IN (" + placeholders(part.size()) + ")",
+                    (rs, rowNum) -> new VectorChunk(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                    part.toArray()));
+        }
+        return chunks;
+    }
+
+    /**
+     * 按向量元数据中的文件名获取(未记录分块的旧数据)
+     *
+     * @param fileName 文件名
+     * @return {@link List }<{@link VectorChunk }>
+     */
+    public List<VectorChunk> findUntrackedByFileName(String fileName) {
+        // 在数据库中计算内容哈希(SHA-256，与分块写入时一致)，不传输分块文本
+        return jdbcTemplate.query("SELECT id::text, encode(sha256(convert_to(content, 'UTF8')), 'hex') "
+                        + "FROM vector_knowledge WHERE metadata->>'fileName' = ?",
+                (rs, rowNum) -> new VectorChunk(null, rs.getString(1), rs.getString(2)), fileName);
+    }
+
+    /**
+     * 批量插入
+     *
+     * @param relationId 文档关系 ID
+     * @param chunks     分块
+     */
+    public void insert(Long relationId, List<VectorChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vector_chunk (relation_id, vector_id, content_hash) VALUES (?, ?, ?)",
+                chunks, 1000, (ps, chunk) -> {
+                    ps.setLong(1, relationId);
+                    ps.setObject(2, UUID.fromString(chunk.getVectorId()));
+                    ps.setString(3, chunk.getContentHash());
+                });
+    }
+
+    /**
+     * 按向量库记录 ID 删除
+     *
+     * @param vectorIds 向量库记录 ID
+     */
+    public void deleteByVectorIds(List<String> vectorIds) {
+        List<UUID> ids = new ArrayList<>(vectorIds.size());
+        for (String vectorId : vectorIds) {
+            ids.add(UUID.fromString(vectorId));
+        }
+        for (List<?> part : partition(ids)) {
+            jdbcTemplate.update("DELETE FROM vector_chunk WHERE vector_id IN (" + placeholders(part.size()) + ")",
+                    part.toArray());
+        }
+    }
+
+    /**
+     * 按文档关系 ID 删除
+     *
+     * @param relationId 文档关系 ID
+     */
+    public void deleteByRelationId(Long relationId) {
+        jdbcTemplate.update("DELETE FROM vector_chunk WHERE relation_id = ?", relationId);
+    }
+
+    /**
+     * 记录待确认的向量库记录(已写入或即将写入向量库，但尚未记录到分块表；或已从分块表移除但尚未从向量库删除)
+     *
+     * @param fileName  文件名
+     * @param vectorIds 向量库记录 ID
+     */
+    public void insertPending(String fileName, List<String> vectorIds) {
+        if (vectorIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vector_chunk_pending (vector_id, file_name) VALUES (?, ?) "
+                        + "ON CONFLICT (vector_id) DO NOTHING",
+                vectorIds, 1000, (ps, vectorId) -> {
+                    ps.setObject(1, UUID.fromString(vectorId));
+                    ps.setString(2, fileName);
+                });
+    }
+
+    /**
+     * 按文件名获取待确认的向量库记录 ID
+     *
+     * @param fileName 文件名
+     * @return {@link List }<{@link String }>
+     */
+    public List<String> findPendingByFileName(String fileName) {
+        return jdbcTemplate.queryForList("SELECT vector_id::text FROM vector_chunk_pending WHERE file_name = ?",
+                String.class, fileName);
+    }
+
+    /**
+     * 删除待确认记录
+     *
+     * @param vectorIds 向量库记录 ID
+     */
+    public void deletePending(List<String> vectorIds) {
+        List<UUID> ids = new ArrayList<>(vectorIds.size());
+        for (String vectorId : vectorIds) {
+            ids.add(UUID.fromString(vectorId));
+        }
+        for (List<?> part : partition(ids)) {
+            jdbcTemplate.update("DELETE FROM vector_chunk_pending WHERE vector_id IN (" + placeholders(part.size())
+                    + ")", part.toArray());
+        }
+    }
+
+    private static List<List<?>> partition(List<?> values) {
+        List<List<?>> parts = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_LIST_SIZE) {
+            parts.add(values.subList(from, Math.min(values.size(), from + IN_LIST_SIZE)));
+        }
+        return parts;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
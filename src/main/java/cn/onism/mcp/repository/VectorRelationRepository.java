@@ -3,6 +3,8 @@ package cn.onism.mcp.repository;
 import cn.onism.mcp.entity.VectorRelation;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 /**
  * 向量关系存储库
  *
@@ -18,4 +20,12 @@ public interface VectorRelationRepository  extends JpaRepository<VectorRelation,
      * @return {@link VectorRelation }
      */
     VectorRelation getByFileHash(String fileHash);
+
+    /**
+     * 按文件名获取(最新的在前)
+     *
+     * @param fileName 文件名
+     * @return {@link List }<{@link VectorRelation }>
+     */
+    List<VectorRelation> findByFileNameOrderByIdDesc(String fileName);
 }
@@ -1,25 +1,52 @@
 package cn.onism.mcp.service;
 
+import cn.onism.mcp.config.RagProperties;
+import cn.onism.mcp.entity.VectorChunk;
 import cn.onism.mcp.entity.VectorRelation;
+import cn.onism.mcp.service.ingest.ChunkBatchWriter;
+import cn.onism.mcp.service.ingest.ChunkingContentHandler;
+import cn.onism.mcp.service.ingest.IngestInputStream;
+import cn.onism.mcp.service.ingest.IngestProgress;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.SAXException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * 文档服务
+ * <p>
+ * 先单独读取一遍计算文件哈希，与已入库文件重复时直接返回，不做任何解析与嵌入；
+ * 否则解析出的文本按窗口增量分割，分块按批嵌入并写入向量库，内存占用与文档大小无关
+ * (PDF 等需要随机访问的格式由 Tika 暂存到临时文件)。
+ * <p>
+ * 同名文件以新内容重新上传时按分块增量更新：内容未变化的分块沿用原有向量，只嵌入并写入变化的分块，
+ * 上一版本中不再存在的分块在保存后一次性删除，向量库中同一文件只保留一份。
+ * <p>
+ * 向量库与关系记录无法在同一事务中写入：写入向量库之前先记录为待确认，保存记录时在同一事务中确认；
+ * 进程在两者之间退出或删除过期分块失败时遗留的向量，在同名文件下次入库时清理
  *
  * @author Onism
  * @date 2025-03-30
  */
+@Slf4j
 @Service
 public class DocumentService {
 
@@ -29,6 +56,22 @@ public class DocumentService {
     @Resource
     private VectorRelationService vectorRelationService;
 
+    @Resource
+    private TokenTextSplitter tokenTextSplitter;
+
+    @Resource
+    private RagProperties ragProperties;
+
+    /**
+     * 自动识别格式的解析器(线程安全，可复用)
+     */
+    private final AutoDetectParser parser = new AutoDetectParser();
+
+    /**
+     * 按文件名分段加锁，同名文件的入库串行执行(并发时会沿用或删除同一批分块)
+     */
+    private final Object[] fileLocks = Stream.generate(Object::new).limit(64).toArray();
+
     /**
      * 处理文档
      *
@@ -36,49 +79,112 @@ public class DocumentService {
      * @throws IOException io异常
      */
     public void processDocument(MultipartFile file) throws IOException {
-        // 计算文件 hash
-        String fileHash = generateFileHash(file);
+        processDocument(file, file.getOriginalFilename(), new IngestProgress());
+    }
+
+    /**
+     * 计算文件哈希并查重，未入库过时再解析、分割与写入
+     *
+     * @param source   文档内容(需可重复读取，如暂存文件、上传文件)
+     * @param fileName 文件名
+     * @param progress 入库进度
+     * @throws IOException 读取或解析失败(已写入的分块会被撤销)
+     */
+    public void processDocument(InputStreamSource source, String fileName, IngestProgress progress) throws IOException {
+        synchronized (fileLocks[Math.floorMod(String.valueOf(fileName).hashCode(), fileLocks.length)]) {
+            ingest(source, fileName, progress);
+        }
+    }
 
+    private void ingest(InputStreamSource source, String fileName, IngestProgress progress) throws IOException {
+        long start = System.nanoTime();
+        removeOrphans(fileName);
+        progress.stage(IngestProgress.Stage.HASHING);
+        String fileHash;
+        try (InputStream inputStream = source.getInputStream()) {
+            fileHash = DigestUtils.sha256Hex(inputStream);
+        }
         // 查询是否已经存在该文件
         VectorRelation vectorRelation = vectorRelationService.getByFileHash(fileHash);
-
-        if(vectorRelation != null){
-            // 更新记录
+        if (vectorRelation != null) {
+            // 文件已入库，只更新记录
             vectorRelationService.updateById(vectorRelation);
-        } else { // 新增操作
-            // 解析文档
-            TikaDocumentReader tikaReader = new TikaDocumentReader(file.getResource());
-            List<Document> documents = tikaReader.read();
-
-            // 分割文本
-            TokenTextSplitter splitter = new TokenTextSplitter();
-            List<Document> documentList = splitter.transform(documents);
-            // 添加文件名称分类
-            documentList.forEach(doc -> doc.getMetadata().put("fileName",file.getOriginalFilename()));
-
-            // 存储到表
-            vectorStore.accept(documentList);
-
-            // 插入新记录
-            vectorRelation = new VectorRelation()
-                    .setFileName(file.getOriginalFilename())
-                    .setFileHash(fileHash);
-
-            vectorRelationService.createRelation(vectorRelation);
+            progress.stage(IngestProgress.Stage.DUPLICATE);
+            return;
+        }
+
+        progress.stage(IngestProgress.Stage.INGESTING);
+        RagProperties.IngestProperty config = ragProperties.getIngest();
+        // 同名文件的上一版本
+        List<VectorRelation> previous = vectorRelationService.listByFileName(fileName);
+        List<VectorChunk> previousChunks = vectorRelationService.getChunks(previous, fileName);
+        ChunkBatchWriter writer = new ChunkBatchWriter(vectorStore, config.getBatchSize(), previousChunks, progress,
+                ids -> vectorRelationService.addPending(fileName, ids));
+        Map<String, Object> metadata = new HashMap<>();
+        // 添加文件名称分类
+        metadata.put("fileName", fileName);
+        // 关闭时清理 Tika 暂存的临时文件
+        try (TikaInputStream stream = TikaInputStream.get(new IngestInputStream(source.getInputStream(), progress))) {
+            ChunkingContentHandler handler = new ChunkingContentHandler(tokenTextSplitter, config.getWindowChars(),
+                    metadata, writer);
+            parser.parse(stream, new BodyContentHandler(handler), new Metadata(), new ParseContext());
+            writer.flush();
+        } catch (IOException e) {
+            rollback(writer);
+            throw e;
+        } catch (TikaException | SAXException | RuntimeException e) {
+            rollback(writer);
+            throw new IOException("文档解析失败: " + e.getMessage(), e);
         }
+        progress.stage(IngestProgress.Stage.SAVING);
+
+        // 保存记录(同名文件更新为新版本)，再一次性删除过期分块
+        List<String> stale = writer.getStale();
+        try {
+            vectorRelationService.saveVersion(previous, fileName, fileHash, writer.getKept(), writer.getAdded(), stale);
+        } catch (RuntimeException e) {
+            rollback(writer);
+            throw e;
+        }
+        if (!stale.isEmpty()) {
+            try {
+                vectorStore.delete(stale);
+                vectorRelationService.removePending(stale);
+            } catch (RuntimeException e) {
+                // 已记录为待确认，下次入库时清理
+                log.warn("文档 [{}] 过期分块删除失败，下次入库时清理：{}", fileName, e.getMessage());
+            }
+        }
+        progress.stage(IngestProgress.Stage.COMPLETED);
+        log.info("文档 [{}] 入库完成，新增分块 {}，沿用分块 {}，删除分块 {}，耗时 {} ms", fileName, writer.getWritten(),
+                writer.getKept().size(), stale.size(), (System.nanoTime() - start) / 1_000_000);
     }
 
     /**
-     * 生成文件哈希值
-     *
-     * @param file 文件
-     * @return {@link String }
+     * 撤销本次写入，删除失败时保留待确认记录，下次入库时清理
      */
-    private String generateFileHash(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            return DigestUtils.sha256Hex(inputStream);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private void rollback(ChunkBatchWriter writer) {
+        try {
+            vectorRelationService.removePending(writer.rollback());
+        } catch (RuntimeException e) {
+            log.warn("撤销写入失败，下次入库时清理：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清理同名文件上次入库遗留的向量(已写入向量库但未记录，或已从记录中移除但未删除)
+     */
+    private void removeOrphans(String fileName) {
+        List<String> orphans = vectorRelationService.getPending(fileName);
+        if (orphans.isEmpty()) {
+            return;
+        }
+        try {
+            vectorStore.delete(orphans);
+            vectorRelationService.removePending(orphans);
+            log.info("文档 [{}] 清理遗留向量 {} 条", fileName, orphans.size());
+        } catch (RuntimeException e) {
+            log.warn("文档 [{}] 遗留向量清理失败：{}", fileName, e.getMessage());
         }
     }
 }
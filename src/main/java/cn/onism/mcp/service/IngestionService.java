@@ -0,0 +1,184 @@
+package cn.onism.mcp.service;
+
+import cn.onism.mcp.config.RagProperties;
+import cn.onism.mcp.constants.CodeEnum;
+import cn.onism.mcp.exception.CustomException;
+import cn.onism.mcp.service.ingest.IngestionJob;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文档异步入库服务
+ * <p>
+ * 上传的文件先暂存到临时文件(请求结束后上传文件即被清理)，再提交到有界的入库线程池，立即返回任务 ID；
+ * 排队已满时直接拒绝(背压)，不再占用磁盘与内存；任务结束后保留一段时间供查询状态，由后台定时清理。
+ * 暂存文件在任务结束、提交被拒绝或服务关闭时删除
+ *
+ * @author Onism
+ * @date 2025-08-18
+ */
+@Slf4j
+@Service
+public class IngestionService {
+
+    @Resource
+    private DocumentService documentService;
+
+    private final RagProperties.IngestProperty config;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 入库任务(任务 ID -> 任务)
+     */
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 未结束任务的暂存文件(任务 ID -> 文件)
+     */
+    private final Map<String, Path> spools = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-ingest-job-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IngestionService(RagProperties properties) {
+        this.config = properties.getIngest();
+        int workers = Math.max(1, config.getWorkers());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-ingest-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        long period = Math.max(1, config.getJobRetention() / 2);
+        sweeper.scheduleWithFixedDelay(this::evictFinished, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 提交入库任务
+     *
+     * @param file 上传的文件
+     * @return {@link IngestionJob }
+     * @throws IOException 暂存文件失败
+     * @throws CustomException 排队已满
+     */
+    public IngestionJob submit(MultipartFile file) throws IOException {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            // 排队已满时不再暂存文件
+            throw new CustomException(CodeEnum.INGEST_BUSY);
+        }
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString().replace("-", ""),
+                file.getOriginalFilename(), file.getSize());
+        Path spool = Files.createTempFile("mcp-ingest-", ".tmp");
+        spools.put(job.getId(), spool);
+        try {
+            file.transferTo(spool);
+            jobs.put(job.getId(), job);
+            executor.execute(() -> run(job, spool));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getId());
+            deleteSpool(job.getId());
+            if (e instanceof RejectedExecutionException) {
+                throw new CustomException(CodeEnum.INGEST_BUSY);
+            }
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * 查询入库任务
+     *
+     * @param id 任务 ID
+     * @return {@link IngestionJob }
+     * @throws CustomException 任务不存在或已过期
+     */
+    public IngestionJob getJob(String id) {
+        IngestionJob job = id == null ? null : jobs.get(id);
+        if (job == null) {
+            throw new CustomException(CodeEnum.DATA_NOT_EXIST);
+        }
+        return job;
+    }
+
+    private void run(IngestionJob job, Path spool) {
+        job.markStarted();
+        String error = null;
+        try {
+            documentService.processDocument(new FileSystemResource(spool), job.getFileName(), job.getProgress());
+        } catch (IOException | RuntimeException e) {
+            log.error("文档 [{}] 入库失败", job.getFileName(), e);
+            error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        } finally {
+            deleteSpool(job.getId());
+            job.markFinished(error);
+        }
+    }
+
+    private void deleteSpool(String jobId) {
+        Path spool = spools.remove(jobId);
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("临时文件 [{}] 删除失败：{}", spool, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理结束超过保留时长的任务
+     */
+    private void evictFinished() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < expireBefore);
+    }
+
+    /**
+     * 停止入库：排队中的任务不再执行，执行中的任务被中断，删除全部暂存文件
+     */
+    @PreDestroy
+    public void destroy() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (String jobId : List.copyOf(spools.keySet())) {
+            deleteSpool(jobId);
+            IngestionJob job = jobs.get(jobId);
+            if (job != null && !job.isFinished()) {
+                job.markFinished("服务已关闭");
+            }
+        }
+    }
+}
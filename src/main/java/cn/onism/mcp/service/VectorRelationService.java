@@ -1,13 +1,19 @@
 package cn.onism.mcp.service;
 
 import cn.onism.mcp.constants.CodeEnum;
+import cn.onism.mcp.entity.VectorChunk;
 import cn.onism.mcp.entity.VectorRelation;
 import cn.onism.mcp.exception.CustomException;
+import cn.onism.mcp.repository.VectorChunkRepository;
 import cn.onism.mcp.repository.VectorRelationRepository;
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Vector 关系服务
  *
@@ -20,6 +26,9 @@ public class VectorRelationService {
     @Resource
     private VectorRelationRepository repository;
 
+    @Resource
+    private VectorChunkRepository chunkRepository;
+
     /**
      * 创建记录
      *
@@ -51,4 +60,103 @@ public class VectorRelationService {
         getById(relation.getId());
         repository.save(relation);
     }
+
+    /**
+     * 按文件名获取(最新的在前)
+     *
+     * @param fileName 文件名
+     * @return {@link List }<{@link VectorRelation }>
+     */
+    public List<VectorRelation> listByFileName(String fileName) {
+        return repository.findByFileNameOrderByIdDesc(fileName);
+    }
+
+    /**
+     * 获取文档已入库的分块(未记录分块的旧数据按向量元数据中的文件名查找)
+     *
+     * @param relations 同名文件的关系记录
+     * @param fileName  文件名
+     * @return {@link List }<{@link VectorChunk }>
+     */
+    public List<VectorChunk> getChunks(List<VectorRelation> relations, String fileName) {
+        if (relations.isEmpty()) {
+            return List.of();
+        }
+        List<Long> relationIds = new ArrayList<>(relations.size());
+        for (VectorRelation relation : relations) {
+            relationIds.add(relation.getId());
+        }
+        List<VectorChunk> chunks = chunkRepository.findByRelationIds(relationIds);
+        return chunks.isEmpty() ? chunkRepository.findUntrackedByFileName(fileName) : chunks;
+    }
+
+    /**
+     * 记录待确认的向量库记录(写入向量库之前调用)
+     *
+     * @param fileName  文件名
+     * @param vectorIds 向量库记录 ID
+     */
+    public void addPending(String fileName, List<String> vectorIds) {
+        chunkRepository.insertPending(fileName, vectorIds);
+    }
+
+    /**
+     * 获取文件遗留的待确认向量库记录(上次入库在写入向量库与保存记录之间中断，或过期分块删除失败)
+     *
+     * @param fileName 文件名
+     * @return {@link List }<{@link String }>
+     */
+    public List<String> getPending(String fileName) {
+        return chunkRepository.findPendingByFileName(fileName);
+    }
+
+    /**
+     * 删除待确认记录(向量已删除或已记录到分块表)
+     *
+     * @param vectorIds 向量库记录 ID
+     */
+    public void removePending(List<String> vectorIds) {
+        chunkRepository.deletePending(vectorIds);
+    }
+
+    /**
+     * 保存文档新版本：更新(或创建)关系记录，删除过期分块记录，记录新增分块；其余同名旧记录合并到该记录。
+     * 新增分块的待确认记录在同一事务中删除，过期分块记录为待确认(从向量库删除后再移除)
+     *
+     * @param relations 同名文件的关系记录(最新的在前)
+     * @param fileName  文件名
+     * @param fileHash  新版本的文件哈希
+     * @param kept      沿用上一版本的分块
+     * @param added     新写入的分块
+     * @param stale     过期分块的向量库记录 ID
+     * @return {@link VectorRelation }
+     */
+    @Transactional
+    public VectorRelation saveVersion(List<VectorRelation> relations, String fileName, String fileHash,
+                                      List<VectorChunk> kept, List<VectorChunk> added, List<String> stale) {
+        VectorRelation relation = relations.isEmpty() ? new VectorRelation().setFileName(fileName) : relations.get(0);
+        relation = repository.save(relation.setFileHash(fileHash));
+        List<VectorChunk> untracked = new ArrayList<>(added);
+        List<String> moved = new ArrayList<>(stale);
+        for (VectorChunk chunk : kept) {
+            // 属于其他记录或尚未记录的分块改为记录到该记录下
+            if (!Objects.equals(chunk.getRelationId(), relation.getId())) {
+                untracked.add(chunk);
+                moved.add(chunk.getVectorId());
+            }
+        }
+        chunkRepository.deleteByVectorIds(moved);
+        chunkRepository.insert(relation.getId(), untracked);
+        List<String> addedIds = new ArrayList<>(added.size());
+        for (VectorChunk chunk : added) {
+            addedIds.add(chunk.getVectorId());
+        }
+        chunkRepository.deletePending(addedIds);
+        chunkRepository.insertPending(fileName, stale);
+        for (VectorRelation other : relations.subList(Math.min(1, relations.size()), relations.size())) {
+            chunkRepository.deleteByRelationId(other.getId());
+            repository.delete(other);
+        }
+        return relation;
+    }
 }
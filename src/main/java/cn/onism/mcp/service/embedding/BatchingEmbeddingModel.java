@@ -0,0 +1,317 @@
+package cn.onism.mcp.service.embedding;
+
+import cn.onism.mcp.config.RagProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分批并发的嵌入模型(装饰实际的嵌入模型)
+ * <p>
+ * 一次嵌入的文本按条数与估算 token 数切分为多个请求，并发发送，同时进行中的请求数受全局上限约束
+ * (多个入库任务共享，既能压满嵌入服务又不会使其过载)；失败的请求按指数退避(带抖动)重试。
+ * 写入向量库的分块先查询向量缓存，只有未命中的分块才调用嵌入模型。
+ * 发布的指标：
+ * <ul>
+ *     <li>mcp.embedding.request：单次请求耗时(按结果区分)</li>
+ *     <li>mcp.embedding.chunks / mcp.embedding.tokens：已嵌入的文本数与估算 token 数</li>
+ *     <li>mcp.embedding.throughput：最近一分钟的吞吐量(unit=chunks 或 tokens，每秒)</li>
+ *     <li>mcp.embedding.retries / mcp.embedding.inflight：重试次数与进行中的请求数</li>
+ * </ul>
+ *
+ * @author Onism
+ * @date 2025-08-19
+ */
+@Slf4j
+public class BatchingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+
+    private final RagProperties.EmbeddingProperty config;
+
+    /**
+     * 分块向量缓存，为空时不缓存
+     */
+    private final EmbeddingCache cache;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    /**
+     * 请求线程池，线程数即进行中的请求数上限
+     */
+    private final ExecutorService executor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final RateWindow chunkRate = new RateWindow();
+
+    private final RateWindow tokenRate = new RateWindow();
+
+    private final Timer successTimer;
+
+    private final Timer errorTimer;
+
+    private final Counter chunks;
+
+    private final Counter tokens;
+
+    private final Counter retries;
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate, RagProperties.EmbeddingProperty config,
+                                  EmbeddingCache cache, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.config = config;
+        this.cache = cache;
+        int threads = Math.max(1, config.getMaxInFlight());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-embedding-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ((ThreadPoolExecutor) this.executor).allowCoreThreadTimeOut(true);
+        this.successTimer = Timer.builder("mcp.embedding.request").tag("outcome", "success")
+                .publishPercentiles(0.5, 0.99).register(registry);
+        this.errorTimer = Timer.builder("mcp.embedding.request").tag("outcome", "error").register(registry);
+        this.chunks = Counter.builder("mcp.embedding.chunks").register(registry);
+        this.tokens = Counter.builder("mcp.embedding.tokens").register(registry);
+        this.retries = Counter.builder("mcp.embedding.retries").register(registry);
+        Gauge.builder("mcp.embedding.inflight", inFlight, AtomicInteger::get).register(registry);
+        Gauge.builder("mcp.embedding.throughput", chunkRate, RateWindow::perSecond).tag("unit", "chunks")
+                .register(registry);
+        Gauge.builder("mcp.embedding.throughput", tokenRate, RateWindow::perSecond).tag("unit", "tokens")
+                .register(registry);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        if (texts.isEmpty()) {
+            return new EmbeddingResponse(List.of());
+        }
+        int[] textTokens = new int[texts.size()];
+        for (int i = 0; i < texts.size(); i++) {
+            textTokens[i] = tokenCountEstimator.estimate(texts.get(i));
+        }
+        List<int[]> batches = split(textTokens);
+        // 通过线程池提交的 Future 取消时会中断执行中的请求(CompletableFuture 的 cancel 不会中断)
+        List<Future<EmbeddingResponse>> futures = new ArrayList<>(batches.size());
+        for (int[] batch : batches) {
+            EmbeddingRequest batchRequest = new EmbeddingRequest(texts.subList(batch[0], batch[1]), request.getOptions());
+            long batchTokens = 0;
+            for (int i = batch[0]; i < batch[1]; i++) {
+                batchTokens += textTokens[i];
+            }
+            long total = batchTokens;
+            futures.add(executor.submit(() -> callWithRetry(batchRequest, total)));
+        }
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        try {
+            for (int b = 0; b < batches.size(); b++) {
+                List<Embedding> results = futures.get(b).get().getResults();
+                if (results.size() != batches.get(b)[1] - batches.get(b)[0]) {
+                    throw new IllegalStateException("嵌入模型返回的向量数与文本数不一致");
+                }
+                for (Embedding embedding : results) {
+                    // 按原文本顺序重新编号
+                    embeddings.add(new Embedding(embedding.getOutput(), embeddings.size()));
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("嵌入请求被中断", e);
+        } catch (ExecutionException | CancellationException e) {
+            // 任一批失败时整体失败，不再等待其余批次
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("嵌入请求失败: " + cause.getMessage(), cause);
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    /**
+     * 单个文档同样经过缓存、重试与指标统计
+     */
+    @Override
+    public float[] embed(Document document) {
+        return embed(List.of(document), EmbeddingOptionsBuilder.builder().build(), null).get(0);
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        // 忽略向量库传入的分批策略，由本类统一分批并发
+        List<String> texts = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            texts.add(document.getText());
+        }
+        if (cache == null) {
+            return outputs(call(new EmbeddingRequest(texts, options)));
+        }
+        List<String> hashes = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            hashes.add(EmbeddingCache.contentHash(text));
+        }
+        float[][] cached = cache.getAll(hashes);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < cached.length; i++) {
+            if (cached[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> missingTexts = new ArrayList<>(missing.size());
+            List<String> missingHashes = new ArrayList<>(missing.size());
+            for (int i : missing) {
+                missingTexts.add(texts.get(i));
+                missingHashes.add(hashes.get(i));
+            }
+            List<float[]> embedded = outputs(call(new EmbeddingRequest(missingTexts, options)));
+            cache.putAll(missingHashes, embedded);
+            for (int i = 0; i < missing.size(); i++) {
+                cached[missing.get(i)] = embedded.get(i);
+            }
+        }
+        return new ArrayList<>(List.of(cached));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private static List<float[]> outputs(EmbeddingResponse response) {
+        List<float[]> embeddings = new ArrayList<>(response.getResults().size());
+        for (Embedding embedding : response.getResults()) {
+            embeddings.add(embedding.getOutput());
+        }
+        return embeddings;
+    }
+
+    /**
+     * 按条数与 token 数切分为连续的批次 [from, to)
+     */
+    private List<int[]> split(int[] textTokens) {
+        int maxSize = Math.max(1, config.getMaxBatchSize());
+        long maxTokens = config.getMaxBatchTokens() > 0 ? config.getMaxBatchTokens() : Long.MAX_VALUE;
+        List<int[]> batches = new ArrayList<>();
+        int from = 0;
+        long batchTokens = 0;
+        for (int i = 0; i < textTokens.length; i++) {
+            if (i > from && (i - from >= maxSize || batchTokens + textTokens[i] > maxTokens)) {
+                batches.add(new int[]{from, i});
+                from = i;
+                batchTokens = 0;
+            }
+            batchTokens += textTokens[i];
+        }
+        batches.add(new int[]{from, textTokens.length});
+        return batches;
+    }
+
+    /**
+     * 发送单个请求，失败时按指数退避重试(参数错误不重试)
+     */
+    private EmbeddingResponse callWithRetry(EmbeddingRequest request, long requestTokens) {
+        long backoff = Math.max(1, config.getInitialBackoff());
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            try {
+                EmbeddingResponse response = delegate.call(request);
+                successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                int size = request.getInstructions().size();
+                chunks.increment(size);
+                tokens.increment(requestTokens);
+                chunkRate.add(size);
+                tokenRate.add(requestTokens);
+                return response;
+            } catch (RuntimeException e) {
+                errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (attempt >= config.getMaxAttempts() || e instanceof IllegalArgumentException) {
+                    throw e;
+                }
+                retries.increment();
+                log.warn("嵌入请求失败(第 {} 次)，{} ms 后重试：{}", attempt, backoff, e.getMessage());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            try {
+                // 抖动避免并发请求同时重试
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("嵌入请求重试被中断", e);
+            }
+            backoff = Math.min(backoff * 2, Math.max(backoff, config.getMaxBackoff()));
+        }
+    }
+
+    /**
+     * 关闭请求线程池
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 最近一分钟的计数(按秒分桶)
+     */
+    private static class RateWindow {
+
+        private static final int SECONDS = 60;
+
+        private final long[] counts = new long[SECONDS];
+
+        private final long[] buckets = new long[SECONDS];
+
+        synchronized void add(long count) {
+            long now = System.currentTimeMillis() / 1000;
+            int index = (int) (now % SECONDS);
+            if (buckets[index] != now) {
+                buckets[index] = now;
+                counts[index] = 0;
+            }
+            counts[index] += count;
+        }
+
+        synchronized double perSecond() {
+            long now = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < SECONDS; i++) {
+                if (now - buckets[i] < SECONDS) {
+                    total += counts[i];
+                }
+            }
+            return (double) total / SECONDS;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package cn.onism.mcp.service.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pgvector.PGvector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分块向量缓存
+ * <p>
+ * 以 分块内容哈希(SHA-256) + 嵌入模型 为键，内存(Caffeine)与数据库表 embedding_cache 两级缓存，
+ * 内容未变化的分块重新入库时不再调用嵌入模型；数据库缓存读写失败(如未建表)时只记录日志，按未命中处理
+ *
+ * @author Onism
+ * @date 2025-08-20
+ */
+@Slf4j
+public class EmbeddingCache {
+
+    /**
+     * 单条 SQL 查询的哈希数上限
+     */
+    private static final int LOOKUP_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String model;
+
+    private final boolean persistent;
+
+    private final Cache<String, float[]> memory;
+
+    private final Counter memoryHits;
+
+    private final Counter tableHits;
+
+    private final Counter misses;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate, String model, long maxEntries, boolean persistent,
+                          MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.model = model;
+        this.persistent = persistent;
+        this.memory = Caffeine.newBuilder().maximumSize(Math.max(0, maxEntries)).build();
+        this.memoryHits = Counter.builder("mcp.embedding.cache").tag("result", "memory").register(registry);
+        this.tableHits = Counter.builder("mcp.embedding.cache").tag("result", "table").register(registry);
+        this.misses = Counter.builder("mcp.embedding.cache").tag("result", "miss").register(registry);
+    }
+
+    /**
+     * 分块内容哈希
+     *
+     * @param content 分块文本
+     * @return 十六进制 SHA-256
+     */
+    public static String contentHash(String content) {
+        return DigestUtils.sha256Hex(content);
+    }
+
+    /**
+     * 批量查询向量
+     *
+     * @param hashes 分块内容哈希
+     * @return 与 hashes 一一对应，未命中为 null
+     */
+    public float[][] getAll(List<String> hashes) {
+        float[][] embeddings = new float[hashes.size()][];
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            embeddings[i] = memory.getIfPresent(hashes.get(i));
+            if (embeddings[i] == null) {
+                pending.add(hashes.get(i));
+            }
+        }
+        memoryHits.increment(hashes.size() - pending.size());
+        Map<String, float[]> stored = persistent && !pending.isEmpty() ? load(pending) : Collections.emptyMap();
+        int found = 0;
+        for (int i = 0; i < hashes.size(); i++) {
+            if (embeddings[i] == null && (embeddings[i] = stored.get(hashes.get(i))) != null) {
+                memory.put(hashes.get(i), embeddings[i]);
+                found++;
+            }
+        }
+        tableHits.increment(found);
+        misses.increment(pending.size() - found);
+        return embeddings;
+    }
+
+    /**
+     * 批量保存向量
+     *
+     * @param hashes     分块内容哈希
+     * @param embeddings 与 hashes 一一对应的向量
+     */
+    public void putAll(List<String> hashes, List<float[]> embeddings) {
+        for (int i = 0; i < hashes.size(); i++) {
+            memory.put(hashes.get(i), embeddings.get(i));
+        }
+        if (!persistent || hashes.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO embedding_cache (content_hash, model, embedding) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (content_hash, model) DO NOTHING", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setString(1, hashes.get(i));
+                    ps.setString(2, model);
+                    ps.setObject(3, new PGvector(embeddings.get(i)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return hashes.size();
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("向量缓存写入失败：{}", e.getMessage());
+        }
+    }
+
+    private Map<String, float[]> load(List<String> hashes) {
+        Map<String, float[]> stored = new HashMap<>();
+        try {
+            for (int from = 0; from < hashes.size(); from += LOOKUP_SIZE) {
+                List<String> part = hashes.subList(from, Math.min(hashes.size(), from + LOOKUP_SIZE));
+                List<Object> args = new ArrayList<>(part.size() + 1);
+                args.add(model);
+                args.addAll(part);
+                jdbcTemplate.query("SELECT content_hash, embedding::text FROM embedding_cache WHERE model = ? "
+                                + "AND content_hash IN (" + String.join(", ", Collections.nCopies(part.size(), "?")) + ")",
+                        rs -> {
+                            try {
+                                stored.put(rs.getString(1), new PGvector(rs.getString(2)).toArray());
+                            } catch (SQLException e) {
+                                log.warn("向量缓存记录 [{}] 解析失败：{}", rs.getString(1), e.getMessage());
+                            }
+                        }, args.toArray());
+            }
+        } catch (DataAccessException e) {
+            log.warn("向量缓存查询失败：{}", e.getMessage());
+        }
+        return stored;
+    }
+}
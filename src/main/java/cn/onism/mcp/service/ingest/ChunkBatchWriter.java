@@ -0,0 +1,159 @@
+package cn.onism.mcp.service.ingest;
+
+import cn.onism.mcp.entity.VectorChunk;
+import cn.onism.mcp.service.embedding.EmbeddingCache;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 分块批量写入
+ * <p>
+ * 分块攒满一批后写入向量库(每批调用一次嵌入模型并批量插入)，内存中最多保留一批分块；
+ * 同名文件重新入库时，内容与上一版本相同的分块直接沿用原有向量，不再嵌入与写入，上一版本中未被沿用的分块即为过期分块；
+ * 每批写入向量库之前先回调该批分块的 ID(由调用方记录为待确认，进程在写入与保存记录之间退出时可据此清理)，
+ * 入库失败时撤销本次写入
+ *
+ * @author Onism
+ * @date 2025-08-17
+ */
+public class ChunkBatchWriter implements Consumer<Document> {
+
+    private final VectorStore vectorStore;
+
+    private final int batchSize;
+
+    private final IngestProgress progress;
+
+    /**
+     * 每批写入向量库之前的回调(参数为该批分块 ID)
+     */
+    private final Consumer<List<String>> beforeWrite;
+
+    /**
+     * 上一版本的分块(内容哈希 -> 分块，内容相同的分块可能有多个)
+     */
+    private final Map<String, Deque<VectorChunk>> previous = new HashMap<>();
+
+    private List<Document> batch;
+
+    private List<String> batchHashes;
+
+    /**
+     * 本次新写入的分块
+     */
+    private final List<VectorChunk> added = new ArrayList<>();
+
+    /**
+     * 已提交给向量库的分块 ID(含写入失败的批次，撤销时一并删除)
+     */
+    private final List<String> submitted = new ArrayList<>();
+
+    /**
+     * 沿用上一版本的分块
+     */
+    private final List<VectorChunk> kept = new ArrayList<>();
+
+    public ChunkBatchWriter(VectorStore vectorStore, int batchSize, List<VectorChunk> previousChunks,
+                            IngestProgress progress, Consumer<List<String>> beforeWrite) {
+        this.vectorStore = vectorStore;
+        this.batchSize = Math.max(1, batchSize);
+        this.progress = progress;
+        this.beforeWrite = beforeWrite;
+        for (VectorChunk chunk : previousChunks) {
+            previous.computeIfAbsent(chunk.getContentHash(), hash -> new ArrayDeque<>()).add(chunk);
+        }
+        this.batch = new ArrayList<>(this.batchSize);
+        this.batchHashes = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    public void accept(Document chunk) {
+        String contentHash = EmbeddingCache.contentHash(chunk.getText());
+        Deque<VectorChunk> same = previous.get(contentHash);
+        if (same != null && !same.isEmpty()) {
+            kept.add(same.poll());
+            progress.addReused(1);
+            return;
+        }
+        batch.add(chunk);
+        batchHashes.add(contentHash);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 写入未满一批的剩余分块
+     */
+    public void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Document document : batch) {
+            ids.add(document.getId());
+        }
+        beforeWrite.accept(ids);
+        submitted.addAll(ids);
+        vectorStore.add(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            added.add(new VectorChunk(null, ids.get(i), batchHashes.get(i)));
+        }
+        progress.addChunks(batch.size());
+        batch = new ArrayList<>(batchSize);
+        batchHashes = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * 撤销本次写入(删除已提交给向量库的分块，沿用的分块不受影响)
+     *
+     * @return 已删除的分块 ID
+     */
+    public List<String> rollback() {
+        batch.clear();
+        batchHashes.clear();
+        List<String> ids = List.copyOf(submitted);
+        if (!ids.isEmpty()) {
+            vectorStore.delete(ids);
+        }
+        submitted.clear();
+        added.clear();
+        return ids;
+    }
+
+    /**
+     * 新写入的分块数
+     */
+    public int getWritten() {
+        return added.size();
+    }
+
+    public List<VectorChunk> getAdded() {
+        return added;
+    }
+
+    public List<VectorChunk> getKept() {
+        return kept;
+    }
+
+    /**
+     * 上一版本中未被沿用的分块 ID(全部分块处理完毕后调用)
+     */
+    public List<String> getStale() {
+        List<String> stale = new ArrayList<>();
+        for (Deque<VectorChunk> chunks : previous.values()) {
+            for (VectorChunk chunk : chunks) {
+                stale.add(chunk.getVectorId());
+            }
+        }
+        return stale;
+    }
+}
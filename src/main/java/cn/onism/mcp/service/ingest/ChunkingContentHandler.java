@@ -0,0 +1,167 @@
+package cn.onism.mcp.service.ingest;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 增量分割的解析内容处理器
+ * <p>
+ * 接收 Tika 解析出的文本(SAX 事件)，缓冲达到窗口大小后在段落/句子边界处切出一段交给分割器，
+ * 分块逐个回调给消费者，内存中只保留一个窗口的文本。
+ * <p>
+ * 优先在由内容决定的段落边界处切分(行内容的哈希值满足条件)：文档某处修改后，之后的切分点与修改前一致，
+ * 未修改部分的分块保持不变，重新入库时可以沿用原有向量；缓冲达到两个窗口仍找不到这样的边界时，
+ * 在两个窗口范围的后半段的段落/句子边界处切分，此时每段的最后一个分块可能未满，放回缓冲与后续文本一起分割。
+ * 切分位置只由文本内容决定，与解析器每次回调的文本长度无关
+ *
+ * @author Onism
+ * @date 2025-08-17
+ */
+public class ChunkingContentHandler extends DefaultHandler {
+
+    /**
+     * 句子结束符(找不到换行时在这些字符之后切分)
+     */
+    private static final String SENTENCE_ENDS = "。！？；.!?;";
+
+    /**
+     * 内容定义边界的哈希掩码(平均每 4 个非空行有一个可切分的边界)
+     */
+    private static final int BOUNDARY_MASK = 0x3;
+
+    private final TextSplitter splitter;
+
+    private final int windowChars;
+
+    /**
+     * 分块的元数据(如文件名)，每个分块持有独立的副本
+     */
+    private final Map<String, Object> metadata;
+
+    private final Consumer<Document> consumer;
+
+    private final StringBuilder buffer;
+
+    public ChunkingContentHandler(TextSplitter splitter, int windowChars, Map<String, Object> metadata,
+                                  Consumer<Document> consumer) {
+        this.splitter = splitter;
+        this.windowChars = Math.max(1024, windowChars);
+        this.metadata = metadata;
+        this.consumer = consumer;
+        this.buffer = new StringBuilder(this.windowChars * 2 + 1024);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        buffer.append(ch, start, length);
+        while (buffer.length() >= windowChars && flush(false)) {
+            // 一次回调的文本可能跨越多个窗口
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        // XHTML 输出的块级元素之间的换行，保留作为段落边界
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() {
+        flush(true);
+    }
+
+    /**
+     * 分割缓冲的文本
+     *
+     * @param last 是否为文档末尾(分割全部文本)
+     * @return 是否切出了文本
+     */
+    private boolean flush(boolean last) {
+        int cut = last ? buffer.length() : contentBoundary();
+        boolean aligned = cut > 0;
+        if (!last && !aligned) {
+            if (buffer.length() < maxChars()) {
+                // 等待后续文本中的内容定义边界
+                return false;
+            }
+            cut = boundary();
+        }
+        if (cut <= 0) {
+            return false;
+        }
+        String text = buffer.substring(0, cut);
+        buffer.delete(0, cut);
+        if (text.isBlank()) {
+            return true;
+        }
+        List<Document> chunks = splitter.apply(List.of(new Document(text, new HashMap<>(metadata))));
+        int emit = chunks.size();
+        if (!last && !aligned && emit > 1) {
+            // 最后一个分块可能未满，与后续文本一起重新分割
+            emit--;
+            buffer.insert(0, chunks.get(emit).getText() + " ");
+        }
+        for (int i = 0; i < emit; i++) {
+            consumer.accept(chunks.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * 查找内容定义边界的范围(两个窗口)
+     */
+    private int maxChars() {
+        return windowChars * 2;
+    }
+
+    /**
+     * 从窗口一半处开始查找第一个内容定义的段落边界：非空行的哈希值满足掩码条件时在其后切分，找不到时返回 -1
+     */
+    private int contentBoundary() {
+        int from = windowChars / 2;
+        int lineStart = buffer.lastIndexOf("\n", from - 1) + 1;
+        for (int end = buffer.indexOf("\n", from); end >= 0 && end < maxChars(); end = buffer.indexOf("\n", lineStart)) {
+            int hash = 0;
+            boolean blank = true;
+            for (int i = lineStart; i < end; i++) {
+                char c = buffer.charAt(i);
+                hash = 31 * hash + c;
+                blank &= Character.isWhitespace(c);
+            }
+            if (!blank && (hash & BOUNDARY_MASK) == 0) {
+                return end + 1;
+            }
+            lineStart = end + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * 在两个窗口范围的后半段中查找切分位置：优先换行，其次句子结束符，再次空白；均找不到时整段切分
+     */
+    private int boundary() {
+        int to = maxChars();
+        int from = to / 2;
+        int newline = buffer.lastIndexOf("\n", to - 1);
+        if (newline >= from) {
+            return newline + 1;
+        }
+        for (int i = to - 1; i >= from; i--) {
+            if (SENTENCE_ENDS.indexOf(buffer.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        for (int i = to - 1; i >= from; i--) {
+            if (Character.isWhitespace(buffer.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+}
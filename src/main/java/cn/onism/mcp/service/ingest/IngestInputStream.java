@@ -0,0 +1,54 @@
+package cn.onism.mcp.service.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取时统计进度的输入流
+ *
+ * @author Onism
+ * @date 2025-08-18
+ */
+public class IngestInputStream extends FilterInputStream {
+
+    private final IngestProgress progress;
+
+    public IngestInputStream(InputStream in, IngestProgress progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            progress.addBytes(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            progress.addBytes(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            progress.addBytes(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        // 重置后重复读取的字节会重复计入进度
+        return false;
+    }
+}
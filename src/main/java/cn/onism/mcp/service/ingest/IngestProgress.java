@@ -0,0 +1,99 @@
+package cn.onism.mcp.service.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文档入库进度(由入库线程更新，其他线程读取)
+ *
+ * @author Onism
+ * @date 2025-08-18
+ */
+public class IngestProgress {
+
+    private volatile Stage stage = Stage.QUEUED;
+
+    /**
+     * 已读取的文件字节数
+     */
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    /**
+     * 已嵌入并写入的分块数
+     */
+    private final AtomicLong chunksEmbedded = new AtomicLong();
+
+    /**
+     * 沿用上一版本向量的分块数(内容未变化，无需嵌入)
+     */
+    private final AtomicLong chunksReused = new AtomicLong();
+
+    public void stage(Stage stage) {
+        this.stage = stage;
+    }
+
+    public void addBytes(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void addChunks(int chunks) {
+        chunksEmbedded.addAndGet(chunks);
+    }
+
+    public void addReused(int chunks) {
+        chunksReused.addAndGet(chunks);
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getChunksEmbedded() {
+        return chunksEmbedded.get();
+    }
+
+    public long getChunksReused() {
+        return chunksReused.get();
+    }
+
+    /**
+     * 入库阶段
+     */
+    public enum Stage {
+        /**
+         * 排队等待
+         */
+        QUEUED,
+        /**
+         * 计算文件哈希并检查是否已入库
+         */
+        HASHING,
+        /**
+         * 解析、分割与嵌入写入(流式进行，交替执行)
+         */
+        INGESTING,
+        /**
+         * 保存关系记录
+         */
+        SAVING,
+        /**
+         * 已完成
+         */
+        COMPLETED,
+        /**
+         * 文件已入库过(未解析与嵌入)
+         */
+        DUPLICATE,
+        /**
+         * 失败
+         */
+        FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == DUPLICATE || this == FAILED;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package cn.onism.mcp.service.ingest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * 文档入库任务(序列化为状态查询接口的返回值)
+ *
+ * @author Onism
+ * @date 2025-08-18
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestionJob {
+
+    private final String id;
+
+    private final String fileName;
+
+    /**
+     * 文件字节数
+     */
+    private final long fileBytes;
+
+    /**
+     * 提交时间(毫秒时间戳)
+     */
+    private final long submittedAt;
+
+    /**
+     * 开始执行时间(毫秒时间戳)，排队中为空
+     */
+    private volatile Long startedAt;
+
+    /**
+     * 结束时间(毫秒时间戳)，执行中为空
+     */
+    private volatile Long finishedAt;
+
+    /**
+     * 失败原因
+     */
+    private volatile String error;
+
+    @JsonIgnore
+    private final IngestProgress progress = new IngestProgress();
+
+    public IngestionJob(String id, String fileName, long fileBytes) {
+        this.id = id;
+        this.fileName = fileName;
+        this.fileBytes = fileBytes;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public void markStarted() {
+        startedAt = System.currentTimeMillis();
+    }
+
+    public void markFinished(String error) {
+        this.error = error;
+        if (error != null) {
+            progress.stage(IngestProgress.Stage.FAILED);
+        }
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public IngestProgress.Stage getStage() {
+        return progress.getStage();
+    }
+
+    public long getBytesRead() {
+        return progress.getBytesRead();
+    }
+
+    public long getChunksEmbedded() {
+        return progress.getChunksEmbedded();
+    }
+
+    public long getChunksReused() {
+        return progress.getChunksReused();
+    }
+
+    /**
+     * 嵌入吞吐量(分块/秒)，未开始时为空
+     */
+    public Double getChunksPerSecond() {
+        Long started = startedAt;
+        if (started == null) {
+            return null;
+        }
+        Long finished = finishedAt;
+        long elapsed = (finished == null ? System.currentTimeMillis() : finished) - started;
+        return elapsed <= 0 ? 0 : Math.round(getChunksEmbedded() * 1000.0 / elapsed * 100) / 100.0;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
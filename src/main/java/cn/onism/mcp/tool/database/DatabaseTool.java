@@ -1,18 +1,45 @@
 package cn.onism.mcp.tool.database;
 
 import cn.onism.mcp.annotations.McpTool;
+import cn.onism.mcp.tool.database.cache.QueryResultCache;
+import cn.onism.mcp.tool.database.export.ExportFormat;
+import cn.onism.mcp.tool.database.export.ExportService;
+import cn.onism.mcp.tool.database.fanout.FanOutMode;
+import cn.onism.mcp.tool.database.fanout.FanOutQueryService;
+import cn.onism.mcp.tool.database.fanout.FanOutResult;
+import cn.onism.mcp.tool.database.fanout.ShardStat;
+import cn.onism.mcp.tool.database.federation.FederatedQueryService;
+import cn.onism.mcp.tool.database.federation.JoinResult;
+import cn.onism.mcp.tool.database.federation.JoinSource;
+import cn.onism.mcp.tool.database.federation.JoinType;
 import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.manage.QueryExecutor;
+import cn.onism.mcp.tool.database.manage.SchemaCatalog;
+import cn.onism.mcp.tool.database.manage.TableSchema;
+import cn.onism.mcp.tool.database.page.PageResult;
+import cn.onism.mcp.tool.database.page.PaginationService;
+import cn.onism.mcp.tool.database.shape.ColumnStats;
+import cn.onism.mcp.tool.database.shape.ResultShaper;
+import cn.onism.mcp.tool.database.shape.ShapedResult;
 import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.DataSourceUnavailableException;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 数据库工具
@@ -29,27 +56,322 @@ public class DatabaseTool {
      */
     private final DataSourceManager dataSourceManager;
 
+    /**
+     * 查询结果缓存
+     */
+    private final QueryResultCache queryResultCache;
+
+    /**
+     * 异步查询执行器
+     */
+    private final QueryExecutor queryExecutor;
+
+    /**
+     * 分片并发查询
+     */
+    private final FanOutQueryService fanOutQueryService;
+
+    /**
+     * 跨数据源关联查询
+     */
+    private final FederatedQueryService federatedQueryService;
+
+    /**
+     * 分页查询
+     */
+    private final PaginationService paginationService;
+
+    /**
+     * 表结构目录
+     */
+    private final SchemaCatalog schemaCatalog;
+
+    /**
+     * 查询结果导出
+     */
+    private final ExportService exportService;
+
+    /**
+     * 查询结果裁剪
+     */
+    private final ResultShaper resultShaper;
+
     @Autowired
-    public DatabaseTool(DataSourceManager dataSourceManager) {
+    public DatabaseTool(DataSourceManager dataSourceManager, QueryResultCache queryResultCache,
+                        QueryExecutor queryExecutor, FanOutQueryService fanOutQueryService,
+                        FederatedQueryService federatedQueryService, PaginationService paginationService,
+                        SchemaCatalog schemaCatalog, ExportService exportService, ResultShaper resultShaper) {
         this.dataSourceManager = dataSourceManager;
+        this.queryResultCache = queryResultCache;
+        this.queryExecutor = queryExecutor;
+        this.fanOutQueryService = fanOutQueryService;
+        this.federatedQueryService = federatedQueryService;
+        this.paginationService = paginationService;
+        this.schemaCatalog = schemaCatalog;
+        this.exportService = exportService;
+        this.resultShaper = resultShaper;
     }
 
 
-    @Tool(description = "执行数据库语句，其中 datasourceId 为数据源；param 为需要封装的参数，key 为封装参数的索引位置，value 为封装参数的值")
+    @Tool(description = "执行数据库语句，其中 datasourceId 为数据源；param 为需要封装的参数，key 为封装参数的索引位置，value 为封装参数的值；" +
+            "format 为 COLUMNAR 时列名只返回一次(columns)，行数据以数组形式返回(rows)，宽表/大结果集推荐使用；" +
+            "返回 retryAfterSeconds 时表示数据源暂不可用(已熔断)，请在该时长之后再重试，不要立即重复调用；" +
+            "结果超出 token 预算时 sampled 为 true，只返回前若干行、各列统计(columnStats：最值、去重数、空值数)与 handle，" +
+            "请优先根据列统计回答或改写为聚合查询，确需更多行时再通过 fetchMoreRows 按 handle 读取")
     public DatabaseResponse executeSQL(DatabaseRequest request) {
         try {
             DataSourceStrategy strategy = dataSourceManager.getStrategy(request.getDatasourceId());
-            List<Map<String, Object>> result = strategy.executeQuery(
-                    request.getSql()
-            );
-            return new DatabaseResponse(result, null);
+            QueryHandle handle = new QueryHandle();
+            // 流式读取，超过行数/字节数上限时截断并提前关闭游标；开启缓存的数据源优先读取缓存
+            // 查询在执行器中运行，超过数据源的查询超时时长或调用方中断时取消数据库侧的执行
+            QueryResultCache.Lookup lookup = queryResultCache.getOrLoad(strategy, request.getSql(), request.getParams(),
+                    () -> queryExecutor.execute(strategy, request.getSql(), request.getParams(), handle));
+            ShapedResult shaped = resultShaper.shape(lookup.getResult(), request.getTokenBudget(),
+                    request.getFormat() == ResultFormat.COLUMNAR);
+            DatabaseResponse response = toResponse(shaped, request.getFormat());
+            response.setCached(lookup.isCached());
+            if (!lookup.isCached()) {
+                response.setQueueMillis(handle.getQueueMillis());
+                response.setExecutionMillis(handle.getExecutionMillis());
+            }
+            return response;
+        } catch (DataSourceUnavailableException e) {
+            DatabaseResponse response = new DatabaseResponse(null, e.getMessage());
+            response.setRetryAfterSeconds(e.getRetryAfterSeconds());
+            return response;
         } catch (SQLException e) {
             return new DatabaseResponse(null, "SQL执行错误: " + e.getMessage());
+        } catch (IllegalArgumentException | SecurityException e) {
+            return new DatabaseResponse(null, e.getMessage());
+        }
+    }
+
+    @Tool(description = "按 executeSQL 返回的 handle 继续读取被裁剪的查询结果(不会重新执行查询)，以列式格式返回；" +
+            "返回的 handle 为空表示已读取完毕；tokenBudget 为本次返回的 token 预算")
+    public DatabaseResponse fetchMoreRows(FetchMoreRequest request) {
+        try {
+            return toResponse(resultShaper.fetchMore(request.getHandle(), request.getTokenBudget()), ResultFormat.COLUMNAR);
         } catch (IllegalArgumentException e) {
             return new DatabaseResponse(null, e.getMessage());
         }
     }
 
+    @Tool(description = "以多组参数批量执行同一条查询，替代以不同参数逐次调用 executeSQL(如按一批 ID 查找)；" +
+            "paramSets 中每组参数的 key 为参数索引位置，value 为参数值；results 与 paramSets 按 index 一一对应，" +
+            "列名(columns)只返回一次；单参数的等值查找(WHERE id = ?)会合并为一次 IN 查询执行")
+    public BatchResponse executeBatch(BatchRequest request) {
+        BatchResponse response = new BatchResponse();
+        try {
+            DataSourceStrategy strategy = dataSourceManager.getStrategy(request.getDatasourceId());
+            QueryHandle handle = new QueryHandle();
+            List<QueryResult> results = QueryExecutor.await(queryExecutor.submit(strategy, handle,
+                    () -> strategy.queryBatch(request.getSql(), request.getParamSets(), handle)), handle);
+            List<BatchItem> items = new ArrayList<>(results.size());
+            for (int i = 0; i < results.size(); i++) {
+                QueryResult result = results.get(i);
+                if (response.getColumns() == null || response.getColumns().isEmpty()) {
+                    response.setColumns(result.getColumns());
+                    response.setTypes(result.getTypes());
+                }
+                BatchItem item = new BatchItem();
+                item.setIndex(i);
+                if (request.getFormat() == ResultFormat.COLUMNAR) {
+                    item.setRows(result.getRows());
+                } else {
+                    item.setData(result.toMaps());
+                }
+                item.setTruncated(result.isTruncated());
+                items.add(item);
+            }
+            response.setResults(items);
+            response.setQueueMillis(handle.getQueueMillis());
+            response.setExecutionMillis(handle.getExecutionMillis());
+        } catch (DataSourceUnavailableException e) {
+            response.setError(e.getMessage());
+            response.setRetryAfterSeconds(e.getRetryAfterSeconds());
+        } catch (SQLException e) {
+            response.setError("SQL执行错误: " + e.getMessage());
+        } catch (IllegalArgumentException | SecurityException e) {
+            response.setError(e.getMessage());
+        }
+        return response;
+    }
+
+    @Tool(description = "分页查询：首次调用提供 datasourceId、sql 与 pageSize，返回第一页与 nextToken；" +
+            "之后只需提供 token(上一次返回的 nextToken)即可读取下一页，nextToken 为空表示没有更多数据。" +
+            "请勿使用 OFFSET 翻页；语句带 ORDER BY 时请包含唯一列(如主键)，以保证翻页不重复、不遗漏")
+    public PageResponse queryPage(PageRequest request) {
+        PageResponse response = new PageResponse();
+        try {
+            PageResult result = request.getToken() != null && !request.getToken().isBlank()
+                    ? paginationService.nextPage(request.getToken())
+                    : paginationService.firstPage(request.getDatasourceId(), request.getSql(), request.getParams(),
+                    request.getPageSize() == null ? 0 : request.getPageSize());
+            response.setColumns(result.getColumns());
+            response.setRows(result.getRows());
+            response.setNextToken(result.getNextToken());
+            response.setMode(result.getMode());
+        } catch (SQLException e) {
+            response.setError("SQL执行错误: " + e.getMessage());
+        } catch (IllegalArgumentException | SecurityException e) {
+            response.setError(e.getMessage());
+        }
+        return response;
+    }
+
+    @Tool(description = "在同一类型的全部数据源(如所有 MySQL 分片)上并发执行同一条只读查询并合并结果，替代对每个数据源逐一调用 executeSQL；" +
+            "datasourceType 为数据源类型(mysql、postgres、oracle)；mode 为 MERGE 时拼接各分片的行并在首列标注来源数据源，" +
+            "UNION 时拼接后去重，AGGREGATE 时按分组列合并各分片的 COUNT/SUM 结果(AVG 请拆分为 SUM 与 COUNT)；shards 中返回各分片的耗时与错误，" +
+            "incomplete 为 true 时有分片失败，结果(包括聚合值)不完整")
+    public FanOutResponse fanOutQuery(FanOutRequest request) {
+        try {
+            FanOutMode mode = request.getMode() == null ? FanOutMode.MERGE : request.getMode();
+            FanOutResult result = fanOutQueryService.execute(request.getDatasourceType(), request.getSql(),
+                    request.getParams(), mode, request.getKeyColumns());
+            FanOutResponse response = new FanOutResponse();
+            response.setColumns(result.getColumns());
+            response.setRows(result.getRows());
+            response.setTruncated(result.isTruncated());
+            response.setIncomplete(result.isIncomplete());
+            response.setShards(result.getShards());
+            return response;
+        } catch (SQLException e) {
+            FanOutResponse response = new FanOutResponse();
+            response.setError("SQL执行错误: " + e.getMessage());
+            return response;
+        } catch (IllegalArgumentException | SecurityException e) {
+            FanOutResponse response = new FanOutResponse();
+            response.setError(e.getMessage());
+            return response;
+        }
+    }
+
+    @Tool(description = "跨数据源关联查询(如 MySQL 的表关联 Postgres 的表)，在服务端完成关联，只返回关联结果，避免分别拉取两张表的全部数据；" +
+            "left/right 为两侧的数据源与表，过滤条件(filter)与需要的列(columns)会下推到各自的数据源执行，请尽量提供以减少传输；" +
+            "leftKeys/rightKeys 为两侧一一对应的关联键；joinType 为 INNER(默认) 或 LEFT；建议将过滤后行数较少的一侧作为 right")
+    public JoinResponse federatedJoin(JoinRequest request) {
+        JoinResponse response = new JoinResponse();
+        try {
+            JoinResult result = federatedQueryService.join(request.getLeft(), request.getRight(),
+                    request.getLeftKeys(), request.getRightKeys(), request.getJoinType());
+            response.setColumns(result.getColumns());
+            response.setRows(result.getRows());
+            response.setTruncated(result.isTruncated());
+            response.setSpilled(result.isSpilled());
+            response.setLeftRows(result.getLeftRows());
+            response.setRightRows(result.getRightRows());
+        } catch (SQLException e) {
+            response.setError("SQL执行错误: " + e.getMessage());
+        } catch (IllegalArgumentException | SecurityException e) {
+            response.setError(e.getMessage());
+        }
+        return response;
+    }
+
+    @Tool(description = "查看数据源的表结构(表、列、类型、主键与索引)，编写 SQL 前请优先使用本工具，不要通过 executeSQL 查询 information_schema；" +
+            "每张表返回一行摘要，如 users(id bigint PK, email varchar(128)?) idx[uk_email(email) UNIQUE] -- 备注，类型后的 ? 表示可为 NULL；" +
+            "tables 按表名过滤(逗号分隔，支持 * 通配)，column 只返回包含该列的表；表较多时可先设置 namesOnly 只列出表名")
+    public SchemaResponse describeSchema(SchemaRequest request) {
+        SchemaResponse response = new SchemaResponse();
+        try {
+            SchemaCatalog.Snapshot snapshot = schemaCatalog.getSnapshot(request.getDatasourceId());
+            int limit = request.getLimit() == null || request.getLimit() <= 0 ? 200 : request.getLimit();
+            List<TableSchema> tables = SchemaCatalog.filter(snapshot, request.getTables(), request.getColumn(), limit);
+            boolean more = tables.size() > limit;
+            if (more) {
+                tables = tables.subList(0, limit);
+            }
+            boolean namesOnly = Boolean.TRUE.equals(request.getNamesOnly());
+            response.setSchema(tables.stream()
+                    .map(namesOnly ? TableSchema::getName : TableSchema::getSummary)
+                    .collect(Collectors.joining(namesOnly ? ", " : "\n")));
+            response.setTableCount(snapshot.getTables().size());
+            response.setMatched(tables.size());
+            response.setTruncated(more || snapshot.isTruncated());
+            response.setLoadedAt(snapshot.getLoadedAt());
+        } catch (SQLException e) {
+            response.setError("读取表结构失败: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response.setError(e.getMessage());
+        }
+        return response;
+    }
+
+    @Tool(description = "将查询结果直接导出为文件(CSV 或 xlsx)，只返回文件路径与行数；需要把数据保存为文件时请使用本工具，" +
+            "不要先用 executeSQL 查询再把结果写入 Excel；filePath 为空时自动生成文件名，format 默认为 CSV")
+    public ExportResponse exportQuery(ExportRequest request) {
+        ExportResponse response = new ExportResponse();
+        try {
+            ExportService.ExportResult result = exportService.export(request.getDatasourceId(), request.getSql(),
+                    request.getParams(), request.getFormat(), request.getFilePath());
+            response.setFilePath(result.getFilePath());
+            response.setRows(result.getRows());
+            response.setFileBytes(result.getFileBytes());
+            response.setTruncated(result.isTruncated());
+            response.setMode(result.getMode());
+        } catch (SQLException e) {
+            response.setError("SQL执行错误: " + e.getMessage());
+        } catch (IOException e) {
+            response.setError("写出文件失败: " + e.getMessage());
+        } catch (IllegalArgumentException | SecurityException e) {
+            response.setError(e.getMessage());
+        }
+        return response;
+    }
+
+    @Tool(description = "清除查询结果缓存，datasourceId 为空时清除全部数据源的缓存；当数据已变更、需要获取最新结果时使用")
+    public CacheResponse invalidateQueryCache(CacheRequest request) {
+        if (request == null || request.getDatasourceId() == null) {
+            queryResultCache.invalidateAll();
+        } else {
+            queryResultCache.invalidate(request.getDatasourceId());
+        }
+        return new CacheResponse(queryResultCache.estimatedSize(), queryResultCache.stats().hitRate());
+    }
+
+    /**
+     * 按请求格式转换查询结果
+     *
+     * @param shaped 裁剪后的查询结果
+     * @param format 结果格式
+     * @return {@link DatabaseResponse }
+     */
+    private DatabaseResponse toResponse(ShapedResult shaped, ResultFormat format) {
+        QueryResult result = shaped.getResult();
+        DatabaseResponse response;
+        if (format == ResultFormat.COLUMNAR) {
+            response = new DatabaseResponse(null, null);
+            response.setColumns(result.getColumns());
+            response.setTypes(result.getTypes());
+            response.setRows(result.getRows());
+        } else {
+            response = new DatabaseResponse(result.toMaps(), null);
+        }
+        response.setTruncated(result.isTruncated());
+        // 完整结果保持原有响应结构
+        if (shaped.getTotalRows() != result.getRows().size()) {
+            response.setSampled(shaped.isSampled());
+            response.setTotalRows(shaped.getTotalRows());
+            response.setColumnStats(shaped.getColumnStats());
+            response.setHandle(shaped.getHandle());
+        }
+        return response;
+    }
+
+    /**
+     * 结果格式
+     */
+    public enum ResultFormat {
+        /**
+         * 逐行返回 Map(列名 -> 值)
+         */
+        ROWS,
+        /**
+         * 列信息只返回一次，行数据为按列位置排列的数组
+         */
+        COLUMNAR
+    }
+
     @Setter
     @Getter
     public static class DatabaseRequest {
@@ -67,13 +389,84 @@ public class DatabaseTool {
 
         private Map<Integer, Object> params;
 
+        /**
+         * 结果格式
+         */
+        @ToolParam(required = false, description = "结果格式：ROWS(默认，每行为列名到值的映射) 或 COLUMNAR(列名只返回一次，行数据为数组)")
+        private ResultFormat format;
+
+        @ToolParam(required = false, description = "结果的 token 预算(估算值)，超出时只返回前若干行、列统计与 handle；为空时使用默认预算，小于等于 0 时返回完整结果")
+        private Integer tokenBudget;
+
+    }
+
+    @Setter
+    @Getter
+    public static class FetchMoreRequest {
+        /**
+         * executeSQL 或上一次 fetchMoreRows 返回的 handle
+         */
+        @NotNull
+        private String handle;
+
+        @ToolParam(required = false, description = "本次返回的 token 预算(估算值)，为空时使用默认预算")
+        private Integer tokenBudget;
     }
 
     @Setter
     @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class DatabaseResponse {
         private List<Map<String, Object>> data;
+        /**
+         * 列名(COLUMNAR 格式)
+         */
+        private List<String> columns;
+        /**
+         * 列的数据库类型(COLUMNAR 格式，与 columns 一一对应)
+         */
+        private List<String> types;
+        /**
+         * 行数据(COLUMNAR 格式，按 columns 顺序排列)
+         */
+        private List<Object[]> rows;
         private String error;
+        /**
+         * 结果是否因行数/字节数上限被截断(为 true 时请缩小查询范围或添加过滤条件)
+         */
+        private boolean truncated;
+        /**
+         * 是否命中查询结果缓存
+         */
+        private boolean cached;
+        /**
+         * 排队等待耗时(毫秒，含等待执行线程、并发许可与连接)
+         */
+        private Long queueMillis;
+        /**
+         * 执行耗时(毫秒，含执行语句与读取结果)
+         */
+        private Long executionMillis;
+        /**
+         * 数据源熔断中时建议的重试间隔(秒)
+         */
+        private Long retryAfterSeconds;
+        /**
+         * 是否只返回了部分行(结果超出 token 预算)
+         */
+        private Boolean sampled;
+        /**
+         * 结果总行数(sampled 时返回)
+         */
+        private Integer totalRows;
+        /**
+         * 各列统计(基于全部结果行计算，sampled 时返回)
+         */
+        private List<ColumnStats> columnStats;
+        /**
+         * 续读句柄(通过 fetchMoreRows 读取后续行)，为空表示没有更多行
+         */
+        private String handle;
 
         public DatabaseResponse(List<Map<String, Object>> data, String error) {
             this.data = data;
@@ -81,4 +474,344 @@ public class DatabaseTool {
         }
 
     }
+
+    @Setter
+    @Getter
+    public static class BatchRequest {
+        /**
+         * 数据源唯一标识
+         */
+        @NotNull
+        private String datasourceId;
+
+        /**
+         * SQL 语句
+         */
+        @NotNull
+        private String sql;
+
+        /**
+         * 参数组(每组的 key 为参数索引位置，value 为参数值)
+         */
+        @NotNull
+        private List<Map<Integer, Object>> paramSets;
+
+        @ToolParam(required = false, description = "结果格式：ROWS(默认，每行为列名到值的映射) 或 COLUMNAR(行数据为数组，按 columns 顺序排列)")
+        private ResultFormat format;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchResponse {
+        /**
+         * 列名(各组相同，只返回一次)
+         */
+        private List<String> columns;
+        /**
+         * 列的数据库类型(与 columns 一一对应)
+         */
+        private List<String> types;
+        /**
+         * 各组参数的结果(与 paramSets 按下标对应)
+         */
+        private List<BatchItem> results;
+        /**
+         * 排队等待耗时(毫秒)
+         */
+        private Long queueMillis;
+        /**
+         * 执行耗时(毫秒，全部参数组合计)
+         */
+        private Long executionMillis;
+        /**
+         * 数据源熔断中时建议的重试间隔(秒)
+         */
+        private Long retryAfterSeconds;
+        private String error;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchItem {
+        /**
+         * 参数组下标
+         */
+        private int index;
+        /**
+         * 行数据(ROWS 格式)
+         */
+        private List<Map<String, Object>> data;
+        /**
+         * 行数据(COLUMNAR 格式，按 columns 顺序排列)
+         */
+        private List<Object[]> rows;
+        /**
+         * 该组结果是否因行数/字节数上限被截断
+         */
+        private boolean truncated;
+    }
+
+    @Setter
+    @Getter
+    public static class PageRequest {
+        @ToolParam(required = false, description = "数据源唯一标识(首次查询时必填)")
+        private String datasourceId;
+
+        @ToolParam(required = false, description = "SQL 语句(首次查询时必填，不要包含 LIMIT/OFFSET)")
+        private String sql;
+
+        @ToolParam(required = false, description = "参数，key 为参数索引位置，value 为参数值")
+        private Map<Integer, Object> params;
+
+        @ToolParam(required = false, description = "每页行数，默认 100")
+        private Integer pageSize;
+
+        @ToolParam(required = false, description = "上一次返回的 nextToken，提供时忽略其他参数")
+        private String token;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class PageResponse {
+        private List<String> columns;
+        /**
+         * 当前页的行数据(按 columns 顺序排列)
+         */
+        private List<Object[]> rows;
+        /**
+         * 下一页令牌(为空表示没有更多数据)
+         */
+        private String nextToken;
+        /**
+         * 分页方式：KEYSET(键集) 或 CURSOR(服务端游标，闲置超时后失效)
+         */
+        private String mode;
+        private String error;
+    }
+
+    @Setter
+    @Getter
+    public static class FanOutRequest {
+        /**
+         * 数据源类型
+         */
+        @NotNull
+        private String datasourceType;
+
+        /**
+         * SQL 语句
+         */
+        @NotNull
+        private String sql;
+
+        private Map<Integer, Object> params;
+
+        @ToolParam(required = false, description = "合并方式：MERGE(默认)、UNION 或 AGGREGATE")
+        private FanOutMode mode;
+
+        @ToolParam(required = false, description = "AGGREGATE 模式的分组列，其余列求和；为空时非数值列均作为分组列")
+        private List<String> keyColumns;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class FanOutResponse {
+        /**
+         * 列名(MERGE 模式首列为 datasource)
+         */
+        private List<String> columns;
+        /**
+         * 合并后的行数据(按 columns 顺序排列)
+         */
+        private List<Object[]> rows;
+        /**
+         * 结果是否被截断(AGGREGATE 模式下意味着聚合值可能不完整)
+         */
+        private boolean truncated;
+        /**
+         * 是否有分片执行失败(结果与聚合值不完整)
+         */
+        private boolean incomplete;
+        /**
+         * 各分片的执行情况(行数、排队与执行耗时、错误信息)
+         */
+        private List<ShardStat> shards;
+        private String error;
+    }
+
+    @Setter
+    @Getter
+    public static class JoinRequest {
+        @NotNull
+        private JoinSource left;
+
+        @NotNull
+        private JoinSource right;
+
+        /**
+         * 左侧关联键
+         */
+        @NotNull
+        private List<String> leftKeys;
+
+        /**
+         * 右侧关联键(与左侧一一对应)
+         */
+        @NotNull
+        private List<String> rightKeys;
+
+        @ToolParam(required = false, description = "关联方式：INNER(默认) 或 LEFT")
+        private JoinType joinType;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class JoinResponse {
+        /**
+         * 列名(带两侧前缀，如 l.id、r.name)
+         */
+        private List<String> columns;
+        /**
+         * 关联后的行数据(按 columns 顺序排列)
+         */
+        private List<Object[]> rows;
+        /**
+         * 结果是否被截断
+         */
+        private boolean truncated;
+        /**
+         * 是否因超出内存预算溢写到磁盘
+         */
+        private boolean spilled;
+        /**
+         * 左侧读取行数
+         */
+        private long leftRows;
+        /**
+         * 右侧读取行数
+         */
+        private long rightRows;
+        private String error;
+    }
+
+    @Setter
+    @Getter
+    public static class CacheRequest {
+        @ToolParam(required = false, description = "数据源唯一标识，为空时清除全部缓存")
+        private String datasourceId;
+    }
+
+    @Setter
+    @Getter
+    public static class CacheResponse {
+        /**
+         * 剩余缓存条目数
+         */
+        private long size;
+        /**
+         * 缓存命中率
+         */
+        private double hitRate;
+
+        public CacheResponse(long size, double hitRate) {
+            this.size = size;
+            this.hitRate = hitRate;
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class SchemaRequest {
+        /**
+         * 数据源唯一标识
+         */
+        @NotNull
+        private String datasourceId;
+
+        @ToolParam(required = false, description = "表名过滤，逗号分隔，支持 * 通配(如 order*,user)，不含通配符时按包含匹配，忽略大小写")
+        private String tables;
+
+        @ToolParam(required = false, description = "列名过滤，只返回包含该列的表(如 email)")
+        private String column;
+
+        @ToolParam(required = false, description = "为 true 时只返回表名")
+        private Boolean namesOnly;
+
+        @ToolParam(required = false, description = "最多返回的表数量，默认 200")
+        private Integer limit;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class SchemaResponse {
+        /**
+         * 表结构摘要(每张表一行；namesOnly 时为逗号分隔的表名)
+         */
+        private String schema;
+        /**
+         * 数据源的表总数
+         */
+        private Integer tableCount;
+        /**
+         * 本次返回的表数量
+         */
+        private Integer matched;
+        /**
+         * 是否还有未返回的表(请缩小过滤范围)
+         */
+        private boolean truncated;
+        /**
+         * 表结构加载时间(毫秒时间戳)
+         */
+        private Long loadedAt;
+        private String error;
+    }
+
+    @Setter
+    @Getter
+    public static class ExportRequest {
+        /**
+         * 数据源唯一标识
+         */
+        @NotNull
+        private String datasourceId;
+
+        /**
+         * SQL 语句
+         */
+        @NotNull
+        private String sql;
+
+        private Map<Integer, Object> params;
+
+        @ToolParam(required = false, description = "导出格式：CSV(默认) 或 XLSX")
+        private ExportFormat format;
+
+        @ToolParam(required = false, description = "文件路径，为空时自动生成；相对路径相对于导出目录")
+        private String filePath;
+    }
+
+    @Setter
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ExportResponse {
+        private String filePath;
+        private Long rows;
+        private Long fileBytes;
+        /**
+         * 是否因导出行数上限未导出全部数据
+         */
+        private boolean truncated;
+        /**
+         * COPY(数据库原生导出) 或 STREAM(逐行流式读取)
+         */
+        private String mode;
+        private String error;
+    }
 }
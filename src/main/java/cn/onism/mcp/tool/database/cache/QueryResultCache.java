@@ -0,0 +1,334 @@
+package cn.onism.mcp.tool.database.cache;
+
+import cn.onism.mcp.tool.database.sql.SqlLexer;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只读查询结果缓存
+ * <p>
+ * 以 数据源 ID + 规范化 SQL + 绑定参数 为键，按条目数与估算字节数双重限制容量(Caffeine W-TinyLFU 淘汰)，
+ * 过期时长取自各数据源的 cacheTtl 配置。同一键的并发未命中只加载一次(其余调用等待同一次加载)，
+ * 缓存与返回的都是结果的副本，调用方修改行数据不会影响缓存
+ *
+ * @author Onism
+ * @date 2025-07-28
+ */
+@Component
+public class QueryResultCache {
+
+    /**
+     * 出现即不缓存的写操作/加锁关键字(WITH ... INSERT ... RETURNING、SELECT ... FOR UPDATE 等)
+     */
+    private static final Set<String> WRITE_WORDS = Set.of(
+            "INSERT", "UPDATE", "DELETE", "MERGE", "UPSERT", "RETURNING", "INTO", "LOCK", "SHARE"
+    );
+
+    /**
+     * 每次执行结果都可能不同的函数与伪列(当前时间、随机数、序列、会话状态)
+     */
+    private static final Set<String> VOLATILE_WORDS = Set.of(
+            "NOW", "RAND", "RANDOM", "UUID", "UUID_SHORT", "GEN_RANDOM_UUID", "NEWID", "SYS_GUID",
+            "CURRENT_TIMESTAMP", "CURRENT_DATE", "CURRENT_TIME", "LOCALTIME", "LOCALTIMESTAMP", "SYSDATE",
+            "SYSTIMESTAMP", "CLOCK_TIMESTAMP", "STATEMENT_TIMESTAMP", "TRANSACTION_TIMESTAMP", "TIMEOFDAY",
+            "UNIX_TIMESTAMP", "UTC_TIMESTAMP", "UTC_DATE", "UTC_TIME", "CURDATE", "CURTIME", "GETDATE",
+            "NEXTVAL", "CURRVAL", "LAST_INSERT_ID", "FOUND_ROWS", "ROW_COUNT", "CONNECTION_ID", "TXID_CURRENT"
+    );
+
+    private final Cache<Key, Entry> cache;
+
+    /**
+     * 正在加载的键(同一键的并发未命中等待同一次加载)
+     */
+    private final Map<Key, CompletableFuture<QueryResult>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 各数据源命中/未命中次数
+     */
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QueryResultCache(DataSourceProperties properties) {
+        DataSourceProperties.QueryCacheProperty cacheProperty = properties.getCache();
+        // 每个条目的权重不小于 maxBytes / maxEntries，从而同时限制条目数与内存占用
+        long minWeight = Math.max(1, cacheProperty.getMaxBytes() / Math.max(1, cacheProperty.getMaxEntries()));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheProperty.getMaxBytes())
+                .weigher((Key key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, entry.getResult().getBytes())))
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 从缓存获取查询结果，未命中时加载并缓存(数据源未开启缓存或非只读语句时直接加载)
+     *
+     * @param strategy 数据源策略
+     * @param sql      SQL
+     * @param params   绑定参数
+     * @param loader   加载器
+     * @return {@link Lookup }
+     * @throws SQLException sql异常
+     */
+    public Lookup getOrLoad(DataSourceStrategy strategy, String sql, Map<Integer, Object> params, Loader loader)
+            throws SQLException {
+        long ttl = strategy.getConfig().getCacheTtl();
+        if (ttl <= 0 || !isCacheable(sql, strategy.getDbType())) {
+            return new Lookup(loader.load(), false);
+        }
+        String datasourceId = strategy.getId();
+        Key key = new Key(datasourceId, normalize(sql), params == null ? Map.of() : new TreeMap<>(params));
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            hits.computeIfAbsent(datasourceId, id -> new LongAdder()).increment();
+            return new Lookup(copy(entry.getResult()), true);
+        }
+        CompletableFuture<QueryResult> future = new CompletableFuture<>();
+        CompletableFuture<QueryResult> running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            // 其他调用正在加载同一键，等待其结果
+            hits.computeIfAbsent(datasourceId, id -> new LongAdder()).increment();
+            return new Lookup(copy(await(running)), true);
+        }
+        try {
+            // 上一次加载可能恰好在 getIfPresent 之后完成
+            entry = cache.getIfPresent(key);
+            if (entry != null) {
+                future.complete(entry.getResult());
+                hits.computeIfAbsent(datasourceId, id -> new LongAdder()).increment();
+                return new Lookup(copy(entry.getResult()), true);
+            }
+            misses.computeIfAbsent(datasourceId, id -> new LongAdder()).increment();
+            QueryResult result = loader.load();
+            QueryResult cached = copy(result);
+            cache.put(key, new Entry(cached, TimeUnit.SECONDS.toNanos(ttl)));
+            future.complete(cached);
+            return new Lookup(result, false);
+        } catch (SQLException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 等待其他调用的加载结果(加载失败时抛出同样的异常)
+     */
+    private static QueryResult await(CompletableFuture<QueryResult> running) throws SQLException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待查询结果时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * 复制查询结果(行数组逐行复制，列表不可修改)
+     */
+    static QueryResult copy(QueryResult result) {
+        List<Object[]> rows = new ArrayList<>(result.getRows().size());
+        for (Object[] row : result.getRows()) {
+            rows.add(row.clone());
+        }
+        return new QueryResult(Collections.unmodifiableList(new ArrayList<>(result.getColumns())),
+                result.getTypes() == null ? null : Collections.unmodifiableList(new ArrayList<>(result.getTypes())),
+                Collections.unmodifiableList(rows), result.isTruncated(), result.getBytes());
+    }
+
+    /**
+     * 清除指定数据源的缓存
+     *
+     * @param datasourceId 数据源 ID
+     */
+    public void invalidate(String datasourceId) {
+        cache.asMap().keySet().removeIf(key -> key.getDatasourceId().equals(datasourceId));
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 整体统计信息
+     *
+     * @return {@link CacheStats }
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层缓存(用于注册监控指标)
+     */
+    public Cache<Key, Entry> getCache() {
+        return cache;
+    }
+
+    public long hitCount(String datasourceId) {
+        LongAdder adder = hits.get(datasourceId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long missCount(String datasourceId) {
+        LongAdder adder = misses.get(datasourceId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 只缓存结果确定的查询语句：以 SELECT/WITH/( 开头，不含写操作、加锁读与易变函数
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型
+     * @return boolean
+     */
+    public static boolean isCacheable(String sql, String dbType) {
+        SqlLexer lexer = new SqlLexer(sql, dbType);
+        if (!lexer.next() || !(lexer.isWord("SELECT") || lexer.isWord("WITH") || lexer.isSymbol('('))) {
+            return false;
+        }
+        do {
+            if (lexer.type() == SqlLexer.TokenType.WORD) {
+                String word = lexer.text().toUpperCase(Locale.ROOT);
+                if (WRITE_WORDS.contains(word) || VOLATILE_WORDS.contains(word)) {
+                    return false;
+                }
+            }
+        } while (lexer.next());
+        return !lexer.isUnterminated() && !lexer.hasExecutableComment();
+    }
+
+    /**
+     * 规范化 SQL：合并引号外的连续空白，去掉首尾空白与末尾分号(不改变大小写，避免改变字面量语义)
+     *
+     * @param sql SQL
+     * @return {@link String }
+     */
+    static String normalize(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !builder.isEmpty();
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            }
+            builder.append(c);
+        }
+        int end = builder.length();
+        while (end > 0 && (builder.charAt(end - 1) == ';' || builder.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        builder.setLength(end);
+        return builder.toString();
+    }
+
+    /**
+     * 查询结果加载器
+     */
+    @FunctionalInterface
+    public interface Loader {
+        QueryResult load() throws SQLException;
+    }
+
+    /**
+     * 缓存键
+     */
+    @Value
+    public static class Key {
+        String datasourceId;
+        String sql;
+        Map<Integer, Object> params;
+    }
+
+    /**
+     * 缓存条目
+     */
+    @Value
+    public static class Entry {
+        QueryResult result;
+        long ttlNanos;
+    }
+
+    /**
+     * 查询结果及是否命中缓存
+     */
+    @Value
+    public static class Lookup {
+        QueryResult result;
+        boolean cached;
+    }
+}
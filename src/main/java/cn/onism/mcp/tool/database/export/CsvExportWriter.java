@@ -0,0 +1,88 @@
+package cn.onism.mcp.tool.database.export;
+
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HexFormat;
+
+/**
+ * CSV 导出(逐行写出，内存占用与结果集大小无关)
+ *
+ * @author Onism
+ * @date 2025-08-12
+ */
+public class CsvExportWriter implements RowHandler, Closeable {
+
+    private final Writer writer;
+
+    public CsvExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void onColumns(String[] columns, String[] types) throws SQLException {
+        writeLine(columns);
+    }
+
+    @Override
+    public boolean onRow(Object[] row) throws SQLException {
+        writeLine(row);
+        return true;
+    }
+
+    private void writeLine(Object[] values) throws SQLException {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeValue(values[i]);
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new SQLException("写出导出文件失败: " + e.getMessage(), "58030", e);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text;
+        if (value instanceof BigDecimal v) {
+            text = v.toPlainString();
+        } else if (value instanceof byte[] v) {
+            text = HexFormat.of().formatHex(v);
+        } else {
+            text = value.toString();
+        }
+        if (needsQuote(text)) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    private static boolean needsQuote(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 刷出缓冲区(不关闭底层输出流)
+     */
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,28 @@
+package cn.onism.mcp.tool.database.export;
+
+/**
+ * 导出格式
+ *
+ * @author Onism
+ * @date 2025-08-12
+ */
+public enum ExportFormat {
+    /**
+     * CSV(UTF-8，RFC 4180 引号规则)
+     */
+    CSV(".csv"),
+    /**
+     * Excel(.xlsx，流式写入，超过单个工作表行数上限时自动新建工作表)
+     */
+    XLSX(".xlsx");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,197 @@
+package cn.onism.mcp.tool.database.export;
+
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.StreamLimits;
+import cn.onism.mcp.tool.database.strategy.StreamStats;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 查询结果导出
+ * <p>
+ * 查询结果直接流式写入文件(CSV 或 xlsx)，只返回文件路径与行数，结果不经过大模型上下文；
+ * 无参数的 CSV 导出在 PostgreSQL 上使用 COPY ... TO STDOUT。先写入同目录下的 .part 文件，
+ * 成功后再重命名，失败时不会留下不完整的文件
+ *
+ * @author Onism
+ * @date 2025-08-12
+ */
+@Slf4j
+@Component
+public class ExportService {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final DataSourceManager dataSourceManager;
+
+    private final DataSourceProperties.ExportProperty config;
+
+    public ExportService(DataSourceManager dataSourceManager, DataSourceProperties properties) {
+        this.dataSourceManager = dataSourceManager;
+        this.config = properties.getExport();
+    }
+
+    /**
+     * 导出查询结果
+     *
+     * @param datasourceId 数据源 ID
+     * @param sql          SQL
+     * @param params       参数(可为空)
+     * @param format       导出格式
+     * @param filePath     文件路径(可为空，为空时在导出目录下生成；相对路径相对于导出目录，必须位于导出目录内)
+     * @return {@link ExportResult }
+     * @throws SQLException sql异常
+     * @throws IOException  文件读写异常
+     */
+    public ExportResult export(String datasourceId, String sql, Map<Integer, Object> params, ExportFormat format,
+                               String filePath) throws SQLException, IOException {
+        DataSourceStrategy strategy = dataSourceManager.getStrategy(datasourceId);
+        ExportFormat exportFormat = format == null ? ExportFormat.CSV : format;
+        Path dir = exportDir();
+        Path target = resolve(dir, datasourceId, filePath, exportFormat);
+        checkNoSymbolicLink(dir, target);
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+
+        StreamLimits limits = new StreamLimits(config.getMaxRows(), 0, config.getQueryTimeout());
+        long start = System.nanoTime();
+        long rows;
+        boolean truncated;
+        String mode;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS), 64 * 1024)) {
+                StreamStats copied = null;
+                if (exportFormat == ExportFormat.CSV) {
+                    if (config.isCsvBom()) {
+                        // Excel 打开 UTF-8 CSV 时依赖 BOM 识别编码
+                        out.write(UTF8_BOM);
+                    }
+                    if (params == null || params.isEmpty()) {
+                        copied = strategy.copyOut(sql, out, limits);
+                    }
+                }
+                if (copied != null) {
+                    rows = copied.getRows();
+                    truncated = copied.isTruncated();
+                    mode = "COPY";
+                } else {
+                    StreamStats stats = stream(strategy, sql, params, exportFormat, out, limits);
+                    rows = stats.getRows();
+                    truncated = stats.isTruncated();
+                    mode = "STREAM";
+                }
+            }
+            move(part, target);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        log.info("数据源 [{}] 导出 {} 行到 {}({})，耗时 {} ms", datasourceId, rows, target, mode,
+                (System.nanoTime() - start) / 1_000_000);
+        return new ExportResult(target.toString(), exportFormat, rows, Files.size(target), truncated, mode);
+    }
+
+    private StreamStats stream(DataSourceStrategy strategy, String sql, Map<Integer, Object> params,
+                               ExportFormat format, OutputStream out, StreamLimits limits)
+            throws SQLException, IOException {
+        QueryHandle handle = new QueryHandle();
+        if (format == ExportFormat.CSV) {
+            try (CsvExportWriter writer = new CsvExportWriter(out)) {
+                return strategy.executeStream(sql, params, writer, handle, limits);
+            }
+        }
+        try (XlsxExportWriter writer = new XlsxExportWriter(out, config.getWindowSize())) {
+            try {
+                return strategy.executeStream(sql, params, writer, handle, limits);
+            } catch (SQLException | RuntimeException e) {
+                writer.discard();
+                throw e;
+            }
+        }
+    }
+
+    private Path exportDir() {
+        String dir = config.getDir() == null || config.getDir().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "mcp-export").toString() : config.getDir();
+        return Path.of(dir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 解析导出文件路径，必须位于导出目录内(拒绝 ../ 与导出目录外的绝对路径)
+     */
+    private static Path resolve(Path dir, String datasourceId, String filePath, ExportFormat format) {
+        if (filePath == null || filePath.isBlank()) {
+            String name = datasourceId + "-" + LocalDateTime.now().format(FILE_TIME) + "-"
+                    + UUID.randomUUID().toString().substring(0, 8) + format.getExtension();
+            return dir.resolve(name);
+        }
+        Path path = dir.resolve(filePath).toAbsolutePath().normalize();
+        if (!path.startsWith(dir) || path.equals(dir)) {
+            throw new IllegalArgumentException("导出文件必须位于导出目录内: " + dir);
+        }
+        if (!path.getFileName().toString().toLowerCase().endsWith(format.getExtension())) {
+            path = path.resolveSibling(path.getFileName() + format.getExtension());
+        }
+        return path;
+    }
+
+    /**
+     * 导出目录以下的各级路径(含目标文件)不允许是符号链接，避免经由链接写到导出目录之外；
+     * 临时的 .part 文件以 NOFOLLOW_LINKS 方式打开
+     */
+    private static void checkNoSymbolicLink(Path dir, Path target) {
+        for (Path path = target; path != null && !path.equals(dir); path = path.getParent()) {
+            if (Files.isSymbolicLink(path)) {
+                throw new IllegalArgumentException("导出路径不允许包含符号链接: " + path);
+            }
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ExportResult {
+        private String filePath;
+        private ExportFormat format;
+        private long rows;
+        private long fileBytes;
+        /**
+         * 是否因行数上限未导出全部数据
+         */
+        private boolean truncated;
+        /**
+         * COPY(数据库原生导出) 或 STREAM(逐行流式读取)
+         */
+        private String mode;
+    }
+}
@@ -0,0 +1,170 @@
+package cn.onism.mcp.tool.database.export;
+
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Excel(.xlsx) 导出
+ * <p>
+ * 基于 SXSSF：内存中只保留最近 windowSize 行，其余行写入压缩的临时文件，关闭时一次性写出；
+ * 超过单个工作表的行数上限时自动新建工作表(均带表头)
+ *
+ * @author Onism
+ * @date 2025-08-12
+ */
+public class XlsxExportWriter implements RowHandler, Closeable {
+
+    /**
+     * 单元格文本长度上限(Excel 限制)
+     */
+    private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    /**
+     * 单个工作表的行数上限(含表头)
+     */
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    /**
+     * double 能精确表示的十进制位数，超出时以文本写入
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private final OutputStream out;
+
+    private final SXSSFWorkbook workbook;
+
+    private final CellStyle headerStyle;
+
+    private final CellStyle dateStyle;
+
+    private final CellStyle dateTimeStyle;
+
+    private String[] columns;
+
+    private Sheet sheet;
+
+    private int rowIndex;
+
+    /**
+     * 是否放弃写出(导出失败时)
+     */
+    private boolean discarded;
+
+    public XlsxExportWriter(OutputStream out, int windowSize) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(windowSize);
+        this.workbook.setCompressTempFiles(true);
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        this.headerStyle = workbook.createCellStyle();
+        this.headerStyle.setFont(bold);
+        CreationHelper helper = workbook.getCreationHelper();
+        this.dateStyle = workbook.createCellStyle();
+        this.dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+        this.dateTimeStyle = workbook.createCellStyle();
+        this.dateTimeStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+    }
+
+    @Override
+    public void onColumns(String[] columns, String[] types) {
+        this.columns = columns;
+        newSheet();
+    }
+
+    private void newSheet() {
+        sheet = workbook.createSheet("Sheet" + (workbook.getNumberOfSheets() + 1));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < columns.length; i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(columns[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        sheet.createFreezePane(0, 1);
+        rowIndex = 1;
+    }
+
+    @Override
+    public boolean onRow(Object[] values) throws SQLException {
+        if (rowIndex >= MAX_ROWS) {
+            newSheet();
+        }
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value != null) {
+                setCellValue(row.createCell(i), value);
+            }
+        }
+        return true;
+    }
+
+    private void setCellValue(Cell cell, Object value) {
+        if (value instanceof BigDecimal v) {
+            if (v.precision() > MAX_EXACT_DIGITS) {
+                cell.setCellValue(v.toPlainString());
+            } else {
+                cell.setCellValue(v.doubleValue());
+            }
+        } else if (value instanceof BigInteger v) {
+            cell.setCellValue(v.toString());
+        } else if (value instanceof Long v && Math.abs(v) >= 1L << 53) {
+            cell.setCellValue(v.toString());
+        } else if (value instanceof Number v) {
+            cell.setCellValue(v.doubleValue());
+        } else if (value instanceof Boolean v) {
+            cell.setCellValue(v);
+        } else if (value instanceof LocalDateTime v) {
+            cell.setCellValue(v);
+            cell.setCellStyle(dateTimeStyle);
+        } else if (value instanceof LocalDate v) {
+            cell.setCellValue(v);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof byte[] v) {
+            cell.setCellValue(truncate(HexFormat.of().formatHex(v)));
+        } else {
+            cell.setCellValue(truncate(value.toString()));
+        }
+    }
+
+    private static String truncate(String text) {
+        return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+
+    /**
+     * 放弃写出，关闭时只删除临时文件
+     */
+    public void discard() {
+        discarded = true;
+    }
+
+    /**
+     * 写出工作簿并删除临时文件(不关闭底层输出流)
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (discarded) {
+                return;
+            }
+            if (sheet == null) {
+                workbook.createSheet("Sheet1");
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package cn.onism.mcp.tool.database.fanout;
+
+/**
+ * 分片结果合并方式
+ *
+ * @author Onism
+ * @date 2025-08-01
+ */
+public enum FanOutMode {
+    /**
+     * 直接拼接各分片的行，并在首列标注来源数据源
+     */
+    MERGE,
+    /**
+     * 拼接后去重(等价于 UNION)
+     */
+    UNION,
+    /**
+     * 按分组列合并各分片的部分聚合结果，其余数值列求和(适用于 COUNT/SUM，AVG 需拆分为 SUM 与 COUNT)
+     */
+    AGGREGATE
+}
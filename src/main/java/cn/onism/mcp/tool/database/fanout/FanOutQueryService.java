@@ -0,0 +1,103 @@
+package cn.onism.mcp.tool.database.fanout;
+
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.manage.QueryExecutor;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.StreamStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 分片并发查询
+ * <p>
+ * 在同一类型的全部数据源(如所有 MySQL 分片)上并发执行同一条只读查询，边读取边合并；
+ * 单个分片失败不影响其他分片，失败信息与各分片耗时一并返回；失败分片在失败前已合并的行仍在结果中，结果标记为不完整
+ *
+ * @author Onism
+ * @date 2025-08-01
+ */
+@Slf4j
+@Component
+public class FanOutQueryService {
+
+    private final DataSourceManager dataSourceManager;
+
+    private final QueryExecutor queryExecutor;
+
+    public FanOutQueryService(DataSourceManager dataSourceManager, QueryExecutor queryExecutor) {
+        this.dataSourceManager = dataSourceManager;
+        this.queryExecutor = queryExecutor;
+    }
+
+    /**
+     * 并发执行并合并结果
+     *
+     * @param datasourceType 数据源类型
+     * @param sql            SQL
+     * @param params         参数(可为空)
+     * @param mode           合并方式
+     * @param keyColumns     分组列(仅 AGGREGATE 模式使用，可为空)
+     * @return {@link FanOutResult }
+     * @throws SQLException 调用线程被中断
+     */
+    public FanOutResult execute(String datasourceType, String sql, Map<Integer, Object> params,
+                                FanOutMode mode, Collection<String> keyColumns) throws SQLException {
+        List<DataSourceStrategy> strategies = dataSourceManager.getStrategys(datasourceType.toLowerCase());
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("未配置类型为 [" + datasourceType + "] 的数据源");
+        }
+        // 合并结果的行数上限取各分片配置中的最大值
+        long maxRows = 0;
+        for (DataSourceStrategy strategy : strategies) {
+            maxRows = Math.max(maxRows, strategy.getConfig().getMaxRows());
+        }
+        ShardMerger merger = new ShardMerger(mode, keyColumns, maxRows);
+
+        List<QueryHandle> handles = new ArrayList<>(strategies.size());
+        List<CompletableFuture<StreamStats>> futures = new ArrayList<>(strategies.size());
+        for (DataSourceStrategy strategy : strategies) {
+            QueryHandle handle = new QueryHandle();
+            CompletableFuture<StreamStats> future;
+            try {
+                future = queryExecutor.submit(strategy, handle,
+                        () -> strategy.executeStream(sql, params, merger.forShard(strategy.getId()), handle));
+            } catch (SQLException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            handles.add(handle);
+            futures.add(future);
+        }
+
+        List<ShardStat> shards = new ArrayList<>(strategies.size());
+        for (int i = 0; i < strategies.size(); i++) {
+            String datasourceId = strategies.get(i).getId();
+            QueryHandle handle = handles.get(i);
+            try {
+                StreamStats stats = QueryExecutor.await(futures.get(i), handle);
+                shards.add(new ShardStat(datasourceId, stats.getRows(), handle.getQueueMillis(),
+                        handle.getExecutionMillis(), stats.isTruncated(), null));
+            } catch (SQLException | RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // 调用方已放弃，其余分片一并取消
+                    for (int j = i; j < handles.size(); j++) {
+                        futures.get(j).cancel(true);
+                        handles.get(j).cancel();
+                    }
+                    throw new SQLException("分片查询已被调用方中断", e);
+                }
+                log.warn("数据源 [{}] 分片查询失败：{}", datasourceId, e.getMessage());
+                shards.add(new ShardStat(datasourceId, 0, handle.getQueueMillis(),
+                        handle.getExecutionMillis(), false, e.getMessage()));
+            }
+        }
+        return merger.toResult(shards);
+    }
+}
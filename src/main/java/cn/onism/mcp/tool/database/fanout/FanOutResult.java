@@ -0,0 +1,41 @@
+package cn.onism.mcp.tool.database.fanout;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 分片查询合并结果
+ *
+ * @author Onism
+ * @date 2025-08-01
+ */
+@Getter
+@AllArgsConstructor
+public class FanOutResult {
+    /**
+     * 列名
+     */
+    private final List<String> columns;
+    /**
+     * 列的数据库类型(与 columns 一一对应)
+     */
+    private final List<String> types;
+    /**
+     * 合并后的行数据
+     */
+    private final List<Object[]> rows;
+    /**
+     * 结果是否被截断(合并结果超过行数上限，或任一分片被截断或失败)
+     */
+    private final boolean truncated;
+    /**
+     * 是否有分片执行失败(失败前已合并的行或部分聚合值仍在结果中，结果不完整)
+     */
+    private final boolean incomplete;
+    /**
+     * 各分片的执行情况
+     */
+    private final List<ShardStat> shards;
+}
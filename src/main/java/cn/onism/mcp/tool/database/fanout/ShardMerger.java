@@ -0,0 +1,235 @@
+package cn.onism.mcp.tool.database.fanout;
+
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 分片结果合并器
+ * <p>
+ * 各分片在各自的执行线程中流式回调，行数据到达即合并，不会先物化每个分片的完整结果；
+ * 合并结果超过行数上限时，MERGE/UNION 模式会通知分片提前关闭游标，AGGREGATE 模式只丢弃新的分组、已有分组继续累加
+ *
+ * @author Onism
+ * @date 2025-08-01
+ */
+public class ShardMerger {
+
+    /**
+     * 数值类型名称(MySQL/PostgreSQL/Oracle)，AGGREGATE 模式未指定分组列时对这些列求和
+     */
+    private static final Pattern NUMERIC_TYPE = Pattern.compile(
+            "((TINY|SMALL|MEDIUM|BIG)?INT(EGER|2|4|8)?|DECIMAL|NUMERIC|NUMBER|FLOAT[48]?|DOUBLE( PRECISION)?|REAL"
+                    + "|BINARY_(FLOAT|DOUBLE))( UNSIGNED)?", Pattern.CASE_INSENSITIVE);
+
+    private final FanOutMode mode;
+
+    private final Set<String> keyColumns;
+
+    private final long maxRows;
+
+    private List<String> columns;
+
+    private List<String> types;
+
+    /**
+     * AGGREGATE 模式下需要求和的列
+     */
+    private boolean[] summed;
+
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private final Set<List<Object>> distinct = new HashSet<>();
+
+    private final Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+
+    private boolean truncated;
+
+    /**
+     * 是否已生成合并结果(之后到达的行不再接收，仍在执行的分片会提前关闭游标)
+     */
+    private boolean finished;
+
+    /**
+     * @param mode       合并方式
+     * @param keyColumns 分组列(仅 AGGREGATE 模式使用，为空时非数值列均作为分组列)
+     * @param maxRows    合并结果的最大行数，小于等于 0 时不限制
+     */
+    public ShardMerger(FanOutMode mode, Collection<String> keyColumns, long maxRows) {
+        this.mode = mode;
+        this.keyColumns = keyColumns == null ? Set.of() : lowerCase(keyColumns);
+        this.maxRows = maxRows > 0 ? maxRows : Long.MAX_VALUE;
+    }
+
+    /**
+     * 为分片创建行处理器
+     *
+     * @param datasourceId 分片数据源 ID
+     * @return {@link RowHandler }
+     */
+    public RowHandler forShard(String datasourceId) {
+        return new RowHandler() {
+            @Override
+            public void onColumns(String[] columns, String[] types) throws SQLException {
+                registerColumns(datasourceId, columns, types);
+            }
+
+            @Override
+            public boolean onRow(Object[] row) {
+                return accept(datasourceId, row);
+            }
+        };
+    }
+
+    /**
+     * 校验各分片的列结构一致(以第一个返回的分片为准)
+     */
+    private synchronized void registerColumns(String datasourceId, String[] shardColumns, String[] shardTypes)
+            throws SQLException {
+        if (columns == null) {
+            columns = Arrays.asList(shardColumns);
+            types = Arrays.asList(shardTypes);
+            if (mode == FanOutMode.AGGREGATE) {
+                summed = new boolean[shardColumns.length];
+                for (int i = 0; i < shardColumns.length; i++) {
+                    summed[i] = keyColumns.isEmpty()
+                            ? NUMERIC_TYPE.matcher(shardTypes[i]).matches()
+                            : !keyColumns.contains(shardColumns[i]);
+                }
+            }
+            return;
+        }
+        if (!columns.equals(Arrays.asList(shardColumns))) {
+            throw new SQLException("数据源 [" + datasourceId + "] 返回的列 " + Arrays.toString(shardColumns)
+                    + " 与其他分片 " + columns + " 不一致");
+        }
+    }
+
+    private synchronized boolean accept(String datasourceId, Object[] row) {
+        if (finished) {
+            return false;
+        }
+        switch (mode) {
+            case MERGE -> {
+                if (rows.size() >= maxRows) {
+                    truncated = true;
+                    return false;
+                }
+                Object[] tagged = new Object[row.length + 1];
+                tagged[0] = datasourceId;
+                System.arraycopy(row, 0, tagged, 1, row.length);
+                rows.add(tagged);
+            }
+            case UNION -> {
+                if (distinct.add(Arrays.asList(row))) {
+                    if (rows.size() >= maxRows) {
+                        truncated = true;
+                        return false;
+                    }
+                    rows.add(row);
+                }
+            }
+            case AGGREGATE -> {
+                List<Object> key = new ArrayList<>(row.length);
+                for (int i = 0; i < row.length; i++) {
+                    key.add(summed[i] ? null : row[i]);
+                }
+                Object[] group = groups.get(key);
+                if (group == null) {
+                    if (groups.size() >= maxRows) {
+                        // 不再接收新的分组，但已有分组仍需累加完整
+                        truncated = true;
+                        return true;
+                    }
+                    groups.put(key, row.clone());
+                } else {
+                    for (int i = 0; i < row.length; i++) {
+                        if (summed[i]) {
+                            group[i] = add(group[i], row[i]);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 生成合并结果(行数据为副本；调用后不再接收新的行)；任一分片失败时结果标记为不完整
+     *
+     * @param shards 各分片的执行情况
+     * @return {@link FanOutResult }
+     */
+    public synchronized FanOutResult toResult(List<ShardStat> shards) {
+        List<String> resultColumns = columns == null ? List.of() : columns;
+        List<String> resultTypes = types == null ? List.of() : types;
+        if (mode == FanOutMode.MERGE && columns != null) {
+            resultColumns = new ArrayList<>(columns.size() + 1);
+            resultColumns.add("datasource");
+            resultColumns.addAll(columns);
+            resultTypes = new ArrayList<>(types.size() + 1);
+            resultTypes.add("VARCHAR");
+            resultTypes.addAll(types);
+        }
+        finished = true;
+        Collection<Object[]> merged = mode == FanOutMode.AGGREGATE ? groups.values() : rows;
+        List<Object[]> resultRows = new ArrayList<>(merged.size());
+        for (Object[] row : merged) {
+            resultRows.add(row.clone());
+        }
+        boolean anyShardTruncated = shards.stream().anyMatch(ShardStat::isTruncated);
+        // 分片中途失败时已合并的行无法撤回(各分片的结果不单独缓存)，只能标记为不完整
+        boolean anyShardFailed = shards.stream().anyMatch(shard -> shard.getError() != null);
+        return new FanOutResult(resultColumns, resultTypes, resultRows,
+                truncated || anyShardTruncated || anyShardFailed, anyShardFailed, shards);
+    }
+
+    /**
+     * 数值求和(整数优先按 long 精确相加，溢出或含小数时转为 BigDecimal)
+     */
+    private static Object add(Object left, Object right) {
+        if (left == null) {
+            return right;
+        }
+        if (!(right instanceof Number r)) {
+            return left;
+        }
+        Number l = (Number) left;
+        if (isIntegral(l) && isIntegral(r)) {
+            try {
+                return Math.addExact(l.longValue(), r.longValue());
+            } catch (ArithmeticException e) {
+                return BigDecimal.valueOf(l.longValue()).add(BigDecimal.valueOf(r.longValue()));
+            }
+        }
+        if ((l instanceof Double || l instanceof Float) && (r instanceof Double || r instanceof Float)) {
+            return l.doubleValue() + r.doubleValue();
+        }
+        return toBigDecimal(l).add(toBigDecimal(r));
+    }
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static BigDecimal toBigDecimal(Number value) {
+        if (value instanceof BigDecimal v) {
+            return v;
+        }
+        if (isIntegral(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    private static Set<String> lowerCase(Collection<String> values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            result.add(value.toLowerCase());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package cn.onism.mcp.tool.database.fanout;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单个分片的执行情况
+ *
+ * @author Onism
+ * @date 2025-08-01
+ */
+@Getter
+@AllArgsConstructor
+public class ShardStat {
+    /**
+     * 数据源 ID
+     */
+    private final String datasourceId;
+    /**
+     * 读取行数
+     */
+    private final long rows;
+    /**
+     * 排队等待耗时(毫秒)
+     */
+    private final long queueMillis;
+    /**
+     * 执行耗时(毫秒)
+     */
+    private final long executionMillis;
+    /**
+     * 分片结果是否被截断(AGGREGATE 模式下意味着聚合值不完整)
+     */
+    private final boolean truncated;
+    /**
+     * 错误信息(执行成功时为空)
+     */
+    private final String error;
+}
@@ -0,0 +1,89 @@
+package cn.onism.mcp.tool.database.federation;
+
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.manage.QueryExecutor;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+import cn.onism.mcp.tool.database.strategy.StreamLimits;
+import cn.onism.mcp.tool.database.strategy.StreamStats;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨数据源关联查询
+ * <p>
+ * 两侧的过滤条件与投影列下推到各自的数据源执行(同样经过只读校验与超时约束)，在服务端完成哈希关联，
+ * 只有关联结果返回给调用方。两侧不受数据源的行数/字节数上限限制(截断的构建侧会得到错误的关联结果)，
+ * 内存由哈希表的内存预算与溢写控制，返回的行数由关联结果上限控制
+ *
+ * @author Onism
+ * @date 2025-08-03
+ */
+@Component
+public class FederatedQueryService {
+
+    private final DataSourceManager dataSourceManager;
+
+    private final QueryExecutor queryExecutor;
+
+    private final DataSourceProperties.FederationProperty config;
+
+    public FederatedQueryService(DataSourceManager dataSourceManager, QueryExecutor queryExecutor,
+                                 DataSourceProperties properties) {
+        this.dataSourceManager = dataSourceManager;
+        this.queryExecutor = queryExecutor;
+        this.config = properties.getFederation();
+    }
+
+    /**
+     * 执行关联查询
+     *
+     * @param left      左侧(探测侧)
+     * @param right     右侧(构建侧，建议选择过滤后行数较少的一侧)
+     * @param leftKeys  左侧关联键
+     * @param rightKeys 右侧关联键
+     * @param joinType  关联方式
+     * @return {@link JoinResult }
+     * @throws SQLException sql异常
+     */
+    public JoinResult join(JoinSource left, JoinSource right, List<String> leftKeys, List<String> rightKeys,
+                           JoinType joinType) throws SQLException {
+        DataSourceStrategy leftStrategy = dataSourceManager.getStrategy(left.getDatasourceId());
+        DataSourceStrategy rightStrategy = dataSourceManager.getStrategy(right.getDatasourceId());
+        String leftSql = left.toSql(leftKeys);
+        String rightSql = right.toSql(rightKeys);
+
+        Path spillDir = Path.of(config.getSpillDir() == null || config.getSpillDir().isBlank()
+                ? System.getProperty("java.io.tmpdir") : config.getSpillDir());
+        try (HashJoiner joiner = new HashJoiner(joinType == null ? JoinType.INNER : joinType, leftKeys, rightKeys,
+                config.getMemoryBudget(), config.getSpillPartitions(), spillDir, config.getMaxRows())) {
+            // 先完整读取构建侧，再流式读取探测侧
+            StreamStats rightStats = stream(rightStrategy, rightSql, right.getParams(), joiner.buildHandler());
+            if (rightStats.isTruncated()) {
+                throw new SQLException("数据源 [" + right.getDatasourceId() + "] 的构建侧结果被截断，无法完成关联");
+            }
+            StreamStats leftStats = stream(leftStrategy, leftSql, left.getParams(), joiner.probeHandler());
+            joiner.finish();
+
+            String leftAlias = left.getAlias() == null ? "l" : left.getAlias();
+            String rightAlias = right.getAlias() == null ? "r" : right.getAlias();
+            boolean truncated = joiner.isTruncated() || leftStats.isTruncated();
+            return new JoinResult(joiner.columns(leftAlias, rightAlias), joiner.getRows(), truncated,
+                    joiner.isSpilled(), joiner.getProbeRows(), joiner.getBuildRows());
+        }
+    }
+
+    private StreamStats stream(DataSourceStrategy strategy, String sql, Map<Integer, Object> params,
+                               RowHandler handler) throws SQLException {
+        QueryHandle handle = new QueryHandle();
+        StreamLimits limits = new StreamLimits(0, 0, strategy.getConfig().getQueryTimeout());
+        return QueryExecutor.await(queryExecutor.submit(strategy, handle,
+                () -> strategy.executeStream(sql, params, handler, handle, limits)), handle);
+    }
+}
@@ -0,0 +1,502 @@
+package cn.onism.mcp.tool.database.federation;
+
+import cn.onism.mcp.tool.database.strategy.AbstractDataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 内存受限的哈希关联
+ * <p>
+ * 右侧为构建侧、左侧为探测侧：构建侧先读入内存哈希表，超出内存预算后改为 Grace Hash Join，
+ * 两侧均按关联键哈希分区溢写到临时文件，再逐个分区在内存中关联(分区仍超出内存预算时换用新的哈希种子再次分区)。关联键中的数值统一归一化，
+ * 不同数据库返回的 Integer/Long/BigDecimal 可以正确匹配；任一关联键为 null 的行不参与匹配
+ *
+ * @author Onism
+ * @date 2025-08-03
+ */
+@Slf4j
+public class HashJoiner implements Closeable {
+
+    /**
+     * 溢写时每写入多少行重置一次对象流的引用表，避免其随行数增长
+     */
+    private static final int RESET_INTERVAL = 1000;
+
+    /**
+     * 最大分区层数(同一关联键的行过多时再分区也无法拆分，达到层数后直接在内存中关联)
+     */
+    private static final int MAX_LEVELS = 4;
+
+    private final JoinType joinType;
+
+    private final List<String> probeKeys;
+
+    private final List<String> buildKeys;
+
+    private final long memoryBudget;
+
+    private final int partitions;
+
+    private final Path spillDir;
+
+    private final long maxRows;
+
+    private String[] probeColumns;
+
+    private String[] buildColumns;
+
+    private int[] probeKeyIndexes;
+
+    private int[] buildKeyIndexes;
+
+    private Map<List<Object>, List<Object[]>> table = new HashMap<>();
+
+    private long tableBytes;
+
+    private SpillFile[] buildPartitions;
+
+    private SpillFile[] probePartitions;
+
+    /**
+     * 已创建的全部溢写文件(含再分区产生的文件)
+     */
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+
+    private final List<Object[]> output = new ArrayList<>();
+
+    private long buildRows;
+
+    private long probeRows;
+
+    private boolean truncated;
+
+    /**
+     * @param joinType     关联方式
+     * @param probeKeys    探测侧(左侧)关联键
+     * @param buildKeys    构建侧(右侧)关联键
+     * @param memoryBudget 哈希表内存预算(字节)
+     * @param partitions   溢写分区数
+     * @param spillDir     溢写目录
+     * @param maxRows      关联结果最大行数，小于等于 0 时不限制
+     */
+    public HashJoiner(JoinType joinType, List<String> probeKeys, List<String> buildKeys,
+                      long memoryBudget, int partitions, Path spillDir, long maxRows) {
+        if (probeKeys == null || buildKeys == null || probeKeys.isEmpty() || probeKeys.size() != buildKeys.size()) {
+            throw new IllegalArgumentException("两侧的关联键数量必须一致且不能为空");
+        }
+        this.joinType = joinType;
+        this.probeKeys = probeKeys;
+        this.buildKeys = buildKeys;
+        this.memoryBudget = memoryBudget;
+        this.partitions = Math.max(2, partitions);
+        this.spillDir = spillDir;
+        this.maxRows = maxRows > 0 ? maxRows : Long.MAX_VALUE;
+    }
+
+    /**
+     * 构建侧行处理器(需先于探测侧执行完毕)
+     *
+     * @return {@link RowHandler }
+     */
+    public RowHandler buildHandler() {
+        return new RowHandler() {
+            @Override
+            public void onColumns(String[] columns, String[] types) throws SQLException {
+                buildColumns = columns;
+                buildKeyIndexes = resolveKeys(columns, buildKeys);
+            }
+
+            @Override
+            public boolean onRow(Object[] row) throws SQLException {
+                buildRows++;
+                List<Object> key = keyOf(row, buildKeyIndexes);
+                if (key == null) {
+                    return true;
+                }
+                if (buildPartitions != null) {
+                    buildPartitions[partitionOf(key, 0)].write(row);
+                    return true;
+                }
+                table.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+                tableBytes += estimateRow(row);
+                if (tableBytes > memoryBudget) {
+                    spill();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 探测侧行处理器
+     *
+     * @return {@link RowHandler }
+     */
+    public RowHandler probeHandler() {
+        return new RowHandler() {
+            @Override
+            public void onColumns(String[] columns, String[] types) throws SQLException {
+                probeColumns = columns;
+                probeKeyIndexes = resolveKeys(columns, probeKeys);
+            }
+
+            @Override
+            public boolean onRow(Object[] row) throws SQLException {
+                probeRows++;
+                List<Object> key = keyOf(row, probeKeyIndexes);
+                if (probePartitions != null && key != null) {
+                    probePartitions[partitionOf(key, 0)].write(row);
+                    return true;
+                }
+                probe(row, key);
+                // 未溢写时结果行数达到上限即可提前结束探测侧读取
+                return !truncated;
+            }
+        };
+    }
+
+    /**
+     * 完成关联(已溢写时逐个分区关联)
+     *
+     * @throws SQLException 读写临时文件失败
+     */
+    public void finish() throws SQLException {
+        if (buildPartitions == null) {
+            return;
+        }
+        for (int i = 0; i < partitions; i++) {
+            joinPartition(buildPartitions[i], probePartitions[i], 1);
+        }
+    }
+
+    /**
+     * 关联一对分区文件：构建侧超出内存预算时按下一层哈希再分区，否则读入内存哈希表后探测
+     */
+    private void joinPartition(SpillFile build, SpillFile probe, int level) throws SQLException {
+        build.finishWriting();
+        probe.finishWriting();
+        if (truncated) {
+            build.delete();
+            probe.delete();
+            return;
+        }
+        if (build.bytes > memoryBudget && level < MAX_LEVELS) {
+            log.info("关联分区({} 字节)仍超出内存预算，按第 {} 层哈希再分区", build.bytes, level);
+            SpillFile[] builds = repartition(build, buildKeyIndexes, "build", level);
+            SpillFile[] probes = repartition(probe, probeKeyIndexes, "probe", level);
+            for (int i = 0; i < partitions; i++) {
+                joinPartition(builds[i], probes[i], level + 1);
+            }
+            return;
+        }
+        table = new HashMap<>();
+        build.read(row -> table.computeIfAbsent(keyOf(row, buildKeyIndexes), k -> new ArrayList<>(1)).add(row));
+        probe.read(row -> probe(row, keyOf(row, probeKeyIndexes)));
+        table = Map.of();
+        build.delete();
+        probe.delete();
+    }
+
+    private SpillFile[] repartition(SpillFile source, int[] keyIndexes, String side, int level) throws SQLException {
+        SpillFile[] targets = new SpillFile[partitions];
+        for (int i = 0; i < partitions; i++) {
+            targets[i] = newSpillFile(side + "-" + level + "-" + i);
+        }
+        source.read(row -> targets[partitionOf(keyOf(row, keyIndexes), level)].write(row));
+        source.delete();
+        return targets;
+    }
+
+    /**
+     * 结果列名(左侧列在前，列名带前缀)
+     *
+     * @param probeAlias 左侧前缀
+     * @param buildAlias 右侧前缀
+     * @return {@link List }<{@link String }>
+     */
+    public List<String> columns(String probeAlias, String buildAlias) {
+        List<String> columns = new ArrayList<>();
+        if (probeColumns != null) {
+            for (String column : probeColumns) {
+                columns.add(probeAlias + "." + column);
+            }
+        }
+        if (buildColumns != null) {
+            for (String column : buildColumns) {
+                columns.add(buildAlias + "." + column);
+            }
+        }
+        return columns;
+    }
+
+    public List<Object[]> getRows() {
+        return output;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isSpilled() {
+        return buildPartitions != null;
+    }
+
+    public long getBuildRows() {
+        return buildRows;
+    }
+
+    public long getProbeRows() {
+        return probeRows;
+    }
+
+    @Override
+    public void close() {
+        for (SpillFile file : spillFiles) {
+            file.delete();
+        }
+        spillFiles.clear();
+    }
+
+    private void probe(Object[] row, List<Object> key) {
+        if (truncated) {
+            return;
+        }
+        List<Object[]> matches = key == null ? null : table.get(key);
+        if (matches == null || matches.isEmpty()) {
+            if (joinType == JoinType.LEFT) {
+                emit(row, null);
+            }
+            return;
+        }
+        for (Object[] match : matches) {
+            emit(row, match);
+        }
+    }
+
+    private void emit(Object[] probeRow, Object[] buildRow) {
+        if (output.size() >= maxRows) {
+            truncated = true;
+            return;
+        }
+        int buildWidth = buildColumns == null ? 0 : buildColumns.length;
+        Object[] joined = Arrays.copyOf(probeRow, probeRow.length + buildWidth);
+        if (buildRow != null) {
+            System.arraycopy(buildRow, 0, joined, probeRow.length, buildWidth);
+        }
+        output.add(joined);
+    }
+
+    /**
+     * 超出内存预算：创建分区文件并将哈希表中已有的行写出
+     */
+    private void spill() throws SQLException {
+        log.info("关联哈希表超出内存预算({} 字节)，溢写到 {} 个分区", memoryBudget, partitions);
+        buildPartitions = new SpillFile[partitions];
+        probePartitions = new SpillFile[partitions];
+        for (int i = 0; i < partitions; i++) {
+            buildPartitions[i] = newSpillFile("build-" + i);
+            probePartitions[i] = newSpillFile("probe-" + i);
+        }
+        for (Map.Entry<List<Object>, List<Object[]>> entry : table.entrySet()) {
+            SpillFile partition = buildPartitions[partitionOf(entry.getKey(), 0)];
+            for (Object[] row : entry.getValue()) {
+                partition.write(row);
+            }
+        }
+        table = new HashMap<>();
+        tableBytes = 0;
+    }
+
+    private SpillFile newSpillFile(String name) throws SQLException {
+        SpillFile file = new SpillFile(spillDir, name);
+        spillFiles.add(file);
+        return file;
+    }
+
+    /**
+     * 分区号：每层使用不同的哈希种子并打散高低位，否则上一层落在同一分区的键在下一层仍会落在同一分区
+     * (溢写文件中只有关联键非 null 的行)
+     */
+    private int partitionOf(List<Object> key, int level) {
+        int h = key.hashCode() ^ (level * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, partitions);
+    }
+
+    private static int[] resolveKeys(String[] columns, List<String> keys) throws SQLException {
+        int[] indexes = new int[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            String key = keys.get(k).toLowerCase();
+            // 允许 t.col 形式的限定名，结果集中只有列标签
+            String name = key.substring(key.lastIndexOf('.') + 1);
+            indexes[k] = -1;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equals(name)) {
+                    indexes[k] = i;
+                    break;
+                }
+            }
+            if (indexes[k] < 0) {
+                throw new SQLException("结果集中不存在关联键列: " + keys.get(k));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * 提取并归一化关联键，任一键值为 null 时返回 null
+     */
+    private static List<Object> keyOf(Object[] row, int[] keyIndexes) {
+        List<Object> key = new ArrayList<>(keyIndexes.length);
+        for (int index : keyIndexes) {
+            Object value = normalize(row[index]);
+            if (value == null) {
+                return null;
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    /**
+     * 归一化键值：整数统一为 Long，其余数值统一为去除末尾 0 的 BigDecimal，二进制按内容比较
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger v) {
+            return v.bitLength() < 64 ? (Object) v.longValue() : new BigDecimal(v);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return d;
+            }
+            return normalize(BigDecimal.valueOf(d));
+        }
+        if (value instanceof BigDecimal v) {
+            BigDecimal stripped = v.stripTrailingZeros();
+            if (stripped.scale() <= 0) {
+                try {
+                    return stripped.longValueExact();
+                } catch (ArithmeticException e) {
+                    return stripped;
+                }
+            }
+            return stripped;
+        }
+        if (value instanceof byte[] v) {
+            return ByteBuffer.wrap(v);
+        }
+        return value;
+    }
+
+    private static long estimateRow(Object[] row) {
+        // 数组与列表节点的固定开销
+        long bytes = 48 + 8L * row.length;
+        for (Object value : row) {
+            bytes += AbstractDataSourceStrategy.estimateSize(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * 行消费者
+     */
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(Object[] row) throws SQLException;
+    }
+
+    /**
+     * 分区临时文件(行以 Java 序列化格式顺序写入、顺序读取)
+     */
+    private static class SpillFile {
+
+        private final Path path;
+
+        private ObjectOutputStream out;
+
+        private long rows;
+
+        /**
+         * 已写入行的估算字节数(读回内存后的大小)
+         */
+        private long bytes;
+
+        private boolean deleted;
+
+        SpillFile(Path dir, String name) throws SQLException {
+            try {
+                this.path = Files.createTempFile(dir, "mcp-join-" + name + "-", ".spill");
+                this.out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            } catch (IOException e) {
+                throw new SQLException("创建关联溢写文件失败: " + e.getMessage(), e);
+            }
+        }
+
+        void write(Object[] row) throws SQLException {
+            try {
+                out.writeObject(row);
+                bytes += estimateRow(row);
+                if (++rows % RESET_INTERVAL == 0) {
+                    out.reset();
+                }
+            } catch (IOException e) {
+                throw new SQLException("写入关联溢写文件失败: " + e.getMessage(), e);
+            }
+        }
+
+        void finishWriting() throws SQLException {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+                out = null;
+            } catch (IOException e) {
+                throw new SQLException("写入关联溢写文件失败: " + e.getMessage(), e);
+            }
+        }
+
+        void read(RowConsumer consumer) throws SQLException {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                for (long i = 0; i < rows; i++) {
+                    consumer.accept((Object[]) in.readObject());
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw new SQLException("读取关联溢写文件失败: " + e.getMessage(), e);
+            }
+        }
+
+        void delete() {
+            if (deleted) {
+                return;
+            }
+            deleted = true;
+            try {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除关联溢写文件失败：{}", path);
+            }
+        }
+    }
+}
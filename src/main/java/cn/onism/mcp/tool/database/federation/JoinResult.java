@@ -0,0 +1,41 @@
+package cn.onism.mcp.tool.database.federation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 跨数据源关联结果
+ *
+ * @author Onism
+ * @date 2025-08-03
+ */
+@Getter
+@AllArgsConstructor
+public class JoinResult {
+    /**
+     * 列名(带左右两侧前缀)
+     */
+    private final List<String> columns;
+    /**
+     * 关联后的行数据(按 columns 顺序排列)
+     */
+    private final List<Object[]> rows;
+    /**
+     * 结果是否被截断(关联结果超过行数上限，或任一侧的读取被截断)
+     */
+    private final boolean truncated;
+    /**
+     * 是否因超出内存预算溢写到磁盘
+     */
+    private final boolean spilled;
+    /**
+     * 左侧读取行数
+     */
+    private final long leftRows;
+    /**
+     * 右侧读取行数
+     */
+    private final long rightRows;
+}
@@ -0,0 +1,85 @@
+package cn.onism.mcp.tool.database.federation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.ai.tool.annotation.ToolParam;
+
+import javax.validation.constraints.NotNull;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 关联查询的一侧
+ * <p>
+ * 过滤条件与投影列下推到对应数据源执行，只有满足条件的行、需要的列才会进入关联
+ *
+ * @author Onism
+ * @date 2025-08-03
+ */
+@Setter
+@Getter
+public class JoinSource {
+
+    /**
+     * 标识符(表名、列名，允许 schema.table 形式)
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+
+    /**
+     * 数据源唯一标识
+     */
+    @NotNull
+    private String datasourceId;
+
+    @ToolParam(required = false, description = "表名；与 sql 二选一")
+    private String table;
+
+    @ToolParam(required = false, description = "需要返回的列(关联键会自动补充)，为空时返回全部列")
+    private List<String> columns;
+
+    @ToolParam(required = false, description = "过滤条件(WHERE 子句内容，不含 WHERE 关键字)，在数据源侧执行")
+    private String filter;
+
+    @ToolParam(required = false, description = "完整的只读查询语句(需自行包含过滤条件与投影列)；与 table 二选一")
+    private String sql;
+
+    @ToolParam(required = false, description = "参数，key 为参数索引位置，value 为参数值")
+    private Map<Integer, Object> params;
+
+    @ToolParam(required = false, description = "结果列名前缀，默认左侧为 l、右侧为 r")
+    private String alias;
+
+    /**
+     * 生成下推到数据源执行的查询语句
+     *
+     * @param keys 关联键
+     * @return {@link String }
+     */
+    public String toSql(List<String> keys) {
+        if (sql != null && !sql.isBlank()) {
+            return sql;
+        }
+        if (table == null || !IDENTIFIER.matcher(table).matches()) {
+            throw new IllegalArgumentException("数据源 [" + datasourceId + "] 需要提供合法的表名或查询语句");
+        }
+        String projection = "*";
+        if (columns != null && !columns.isEmpty()) {
+            Set<String> selected = new LinkedHashSet<>(columns);
+            selected.addAll(keys);
+            for (String column : selected) {
+                if (!IDENTIFIER.matcher(column).matches()) {
+                    throw new IllegalArgumentException("非法的列名: " + column);
+                }
+            }
+            projection = String.join(", ", selected);
+        }
+        StringBuilder builder = new StringBuilder("SELECT ").append(projection).append(" FROM ").append(table);
+        if (filter != null && !filter.isBlank()) {
+            builder.append(" WHERE ").append(filter);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package cn.onism.mcp.tool.database.federation;
+
+/**
+ * 关联方式
+ *
+ * @author Onism
+ * @date 2025-08-03
+ */
+public enum JoinType {
+    /**
+     * 内关联：只返回两侧均匹配的行
+     */
+    INNER,
+    /**
+     * 左关联：左侧未匹配的行右侧列为 null
+     */
+    LEFT
+}
@@ -1,45 +1,99 @@
 package cn.onism.mcp.tool.database.manage;
 
+import cn.onism.mcp.tool.database.cache.QueryResultCache;
+import cn.onism.mcp.tool.database.metrics.DataSourceMetrics;
+import cn.onism.mcp.tool.database.replica.ReplicaEndpoint;
+import cn.onism.mcp.tool.database.replica.ReplicatedDataSourceStrategy;
 import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.DataSourceUnavailableException;
 import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
  * 数据源管理器
+ * <p>
+ * 作为数据源注册表：每个数据源配置都会创建一个独立的策略实例(原型 Bean)，
+ * 从而拥有各自的连接池、池大小与舱壁，同类型的多个数据源(如多个 MySQL 分片)之间不会互相覆盖；
+ * 支持运行时注册、注销与调整连接池大小，新实例初始化完成后才会替换到注册表中，旧实例在后台排空后关闭；
+ * 配置了只读副本的数据源会创建为 {@link ReplicatedDataSourceStrategy}，主库与各副本各自是一个策略实例
  *
  * @author Onism
  * @date 2025-03-25
  */
+@Slf4j
 @Component
 public class DataSourceManager {
     /**
-     * 策略映射
+     * 策略映射(数据源 ID -> 该数据源独占的策略实例)
      */
     private final Map<String, DataSourceStrategy> strategyMap = new ConcurrentHashMap<>();
+    /**
+     * 类型索引(数据源类型 -> 该类型的全部策略实例)，注册时维护，按类型查询时无需重新分组
+     */
+    private final Map<String, List<DataSourceStrategy>> typeIndex = new ConcurrentHashMap<>();
     /**
      * 数据源参数
      */
     private final DataSourceProperties properties;
     /**
-     * 策略实施
+     * 策略实现类型(数据源类型 -> 策略实现类)
+     */
+    private final Map<String, Class<? extends DataSourceStrategy>> strategyImplementations;
+    /**
+     * 用于按需创建策略原型实例
+     */
+    private final BeanFactory beanFactory;
+    /**
+     * 查询结果缓存(数据源变更后清除对应缓存)
+     */
+    private final QueryResultCache queryResultCache;
+    /**
+     * 数据源指标
+     */
+    private final DataSourceMetrics dataSourceMetrics;
+
+    /**
+     * 排空并关闭被替换/注销的数据源
      */
-    private final Map<String, DataSourceStrategy> strategyImplementations;
+    private final ExecutorService drainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-datasource-drain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 只读副本健康检查
+     */
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
     public DataSourceManager(DataSourceProperties properties,
-                             List<DataSourceStrategy> strategies) {
+                             List<DataSourceStrategy> strategies,
+                             BeanFactory beanFactory,
+                             QueryResultCache queryResultCache,
+                             DataSourceMetrics dataSourceMetrics) {
         this.properties = properties;
+        this.beanFactory = beanFactory;
+        this.queryResultCache = queryResultCache;
+        this.dataSourceMetrics = dataSourceMetrics;
+        // 注入的原型实例只用于登记类型，不会初始化连接池
         this.strategyImplementations = strategies.stream()
-                .collect(Collectors.toMap(DataSourceStrategy::getDbType, Function.identity()));
+                .collect(Collectors.toMap(DataSourceStrategy::getDbType, strategy -> strategy.getClass()));
 
         initDataSources();
     }
@@ -48,22 +102,79 @@ public class DataSourceManager {
      * 初始化数据源
      */
     private void initDataSources() {
+        if (properties.getDatasource() == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        int lazy = 0;
         for (DataSourceProperties.DataSourceProperty config : properties.getDatasource()) {
-            DataSourceStrategy strategy = strategyImplementations.get(config.getType().toLowerCase());
-            if (strategy != null) {
-                strategy.init(config);
-                strategyMap.put(config.getId(), strategy);
+            Class<? extends DataSourceStrategy> type = strategyImplementations.get(config.getType().toLowerCase());
+            if (type == null) {
+                log.warn("数据源 [{}] 的类型 [{}] 暂不支持，已跳过", config.getId(), config.getType());
+                continue;
+            }
+            if (strategyMap.containsKey(config.getId())) {
+                throw new IllegalStateException("数据源 ID 重复: " + config.getId());
             }
+            DataSourceStrategy strategy = createStrategy(type, config);
+            strategyMap.put(config.getId(), strategy);
+            typeIndex.computeIfAbsent(strategy.getDbType(), key -> new CopyOnWriteArrayList<>()).add(strategy);
+            if (config.isLazyInit()) {
+                lazy++;
+            }
+        }
+        log.info("数据源初始化完成：共 {} 个(其中 {} 个延迟创建连接池)，耗时 {} ms",
+                strategyMap.size(), lazy, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 启动完成后于后台预热开启了 warmUp 的数据源，不阻塞启动；预热失败只记录日志，首次使用时会重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<DataSourceStrategy> targets = strategyMap.values().stream()
+                .filter(strategy -> strategy.getConfig().isWarmUp())
+                .toList();
+        if (targets.isEmpty()) {
+            return;
         }
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            for (DataSourceStrategy strategy : targets) {
+                long begin = System.nanoTime();
+                try {
+                    strategy.warmUp();
+                    log.info("数据源 [{}] 预热完成，耗时 {} ms", strategy.getId(), (System.nanoTime() - begin) / 1_000_000);
+                } catch (Exception e) {
+                    log.warn("数据源 [{}] 预热失败：{}", strategy.getId(), e.getMessage());
+                }
+            }
+            log.info("数据源预热完成：共 {} 个，耗时 {} ms", targets.size(), (System.nanoTime() - start) / 1_000_000);
+        }, "mcp-datasource-warmup");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * 根据数据源 ID(唯一标识) 获取数据源策略
+     * 根据数据源 ID(唯一标识) 获取数据源策略，数据源熔断中时直接失败(不等待连接超时)
      *
      * @param datasourceId 数据源 ID
      * @return {@link DataSourceStrategy }
+     * @throws DataSourceUnavailableException 数据源熔断中
      */
-    public DataSourceStrategy getStrategy(String datasourceId) {
+    public DataSourceStrategy getStrategy(String datasourceId) throws DataSourceUnavailableException {
+        DataSourceStrategy strategy = getRegisteredStrategy(datasourceId);
+        strategy.checkAvailable();
+        return strategy;
+    }
+
+    /**
+     * 根据数据源 ID 获取数据源策略，不检查熔断状态(用于管理与监控)
+     *
+     * @param datasourceId 数据源 ID
+     * @return {@link DataSourceStrategy }
+     */
+    public DataSourceStrategy getRegisteredStrategy(String datasourceId) {
         DataSourceStrategy strategy = strategyMap.get(datasourceId);
         if (strategy == null) {
             throw new IllegalArgumentException("未配置的数据源 ID: " + datasourceId);
@@ -78,17 +189,173 @@ public class DataSourceManager {
      * @return {@link List }<{@link DataSourceStrategy }>
      */
     public List<DataSourceStrategy> getStrategys(String datasourceType) {
-        // 根据 数据源类型 分组
-        Map<String, List<DataSourceStrategy>> strategysMap = this.strategyMap.values()
-                // 使用并行流的方式进行处理
-                .parallelStream()
-                .collect(Collectors.groupingBy(DataSourceStrategy::getDbType));
+        List<DataSourceStrategy> strategies = typeIndex.get(datasourceType);
+        return strategies == null ? List.of() : Collections.unmodifiableList(strategies);
+    }
 
-        return strategysMap.getOrDefault(datasourceType,new ArrayList<>());
+    /**
+     * 获取全部数据源策略
+     *
+     * @return {@link List }<{@link DataSourceStrategy }>
+     */
+    public List<DataSourceStrategy> getStrategies() {
+        return List.copyOf(strategyMap.values());
+    }
+
+    /**
+     * 运行时注册数据源，ID 已存在时替换
+     * <p>
+     * 新实例在加入注册表前完成初始化(非延迟模式下连接池已可用)，替换是一次原子操作，
+     * 进行中的查询继续使用旧实例直至完成，旧实例在后台排空后关闭
+     *
+     * @param config 数据源配置
+     * @return 是否替换了已有数据源
+     */
+    public synchronized boolean register(DataSourceProperties.DataSourceProperty config) {
+        if (config.getId() == null || config.getType() == null) {
+            throw new IllegalArgumentException("数据源 ID 与类型不能为空");
+        }
+        Class<? extends DataSourceStrategy> type = strategyImplementations.get(config.getType().toLowerCase());
+        if (type == null) {
+            throw new IllegalArgumentException("暂不支持的数据源类型: " + config.getType());
+        }
+        DataSourceStrategy strategy = createStrategy(type, config);
+
+        DataSourceStrategy previous = strategyMap.put(config.getId(), strategy);
+        typeIndex.computeIfAbsent(strategy.getDbType(), key -> new CopyOnWriteArrayList<>()).add(strategy);
+        if (previous != null) {
+            unindex(previous);
+            retire(previous);
+        }
+        log.info("数据源 [{}] 已{}", config.getId(), previous == null ? "注册" : "替换");
+        return previous != null;
+    }
+
+    /**
+     * 运行时注销数据源(从注册表移除后，在后台等待进行中的查询结束再关闭)
+     *
+     * @param datasourceId 数据源 ID
+     */
+    public synchronized void deregister(String datasourceId) {
+        DataSourceStrategy previous = strategyMap.remove(datasourceId);
+        if (previous == null) {
+            throw new IllegalArgumentException("未配置的数据源 ID: " + datasourceId);
+        }
+        unindex(previous);
+        retire(previous);
+        // 排在排空任务之后执行；期间重新注册了同一 ID 时保留指标
+        drainExecutor.execute(() -> {
+            if (!strategyMap.containsKey(datasourceId)) {
+                dataSourceMetrics.remove(datasourceId);
+                if (previous instanceof ReplicatedDataSourceStrategy replicated) {
+                    for (ReplicaEndpoint endpoint : replicated.getEndpoints()) {
+                        dataSourceMetrics.remove(endpoint.getStrategy().getId());
+                    }
+                }
+            }
+        });
+        log.info("数据源 [{}] 已注销", datasourceId);
+    }
+
+    /**
+     * 运行时调整连接池大小
+     *
+     * @param datasourceId 数据源 ID
+     * @param maxPoolSize  最大连接数
+     * @param minIdle      最小空闲连接数，小于 0 时与最大连接数一致
+     */
+    public synchronized void resize(String datasourceId, int maxPoolSize, int minIdle) {
+        getRegisteredStrategy(datasourceId).resize(maxPoolSize, minIdle);
+        log.info("数据源 [{}] 连接池已调整：maxPoolSize={}, minIdle={}", datasourceId, maxPoolSize, minIdle);
+    }
+
+    /**
+     * 创建并初始化策略实例(每个数据源获取一个新的原型实例)；配置了只读副本时，
+     * 主库与各副本分别创建实例(ID 为 数据源ID@primary、数据源ID@副本名称)，组合为一个逻辑数据源
+     *
+     * @param type   策略实现类
+     * @param config 数据源配置
+     * @return {@link DataSourceStrategy }
+     */
+    private DataSourceStrategy createStrategy(Class<? extends DataSourceStrategy> type,
+                                              DataSourceProperties.DataSourceProperty config) {
+        List<DataSourceProperties.ReplicaProperty> replicas = config.getReplicas();
+        if (replicas == null || replicas.isEmpty()) {
+            DataSourceStrategy strategy = beanFactory.getBean(type);
+            strategy.init(config);
+            return strategy;
+        }
+        List<DataSourceStrategy> created = new ArrayList<>(replicas.size() + 1);
+        try {
+            DataSourceStrategy primary = beanFactory.getBean(type);
+            primary.init(endpointConfig(config, "primary", config.getUrl(), null, null));
+            created.add(primary);
+            Map<String, DataSourceStrategy> replicaStrategies = new LinkedHashMap<>();
+            for (int i = 0; i < replicas.size(); i++) {
+                DataSourceProperties.ReplicaProperty replica = replicas.get(i);
+                String name = replica.getName() == null ? "replica-" + (i + 1) : replica.getName();
+                if ("primary".equals(name) || replicaStrategies.containsKey(name)) {
+                    throw new IllegalArgumentException("数据源 [" + config.getId() + "] 的副本名称重复: " + name);
+                }
+                if (replica.getUrl() == null) {
+                    throw new IllegalArgumentException("数据源 [" + config.getId() + "] 的副本 [" + name + "] 未配置 url");
+                }
+                DataSourceStrategy strategy = beanFactory.getBean(type);
+                strategy.init(endpointConfig(config, name, replica.getUrl(), replica.getUsername(), replica.getPassword()));
+                created.add(strategy);
+                replicaStrategies.put(name, strategy);
+            }
+            return new ReplicatedDataSourceStrategy(config, primary, replicaStrategies, healthChecker, dataSourceMetrics);
+        } catch (RuntimeException e) {
+            created.forEach(DataSourceStrategy::shutdown);
+            throw e;
+        }
+    }
+
+    /**
+     * 复制逻辑数据源的配置作为端点配置(账号为空时沿用主库账号)
+     */
+    private static DataSourceProperties.DataSourceProperty endpointConfig(DataSourceProperties.DataSourceProperty config,
+                                                                          String name, String url,
+                                                                          String username, String password) {
+        DataSourceProperties.DataSourceProperty endpoint = new DataSourceProperties.DataSourceProperty();
+        BeanUtils.copyProperties(config, endpoint);
+        endpoint.setId(config.getId() + "@" + name);
+        endpoint.setUrl(url);
+        if (username != null) {
+            endpoint.setUsername(username);
+        }
+        if (password != null) {
+            endpoint.setPassword(password);
+        }
+        endpoint.setReplicas(null);
+        return endpoint;
+    }
+
+    private void unindex(DataSourceStrategy strategy) {
+        List<DataSourceStrategy> strategies = typeIndex.get(strategy.getDbType());
+        if (strategies != null) {
+            strategies.remove(strategy);
+        }
+    }
+
+    /**
+     * 清除缓存并在后台排空、关闭旧实例
+     */
+    private void retire(DataSourceStrategy strategy) {
+        queryResultCache.invalidate(strategy.getId());
+        long timeout = properties.getAdmin().getDrainTimeout();
+        drainExecutor.execute(() -> {
+            if (!strategy.drain(timeout)) {
+                log.warn("数据源 [{}] 在 {} ms 内未能排空，已强制关闭", strategy.getId(), timeout);
+            }
+        });
     }
 
     @PreDestroy
     public void destroy() {
+        drainExecutor.shutdownNow();
+        healthChecker.shutdownNow();
         strategyMap.values().forEach(DataSourceStrategy::shutdown);
     }
 }
@@ -0,0 +1,203 @@
+package cn.onism.mcp.tool.database.manage;
+
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步查询执行器
+ * <p>
+ * 查询在有界线程池中执行，调用方只负责等待结果；每个查询都带有截止时间(数据源的查询超时时长)，
+ * 到期后由看门狗通过 {@link java.sql.Statement#cancel()} 取消数据库侧的执行，调用线程被中断(如客户端断开)时同样会取消
+ *
+ * @author Onism
+ * @date 2025-07-30
+ */
+@Slf4j
+@Component
+public class QueryExecutor {
+
+    /**
+     * 截止时间在驱动超时基础上额外预留的时长，优先让驱动自行中断
+     */
+    private static final long DEADLINE_GRACE_MILLIS = 1000;
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService watchdog;
+
+    public QueryExecutor(DataSourceProperties properties) {
+        this.executor = createExecutor(properties.getExecutor());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonFactory("mcp-query-watchdog"));
+    }
+
+    /**
+     * 执行查询并等待结果
+     *
+     * @param strategy 数据源策略
+     * @param sql      SQL
+     * @param params   参数(可为空)
+     * @param handle   查询句柄(用于取消与耗时统计)
+     * @return {@link QueryResult }
+     * @throws SQLException 执行失败、超时或执行器繁忙
+     */
+    public QueryResult execute(DataSourceStrategy strategy, String sql, Map<Integer, Object> params, QueryHandle handle)
+            throws SQLException {
+        return await(submit(strategy, sql, params, handle), handle);
+    }
+
+    /**
+     * 提交查询
+     * <p>
+     * 截止时间从提交时起算，包含排队等待；到期未完成的查询会被取消并以 {@link SQLTimeoutException} 结束
+     *
+     * @param strategy 数据源策略
+     * @param sql      SQL
+     * @param params   参数(可为空)
+     * @param handle   查询句柄
+     * @return {@link CompletableFuture }<{@link QueryResult }>
+     * @throws SQLTransientException 执行器队列已满
+     */
+    public CompletableFuture<QueryResult> submit(DataSourceStrategy strategy, String sql, Map<Integer, Object> params,
+                                                 QueryHandle handle) throws SQLTransientException {
+        return submit(strategy, handle, () -> strategy.query(sql, params, handle));
+    }
+
+    /**
+     * 提交任务(如自定义行处理器的流式查询)，任务内的查询需使用同一个查询句柄才能被取消
+     *
+     * @param strategy 数据源策略(提供查询超时时长)
+     * @param handle   查询句柄
+     * @param task     任务
+     * @return 任务结果
+     * @throws SQLTransientException 执行器队列已满
+     */
+    public <T> CompletableFuture<T> submit(DataSourceStrategy strategy, QueryHandle handle, Task<T> task)
+            throws SQLTransientException {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // 排队期间已超时或被取消的查询不再执行
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.run());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    handle.markFinished();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new SQLTransientException("查询执行器繁忙，请稍后重试", e);
+        }
+
+        int timeout = strategy.getConfig().getQueryTimeout();
+        if (timeout > 0) {
+            ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+                if (future.completeExceptionally(new SQLTimeoutException(
+                        "查询超时(" + timeout + "s)，数据源: " + strategy.getId()))) {
+                    handle.cancel();
+                }
+            }, TimeUnit.SECONDS.toMillis(timeout) + DEADLINE_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, error) -> deadline.cancel(false));
+        }
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                handle.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 等待结果，调用线程被中断时取消查询；异常按 SQL 异常语义解包
+     *
+     * @param future 任务结果
+     * @param handle 查询句柄
+     * @return 任务结果
+     * @throws SQLException 执行失败、超时或被中断
+     */
+    public static <T> T await(CompletableFuture<T> future, QueryHandle handle) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 调用方已放弃(如客户端断开)，不再占用数据库资源
+            future.cancel(true);
+            handle.cancel();
+            Thread.currentThread().interrupt();
+            throw new SQLException("查询已被调用方中断", e);
+        } catch (CancellationException e) {
+            throw new SQLTimeoutException("查询已取消", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * 可抛出 SQL 异常的任务
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws SQLException;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 创建执行器：优先使用虚拟线程(JDK 21+)，否则使用有界线程池
+     *
+     * @param config 执行器配置
+     * @return {@link ExecutorService }
+     */
+    private static ExecutorService createExecutor(DataSourceProperties.ExecutorProperty config) {
+        if (config.isVirtualThreads()) {
+            try {
+                // 以反射方式调用，保证在 JDK 17 下仍可编译运行
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("当前 JDK 不支持虚拟线程，查询执行器回退为有界线程池");
+            }
+        }
+        int core = Math.max(1, config.getCoreSize());
+        int max = Math.max(core, config.getMaxSize());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(core, max, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                daemonFactory("mcp-query-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,413 @@
+package cn.onism.mcp.tool.database.manage;
+
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 表结构目录
+ * <p>
+ * 通过 {@link DatabaseMetaData} 在后台加载各数据源的表、列、索引与外键并缓存为不可变快照，
+ * 查询时只对预先生成的摘要做过滤，无需访问数据库。定时刷新时先读取表、列以及(MySQL/PostgreSQL/Oracle 通过一条
+ * 系统视图查询读取的)索引、主键与外键计算指纹，指纹未变化则沿用原快照，只有结构变化时才逐表读取主键、索引与外键；
+ * 其他数据库无法批量读取索引与约束，每次刷新都逐表读取。
+ * 延迟创建连接池的数据源不会被后台刷新唤醒，首次查询时才加载
+ *
+ * @author Onism
+ * @date 2025-08-09
+ */
+@Slf4j
+@Component
+public class SchemaCatalog {
+
+    private static final String[] TABLE_TYPES = {"TABLE", "VIEW"};
+
+    /**
+     * 按数据库类型批量读取索引、主键与外键定义的语句(参数为 schema，用于计算指纹)
+     */
+    private static final Map<String, String> CONSTRAINT_SQL = Map.of(
+            "mysql", "SELECT table_name, index_name, column_name, seq_in_index, CAST(non_unique AS CHAR) "
+                    + "FROM information_schema.statistics WHERE table_schema = ? "
+                    + "UNION ALL SELECT table_name, constraint_name, column_name, ordinal_position, "
+                    + "CONCAT(referenced_table_name, '.', referenced_column_name) "
+                    + "FROM information_schema.key_column_usage WHERE table_schema = ? AND referenced_table_name IS NOT NULL "
+                    + "ORDER BY 1, 2, 4",
+            "postgres", "SELECT c.relname, i.relname, pg_get_indexdef(x.indexrelid) FROM pg_index x "
+                    + "JOIN pg_class c ON c.oid = x.indrelid JOIN pg_class i ON i.oid = x.indexrelid "
+                    + "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? "
+                    + "UNION ALL SELECT c.relname, k.conname, pg_get_constraintdef(k.oid) FROM pg_constraint k "
+                    + "JOIN pg_class c ON c.oid = k.conrelid JOIN pg_namespace n ON n.oid = c.relnamespace "
+                    + "WHERE n.nspname = ? AND k.contype IN ('p', 'u', 'f') ORDER BY 1, 2",
+            "oracle", "SELECT table_name, index_name, column_name, column_position, NULL FROM all_ind_columns "
+                    + "WHERE table_owner = ? "
+                    + "UNION ALL SELECT c.table_name, c.constraint_name, cc.column_name, cc.position, "
+                    + "c.constraint_type || ' ' || c.r_owner || '.' || c.r_constraint_name FROM all_constraints c "
+                    + "JOIN all_cons_columns cc ON cc.owner = c.owner AND cc.constraint_name = c.constraint_name "
+                    + "WHERE c.owner = ? AND c.constraint_type IN ('P', 'U', 'R') ORDER BY 1, 2, 4"
+    );
+
+    private final DataSourceManager dataSourceManager;
+
+    private final DataSourceProperties.SchemaProperty config;
+
+    /**
+     * 表结构快照(数据源 ID -> 快照)
+     */
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-schema-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SchemaCatalog(DataSourceManager dataSourceManager, DataSourceProperties properties) {
+        this.dataSourceManager = dataSourceManager;
+        this.config = properties.getSchema();
+    }
+
+    /**
+     * 启动完成后开始后台刷新
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long period = Math.max(1, config.getRefreshInterval());
+        refresher.scheduleWithFixedDelay(this::refreshAll, 0, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取数据源的表结构快照，尚未加载(或数据源已被替换)时同步加载
+     *
+     * @param datasourceId 数据源 ID
+     * @return {@link Snapshot }
+     * @throws SQLException sql异常
+     */
+    public Snapshot getSnapshot(String datasourceId) throws SQLException {
+        DataSourceStrategy strategy = dataSourceManager.getStrategy(datasourceId);
+        Snapshot snapshot = snapshots.get(datasourceId);
+        if (snapshot != null && snapshot.strategy == strategy) {
+            return snapshot;
+        }
+        return refresh(strategy);
+    }
+
+    /**
+     * 按表名、列名过滤表结构摘要
+     *
+     * @param snapshot    快照
+     * @param tableFilter 表名过滤(逗号分隔，支持 * 通配，不含通配符时按包含匹配，忽略大小写)，为空时不过滤
+     * @param column      列名过滤(只返回包含该列的表，规则同上)，为空时不过滤
+     * @param limit       最多返回的表数量
+     * @return 匹配的表
+     */
+    public static List<TableSchema> filter(Snapshot snapshot, String tableFilter, String column, int limit) {
+        List<Pattern> tablePatterns = compile(tableFilter);
+        List<Pattern> columnPatterns = compile(column);
+        List<TableSchema> matched = new ArrayList<>();
+        for (TableSchema table : snapshot.tables) {
+            if (!tablePatterns.isEmpty() && !matchesAny(tablePatterns, table.getLowerName())) {
+                continue;
+            }
+            if (!columnPatterns.isEmpty()
+                    && table.getLowerColumns().stream().noneMatch(name -> matchesAny(columnPatterns, name))) {
+                continue;
+            }
+            matched.add(table);
+            if (matched.size() > limit) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    private static List<Pattern> compile(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return List.of();
+        }
+        List<Pattern> patterns = new ArrayList<>();
+        for (String part : filter.split(",")) {
+            String text = part.trim().toLowerCase(Locale.ROOT);
+            if (text.isEmpty()) {
+                continue;
+            }
+            String regex = text.contains("*")
+                    ? Pattern.quote(text).replace("*", "\\E.*\\Q")
+                    : ".*" + Pattern.quote(text) + ".*";
+            patterns.add(Pattern.compile(regex));
+        }
+        return patterns;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String text) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(text).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refreshAll() {
+        List<DataSourceStrategy> strategies = dataSourceManager.getStrategies();
+        Set<String> ids = new HashSet<>();
+        for (DataSourceStrategy strategy : strategies) {
+            ids.add(strategy.getId());
+            if (!strategy.isPoolCreated()) {
+                continue;
+            }
+            try {
+                refresh(strategy);
+            } catch (Exception e) {
+                log.warn("数据源 [{}] 表结构刷新失败：{}", strategy.getId(), e.getMessage());
+            }
+        }
+        // 已注销的数据源
+        snapshots.keySet().retainAll(ids);
+    }
+
+    private Snapshot refresh(DataSourceStrategy strategy) throws SQLException {
+        Snapshot previous = snapshots.get(strategy.getId());
+        Snapshot current = strategy.withConnection(connection -> load(strategy, connection,
+                previous != null && previous.strategy == strategy ? previous : null));
+        snapshots.put(strategy.getId(), current);
+        return current;
+    }
+
+    private Snapshot load(DataSourceStrategy strategy, Connection connection, Snapshot previous) throws SQLException {
+        long start = System.nanoTime();
+        DatabaseMetaData metaData = connection.getMetaData();
+        String catalog = connection.getCatalog();
+        String schema = connection.getSchema();
+
+        Map<String, String> remarks = new TreeMap<>();
+        boolean truncated = false;
+        try (ResultSet rs = metaData.getTables(catalog, schema, "%", TABLE_TYPES)) {
+            while (rs.next()) {
+                if (remarks.size() >= config.getMaxTables()) {
+                    truncated = true;
+                    break;
+                }
+                remarks.put(rs.getString("TABLE_NAME"), rs.getString("REMARKS"));
+            }
+        }
+
+        Map<String, List<ColumnMeta>> columns = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, schema, "%", "%")) {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME");
+                if (!remarks.containsKey(table)) {
+                    continue;
+                }
+                columns.computeIfAbsent(table, key -> new ArrayList<>()).add(new ColumnMeta(
+                        rs.getInt("ORDINAL_POSITION"),
+                        rs.getString("COLUMN_NAME"),
+                        typeOf(rs.getString("TYPE_NAME"), rs.getInt("DATA_TYPE"),
+                                rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS")),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+            }
+        }
+        columns.values().forEach(list -> list.sort(Comparator.comparingInt(column -> column.ordinal)));
+
+        String constraintSql = CONSTRAINT_SQL.get(strategy.getDbType());
+        // MySQL 的 schema 即 catalog
+        String owner = "mysql".equals(strategy.getDbType()) ? catalog : schema;
+        String fingerprint = fingerprint(remarks, columns, constraintSql == null || owner == null
+                ? null : connection, constraintSql, owner);
+        if (previous != null && fingerprint != null && previous.fingerprint.equals(fingerprint)) {
+            return previous;
+        }
+
+        // 表结构有变化(或首次加载)，逐表读取主键、索引与外键
+        List<TableSchema> tables = new ArrayList<>(remarks.size());
+        for (Map.Entry<String, String> entry : remarks.entrySet()) {
+            String table = entry.getKey();
+            Set<String> primaryKeys = new HashSet<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, table)) {
+                while (rs.next()) {
+                    primaryKeys.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            List<TableSchema.Column> tableColumns = new ArrayList<>();
+            for (ColumnMeta column : columns.getOrDefault(table, List.of())) {
+                tableColumns.add(new TableSchema.Column(column.name, column.type, column.nullable,
+                        primaryKeys.contains(column.name)));
+            }
+            tables.add(new TableSchema(table, tableColumns, loadIndexes(metaData, catalog, schema, table, primaryKeys),
+                    loadForeignKeys(metaData, catalog, schema, table), entry.getValue()));
+        }
+        log.info("数据源 [{}] 表结构加载完成：共 {} 张表，耗时 {} ms", strategy.getId(), tables.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new Snapshot(strategy, List.copyOf(tables), fingerprint == null ? "" : fingerprint, truncated,
+                System.currentTimeMillis());
+    }
+
+    private static List<TableSchema.Index> loadIndexes(DatabaseMetaData metaData, String catalog, String schema,
+                                                       String table, Set<String> primaryKeys) throws SQLException {
+        Map<String, TreeMap<Short, String>> columns = new LinkedHashMap<>();
+        Map<String, Boolean> unique = new HashMap<>();
+        // approximate=true：不触发统计信息收集
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name == null || column == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                columns.computeIfAbsent(name, key -> new TreeMap<>()).put(rs.getShort("ORDINAL_POSITION"), column);
+                unique.put(name, !rs.getBoolean("NON_UNIQUE"));
+            }
+        }
+        List<TableSchema.Index> indexes = new ArrayList<>(columns.size());
+        columns.forEach((name, ordered) -> {
+            List<String> indexColumns = List.copyOf(ordered.values());
+            // 主键索引已在列上标注
+            if (unique.get(name) && new HashSet<>(indexColumns).equals(primaryKeys)) {
+                return;
+            }
+            indexes.add(new TableSchema.Index(name, indexColumns, unique.get(name)));
+        });
+        return indexes;
+    }
+
+    private static List<TableSchema.ForeignKey> loadForeignKeys(DatabaseMetaData metaData, String catalog,
+                                                                String schema, String table) throws SQLException {
+        Map<String, TableSchema.ForeignKey> foreignKeys = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schema, table)) {
+            while (rs.next()) {
+                String name = rs.getString("FK_NAME");
+                String referenced = rs.getString("PKTABLE_NAME");
+                TableSchema.ForeignKey foreignKey = foreignKeys.computeIfAbsent(name == null ? referenced : name,
+                        key -> new TableSchema.ForeignKey(new ArrayList<>(), referenced, new ArrayList<>()));
+                foreignKey.getColumns().add(rs.getString("FKCOLUMN_NAME"));
+                foreignKey.getReferencedColumns().add(rs.getString("PKCOLUMN_NAME"));
+            }
+        }
+        return List.copyOf(foreignKeys.values());
+    }
+
+    private static String typeOf(String typeName, int dataType, int size, int digits) {
+        String type = typeName == null ? "unknown" : typeName.toLowerCase(Locale.ROOT);
+        return switch (dataType) {
+            case Types.CHAR, Types.VARCHAR, Types.NCHAR, Types.NVARCHAR, Types.BINARY, Types.VARBINARY ->
+                    size > 0 ? type + "(" + size + ")" : type;
+            case Types.DECIMAL, Types.NUMERIC -> size > 0 ? type + "(" + size + "," + digits + ")" : type;
+            default -> type;
+        };
+    }
+
+    /**
+     * 计算结构指纹(表、注释、列，以及索引、主键与外键定义)，无法批量读取索引与约束时返回 null
+     */
+    private static String fingerprint(Map<String, String> remarks, Map<String, List<ColumnMeta>> columns,
+                                      Connection connection, String constraintSql, String owner) throws SQLException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, String> entry : remarks.entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                for (ColumnMeta column : columns.getOrDefault(entry.getKey(), List.of())) {
+                    digest.update((byte) 1);
+                    digest.update((column.name + ' ' + column.type + ' ' + column.nullable)
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 2);
+            }
+            if (connection == null) {
+                return null;
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(constraintSql)) {
+                stmt.setString(1, owner);
+                stmt.setString(2, owner);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int columnCount = rs.getMetaData().getColumnCount();
+                    while (rs.next()) {
+                        digest.update((byte) 3);
+                        for (int i = 1; i <= columnCount; i++) {
+                            digest.update(String.valueOf(rs.getString(i)).getBytes(StandardCharsets.UTF_8));
+                            digest.update((byte) 0);
+                        }
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    private static class ColumnMeta {
+        private final int ordinal;
+        private final String name;
+        private final String type;
+        private final boolean nullable;
+
+        ColumnMeta(int ordinal, String name, String type, boolean nullable) {
+            this.ordinal = ordinal;
+            this.name = name;
+            this.type = type;
+            this.nullable = nullable;
+        }
+    }
+
+    /**
+     * 表结构快照(不可变)
+     */
+    @Getter
+    public static class Snapshot {
+
+        /**
+         * 加载快照时的数据源实例(数据源被替换后需重新加载)
+         */
+        private final DataSourceStrategy strategy;
+
+        private final List<TableSchema> tables;
+
+        /**
+         * 表与列的指纹，用于检测表结构变化
+         */
+        private final String fingerprint;
+
+        /**
+         * 是否因超过表数量上限而未加载全部表
+         */
+        private final boolean truncated;
+
+        private final long loadedAt;
+
+        Snapshot(DataSourceStrategy strategy, List<TableSchema> tables, String fingerprint, boolean truncated,
+                 long loadedAt) {
+            this.strategy = strategy;
+            this.tables = tables;
+            this.fingerprint = fingerprint;
+            this.truncated = truncated;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package cn.onism.mcp.tool.database.manage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 表结构(不可变)
+ * <p>
+ * 加载时即生成紧凑的单行摘要，查询时只需过滤与拼接：
+ * <pre>
+ * users(id bigint PK, name varchar(64), email varchar(128)?, dept_id bigint) idx[uk_email(email) UNIQUE] fk[dept_id -> dept(id)] -- 用户表
+ * </pre>
+ * 列类型后的 ? 表示可为 NULL
+ *
+ * @author Onism
+ * @date 2025-08-09
+ */
+public class TableSchema {
+
+    private final String name;
+
+    private final String lowerName;
+
+    /**
+     * 小写列名(用于按列过滤)
+     */
+    private final Set<String> lowerColumns;
+
+    /**
+     * 单行摘要
+     */
+    private final String summary;
+
+    public TableSchema(String name, List<Column> columns, List<Index> indexes, List<ForeignKey> foreignKeys,
+                       String remarks) {
+        this.name = name;
+        this.lowerName = name.toLowerCase(Locale.ROOT);
+        this.lowerColumns = Set.copyOf(columns.stream().map(column -> column.name.toLowerCase(Locale.ROOT)).toList());
+        this.summary = render(name, columns, indexes, foreignKeys, remarks);
+    }
+
+    private static String render(String name, List<Column> columns, List<Index> indexes, List<ForeignKey> foreignKeys,
+                                 String remarks) {
+        StringBuilder builder = new StringBuilder(name).append('(');
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(column.name).append(' ').append(column.type);
+            if (column.nullable) {
+                builder.append('?');
+            }
+            if (column.primaryKey) {
+                builder.append(" PK");
+            }
+        }
+        builder.append(')');
+        if (!indexes.isEmpty()) {
+            builder.append(" idx[");
+            for (int i = 0; i < indexes.size(); i++) {
+                Index index = indexes.get(i);
+                if (i > 0) {
+                    builder.append("; ");
+                }
+                builder.append(index.name).append('(').append(String.join(", ", index.columns)).append(')');
+                if (index.unique) {
+                    builder.append(" UNIQUE");
+                }
+            }
+            builder.append(']');
+        }
+        if (!foreignKeys.isEmpty()) {
+            builder.append(" fk[");
+            for (int i = 0; i < foreignKeys.size(); i++) {
+                ForeignKey foreignKey = foreignKeys.get(i);
+                if (i > 0) {
+                    builder.append("; ");
+                }
+                builder.append(String.join(", ", foreignKey.columns)).append(" -> ").append(foreignKey.referencedTable)
+                        .append('(').append(String.join(", ", foreignKey.referencedColumns)).append(')');
+            }
+            builder.append(']');
+        }
+        if (remarks != null && !remarks.isBlank()) {
+            builder.append(" -- ").append(remarks.replace('\n', ' ').trim());
+        }
+        return builder.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLowerName() {
+        return lowerName;
+    }
+
+    public Set<String> getLowerColumns() {
+        return lowerColumns;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * 列
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Column {
+        private final String name;
+        /**
+         * 类型(含长度/精度)
+         */
+        private final String type;
+        private final boolean nullable;
+        private final boolean primaryKey;
+    }
+
+    /**
+     * 索引(不含主键索引)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Index {
+        private final String name;
+        /**
+         * 索引列(按顺序)
+         */
+        private final List<String> columns;
+        private final boolean unique;
+    }
+
+    /**
+     * 外键
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ForeignKey {
+        /**
+         * 外键列(按顺序)
+         */
+        private final List<String> columns;
+        private final String referencedTable;
+        /**
+         * 被引用的列(与 columns 一一对应)
+         */
+        private final List<String> referencedColumns;
+    }
+}
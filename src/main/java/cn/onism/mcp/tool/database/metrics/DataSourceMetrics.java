@@ -0,0 +1,136 @@
+package cn.onism.mcp.tool.database.metrics;
+
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.StreamStats;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.search.Search;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源指标
+ * <p>
+ * 连接池指标由 HikariCP 自带的 Micrometer 追踪器发布(hikaricp.connections.*，以 pool=连接池名称区分)；
+ * 查询指标按数据源 ID 打标签：
+ * <ul>
+ *     <li>mcp.datasource.query：查询耗时(含等待并发许可与连接)，发布 p50/p99</li>
+ *     <li>mcp.datasource.query.rows / mcp.datasource.query.bytes：每次查询返回的行数与估算字节数</li>
+ *     <li>mcp.datasource.query.errors：失败次数(按异常类型区分)</li>
+ * </ul>
+ *
+ * @author Onism
+ * @date 2025-08-11
+ */
+@Component
+public class DataSourceMetrics {
+
+    public static final String QUERY = "mcp.datasource.query";
+
+    public static final String ROWS = "mcp.datasource.query.rows";
+
+    public static final String BYTES = "mcp.datasource.query.bytes";
+
+    public static final String ERRORS = "mcp.datasource.query.errors";
+
+    public static final String TAG_DATASOURCE = "datasource";
+
+    private final MeterRegistry registry;
+
+    private final MetricsTrackerFactory trackerFactory;
+
+    public DataSourceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.trackerFactory = new MicrometerMetricsTrackerFactory(registry);
+    }
+
+    /**
+     * 连接池指标追踪器(需在连接池创建前设置到 HikariConfig)
+     *
+     * @return {@link MetricsTrackerFactory }
+     */
+    public MetricsTrackerFactory trackerFactory() {
+        return trackerFactory;
+    }
+
+    /**
+     * 记录一次成功的查询
+     *
+     * @param strategy     数据源
+     * @param elapsedNanos 耗时(纳秒)
+     * @param stats        读取统计
+     */
+    public void recordSuccess(DataSourceStrategy strategy, long elapsedNanos, StreamStats stats) {
+        timer(strategy.getId(), strategy.getDbType(), "success").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(ROWS)
+                .tag(TAG_DATASOURCE, strategy.getId())
+                .baseUnit("rows")
+                .register(registry)
+                .record(stats.getRows());
+        DistributionSummary.builder(BYTES)
+                .tag(TAG_DATASOURCE, strategy.getId())
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry)
+                .record(stats.getBytes());
+    }
+
+    /**
+     * 记录一次失败的查询
+     *
+     * @param strategy     数据源
+     * @param elapsedNanos 耗时(纳秒)
+     * @param error        异常
+     */
+    public void recordError(DataSourceStrategy strategy, long elapsedNanos, Exception error) {
+        timer(strategy.getId(), strategy.getDbType(), "error").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder(ERRORS)
+                .tag(TAG_DATASOURCE, strategy.getId())
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    private Timer timer(String datasourceId, String type, String outcome) {
+        return Timer.builder(QUERY)
+                .tag(TAG_DATASOURCE, datasourceId)
+                .tag("type", type == null ? "unknown" : type)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    /**
+     * 查找数据源的查询指标
+     *
+     * @param name         指标名
+     * @param datasourceId 数据源 ID
+     * @return {@link Search }
+     */
+    public Search find(String name, String datasourceId) {
+        return registry.find(name).tag(TAG_DATASOURCE, datasourceId);
+    }
+
+    /**
+     * 查找数据源的连接池指标
+     *
+     * @param name     指标名(如 hikaricp.connections.active)
+     * @param strategy 数据源
+     * @return {@link Search }
+     */
+    public Search findPool(String name, DataSourceStrategy strategy) {
+        return registry.find(name).tag("pool", String.valueOf(strategy.getPoolName()));
+    }
+
+    /**
+     * 移除数据源的查询指标(数据源注销后调用；连接池指标在连接池关闭时由 HikariCP 移除)
+     *
+     * @param datasourceId 数据源 ID
+     */
+    public void remove(String datasourceId) {
+        for (String name : new String[]{QUERY, ROWS, BYTES, ERRORS}) {
+            find(name, datasourceId).meters().forEach(registry::remove);
+        }
+    }
+}
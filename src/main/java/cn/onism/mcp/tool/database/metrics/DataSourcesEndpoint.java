@@ -0,0 +1,185 @@
+package cn.onism.mcp.tool.database.metrics;
+
+import cn.onism.mcp.tool.database.cache.QueryResultCache;
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.replica.ReplicaEndpoint;
+import cn.onism.mcp.tool.database.replica.ReplicatedDataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源概览端点(/actuator/datasources)
+ * <p>
+ * 汇总各数据源的连接池状态、查询耗时分位数、返回行数/字节数、错误数与缓存命中情况，
+ * 按 p99 耗时降序排列，排在前面的即为瓶颈数据源；带只读副本的数据源在 endpoints 中列出主库与各副本的状态与路由情况，
+ * 原始指标可通过 /actuator/metrics 查询
+ *
+ * @author Onism
+ * @date 2025-08-11
+ */
+@Component
+@Endpoint(id = "datasources")
+public class DataSourcesEndpoint {
+
+    private final DataSourceManager dataSourceManager;
+
+    private final DataSourceMetrics metrics;
+
+    private final QueryResultCache queryResultCache;
+
+    public DataSourcesEndpoint(DataSourceManager dataSourceManager, DataSourceMetrics metrics,
+                               QueryResultCache queryResultCache) {
+        this.dataSourceManager = dataSourceManager;
+        this.metrics = metrics;
+        this.queryResultCache = queryResultCache;
+    }
+
+    @ReadOperation
+    public List<DataSourceStats> datasources() {
+        return dataSourceManager.getStrategies().stream()
+                .map(this::stats)
+                .sorted(Comparator.comparingDouble(DataSourceStats::getP99Millis).reversed())
+                .toList();
+    }
+
+    @ReadOperation
+    public DataSourceStats datasource(@Selector String id) {
+        return stats(dataSourceManager.getRegisteredStrategy(id));
+    }
+
+    private DataSourceStats stats(DataSourceStrategy strategy) {
+        String id = strategy.getId();
+        DataSourceStats stats = new DataSourceStats();
+        stats.setId(id);
+        stats.setType(strategy.getDbType());
+        stats.setPoolName(strategy.getPoolName());
+        stats.setPoolCreated(strategy.isPoolCreated());
+        stats.setCircuitState(strategy.getCircuitState().name());
+        stats.setMaxPoolSize(strategy.getConfig().getMaxPoolSize());
+
+        stats.setActiveConnections(gauge("hikaricp.connections.active", strategy));
+        stats.setIdleConnections(gauge("hikaricp.connections.idle", strategy));
+        stats.setPendingThreads(gauge("hikaricp.connections.pending", strategy));
+        Timer acquire = metrics.findPool("hikaricp.connections.acquire", strategy).timer();
+        if (acquire != null) {
+            stats.setAcquireMeanMillis(acquire.mean(TimeUnit.MILLISECONDS));
+            stats.setAcquireMaxMillis(acquire.max(TimeUnit.MILLISECONDS));
+        }
+        stats.setConnectionTimeouts((long) metrics.findPool("hikaricp.connections.timeout", strategy).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum());
+
+        Timer success = metrics.find(DataSourceMetrics.QUERY, id).tag("outcome", "success").timer();
+        if (success != null) {
+            stats.setQueries(success.count());
+            stats.setMeanMillis(success.mean(TimeUnit.MILLISECONDS));
+            stats.setMaxMillis(success.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : success.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.5) {
+                    stats.setP50Millis(percentile.value(TimeUnit.MILLISECONDS));
+                } else if (percentile.percentile() == 0.99) {
+                    stats.setP99Millis(percentile.value(TimeUnit.MILLISECONDS));
+                }
+            }
+        }
+        stats.setErrors((long) metrics.find(DataSourceMetrics.ERRORS, id).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum());
+        DistributionSummary rows = metrics.find(DataSourceMetrics.ROWS, id).summary();
+        if (rows != null) {
+            stats.setRows((long) rows.totalAmount());
+        }
+        DistributionSummary bytes = metrics.find(DataSourceMetrics.BYTES, id).summary();
+        if (bytes != null) {
+            stats.setBytes((long) bytes.totalAmount());
+        }
+        stats.setCacheHits(queryResultCache.hitCount(id));
+        stats.setCacheMisses(queryResultCache.missCount(id));
+        if (strategy instanceof ReplicatedDataSourceStrategy replicated) {
+            stats.setEndpoints(replicated.getEndpoints().stream()
+                    .map(this::endpointStats)
+                    .toList());
+        }
+        return stats;
+    }
+
+    private DataSourceStats endpointStats(ReplicaEndpoint endpoint) {
+        DataSourceStats stats = stats(endpoint.getStrategy());
+        stats.setRole(endpoint.isPrimary() ? "primary" : "replica");
+        stats.setEjected(endpoint.isEjected());
+        stats.setOutstanding(endpoint.getOutstanding());
+        stats.setConsecutiveFailures(endpoint.getConsecutiveFailures());
+        stats.setEwmaMillis(endpoint.getEwmaMillis());
+        return stats;
+    }
+
+    private Integer gauge(String name, DataSourceStrategy strategy) {
+        Gauge gauge = metrics.findPool(name, strategy).gauge();
+        return gauge == null ? null : (int) gauge.value();
+    }
+
+    @Setter
+    @Getter
+    public static class DataSourceStats {
+        private String id;
+        private String type;
+        private String poolName;
+        private boolean poolCreated;
+        /**
+         * 熔断状态(CLOSED、OPEN、HALF_OPEN)
+         */
+        private String circuitState;
+        private int maxPoolSize;
+        /**
+         * 连接池状态(连接池尚未创建时为空)
+         */
+        private Integer activeConnections;
+        private Integer idleConnections;
+        /**
+         * 等待获取连接的线程数
+         */
+        private Integer pendingThreads;
+        private double acquireMeanMillis;
+        private double acquireMaxMillis;
+        private long connectionTimeouts;
+        /**
+         * 成功的查询数与耗时(含等待并发许可与连接)
+         */
+        private long queries;
+        private double meanMillis;
+        private double p50Millis;
+        private double p99Millis;
+        private double maxMillis;
+        private long errors;
+        /**
+         * 累计返回的行数与估算字节数
+         */
+        private long rows;
+        private long bytes;
+        private long cacheHits;
+        private long cacheMisses;
+        /**
+         * 只读副本路由状态(仅出现在 endpoints 中)：角色、是否已摘除、进行中请求数、连续失败次数与首行响应耗时均值
+         */
+        private String role;
+        private Boolean ejected;
+        private Integer outstanding;
+        private Integer consecutiveFailures;
+        private Double ewmaMillis;
+        /**
+         * 主库与各副本(未配置副本时为空)
+         */
+        private List<DataSourceStats> endpoints;
+    }
+}
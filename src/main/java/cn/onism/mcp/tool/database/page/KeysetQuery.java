@@ -0,0 +1,225 @@
+package cn.onism.mcp.tool.database.page;
+
+import cn.onism.mcp.tool.database.sql.SqlLexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 键集分页查询
+ * <p>
+ * 从语句最外层的 ORDER BY 中提取排序列，将原语句(去掉 ORDER BY)包装为子查询，
+ * 下一页以"排序列大于上一页最后一行"为条件读取，数据库可直接沿索引定位，第 N 页的开销与 N 无关：
+ * <pre>
+ * SELECT * FROM (原语句) mcp_page
+ * WHERE c1 >= ? AND (c1 > ? OR (c1 = ? AND c2 > ?))
+ * ORDER BY c1, c2 LIMIT n
+ * </pre>
+ * 排序列需能唯一确定一行(如包含主键)且不为 NULL，否则会跳过与上一页最后一行取值相同的行，
+ * 由调用方检查取值是否重复({@link PaginationService})
+ *
+ * @author Onism
+ * @date 2025-08-07
+ */
+public class KeysetQuery {
+
+    private static final String ALIAS = "mcp_page";
+
+    /**
+     * 去掉 ORDER BY 的原语句
+     */
+    private final String inner;
+
+    /**
+     * 排序列在外层查询中的引用(原样保留引号)
+     */
+    private final List<String> columns;
+
+    /**
+     * 排序列对应的结果集列标签(小写、去引号)
+     */
+    private final List<String> labels;
+
+    private final List<Boolean> descending;
+
+    /**
+     * 原语句中的参数占位符数量(键集条件的参数追加在其后)
+     */
+    private final int parameterCount;
+
+    private KeysetQuery(String inner, List<String> columns, List<String> labels, List<Boolean> descending,
+                        int parameterCount) {
+        this.inner = inner;
+        this.columns = columns;
+        this.labels = labels;
+        this.descending = descending;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * 解析语句，无法改写为键集分页时(无 ORDER BY、排序项为表达式、已带 LIMIT/OFFSET 等)返回 null
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型(影响词法规则)
+     * @return {@link KeysetQuery }
+     */
+    public static KeysetQuery parse(String sql, String dbType) {
+        SqlLexer lexer = new SqlLexer(sql, dbType);
+        int depth = 0;
+        int parameters = 0;
+        int orderStart = -1;
+        boolean previousOrder = false;
+        while (lexer.next()) {
+            if (lexer.type() == SqlLexer.TokenType.PARAMETER) {
+                parameters++;
+            } else if (lexer.isSymbol('(')) {
+                depth++;
+            } else if (lexer.isSymbol(')')) {
+                depth--;
+            } else if (depth == 0 && lexer.isWord("ORDER")) {
+                previousOrder = true;
+                orderStart = lexer.start();
+                continue;
+            } else if (depth == 0 && previousOrder && lexer.isWord("BY")) {
+                previousOrder = false;
+                KeysetQuery query = parseOrderBy(lexer, sql.substring(0, orderStart), parameters);
+                if (query != null) {
+                    return query;
+                }
+                // 排序子句之后仍有内容或无法识别
+                return null;
+            }
+            previousOrder = false;
+        }
+        return null;
+    }
+
+    private static KeysetQuery parseOrderBy(SqlLexer lexer, String inner, int parameters) {
+        List<String> columns = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        boolean more = lexer.next();
+        while (more) {
+            // 标识符(可带限定名)：a.b.c，外层只保留最后一段
+            String column = null;
+            while (true) {
+                if (lexer.type() != SqlLexer.TokenType.WORD && lexer.type() != SqlLexer.TokenType.QUOTED_IDENTIFIER) {
+                    return null;
+                }
+                column = lexer.text();
+                more = lexer.next();
+                if (more && lexer.isSymbol('.')) {
+                    if (!lexer.next()) {
+                        return null;
+                    }
+                    continue;
+                }
+                break;
+            }
+            boolean desc = false;
+            if (more && (lexer.isWord("ASC") || lexer.isWord("DESC"))) {
+                desc = lexer.isWord("DESC");
+                more = lexer.next();
+            }
+            columns.add(column);
+            labels.add(unquote(column).toLowerCase());
+            descending.add(desc);
+            if (!more || lexer.type() == SqlLexer.TokenType.SEMICOLON) {
+                break;
+            }
+            if (!lexer.isSymbol(',')) {
+                // LIMIT/OFFSET/FETCH/NULLS FIRST 等暂不支持改写
+                return null;
+            }
+            more = lexer.next();
+            if (!more) {
+                return null;
+            }
+        }
+        // 分号之后不允许再有内容
+        while (more && lexer.type() == SqlLexer.TokenType.SEMICOLON) {
+            more = lexer.next();
+        }
+        if (more || columns.isEmpty()) {
+            return null;
+        }
+        return new KeysetQuery(inner, Collections.unmodifiableList(columns), Collections.unmodifiableList(labels),
+                Collections.unmodifiableList(descending), parameters);
+    }
+
+    /**
+     * 生成分页语句
+     *
+     * @param after       是否带上一页位置条件(首页为 false)
+     * @param limitClause 行数限制子句(方言相关)
+     * @return {@link String }
+     */
+    public String toSql(boolean after, String limitClause) {
+        StringBuilder builder = new StringBuilder("SELECT * FROM (").append(inner).append(") ").append(ALIAS);
+        if (after) {
+            builder.append(" WHERE ");
+            String first = columns.get(0);
+            if (columns.size() > 1) {
+                // 首列的范围条件便于数据库走索引范围扫描
+                builder.append(first).append(descending.get(0) ? " <= ?" : " >= ?").append(" AND (");
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    builder.append(" OR ");
+                }
+                builder.append('(');
+                for (int j = 0; j < i; j++) {
+                    builder.append(columns.get(j)).append(" = ? AND ");
+                }
+                builder.append(columns.get(i)).append(descending.get(i) ? " < ?" : " > ?").append(')');
+            }
+            if (columns.size() > 1) {
+                builder.append(')');
+            }
+        }
+        builder.append(" ORDER BY ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(columns.get(i)).append(descending.get(i) ? " DESC" : " ASC");
+        }
+        return builder.append(limitClause).toString();
+    }
+
+    /**
+     * 按 {@link #toSql} 中占位符的顺序展开键集条件的参数(编号从原语句参数之后开始)
+     *
+     * @param values 上一页最后一行的排序列取值
+     * @return 按占位符顺序排列的参数值
+     */
+    public List<Object> expandParameters(List<Object> values) {
+        List<Object> expanded = new ArrayList<>();
+        if (columns.size() > 1) {
+            expanded.add(values.get(0));
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            for (int j = 0; j <= i; j++) {
+                expanded.add(values.get(j));
+            }
+        }
+        return expanded;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    private static String unquote(String identifier) {
+        char first = identifier.charAt(0);
+        if ((first == '"' || first == '`') && identifier.length() >= 2) {
+            return identifier.substring(1, identifier.length() - 1);
+        }
+        return identifier;
+    }
+}
@@ -0,0 +1,37 @@
+package cn.onism.mcp.tool.database.page;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 分页查询结果
+ *
+ * @author Onism
+ * @date 2025-08-07
+ */
+@Getter
+@AllArgsConstructor
+public class PageResult {
+    /**
+     * 列名
+     */
+    private final List<String> columns;
+    /**
+     * 列的数据库类型(与 columns 一一对应)
+     */
+    private final List<String> types;
+    /**
+     * 当前页的行数据
+     */
+    private final List<Object[]> rows;
+    /**
+     * 下一页令牌(没有更多数据时为空)
+     */
+    private final String nextToken;
+    /**
+     * 分页方式：KEYSET 或 CURSOR
+     */
+    private final String mode;
+}
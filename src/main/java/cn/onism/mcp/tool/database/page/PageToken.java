@@ -0,0 +1,129 @@
+package cn.onism.mcp.tool.database.page;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页续读令牌(序列化为 JSON 后以 Base64 编码，对调用方不透明)
+ * <p>
+ * 键集分页时记录原语句与上一页最后一行的排序列取值(带类型，保证续读时按原类型绑定参数)；
+ * 游标分页时只记录服务端游标 ID。令牌中的语句在续读时会重新经过只读校验
+ *
+ * @author Onism
+ * @date 2025-08-07
+ */
+@Setter
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageToken {
+
+    private String datasourceId;
+
+    private String sql;
+
+    private Map<Integer, Object> params;
+
+    private int pageSize;
+
+    /**
+     * 上一页最后一行排序列的类型
+     */
+    private List<String> afterTypes;
+
+    /**
+     * 上一页最后一行排序列的取值(字符串形式)
+     */
+    private List<String> afterValues;
+
+    /**
+     * 服务端游标 ID(游标分页)
+     */
+    private String cursorId;
+
+    /**
+     * 记录排序列取值
+     *
+     * @param values 取值
+     * @throws IllegalArgumentException 取值为 NULL(无法作为键集分页的位置)
+     */
+    public void recordAfter(List<Object> values) {
+        List<String> types = new ArrayList<>(values.size());
+        List<String> texts = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("排序列存在 NULL 值，无法继续键集分页，请在条件中排除 NULL 或改用非空列排序");
+            }
+            types.add(typeOf(value));
+            texts.add(value.toString());
+        }
+        this.afterTypes = types;
+        this.afterValues = texts;
+    }
+
+    /**
+     * 还原排序列取值
+     *
+     * @return {@link List }<{@link Object }>
+     */
+    public List<Object> restoreAfter() {
+        List<Object> values = new ArrayList<>(afterValues.size());
+        for (int i = 0; i < afterValues.size(); i++) {
+            values.add(parse(afterTypes.get(i), afterValues.get(i)));
+        }
+        return values;
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return "long";
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return "decimal";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return "double";
+        }
+        if (value instanceof Boolean) {
+            return "bool";
+        }
+        if (value instanceof LocalDate) {
+            return "date";
+        }
+        if (value instanceof LocalDateTime) {
+            return "timestamp";
+        }
+        if (value instanceof LocalTime) {
+            return "time";
+        }
+        if (value instanceof OffsetDateTime) {
+            return "timestamptz";
+        }
+        if (value instanceof String) {
+            return "string";
+        }
+        throw new IllegalArgumentException("排序列类型 " + value.getClass().getSimpleName() + " 不支持键集分页");
+    }
+
+    private static Object parse(String type, String text) {
+        return switch (type) {
+            case "long" -> Long.parseLong(text);
+            case "decimal" -> new BigDecimal(text);
+            case "double" -> Double.parseDouble(text);
+            case "bool" -> Boolean.parseBoolean(text);
+            case "date" -> LocalDate.parse(text);
+            case "timestamp" -> LocalDateTime.parse(text);
+            case "time" -> LocalTime.parse(text);
+            case "timestamptz" -> OffsetDateTime.parse(text);
+            case "string" -> text;
+            default -> throw new IllegalArgumentException("无效的分页令牌");
+        };
+    }
+}
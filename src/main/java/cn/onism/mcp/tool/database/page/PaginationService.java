@@ -0,0 +1,378 @@
+package cn.onism.mcp.tool.database.page;
+
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.manage.QueryExecutor;
+import cn.onism.mcp.tool.database.strategy.ColumnarRowCollector;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.HeldCursor;
+import cn.onism.mcp.tool.database.strategy.QueryHandle;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分页查询
+ * <p>
+ * 语句最外层带 ORDER BY(且排序项均为列)时改写为键集分页，令牌中记录上一页最后一行的排序列取值；
+ * 无法改写时(无 ORDER BY、排序项为表达式、包装为子查询后执行失败、首页中排序列取值重复或为 NULL 等)
+ * 改用保持在服务端的游标，令牌中只记录游标 ID，游标闲置超时后自动关闭。两种方式读取第 N 页的开销都与 N 无关。
+ * <p>
+ * 游标打开期间独占一个连接与一个舱壁许可，每个数据源同时打开的游标数不超过 maxCursors，且至少为其他查询保留一个许可；
+ * 打开游标与续读都在查询执行器中进行，同样受查询超时与取消约束
+ *
+ * @author Onism
+ * @date 2025-08-07
+ */
+@Slf4j
+@Component
+public class PaginationService {
+
+    private static final String KEYSET = "KEYSET";
+
+    private static final String CURSOR = "CURSOR";
+
+    private final DataSourceManager dataSourceManager;
+
+    private final QueryExecutor queryExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final DataSourceProperties.PageProperty config;
+
+    /**
+     * 打开的服务端游标(游标 ID -> 游标)
+     */
+    private final Map<String, CursorEntry> cursors = new ConcurrentHashMap<>();
+
+    /**
+     * 各数据源打开的游标数
+     */
+    private final Map<String, AtomicInteger> openCursors = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-page-cursor-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PaginationService(DataSourceManager dataSourceManager, QueryExecutor queryExecutor,
+                             ObjectMapper objectMapper, DataSourceProperties properties) {
+        this.dataSourceManager = dataSourceManager;
+        this.queryExecutor = queryExecutor;
+        this.objectMapper = objectMapper;
+        this.config = properties.getPage();
+        long period = Math.max(1, config.getCursorIdleTimeout() / 2);
+        sweeper.scheduleWithFixedDelay(this::closeIdleCursors, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 读取第一页
+     *
+     * @param datasourceId 数据源 ID
+     * @param sql          SQL
+     * @param params       参数(可为空)
+     * @param pageSize     每页行数
+     * @return {@link PageResult }
+     * @throws SQLException sql异常
+     */
+    public PageResult firstPage(String datasourceId, String sql, Map<Integer, Object> params, int pageSize)
+            throws SQLException {
+        DataSourceStrategy strategy = dataSourceManager.getStrategy(datasourceId);
+        PageToken token = new PageToken();
+        token.setDatasourceId(datasourceId);
+        token.setSql(sql);
+        token.setParams(params);
+        token.setPageSize(clampPageSize(strategy, pageSize));
+
+        KeysetQuery keyset = KeysetQuery.parse(sql, strategy.getDbType());
+        if (keyset != null) {
+            try {
+                PageResult page = keysetPage(strategy, keyset, token, false);
+                if (page != null) {
+                    return page;
+                }
+                log.debug("排序列取值不唯一或为 NULL，改用服务端游标");
+            } catch (SQLException e) {
+                // 42xxx：语法错误或对象不存在(如包装为子查询后列名重复、排序列未出现在结果中)，改用游标
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("42")) {
+                    throw e;
+                }
+                log.debug("键集分页改写失败，改用服务端游标：{}", e.getMessage());
+            }
+        }
+        return openCursorPage(strategy, token);
+    }
+
+    /**
+     * 根据令牌读取下一页
+     *
+     * @param encodedToken 令牌
+     * @return {@link PageResult }
+     * @throws SQLException sql异常
+     */
+    public PageResult nextPage(String encodedToken) throws SQLException {
+        PageToken token = decode(encodedToken);
+        if (token.getCursorId() != null) {
+            CursorEntry entry = cursors.get(token.getCursorId());
+            if (entry == null) {
+                throw new IllegalArgumentException("分页游标已过期(闲置超过 " + config.getCursorIdleTimeout() + " 秒)，请重新查询");
+            }
+            return cursorPage(token.getCursorId(), entry, Math.min(token.getPageSize(), config.getMaxPageSize()));
+        }
+        DataSourceStrategy strategy = dataSourceManager.getStrategy(token.getDatasourceId());
+        token.setPageSize(clampPageSize(strategy, token.getPageSize()));
+        KeysetQuery keyset = KeysetQuery.parse(token.getSql(), strategy.getDbType());
+        if (keyset == null || token.getAfterValues() == null) {
+            throw new IllegalArgumentException("无效的分页令牌");
+        }
+        return keysetPage(strategy, keyset, token, true);
+    }
+
+    /**
+     * 读取键集分页的一页；首页中排序列未包含在结果中、取值重复或为 NULL(无法据此唯一定位下一页)时返回 null
+     */
+    private PageResult keysetPage(DataSourceStrategy strategy, KeysetQuery keyset, PageToken token, boolean after)
+            throws SQLException {
+        int pageSize = token.getPageSize();
+        Map<Integer, Object> params = new HashMap<>();
+        if (token.getParams() != null) {
+            params.putAll(token.getParams());
+        }
+        if (after) {
+            List<Object> expanded = keyset.expandParameters(token.restoreAfter());
+            for (int i = 0; i < expanded.size(); i++) {
+                params.put(keyset.getParameterCount() + 1 + i, expanded.get(i));
+            }
+        }
+        // 多取一行用于判断是否还有下一页
+        String sql = keyset.toSql(after, strategy.limitClause(pageSize + 1));
+        QueryResult result = queryExecutor.execute(strategy, sql, params.isEmpty() ? null : params, new QueryHandle());
+
+        List<Object[]> rows = result.getRows();
+        int[] indexes = new int[keyset.getLabels().size()];
+        for (int i = 0; i < indexes.length; i++) {
+            String label = keyset.getLabels().get(i);
+            indexes[i] = result.getColumns().indexOf(label);
+            if (indexes[i] < 0) {
+                if (!after) {
+                    return null;
+                }
+                throw new IllegalArgumentException("排序列 [" + label + "] 未包含在查询结果中，无法继续键集分页");
+            }
+        }
+        // 排序列不唯一时，"大于上一页最后一行"会跳过与之取值相同的行：首页检查整页，之后的页检查页边界
+        // (首页没有重复时改用游标，之后的页只能报错)
+        if (!after && !isStrictlyOrdered(rows, indexes, 0)) {
+            return null;
+        }
+        String nextToken = null;
+        if (rows.size() > pageSize) {
+            if (!isStrictlyOrdered(rows, indexes, pageSize - 1)) {
+                throw new IllegalArgumentException("排序列 " + keyset.getLabels()
+                        + " 的取值在分页边界处重复或为 NULL，无法继续键集分页，请在 ORDER BY 末尾追加唯一列(如主键)后重新查询");
+            }
+            rows = rows.subList(0, pageSize);
+            Object[] last = rows.get(pageSize - 1);
+            List<Object> values = new ArrayList<>(indexes.length);
+            for (int index : indexes) {
+                values.add(last[index]);
+            }
+            PageToken next = new PageToken();
+            next.setDatasourceId(token.getDatasourceId());
+            next.setSql(token.getSql());
+            next.setParams(token.getParams());
+            next.setPageSize(pageSize);
+            next.recordAfter(values);
+            nextToken = encode(next);
+        }
+        return new PageResult(result.getColumns(), result.getTypes(), rows, nextToken, KEYSET);
+    }
+
+    /**
+     * 从 from 行起，各行的排序列取值不为 NULL 且与前一行(from 行除外)不同
+     */
+    private static boolean isStrictlyOrdered(List<Object[]> rows, int[] indexes, int from) {
+        for (int i = from; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            boolean same = i > from;
+            for (int index : indexes) {
+                if (row[index] == null) {
+                    return false;
+                }
+                same = same && Objects.deepEquals(row[index], rows.get(i - 1)[index]);
+            }
+            if (same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PageResult openCursorPage(DataSourceStrategy strategy, PageToken token) throws SQLException {
+        int limit = cursorLimit(strategy);
+        AtomicInteger open = openCursors.computeIfAbsent(strategy.getId(), id -> new AtomicInteger());
+        if (open.incrementAndGet() > limit) {
+            open.decrementAndGet();
+            throw new SQLTransientException("数据源 [" + strategy.getId() + "] 打开的分页游标数已达上限(" + limit
+                    + ")，请稍后重试，或为查询添加按唯一列排序的 ORDER BY 以使用键集分页");
+        }
+        HeldCursor cursor;
+        PendingCursor pending = new PendingCursor();
+        QueryHandle handle = new QueryHandle();
+        try {
+            cursor = QueryExecutor.await(queryExecutor.submit(strategy, handle, () -> {
+                HeldCursor opened = strategy.openCursor(token.getSql(), token.getParams(), handle);
+                if (!pending.offer(opened)) {
+                    // 调用方已超时放弃，游标不会再被读取
+                    opened.close();
+                }
+                return opened;
+            }), handle);
+        } catch (SQLException | RuntimeException e) {
+            pending.abandon();
+            open.decrementAndGet();
+            throw e;
+        }
+        String cursorId = UUID.randomUUID().toString();
+        CursorEntry entry = new CursorEntry(strategy, cursor);
+        cursors.put(cursorId, entry);
+        return cursorPage(cursorId, entry, token.getPageSize());
+    }
+
+    /**
+     * 单个数据源同时打开的游标数上限：不超过配置值，且至少为其他查询保留一个舱壁许可
+     */
+    private int cursorLimit(DataSourceStrategy strategy) {
+        DataSourceProperties.DataSourceProperty datasource = strategy.getConfig();
+        int permits = datasource.getMaxConcurrentQueries() > 0
+                ? datasource.getMaxConcurrentQueries() : datasource.getMaxPoolSize();
+        return Math.min(config.getMaxCursors(), permits - 1);
+    }
+
+    private PageResult cursorPage(String cursorId, CursorEntry entry, int pageSize) throws SQLException {
+        entry.touch();
+        ColumnarRowCollector collector = new ColumnarRowCollector();
+        QueryHandle handle = new QueryHandle();
+        try {
+            QueryExecutor.await(queryExecutor.submit(entry.strategy, handle,
+                    () -> entry.cursor.fetch(pageSize, collector, handle)), handle);
+        } catch (SQLException | RuntimeException e) {
+            release(cursorId, entry);
+            throw e;
+        }
+        entry.touch();
+        String nextToken = null;
+        if (entry.cursor.isExhausted()) {
+            release(cursorId, entry);
+        } else {
+            PageToken next = new PageToken();
+            next.setCursorId(cursorId);
+            next.setPageSize(pageSize);
+            nextToken = encode(next);
+        }
+        return new PageResult(entry.cursor.getColumns(), entry.cursor.getTypes(), collector.getRows(), nextToken, CURSOR);
+    }
+
+    private void release(String cursorId, CursorEntry entry) {
+        if (cursors.remove(cursorId, entry)) {
+            entry.cursor.close();
+            openCursors.get(entry.strategy.getId()).decrementAndGet();
+        }
+    }
+
+    private void closeIdleCursors() {
+        long deadline = System.nanoTime() - TimeUnit.SECONDS.toNanos(config.getCursorIdleTimeout());
+        cursors.forEach((id, entry) -> {
+            if (entry.lastAccess - deadline < 0) {
+                log.debug("分页游标 [{}] 闲置超时，已关闭", id);
+                release(id, entry);
+            }
+        });
+    }
+
+    private int clampPageSize(DataSourceStrategy strategy, int pageSize) {
+        int size = pageSize > 0 ? Math.min(pageSize, config.getMaxPageSize()) : Math.min(100, config.getMaxPageSize());
+        // 键集分页多取一行，不能超过数据源的单次查询行数上限
+        int maxRows = strategy.getConfig().getMaxRows();
+        return maxRows > 1 ? Math.min(size, maxRows - 1) : size;
+    }
+
+    private String encode(PageToken token) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+        } catch (IOException e) {
+            throw new IllegalStateException("生成分页令牌失败", e);
+        }
+    }
+
+    private PageToken decode(String encodedToken) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(encodedToken), PageToken.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页令牌");
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sweeper.shutdownNow();
+        cursors.forEach(this::release);
+    }
+
+    private static class CursorEntry {
+
+        private final DataSourceStrategy strategy;
+
+        private final HeldCursor cursor;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        CursorEntry(DataSourceStrategy strategy, HeldCursor cursor) {
+            this.strategy = strategy;
+            this.cursor = cursor;
+        }
+
+        void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * 执行器中正在打开的游标(调用方超时放弃后才打开成功的游标由执行线程关闭)
+     */
+    private static class PendingCursor {
+
+        private HeldCursor cursor;
+
+        private boolean abandoned;
+
+        synchronized boolean offer(HeldCursor opened) {
+            if (abandoned) {
+                return false;
+            }
+            cursor = opened;
+            return true;
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.onism.mcp.tool.database.replica;
+
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 逻辑数据源下的一个物理端点(主库或副本)及其路由状态
+ * <p>
+ * 耗时均值为首行响应耗时(执行到结果集打开)的指数加权移动平均，与结果集大小无关，
+ * 可在不同大小的查询之间比较端点快慢
+ *
+ * @author Onism
+ * @date 2025-08-13
+ */
+public class ReplicaEndpoint {
+
+    /**
+     * 指数加权系数(越大越偏向最近的样本)
+     */
+    private static final double ALPHA = 0.3;
+
+    private final String name;
+
+    private final boolean primary;
+
+    private final DataSourceStrategy strategy;
+
+    /**
+     * 进行中的请求数
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /**
+     * 连续失败次数(健康检查失败或查询时连接失败)
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile double ewmaNanos;
+
+    private volatile long samples;
+
+    /**
+     * 摘除截止时间(System.nanoTime)，为 0 表示未摘除
+     */
+    private volatile long ejectedUntil;
+
+    ReplicaEndpoint(String name, boolean primary, DataSourceStrategy strategy) {
+        this.name = name;
+        this.primary = primary;
+        this.strategy = strategy;
+    }
+
+    /**
+     * 记录一次首行响应耗时
+     *
+     * @param nanos 耗时(纳秒)
+     */
+    synchronized void recordLatency(long nanos) {
+        ewmaNanos = samples == 0 ? nanos : ewmaNanos + ALPHA * (nanos - ewmaNanos);
+        samples++;
+    }
+
+    /**
+     * 负载得分(越小越优先)
+     *
+     * @param weighted 是否按耗时均值加权
+     * @return double
+     */
+    double score(boolean weighted) {
+        int inflight = outstanding.get() + 1;
+        // 尚无样本的端点得分最低，优先获得流量以尽快得到耗时均值
+        return weighted ? (ewmaNanos / 1_000_000.0 + 1) * inflight : inflight;
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    int recordFailure() {
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    void eject(long durationSeconds) {
+        ejectedUntil = Math.max(1, System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds));
+    }
+
+    /**
+     * 恢复流量(耗时均值重新开始统计)
+     */
+    synchronized void reinstate() {
+        ejectedUntil = 0;
+        consecutiveFailures.set(0);
+        ewmaNanos = 0;
+        samples = 0;
+    }
+
+    public boolean isEjected() {
+        return ejectedUntil != 0;
+    }
+
+    /**
+     * 摘除时长是否已到期(到期后需健康检查通过才会恢复)
+     */
+    boolean isEjectionExpired() {
+        long until = ejectedUntil;
+        return until != 0 && System.nanoTime() - until >= 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    public DataSourceStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public double getEwmaMillis() {
+        return ewmaNanos / 1_000_000.0;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,465 @@
+package cn.onism.mcp.tool.database.replica;
+
+import cn.onism.mcp.tool.database.metrics.DataSourceMetrics;
+import cn.onism.mcp.tool.database.strategy.*;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 带只读副本的逻辑数据源
+ * <p>
+ * 一个数据源 ID 对应一个主库与多个副本，每个端点是一个独立的策略实例(各自的连接池与舱壁)。
+ * 工具发出的语句均为只读查询，因此全部路由到副本，主库只在副本均不可用时兜底(开启 readFromPrimary 时一起分担)；
+ * 端点选择采用"两次随机选择"：随机取两个可用端点，按进行中请求数(或耗时均值 × 进行中请求数)取较优者，
+ * 既能避开繁忙/慢速端点，又不会让所有请求同时涌向同一个"最优"端点。
+ * <p>
+ * 后台健康检查定期校验已创建连接池的端点：连续失败达到上限、或耗时均值明显慢于最快端点的副本会被摘除一段时间，
+ * 到期后健康检查通过才恢复流量；主库不会被摘除。查询在连接阶段失败且尚未向调用方输出任何数据时，会换一个端点重试一次
+ *
+ * @author Onism
+ * @date 2025-08-13
+ */
+@Slf4j
+public class ReplicatedDataSourceStrategy implements DataSourceStrategy {
+
+    /**
+     * 健康检查的连接校验超时(秒)
+     */
+    private static final int PROBE_TIMEOUT = 5;
+
+    /**
+     * 参与慢副本判定所需的最少样本数
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    private final DataSourceProperties.DataSourceProperty config;
+
+    private final ReplicaEndpoint primary;
+
+    /**
+     * 全部端点(主库在前)
+     */
+    private final List<ReplicaEndpoint> endpoints;
+
+    private final DataSourceMetrics metrics;
+
+    private final ScheduledFuture<?> healthCheck;
+
+    public ReplicatedDataSourceStrategy(DataSourceProperties.DataSourceProperty config, DataSourceStrategy primary,
+                                        Map<String, DataSourceStrategy> replicas, ScheduledExecutorService scheduler,
+                                        DataSourceMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.primary = new ReplicaEndpoint("primary", true, primary);
+        List<ReplicaEndpoint> endpoints = new ArrayList<>(replicas.size() + 1);
+        endpoints.add(this.primary);
+        replicas.forEach((name, strategy) -> endpoints.add(new ReplicaEndpoint(name, false, strategy)));
+        this.endpoints = List.copyOf(endpoints);
+        long interval = Math.max(1, config.getRouting().getHealthCheckInterval());
+        this.healthCheck = scheduler.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void init(DataSourceProperties.DataSourceProperty config) {
+        throw new IllegalStateException("数据源 [" + this.config.getId() + "] 已初始化，同一策略实例不可复用");
+    }
+
+    @Override
+    public void warmUp() throws SQLException {
+        SQLException failure = null;
+        for (ReplicaEndpoint endpoint : endpoints) {
+            try {
+                endpoint.getStrategy().warmUp();
+            } catch (SQLException e) {
+                log.warn("数据源 [{}] 的端点 [{}] 预热失败：{}", config.getId(), endpoint.getName(), e.getMessage());
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public boolean isPoolCreated() {
+        return endpoints.stream().anyMatch(endpoint -> endpoint.getStrategy().isPoolCreated());
+    }
+
+    @Override
+    public void resize(int maxPoolSize, int minIdle) {
+        for (ReplicaEndpoint endpoint : endpoints) {
+            endpoint.getStrategy().resize(maxPoolSize, minIdle);
+        }
+    }
+
+    @Override
+    public boolean drain(long timeoutMillis) {
+        healthCheck.cancel(false);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean drained = true;
+        for (ReplicaEndpoint endpoint : endpoints) {
+            long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            drained &= endpoint.getStrategy().drain(remaining);
+        }
+        return drained;
+    }
+
+    @Override
+    public void checkAvailable() throws DataSourceUnavailableException {
+        long retryAfter = Long.MAX_VALUE;
+        for (ReplicaEndpoint endpoint : endpoints) {
+            try {
+                endpoint.getStrategy().checkAvailable();
+                return;
+            } catch (DataSourceUnavailableException e) {
+                retryAfter = Math.min(retryAfter, e.getRetryAfterSeconds());
+            }
+        }
+        throw new DataSourceUnavailableException("数据源 [" + config.getId() + "] 暂不可用(主库与全部副本均已熔断)，请在 "
+                + retryAfter + " 秒后重试，期间重复调用会直接失败", retryAfter);
+    }
+
+    @Override
+    public CircuitBreaker.State getCircuitState() {
+        CircuitBreaker.State state = CircuitBreaker.State.OPEN;
+        for (ReplicaEndpoint endpoint : endpoints) {
+            CircuitBreaker.State current = endpoint.getStrategy().getCircuitState();
+            if (current == CircuitBreaker.State.CLOSED) {
+                return current;
+            }
+            if (current == CircuitBreaker.State.HALF_OPEN) {
+                state = current;
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public String getDbType() {
+        return primary.getStrategy().getDbType();
+    }
+
+    @Override
+    public String getId() {
+        return config.getId();
+    }
+
+    @Override
+    public List<Map<String, Object>> executeQuery(String sql) throws SQLException {
+        return executeQuery(sql, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> executeQuery(String sql, Map<Integer, Object> params) throws SQLException {
+        MapRowCollector collector = new MapRowCollector();
+        executeStream(sql, params, collector);
+        return collector.getRows();
+    }
+
+    @Override
+    public StreamStats executeStream(String sql, Map<Integer, Object> params, RowHandler handler, QueryHandle handle,
+                                     StreamLimits limits) throws SQLException {
+        long start = System.nanoTime();
+        DeliveryTracker tracker = new DeliveryTracker(handler);
+        try {
+            StreamStats stats = route(endpoint -> {
+                tracker.begin();
+                StreamStats result = endpoint.getStrategy().executeStream(sql, params, tracker, handle, limits);
+                endpoint.recordLatency(tracker.firstResponseNanos());
+                return result;
+            }, () -> !tracker.delivered);
+            metrics.recordSuccess(this, System.nanoTime() - start, stats);
+            return stats;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordError(this, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<QueryResult> queryBatch(String sql, List<Map<Integer, Object>> paramSets, QueryHandle handle)
+            throws SQLException {
+        long start = System.nanoTime();
+        try {
+            // 结果在端点内完整收集后才返回，连接阶段失败时可安全重试
+            List<QueryResult> results = route(endpoint -> {
+                long begin = System.nanoTime();
+                List<QueryResult> result = endpoint.getStrategy().queryBatch(sql, paramSets, handle);
+                endpoint.recordLatency(System.nanoTime() - begin);
+                return result;
+            }, () -> true);
+            metrics.recordSuccess(this, System.nanoTime() - start, StreamStats.of(results));
+            return results;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordError(this, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public StreamStats copyOut(String sql, OutputStream out, StreamLimits limits) throws SQLException {
+        // 输出流可能已写入部分数据，不重试
+        return route(endpoint -> endpoint.getStrategy().copyOut(sql, out, limits), () -> false);
+    }
+
+    @Override
+    public HeldCursor openCursor(String sql, Map<Integer, Object> params, QueryHandle handle) throws SQLException {
+        return route(endpoint -> {
+            long begin = System.nanoTime();
+            HeldCursor cursor = endpoint.getStrategy().openCursor(sql, params, handle);
+            endpoint.recordLatency(System.nanoTime() - begin);
+            return cursor;
+        }, () -> true);
+    }
+
+    @Override
+    public <T> T withConnection(ConnectionCallback<T> callback) throws SQLException {
+        return route(endpoint -> endpoint.getStrategy().withConnection(callback), () -> true);
+    }
+
+    @Override
+    public String limitClause(int rows) {
+        return primary.getStrategy().limitClause(rows);
+    }
+
+    @Override
+    public DataSourceProperties.DataSourceProperty getConfig() {
+        return config;
+    }
+
+    @Override
+    public String getPoolName() {
+        return primary.getStrategy().getPoolName();
+    }
+
+    @Override
+    public void shutdown() {
+        healthCheck.cancel(false);
+        for (ReplicaEndpoint endpoint : endpoints) {
+            endpoint.getStrategy().shutdown();
+        }
+    }
+
+    /**
+     * 获取全部端点(主库在前)
+     *
+     * @return {@link List }<{@link ReplicaEndpoint }>
+     */
+    public List<ReplicaEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 选择端点执行，连接阶段失败且允许重试时换一个端点重试一次
+     */
+    private <T> T route(EndpointCall<T> call, BooleanSupplier retryable) throws SQLException {
+        ReplicaEndpoint failed = null;
+        while (true) {
+            ReplicaEndpoint endpoint = select(failed);
+            endpoint.begin();
+            try {
+                T result = call.call(endpoint);
+                endpoint.recordSuccess();
+                return result;
+            } catch (SQLException e) {
+                if (CircuitBreaker.isConnectionFailure(e)) {
+                    markFailure(endpoint, e.getMessage());
+                }
+                if (failed != null || !isRetryable(e) || !retryable.getAsBoolean() || select(endpoint) == null) {
+                    throw e;
+                }
+                log.debug("数据源 [{}] 的端点 [{}] 连接失败，换一个端点重试：{}", config.getId(), endpoint.getName(), e.getMessage());
+                failed = endpoint;
+            } finally {
+                endpoint.end();
+            }
+        }
+    }
+
+    /**
+     * 两次随机选择：从可用(未摘除且未熔断)端点中随机取两个，取负载得分较低者；无可用副本时回退到主库
+     *
+     * @param exclude 排除的端点(重试时为上次失败的端点，可为空)
+     * @return 端点，排除后无端点可用时为 null
+     */
+    private ReplicaEndpoint select(ReplicaEndpoint exclude) {
+        DataSourceProperties.RoutingProperty routing = config.getRouting();
+        List<ReplicaEndpoint> candidates = new ArrayList<>(endpoints.size());
+        for (ReplicaEndpoint endpoint : endpoints) {
+            if (endpoint != exclude && !endpoint.isEjected() && (!endpoint.isPrimary() || routing.isReadFromPrimary())
+                    && endpoint.getStrategy().getCircuitState() != CircuitBreaker.State.OPEN) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return primary == exclude ? null : primary;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        boolean weighted = routing.getBalancer() == DataSourceProperties.RoutingProperty.Balancer.EWMA;
+        ReplicaEndpoint a = candidates.get(first);
+        ReplicaEndpoint b = candidates.get(second);
+        return a.score(weighted) <= b.score(weighted) ? a : b;
+    }
+
+    /**
+     * 健康检查：校验已创建连接池(或摘除已到期)的端点，随后摘除明显偏慢的副本
+     */
+    private void checkHealth() {
+        try {
+            for (ReplicaEndpoint endpoint : endpoints) {
+                boolean ejected = endpoint.isEjected();
+                if (ejected ? !endpoint.isEjectionExpired() : !endpoint.getStrategy().isPoolCreated()) {
+                    continue;
+                }
+                probe(endpoint, ejected);
+            }
+            ejectSlowReplicas();
+        } catch (RuntimeException e) {
+            log.warn("数据源 [{}] 健康检查异常：{}", config.getId(), e.getMessage());
+        }
+    }
+
+    private void probe(ReplicaEndpoint endpoint, boolean ejected) {
+        try {
+            if (!endpoint.getStrategy().withConnection(conn -> conn.isValid(PROBE_TIMEOUT))) {
+                throw new SQLException("连接校验未通过");
+            }
+            if (ejected) {
+                endpoint.reinstate();
+                log.info("数据源 [{}] 的副本 [{}] 健康检查通过，已恢复流量", config.getId(), endpoint.getName());
+            } else {
+                endpoint.recordSuccess();
+            }
+        } catch (SQLException | RuntimeException e) {
+            markFailure(endpoint, e.getMessage());
+        }
+    }
+
+    /**
+     * 记录一次失败，连续失败达到上限的副本被摘除(已摘除的副本检查失败时延长摘除时长)
+     */
+    private void markFailure(ReplicaEndpoint endpoint, String reason) {
+        int failures = endpoint.recordFailure();
+        if (endpoint.isPrimary()) {
+            return;
+        }
+        DataSourceProperties.RoutingProperty routing = config.getRouting();
+        if (endpoint.isEjected()) {
+            endpoint.eject(routing.getEjectDuration());
+        } else if (failures >= routing.getMaxFailures()) {
+            endpoint.eject(routing.getEjectDuration());
+            log.warn("数据源 [{}] 的副本 [{}] 连续失败 {} 次，摘除 {} 秒：{}",
+                    config.getId(), endpoint.getName(), failures, routing.getEjectDuration(), reason);
+        }
+    }
+
+    /**
+     * 摘除耗时均值超过最快端点指定倍数(且超过最小判定耗时)的副本，始终保留至少一个可用副本
+     */
+    private void ejectSlowReplicas() {
+        DataSourceProperties.RoutingProperty routing = config.getRouting();
+        double fastest = Double.MAX_VALUE;
+        int healthyReplicas = 0;
+        for (ReplicaEndpoint endpoint : endpoints) {
+            if (endpoint.isEjected() || (endpoint.isPrimary() && !routing.isReadFromPrimary())) {
+                continue;
+            }
+            if (!endpoint.isPrimary()) {
+                healthyReplicas++;
+            }
+            if (endpoint.getSamples() >= MIN_SAMPLES) {
+                fastest = Math.min(fastest, endpoint.getEwmaMillis());
+            }
+        }
+        if (fastest == Double.MAX_VALUE) {
+            return;
+        }
+        double threshold = Math.max(fastest * routing.getEjectLatencyFactor(), routing.getEjectMinLatency());
+        for (ReplicaEndpoint endpoint : endpoints) {
+            if (healthyReplicas <= 1) {
+                return;
+            }
+            if (endpoint.isPrimary() || endpoint.isEjected() || endpoint.getSamples() < MIN_SAMPLES
+                    || endpoint.getEwmaMillis() <= threshold) {
+                continue;
+            }
+            endpoint.eject(routing.getEjectDuration());
+            healthyReplicas--;
+            log.warn("数据源 [{}] 的副本 [{}] 耗时均值 {} ms，明显慢于最快端点 {} ms，摘除 {} 秒",
+                    config.getId(), endpoint.getName(), String.format("%.1f", endpoint.getEwmaMillis()),
+                    String.format("%.1f", fastest), routing.getEjectDuration());
+        }
+    }
+
+    /**
+     * 可换端点重试的失败(连接失败，或端点繁忙、熔断中、获取连接超时)
+     */
+    private static boolean isRetryable(SQLException e) {
+        return CircuitBreaker.isConnectionFailure(e) || e instanceof SQLTransientConnectionException;
+    }
+
+    @FunctionalInterface
+    private interface EndpointCall<T> {
+        T call(ReplicaEndpoint endpoint) throws SQLException;
+    }
+
+    /**
+     * 记录是否已向调用方输出数据(输出后不能再换端点重试)与首行响应耗时
+     */
+    private static class DeliveryTracker implements RowHandler {
+
+        private final RowHandler delegate;
+
+        private volatile boolean delivered;
+
+        private long begin;
+
+        private long firstResponse;
+
+        DeliveryTracker(RowHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        void begin() {
+            begin = System.nanoTime();
+            firstResponse = 0;
+        }
+
+        long firstResponseNanos() {
+            return (firstResponse == 0 ? System.nanoTime() : firstResponse) - begin;
+        }
+
+        @Override
+        public void onColumns(String[] columns, String[] types) throws SQLException {
+            firstResponse = System.nanoTime();
+            delivered = true;
+            delegate.onColumns(columns, types);
+        }
+
+        @Override
+        public boolean onRow(Object[] row) throws SQLException {
+            delivered = true;
+            return delegate.onRow(row);
+        }
+    }
+}
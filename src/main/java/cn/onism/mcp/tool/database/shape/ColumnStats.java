@@ -0,0 +1,117 @@
+package cn.onism.mcp.tool.database.shape;
+
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 列统计(最小值、最大值、去重数与空值数)
+ * <p>
+ * 全部列在一次遍历中完成统计；去重数超过上限后不再精确计算，只返回下限(distinctCapped 为 true)
+ *
+ * @author Onism
+ * @date 2025-08-15
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnStats {
+
+    /**
+     * 字符串最值的最大长度(超出部分截断)
+     */
+    private static final int MAX_TEXT = 64;
+
+    private final String name;
+
+    private final String type;
+
+    private long nulls;
+
+    private long distinct;
+
+    /**
+     * 去重数是否达到上限(为 true 时 distinct 为下限)
+     */
+    private Boolean distinctCapped;
+
+    private Object min;
+
+    private Object max;
+
+    private ColumnStats(String name, String type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * 统计查询结果的各列
+     *
+     * @param result      查询结果
+     * @param maxDistinct 精确计算去重数的上限
+     * @return {@link List }<{@link ColumnStats }>
+     */
+    public static List<ColumnStats> compute(QueryResult result, int maxDistinct) {
+        int columnCount = result.getColumns().size();
+        ColumnStats[] stats = new ColumnStats[columnCount];
+        List<Set<Object>> seen = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            stats[i] = new ColumnStats(result.getColumns().get(i),
+                    i < result.getTypes().size() ? result.getTypes().get(i) : null);
+            seen.add(new HashSet<>());
+        }
+        for (Object[] row : result.getRows()) {
+            for (int i = 0; i < columnCount; i++) {
+                stats[i].accept(row[i], seen.get(i), maxDistinct);
+            }
+        }
+        List<ColumnStats> list = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            stats[i].distinct = seen.get(i).size();
+            stats[i].min = truncate(stats[i].min);
+            stats[i].max = truncate(stats[i].max);
+            list.add(stats[i]);
+        }
+        return list;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void accept(Object value, Set<Object> seen, int maxDistinct) {
+        if (value == null) {
+            nulls++;
+            return;
+        }
+        if (distinctCapped == null) {
+            seen.add(value instanceof byte[] bytes ? ByteBuffer.wrap(bytes) : value);
+            if (seen.size() >= maxDistinct) {
+                distinctCapped = true;
+            }
+        }
+        // 只比较同一类型的可比较值(二进制、数组等不统计最值)
+        if (value instanceof Comparable comparable) {
+            if (min == null) {
+                min = value;
+                max = value;
+            } else if (min.getClass() == value.getClass()) {
+                if (comparable.compareTo(min) < 0) {
+                    min = value;
+                }
+                if (comparable.compareTo(max) > 0) {
+                    max = value;
+                }
+            }
+        }
+    }
+
+    private static Object truncate(Object value) {
+        if (value instanceof String text && text.length() > MAX_TEXT) {
+            return text.substring(0, MAX_TEXT) + "...";
+        }
+        return value;
+    }
+}
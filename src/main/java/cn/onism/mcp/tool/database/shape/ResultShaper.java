@@ -0,0 +1,165 @@
+package cn.onism.mcp.tool.database.shape;
+
+import cn.onism.mcp.tool.database.strategy.AbstractDataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询结果裁剪
+ * <p>
+ * 大结果集完整序列化到模型上下文中既慢又贵，还可能被截断。按 token 预算(以 JSON 字节数估算，约 4 字节/token)裁剪：
+ * 完整结果不超出预算时原样返回；超出时返回预算内的前若干行、各列统计与续读句柄，
+ * 完整结果保留在内存中(闲置超时或超出总字节数上限后淘汰)，通过句柄按预算继续读取后续行，不会重新执行查询
+ *
+ * @author Onism
+ * @date 2025-08-15
+ */
+@Component
+public class ResultShaper {
+
+    private static final int BYTES_PER_TOKEN = 4;
+
+    private final ObjectMapper objectMapper;
+
+    private final DataSourceProperties.ShapeProperty config;
+
+    /**
+     * 被裁剪的完整结果(句柄 ID -> 结果)
+     */
+    private final Cache<String, QueryResult> results;
+
+    public ResultShaper(ObjectMapper objectMapper, DataSourceProperties properties) {
+        this.objectMapper = objectMapper;
+        this.config = properties.getShape();
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxHandleBytes())
+                .weigher((String id, QueryResult result) -> (int) Math.min(Integer.MAX_VALUE, Math.max(1, result.getBytes())))
+                .expireAfterAccess(Math.max(1, config.getHandleTtl()), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 按 token 预算裁剪查询结果
+     *
+     * @param result      查询结果
+     * @param tokenBudget token 预算，为空时使用默认预算，小于等于 0 时不裁剪
+     * @param columnar    是否为列式格式(行格式的每行都带列名，估算时计入)
+     * @return {@link ShapedResult }
+     */
+    public ShapedResult shape(QueryResult result, Integer tokenBudget, boolean columnar) {
+        long budget = tokenBudget == null ? config.getDefaultTokenBudget() : tokenBudget;
+        if (budget <= 0 || result.getRows().isEmpty()) {
+            return ShapedResult.full(result);
+        }
+        long rowOverhead = columnar ? 0 : columnNameTokens(result);
+        long header = estimateTokens(result.getColumns()) + estimateTokens(result.getTypes());
+        if (rowsWithin(result, 0, budget - header, rowOverhead) == result.getRows().size()) {
+            return ShapedResult.full(result);
+        }
+        List<ColumnStats> stats = ColumnStats.compute(result, config.getMaxDistinct());
+        int head = Math.max(1, rowsWithin(result, 0, budget - header - estimateTokens(stats), rowOverhead));
+        String id = UUID.randomUUID().toString().replace("-", "");
+        results.put(id, result);
+        return new ShapedResult(slice(result, 0, head), true, result.getRows().size(), stats, handle(id, head));
+    }
+
+    /**
+     * 通过续读句柄按 token 预算读取后续行(列式格式)
+     *
+     * @param handle      续读句柄
+     * @param tokenBudget token 预算，为空或小于等于 0 时使用默认预算
+     * @return {@link ShapedResult }
+     * @throws IllegalArgumentException 句柄无效或已过期
+     */
+    public ShapedResult fetchMore(String handle, Integer tokenBudget) {
+        int separator = handle == null ? -1 : handle.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("无效的结果句柄");
+        }
+        String id = handle.substring(0, separator);
+        int offset;
+        try {
+            offset = Integer.parseInt(handle.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的结果句柄");
+        }
+        QueryResult result = results.getIfPresent(id);
+        if (result == null) {
+            throw new IllegalArgumentException("结果句柄已过期(闲置超过 " + config.getHandleTtl() + " 秒)，请重新查询");
+        }
+        int total = result.getRows().size();
+        if (offset < 0 || offset >= total) {
+            throw new IllegalArgumentException("无效的结果句柄");
+        }
+        long budget = tokenBudget == null || tokenBudget <= 0 ? config.getDefaultTokenBudget() : tokenBudget;
+        int count = budget <= 0 ? total - offset : Math.max(1, rowsWithin(result, offset,
+                budget - estimateTokens(result.getColumns()) - estimateTokens(result.getTypes()), 0));
+        int end = offset + count;
+        if (end >= total) {
+            // 已读取完毕，释放内存
+            results.invalidate(id);
+        }
+        return new ShapedResult(slice(result, offset, end), end < total, total, null,
+                end < total ? handle(id, end) : null);
+    }
+
+    /**
+     * 从 offset 开始，预算内可容纳的行数
+     */
+    private int rowsWithin(QueryResult result, int offset, long budget, long rowOverhead) {
+        List<Object[]> rows = result.getRows();
+        long used = 0;
+        int count = 0;
+        for (int i = offset; i < rows.size(); i++) {
+            used += estimateTokens(rows.get(i)) + rowOverhead;
+            if (used > budget) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private long columnNameTokens(QueryResult result) {
+        long bytes = 0;
+        for (String column : result.getColumns()) {
+            // "name":
+            bytes += column.length() + 3;
+        }
+        return (bytes + BYTES_PER_TOKEN - 1) / BYTES_PER_TOKEN;
+    }
+
+    private long estimateTokens(Object value) {
+        long bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(value).length;
+        } catch (JsonProcessingException e) {
+            bytes = AbstractDataSourceStrategy.estimateSize(value);
+        }
+        return (bytes + BYTES_PER_TOKEN - 1) / BYTES_PER_TOKEN;
+    }
+
+    private static QueryResult slice(QueryResult result, int from, int to) {
+        List<Object[]> rows = result.getRows().subList(from, to);
+        long bytes = 0;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                bytes += AbstractDataSourceStrategy.estimateSize(value);
+            }
+        }
+        return new QueryResult(result.getColumns(), result.getTypes(), rows, result.isTruncated(), bytes);
+    }
+
+    private static String handle(String id, int offset) {
+        return id + ":" + offset;
+    }
+}
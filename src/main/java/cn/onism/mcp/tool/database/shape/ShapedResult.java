@@ -0,0 +1,47 @@
+package cn.onism.mcp.tool.database.shape;
+
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 按 token 预算裁剪后的查询结果
+ *
+ * @author Onism
+ * @date 2025-08-15
+ */
+@Getter
+@AllArgsConstructor
+public class ShapedResult {
+
+    /**
+     * 返回的行(未裁剪时为完整结果)
+     */
+    private final QueryResult result;
+
+    /**
+     * 是否只返回了部分行
+     */
+    private final boolean sampled;
+
+    /**
+     * 结果总行数
+     */
+    private final int totalRows;
+
+    /**
+     * 列统计(只在首次裁剪时计算)
+     */
+    private final List<ColumnStats> columnStats;
+
+    /**
+     * 续读句柄，没有更多行时为空
+     */
+    private final String handle;
+
+    static ShapedResult full(QueryResult result) {
+        return new ShapedResult(result, false, result.getRows().size(), null, null);
+    }
+}
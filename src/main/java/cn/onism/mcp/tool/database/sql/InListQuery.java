@@ -0,0 +1,459 @@
+package cn.onism.mcp.tool.database.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 单值查找改写为 IN 列表查询
+ * <p>
+ * 形如 {@code SELECT ... FROM t WHERE col = ?} 的查找语句，以多组参数批量执行时改写为一条语句，
+ * 并在选择列表末尾追加查找列，用于将结果行分回各组参数：
+ * <pre>
+ * SELECT ..., col AS mcp_key FROM t WHERE col IN (?, ?, ?)
+ * </pre>
+ * 只改写仅有一个参数、且参数位于最外层 WHERE 中"列 = ?"形式的语句。按白名单判断：最外层必须是
+ * {@code SELECT 列[, 列] FROM 表[ JOIN 表 ON 条件] WHERE 条件[ AND 条件]}，选择列表只能是列引用(别名需写 AS)，
+ * 条件只能是比较、LIKE、IS NULL 与 IN；其余写法(聚合、窗口函数、DISTINCT、行数限制、分组、排序、集合运算、
+ * OR/NOT 及任意函数调用等)合并执行可能改变语义，不做改写(返回 null)，由调用方逐组执行。
+ * 括号内的内容(子查询、分组条件)整体视为一个单元，不影响判断
+ *
+ * @author Onism
+ * @date 2025-08-16
+ */
+public class InListQuery {
+
+    /**
+     * 追加的查找列标签
+     */
+    public static final String KEY_LABEL = "mcp_key";
+
+    /**
+     * 不能作为标识符(列名、表名、别名)的关键字
+     */
+    private static final Set<String> KEYWORDS = Set.of("SELECT", "FROM", "WHERE", "AS", "AND", "OR", "NOT", "ON",
+            "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "FULL", "CROSS", "NATURAL", "USING", "IS", "NULL", "LIKE", "IN",
+            "GROUP", "HAVING", "ORDER", "LIMIT", "OFFSET", "FETCH", "TOP", "UNION", "INTERSECT", "EXCEPT", "MINUS",
+            "WINDOW", "OVER", "FOR", "INTO", "DISTINCT", "ALL", "ROWNUM", "CONNECT", "START", "QUALIFY", "SAMPLE");
+
+    /**
+     * 操作数之后的条件关键字
+     */
+    private static final Set<String> CONDITION_WORDS = Set.of("IS", "NOT", "LIKE", "IN");
+
+    private final String sql;
+
+    /**
+     * 最外层 FROM 的起始位置(查找列插入在其前)
+     */
+    private final int fromStart;
+
+    /**
+     * 查找列(原样保留限定名与引号)
+     */
+    private final String column;
+
+    /**
+     * "= ?" 的起止位置
+     */
+    private final int conditionStart;
+
+    private final int conditionEnd;
+
+    private InListQuery(String sql, int fromStart, String column, int conditionStart, int conditionEnd) {
+        this.sql = sql;
+        this.fromStart = fromStart;
+        this.column = column;
+        this.conditionStart = conditionStart;
+        this.conditionEnd = conditionEnd;
+    }
+
+    /**
+     * 解析语句，无法安全改写时返回 null
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型(影响词法规则)
+     * @return {@link InListQuery }
+     */
+    public static InListQuery parse(String sql, String dbType) {
+        List<Token> tokens = tokenize(sql, dbType);
+        if (tokens == null) {
+            return null;
+        }
+        Parser parser = new Parser(tokens);
+        if (!parser.statement() || parser.parameters != 1 || parser.conditionStart < 0) {
+            return null;
+        }
+        return new InListQuery(sql, parser.fromStart, sql.substring(parser.columnStart, parser.columnEnd),
+                parser.conditionStart, parser.conditionEnd);
+    }
+
+    /**
+     * 读取最外层的词法单元，括号内的内容合并为一个 GROUP 单元；括号不匹配或词法非法时返回 null
+     */
+    private static List<Token> tokenize(String sql, String dbType) {
+        SqlLexer lexer = new SqlLexer(sql, dbType);
+        List<Token> tokens = new ArrayList<>();
+        int depth = 0;
+        int groupStart = -1;
+        int groupParameters = 0;
+        while (lexer.next()) {
+            SqlLexer.TokenType type = lexer.type();
+            if (lexer.isSymbol('(')) {
+                if (depth++ == 0) {
+                    groupStart = lexer.start();
+                    groupParameters = 0;
+                }
+            } else if (lexer.isSymbol(')')) {
+                if (--depth < 0) {
+                    return null;
+                }
+                if (depth == 0) {
+                    tokens.add(new Token(null, null, groupStart, lexer.end(), groupParameters));
+                }
+            } else if (depth > 0) {
+                if (type == SqlLexer.TokenType.PARAMETER) {
+                    groupParameters++;
+                }
+            } else {
+                String text = type == SqlLexer.TokenType.WORD ? lexer.text().toUpperCase(Locale.ROOT) : lexer.text();
+                tokens.add(new Token(type, text, lexer.start(), lexer.end(),
+                        type == SqlLexer.TokenType.PARAMETER ? 1 : 0));
+            }
+        }
+        if (depth != 0 || lexer.isUnterminated() || lexer.hasExecutableComment()) {
+            return null;
+        }
+        return tokens;
+    }
+
+    /**
+     * 最外层词法单元，type 为 null 时表示一对括号及其内容
+     */
+    private static class Token {
+        private final SqlLexer.TokenType type;
+        private final String text;
+        private final int start;
+        private final int end;
+        private final int parameters;
+
+        Token(SqlLexer.TokenType type, String text, int start, int end, int parameters) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * 按白名单语法逐个消费最外层词法单元，遇到语法之外的单元即判定为不可改写
+     */
+    private static class Parser {
+
+        private final List<Token> tokens;
+
+        private int position;
+
+        private int parameters;
+
+        private int fromStart = -1;
+
+        private int columnStart = -1;
+
+        private int columnEnd = -1;
+
+        private int conditionStart = -1;
+
+        private int conditionEnd = -1;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+            for (Token token : tokens) {
+                parameters += token.parameters;
+            }
+        }
+
+        /**
+         * SELECT 列 FROM 表 WHERE 条件 [;]
+         */
+        boolean statement() {
+            if (!word("SELECT") || !selectItem()) {
+                return false;
+            }
+            while (symbol(',')) {
+                if (!selectItem()) {
+                    return false;
+                }
+            }
+            if (!isWord("FROM")) {
+                return false;
+            }
+            fromStart = peek().start;
+            position++;
+            if (!tableReference()) {
+                return false;
+            }
+            while (!word("WHERE")) {
+                if (!join()) {
+                    return false;
+                }
+            }
+            if (!conditions(true)) {
+                return false;
+            }
+            while (position < tokens.size() && peek().type == SqlLexer.TokenType.SEMICOLON) {
+                position++;
+            }
+            return position == tokens.size();
+        }
+
+        /**
+         * * | 列[.*] [AS 别名]
+         */
+        private boolean selectItem() {
+            if (symbol('*')) {
+                return true;
+            }
+            if (!identifierChain(true)) {
+                return false;
+            }
+            return !word("AS") || identifier();
+        }
+
+        /**
+         * (表 | (子查询)) [[AS] 别名]
+         */
+        private boolean tableReference() {
+            if (isGroup()) {
+                position++;
+            } else if (!identifierChain(false)) {
+                return false;
+            }
+            if (word("AS")) {
+                return identifier();
+            }
+            if (isIdentifier()) {
+                position++;
+            }
+            return true;
+        }
+
+        /**
+         * , 表 | [INNER | LEFT [OUTER] | RIGHT [OUTER] | CROSS] JOIN 表 [ON 条件]
+         */
+        private boolean join() {
+            if (symbol(',')) {
+                return tableReference();
+            }
+            if (word("LEFT") || word("RIGHT")) {
+                word("OUTER");
+            } else if (!word("INNER")) {
+                word("CROSS");
+            }
+            if (!word("JOIN") || !tableReference()) {
+                return false;
+            }
+            return !word("ON") || conditions(false);
+        }
+
+        /**
+         * 条件 [AND 条件]，只有 WHERE 中的条件可作为查找条件
+         */
+        private boolean conditions(boolean where) {
+            do {
+                if (!condition(where)) {
+                    return false;
+                }
+            } while (word("AND"));
+            return true;
+        }
+
+        /**
+         * (条件) | 操作数 比较符 操作数 | 操作数 [NOT] LIKE 操作数 | 操作数 IS [NOT] NULL | 操作数 [NOT] IN (...)
+         */
+        private boolean condition(boolean where) {
+            if (isGroup() && !isOperatorAt(position + 1)) {
+                position++;
+                return true;
+            }
+            int left = position;
+            if (!operand()) {
+                return false;
+            }
+            if (word("IS")) {
+                word("NOT");
+                return word("NULL");
+            }
+            boolean not = word("NOT");
+            if (word("LIKE")) {
+                return operand();
+            }
+            if (word("IN")) {
+                return group();
+            }
+            if (not) {
+                return false;
+            }
+            int operator = position;
+            if (symbol('=')) {
+                Token right = position < tokens.size() ? peek() : null;
+                if (where && right != null && right.type == SqlLexer.TokenType.PARAMETER && isColumn(left, operator)) {
+                    columnStart = tokens.get(left).start;
+                    columnEnd = tokens.get(operator - 1).end;
+                    conditionStart = tokens.get(operator).start;
+                    conditionEnd = right.end;
+                }
+                return operand();
+            }
+            if (symbol('<')) {
+                if (!symbol('=')) {
+                    symbol('>');
+                }
+                return operand();
+            }
+            if (symbol('>')) {
+                symbol('=');
+                return operand();
+            }
+            return symbol('!') && symbol('=') && operand();
+        }
+
+        /**
+         * 列 | 字符串 | 数字 | ? | (子查询/表达式)
+         */
+        private boolean operand() {
+            if (position >= tokens.size()) {
+                return false;
+            }
+            Token token = peek();
+            if (token.type == null || token.type == SqlLexer.TokenType.STRING || token.type == SqlLexer.TokenType.NUMBER
+                    || token.type == SqlLexer.TokenType.PARAMETER) {
+                position++;
+                return true;
+            }
+            return identifierChain(false);
+        }
+
+        /**
+         * 标识符[.标识符]，allowStar 为 true 时允许以 .* 结尾；后面紧跟括号的是函数调用，不属于标识符
+         */
+        private boolean identifierChain(boolean allowStar) {
+            if (!identifier()) {
+                return false;
+            }
+            while (symbol('.')) {
+                if (allowStar && symbol('*')) {
+                    return true;
+                }
+                if (!identifier()) {
+                    return false;
+                }
+            }
+            return !isGroup();
+        }
+
+        private boolean identifier() {
+            if (!isIdentifier()) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        private boolean isIdentifier() {
+            if (position >= tokens.size()) {
+                return false;
+            }
+            Token token = peek();
+            return token.type == SqlLexer.TokenType.QUOTED_IDENTIFIER
+                    || token.type == SqlLexer.TokenType.WORD && !KEYWORDS.contains(token.text);
+        }
+
+        /**
+         * [from, to) 是否为一个列引用(标识符链)
+         */
+        private boolean isColumn(int from, int to) {
+            for (int i = from; i < to; i++) {
+                Token token = tokens.get(i);
+                boolean identifier = token.type == SqlLexer.TokenType.WORD || token.type == SqlLexer.TokenType.QUOTED_IDENTIFIER;
+                if ((i - from) % 2 == 0 ? !identifier : !(token.type == SqlLexer.TokenType.SYMBOL && ".".equals(token.text))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 括号后是否紧跟比较运算(此时括号是操作数，而非一组条件)
+         */
+        private boolean isOperatorAt(int index) {
+            if (index >= tokens.size()) {
+                return false;
+            }
+            Token token = tokens.get(index);
+            if (token.type == SqlLexer.TokenType.SYMBOL) {
+                return "=<>!".indexOf(token.text.charAt(0)) >= 0;
+            }
+            return token.type == SqlLexer.TokenType.WORD && CONDITION_WORDS.contains(token.text);
+        }
+
+        private boolean group() {
+            if (!isGroup()) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        private boolean isGroup() {
+            return position < tokens.size() && peek().type == null;
+        }
+
+        private boolean word(String keyword) {
+            if (!isWord(keyword)) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        private boolean isWord(String keyword) {
+            return position < tokens.size() && peek().type == SqlLexer.TokenType.WORD && keyword.equals(peek().text);
+        }
+
+        private boolean symbol(char symbol) {
+            if (position >= tokens.size() || peek().type != SqlLexer.TokenType.SYMBOL
+                    || peek().text.charAt(0) != symbol) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        private Token peek() {
+            return tokens.get(position);
+        }
+    }
+
+    /**
+     * 生成 IN 列表查询
+     *
+     * @param size 参数个数
+     * @return {@link String }
+     */
+    public String toSql(int size) {
+        StringBuilder builder = new StringBuilder(sql.length() + column.length() + size * 3 + 32);
+        int selectEnd = fromStart;
+        while (selectEnd > 0 && Character.isWhitespace(sql.charAt(selectEnd - 1))) {
+            selectEnd--;
+        }
+        builder.append(sql, 0, selectEnd).append(", ").append(column).append(" AS ").append(KEY_LABEL).append(' ');
+        builder.append(sql, fromStart, conditionStart).append("IN (");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(')').append(sql, conditionEnd, sql.length()).toString();
+    }
+}
@@ -0,0 +1,244 @@
+package cn.onism.mcp.tool.database.sql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * SQL 只读校验
+ * <p>
+ * 基于 {@link SqlLexer} 的单次扫描校验：只允许单条查询语句，拦截写操作、加锁读、SELECT INTO、
+ * 危险函数与 MySQL 可执行注释。校验结论按"语句形状"(字面量替换为 ?、空白与注释归一化)缓存，
+ * 重复的查询只需一次词法扫描即可命中
+ *
+ * @author Onism
+ * @date 2025-07-29
+ */
+@Component
+public class SqlGuard {
+
+    /**
+     * 允许的语句开头
+     */
+    private static final Set<String> ALLOWED_LEADING = Set.of(
+            "SELECT", "WITH", "EXPLAIN", "SHOW", "DESC", "DESCRIBE", "VALUES", "TABLE"
+    );
+
+    /**
+     * 任何位置都不允许出现的关键字(写操作、DDL、权限、过程调用、加锁等)
+     */
+    private static final Set<String> FORBIDDEN_KEYWORDS = Set.of(
+            "INSERT", "UPDATE", "DELETE", "MERGE", "UPSERT", "DROP", "ALTER", "CREATE", "TRUNCATE",
+            "GRANT", "REVOKE", "CALL", "EXEC", "EXECUTE", "LOCK", "INTO", "OUTFILE", "DUMPFILE"
+    );
+
+    /**
+     * 危险函数(休眠、读写服务器文件、修改会话/序列等)
+     */
+    private static final Set<String> FORBIDDEN_FUNCTIONS = Set.of(
+            "SLEEP", "PG_SLEEP", "PG_SLEEP_FOR", "PG_SLEEP_UNTIL", "BENCHMARK", "LOAD_FILE", "PG_READ_FILE",
+            "PG_READ_BINARY_FILE", "PG_LS_DIR", "PG_STAT_FILE", "LO_IMPORT", "LO_EXPORT", "DBLINK", "DBLINK_EXEC",
+            "PG_TERMINATE_BACKEND", "PG_CANCEL_BACKEND", "SET_CONFIG", "NEXTVAL", "SETVAL", "PG_ADVISORY_LOCK",
+            "GET_LOCK", "XP_CMDSHELL"
+    );
+
+    /**
+     * 危险函数前缀(Oracle 系统包)
+     */
+    private static final String[] FORBIDDEN_PREFIXES = {"DBMS_", "UTL_"};
+
+    private static final Verdict ALLOWED = new Verdict(true, null);
+
+    /**
+     * 校验结论缓存(数据库类型 + 语句形状 -> 结论)
+     */
+    private final Cache<String, Verdict> verdicts = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    /**
+     * 校验 SQL，不是只读查询时抛出 {@link SecurityException}
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型(影响词法规则，如 PostgreSQL 的美元引号)
+     */
+    public void check(String sql, String dbType) {
+        Verdict verdict = verify(sql, dbType);
+        if (!verdict.isAllowed()) {
+            throw new SecurityException("禁止的SQL操作: " + verdict.getReason());
+        }
+    }
+
+    /**
+     * 校验 SQL 并返回结论
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型
+     * @return {@link Verdict }
+     */
+    public Verdict verify(String sql, String dbType) {
+        if (sql == null || sql.isBlank()) {
+            return new Verdict(false, "SQL 为空");
+        }
+        String shape = shape(sql, dbType);
+        if (shape == null) {
+            // 词法层面已判定非法(未闭合或有歧义的字符串/注释、可执行注释)，不缓存
+            return new Verdict(false, "SQL 包含未闭合/有歧义的字符串或注释，或包含可执行注释");
+        }
+        // 形状中保留了符号与加引号的标识符，需按同一方言再次分析
+        return verdicts.get(dbType + '\n' + shape, key -> parse(shape, dbType));
+    }
+
+    /**
+     * 计算语句形状：关键字/标识符转大写，字面量替换为 ?，空白与注释归一化
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型
+     * @return 语句形状，词法非法时返回 null
+     */
+    public static String shape(String sql, String dbType) {
+        SqlLexer lexer = new SqlLexer(sql, dbType);
+        StringBuilder shape = new StringBuilder(sql.length());
+        while (lexer.next()) {
+            if (!shape.isEmpty()) {
+                shape.append(' ');
+            }
+            switch (lexer.type()) {
+                case STRING, NUMBER, PARAMETER -> shape.append('?');
+                case WORD -> lexer.appendUpperCase(shape);
+                default -> lexer.appendTo(shape);
+            }
+        }
+        if (lexer.isUnterminated() || lexer.hasExecutableComment()) {
+            return null;
+        }
+        return shape.toString();
+    }
+
+    /**
+     * 对语句形状做结构校验(缓存未命中时才会执行)
+     *
+     * @param shape  语句形状
+     * @param dbType 数据库类型
+     * @return {@link Verdict }
+     */
+    private static Verdict parse(String shape, String dbType) {
+        SqlLexer lexer = new SqlLexer(shape, dbType);
+        int depth = 0;
+        boolean first = true;
+        boolean ended = false;
+        boolean previousFor = false;
+        String previousWord = null;
+        // 0: 无，1: 读到 U，2: 读到 U &(PostgreSQL Unicode 转义标识符 U&"...")
+        int unicodePrefix = 0;
+
+        while (lexer.next()) {
+            if (ended && lexer.type() != SqlLexer.TokenType.SEMICOLON) {
+                return new Verdict(false, "只允许执行单条语句");
+            }
+            if (first) {
+                first = false;
+                if (!(lexer.isSymbol('(') || lexer.type() == SqlLexer.TokenType.WORD && ALLOWED_LEADING.contains(lexer.text()))) {
+                    return new Verdict(false, lexer.text() + "(只允许查询语句)");
+                }
+            }
+            int prefix = unicodePrefix;
+            unicodePrefix = 0;
+            switch (lexer.type()) {
+                case SEMICOLON -> ended = true;
+                case SYMBOL -> {
+                    if (prefix == 1 && lexer.isSymbol('&')) {
+                        unicodePrefix = 2;
+                    }
+                    if (lexer.isSymbol('(')) {
+                        if (previousWord != null && isForbiddenFunction(previousWord)) {
+                            return new Verdict(false, previousWord + "()");
+                        }
+                        depth++;
+                    } else if (lexer.isSymbol(')') && --depth < 0) {
+                        return new Verdict(false, "括号不匹配");
+                    }
+                }
+                case WORD -> {
+                    String word = lexer.text();
+                    if (FORBIDDEN_KEYWORDS.contains(word) || "UESCAPE".equals(word)) {
+                        return new Verdict(false, word);
+                    }
+                    if (hasForbiddenPrefix(word)) {
+                        // Oracle 系统包(DBMS_LOCK.SLEEP 等)，函数名在包名之后
+                        return new Verdict(false, word);
+                    }
+                    unicodePrefix = "U".equals(word) ? 1 : 0;
+                    if (previousFor && ("SHARE".equals(word) || "NO".equals(word) || "KEY".equals(word))) {
+                        return new Verdict(false, "FOR " + word + "(加锁读)");
+                    }
+                    previousFor = "FOR".equals(word);
+                    previousWord = word;
+                    continue;
+                }
+                case QUOTED_IDENTIFIER -> {
+                    // 加引号的函数名("pg_sleep"(10))同样要校验，转义后的名字无法可靠还原，直接拒绝
+                    if (prefix == 2) {
+                        return new Verdict(false, "U&\"...\"(Unicode 转义标识符)");
+                    }
+                    previousFor = false;
+                    previousWord = unquote(lexer.text());
+                    if (hasForbiddenPrefix(previousWord)) {
+                        return new Verdict(false, previousWord);
+                    }
+                    continue;
+                }
+                default -> {
+                }
+            }
+            previousFor = false;
+            previousWord = null;
+        }
+        if (depth != 0) {
+            return new Verdict(false, "括号不匹配");
+        }
+        return ALLOWED;
+    }
+
+    /**
+     * 去掉标识符的引号(连续两个引号为转义)并转为大写
+     */
+    private static String unquote(String identifier) {
+        char quote = identifier.charAt(0);
+        int end = identifier.length() > 1 && identifier.charAt(identifier.length() - 1) == quote
+                ? identifier.length() - 1 : identifier.length();
+        return identifier.substring(1, end).replace(String.valueOf(quote) + quote, String.valueOf(quote))
+                .toUpperCase();
+    }
+
+    private static boolean isForbiddenFunction(String word) {
+        return FORBIDDEN_FUNCTIONS.contains(word) || hasForbiddenPrefix(word);
+    }
+
+    private static boolean hasForbiddenPrefix(String word) {
+        for (String prefix : FORBIDDEN_PREFIXES) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 校验结论
+     */
+    @Value
+    public static class Verdict {
+        /**
+         * 是否允许执行
+         */
+        boolean allowed;
+        /**
+         * 拒绝原因
+         */
+        String reason;
+    }
+}
@@ -0,0 +1,458 @@
+package cn.onism.mcp.tool.database.sql;
+
+/**
+ * SQL 词法分析器
+ * <p>
+ * 逐个返回词法单元，只记录单元在原始 SQL 中的起止位置，不为每个单元创建字符串。
+ * 支持单/双/反引号、PostgreSQL 美元引号字符串与 E'...' 转义字符串、行/块注释。
+ * 注释按数据库方言识别(与数据库的解释一致，否则注释中的内容会被误当作字符串跳过)：
+ * <ul>
+ *     <li>-- 行注释：MySQL 要求后跟空白，其他数据库总是注释</li>
+ *     <li># 行注释：仅 MySQL(PostgreSQL 中是运算符)</li>
+ *     <li>块注释：PostgreSQL 中可以嵌套，其他数据库遇到第一个 *&#47; 即结束</li>
+ * </ul>
+ * 转义的解释存在歧义时一律按更保守的方式处理(多扫描出的内容只会导致拒绝，不会漏检)：
+ * 普通字符串中引号前有奇数个反斜杠时(包括 '' 转义)，MySQL 与关闭 standard_conforming_strings 的 PostgreSQL
+ * 视为转义，其他情况视为字符串结束，此时标记为未闭合
+ *
+ * @author Onism
+ * @date 2025-07-29
+ */
+public class SqlLexer {
+
+    /**
+     * 词法单元类型
+     */
+    public enum TokenType {
+        /**
+         * 关键字或未加引号的标识符
+         */
+        WORD,
+        /**
+         * 加引号的标识符("name"、`name`)
+         */
+        QUOTED_IDENTIFIER,
+        /**
+         * 字符串字面量
+         */
+        STRING,
+        /**
+         * 数字字面量
+         */
+        NUMBER,
+        /**
+         * 参数占位符 ?
+         */
+        PARAMETER,
+        /**
+         * 分号
+         */
+        SEMICOLON,
+        /**
+         * 其他符号(运算符、括号、逗号等)
+         */
+        SYMBOL
+    }
+
+    private static final String MYSQL = "mysql";
+
+    private static final String POSTGRESQL = "postgres";
+
+    private final CharSequence sql;
+
+    private final int length;
+
+    /**
+     * 是否支持美元引号字符串(仅 PostgreSQL，MySQL 中 $x$ 是合法标识符)
+     */
+    private final boolean dollarQuotes;
+
+    /**
+     * 是否支持 E'...' 转义字符串(仅 PostgreSQL，其中反斜杠总是转义)
+     */
+    private final boolean escapeStrings;
+
+    /**
+     * 块注释是否可以嵌套(PostgreSQL)
+     */
+    private final boolean nestedComments;
+
+    /**
+     * # 是否为行注释(MySQL)
+     */
+    private final boolean hashComments;
+
+    /**
+     * -- 是否需要后跟空白才是注释(MySQL)
+     */
+    private final boolean dashCommentNeedsSpace;
+
+    private int position;
+
+    private TokenType type;
+
+    private int start;
+
+    private int end;
+
+    /**
+     * 是否出现 MySQL 可执行注释(如 /*!50000 DROP TABLE t *&#47;)
+     */
+    private boolean executableComment;
+
+    /**
+     * 是否出现未闭合的字符串/注释，或存在歧义的反斜杠转义
+     */
+    private boolean unterminated;
+
+    /**
+     * 是否出现注释
+     */
+    private boolean comment;
+
+    /**
+     * 按通用规则分析(-- 总是注释，块注释不嵌套，无美元引号与 # 注释)
+     *
+     * @param sql SQL
+     */
+    public SqlLexer(CharSequence sql) {
+        this(sql, null);
+    }
+
+    /**
+     * 按数据库方言分析
+     *
+     * @param sql    SQL
+     * @param dbType 数据库类型(mysql、postgres、oracle 等，为空时按通用规则)
+     */
+    public SqlLexer(CharSequence sql, String dbType) {
+        this.sql = sql;
+        this.length = sql.length();
+        this.dollarQuotes = POSTGRESQL.equals(dbType);
+        this.escapeStrings = POSTGRESQL.equals(dbType);
+        this.nestedComments = POSTGRESQL.equals(dbType);
+        this.hashComments = MYSQL.equals(dbType);
+        this.dashCommentNeedsSpace = MYSQL.equals(dbType);
+    }
+
+    /**
+     * 读取下一个词法单元(跳过空白与注释)
+     *
+     * @return 是否还有词法单元
+     */
+    public boolean next() {
+        skipWhitespaceAndComments();
+        if (position >= length) {
+            type = null;
+            return false;
+        }
+        start = position;
+        char c = sql.charAt(position);
+        if (c == '\'') {
+            type = TokenType.STRING;
+            position = skipQuoted(position + 1, '\'');
+        } else if (c == '"' || c == '`') {
+            type = TokenType.QUOTED_IDENTIFIER;
+            position = skipQuoted(position + 1, c);
+        } else if (c == '$' && dollarQuotes && tryDollarQuote()) {
+            type = TokenType.STRING;
+        } else if ((c == 'e' || c == 'E') && escapeStrings && position + 1 < length && sql.charAt(position + 1) == '\'') {
+            type = TokenType.STRING;
+            position = skipEscaped(position + 2);
+        } else if (Character.isDigit(c) || (c == '.' && position + 1 < length && Character.isDigit(sql.charAt(position + 1)))) {
+            type = TokenType.NUMBER;
+            position++;
+            while (position < length) {
+                char n = sql.charAt(position);
+                if (Character.isLetterOrDigit(n) || n == '.') {
+                    position++;
+                } else if ((n == '+' || n == '-') && isExponent(sql.charAt(position - 1))) {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+        } else if (isWordStart(c)) {
+            type = TokenType.WORD;
+            position++;
+            while (position < length && isWordPart(sql.charAt(position))) {
+                position++;
+            }
+        } else if (c == '?') {
+            type = TokenType.PARAMETER;
+            position++;
+        } else if (c == ';') {
+            type = TokenType.SEMICOLON;
+            position++;
+        } else {
+            type = TokenType.SYMBOL;
+            position++;
+        }
+        end = position;
+        return true;
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    /**
+     * 当前单元的文本(会创建字符串，仅在需要时调用)
+     */
+    public String text() {
+        return sql.subSequence(start, end).toString();
+    }
+
+    /**
+     * 当前单元首字符
+     */
+    public char firstChar() {
+        return sql.charAt(start);
+    }
+
+    /**
+     * 当前单元是否为指定关键字(忽略大小写，不创建字符串)
+     *
+     * @param keyword 大写关键字
+     * @return boolean
+     */
+    public boolean isWord(String keyword) {
+        if (type != TokenType.WORD || end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(sql.charAt(start + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前单元是否以指定前缀开头(忽略大小写)
+     *
+     * @param prefix 大写前缀
+     * @return boolean
+     */
+    public boolean wordStartsWith(String prefix) {
+        if (type != TokenType.WORD || end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toUpperCase(sql.charAt(start + i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前单元是否为指定符号
+     */
+    public boolean isSymbol(char symbol) {
+        return type == TokenType.SYMBOL && sql.charAt(start) == symbol;
+    }
+
+    /**
+     * 将当前单元追加到输出(关键字/标识符统一转为大写)
+     *
+     * @param out 输出
+     */
+    public void appendUpperCase(StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            out.append(Character.toUpperCase(sql.charAt(i)));
+        }
+    }
+
+    /**
+     * 将当前单元原样追加到输出
+     *
+     * @param out 输出
+     */
+    public void appendTo(StringBuilder out) {
+        out.append(sql, start, end);
+    }
+
+    public boolean hasExecutableComment() {
+        return executableComment;
+    }
+
+    public boolean isUnterminated() {
+        return unterminated;
+    }
+
+    public boolean hasComment() {
+        return comment;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (position < length) {
+            char c = sql.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '-' && position + 1 < length && sql.charAt(position + 1) == '-'
+                    && (!dashCommentNeedsSpace || position + 2 >= length || isCommentSpace(sql.charAt(position + 2)))) {
+                skipLine();
+            } else if (c == '#' && hashComments) {
+                skipLine();
+            } else if (c == '/' && position + 1 < length && sql.charAt(position + 1) == '*') {
+                if (position + 2 < length && (sql.charAt(position + 2) == '!' || sql.charAt(position + 2) == '+')) {
+                    // MySQL 可执行注释与 Oracle 优化器提示都会被数据库解释，不能视为普通注释
+                    executableComment = executableComment || sql.charAt(position + 2) == '!';
+                }
+                skipBlockComment();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipLine() {
+        comment = true;
+        while (position < length && sql.charAt(position) != '\n') {
+            // PostgreSQL 的行注释在 \r 处结束，MySQL 在 \n 处结束，单独的 \r 存在歧义
+            if (sql.charAt(position) == '\r' && (position + 1 >= length || sql.charAt(position + 1) != '\n')) {
+                unterminated = true;
+            }
+            position++;
+        }
+    }
+
+    private void skipBlockComment() {
+        comment = true;
+        int depth = 1;
+        int i = position + 2;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '*' && i + 1 < length && sql.charAt(i + 1) == '/') {
+                i += 2;
+                if (--depth == 0) {
+                    position = i;
+                    return;
+                }
+            } else if (nestedComments && c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                depth++;
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        unterminated = true;
+        position = length;
+    }
+
+    /**
+     * MySQL 中 -- 之后需要是空白或控制字符才构成注释
+     */
+    private static boolean isCommentSpace(char c) {
+        return Character.isWhitespace(c) || Character.isISOControl(c);
+    }
+
+    private int skipQuoted(int from, char quote) {
+        int i = from;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == quote) {
+                // 引号前有奇数个反斜杠：MySQL 视为转义、PostgreSQL 视为结束，存在歧义('\'' 在两者中的边界也不同)
+                if (quote != '`' && countBackslashes(i) % 2 == 1) {
+                    unterminated = true;
+                }
+                // 连续两个引号表示转义
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        unterminated = true;
+        return length;
+    }
+
+    /**
+     * PostgreSQL E'...' 字符串：反斜杠转义下一个字符，连续两个引号同样表示转义
+     */
+    private int skipEscaped(int from) {
+        int i = from;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '\'') {
+                if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        unterminated = true;
+        return length;
+    }
+
+    private int countBackslashes(int quoteIndex) {
+        int count = 0;
+        for (int i = quoteIndex - 1; i >= 0 && sql.charAt(i) == '\\'; i--) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * PostgreSQL 美元引号字符串：$$...$$ 或 $tag$...$tag$
+     */
+    private boolean tryDollarQuote() {
+        int i = position + 1;
+        while (i < length && isWordPart(sql.charAt(i)) && sql.charAt(i) != '$') {
+            i++;
+        }
+        if (i >= length || sql.charAt(i) != '$') {
+            return false;
+        }
+        String tag = sql.subSequence(position, i + 1).toString();
+        int close = indexOf(tag, i + 1);
+        if (close < 0) {
+            unterminated = true;
+            position = length;
+        } else {
+            position = close + tag.length();
+        }
+        return true;
+    }
+
+    private int indexOf(String target, int from) {
+        outer:
+        for (int i = from; i <= length - target.length(); i++) {
+            for (int j = 0; j < target.length(); j++) {
+                if (sql.charAt(i + j) != target.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean isExponent(char c) {
+        return c == 'e' || c == 'E';
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '@';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@';
+    }
+}
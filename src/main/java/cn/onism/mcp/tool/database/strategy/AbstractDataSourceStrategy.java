@@ -1,23 +1,44 @@
 package cn.onism.mcp.tool.database.strategy;
 
+import cn.onism.mcp.tool.database.metrics.DataSourceMetrics;
+import cn.onism.mcp.tool.database.sql.InListQuery;
+import cn.onism.mcp.tool.database.sql.SqlGuard;
+import cn.onism.mcp.tool.database.sql.SqlLexer;
 import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.Temporal;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * 抽象数据库策略
+ * <p>
+ * 策略实现为原型 Bean，每个数据源配置({@link DataSourceProperties.DataSourceProperty})对应一个独立实例，
+ * 各自持有连接池与舱壁(并发查询上限)，互不影响；开启 lazyInit 的数据源在首次使用时才创建连接池
  *
  * @author Onism
  * @date 2025-03-24
  */
+@Slf4j
 public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
 
     /**
@@ -27,28 +48,58 @@ public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
     protected static final String ORACLE = "oracle";
     protected static final String POSTGRESQL = "postgres";
 
-    protected HikariDataSource dataSource;
-    /**
-     * 允许关键字
-     */
-    private static final Set<String> ALLOWED_KEYWORDS = Set.of(
-            // 基础查询
-            "SELECT", "*", "FROM", "AS",
-            // 表连接
-            "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "ON",
-            // 条件过滤
-            "WHERE", "AND", "OR", "NOT",
-            "BETWEEN", "IN", "LIKE", "IS", "NULL", "EXISTS",
-            // 分组与排序
-            "GROUP", "ORDER", "BY", "ASC", "DESC", "HAVING",
-            // 分页与限制
-            "LIMIT", "OFFSET",
-            // 集合操作
-            "UNION", "ALL",
-            // 高级查询
-            "DISTINCT", "CASE", "WHEN", "THEN", "ELSE", "END",
-            "WITH", "EXPLAIN"
-    );
+    /**
+     * 连接池序号(保证运行时替换数据源时新旧连接池名称不同)
+     */
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+    /**
+     * 批量执行改写为 IN 列表时，单条语句的最大查找值数量(Oracle 的 IN 列表上限为 1000)
+     */
+    private static final int IN_LIST_SIZE = 1000;
+
+    /**
+     * 连接池(延迟创建时为空，请通过 {@link #dataSource()} 获取)
+     */
+    private volatile HikariDataSource dataSource;
+    /**
+     * 连接池配置(延迟创建时使用)
+     */
+    private HikariConfig hikariConfig;
+    /**
+     * 是否已关闭(关闭后不再创建连接池)
+     */
+    private volatile boolean closed;
+    /**
+     * 数据源配置
+     */
+    protected DataSourceProperties.DataSourceProperty config;
+    /**
+     * 舱壁：限制当前数据源的并发查询数，避免单个数据源的负载拖垮调用线程
+     */
+    private ResizableSemaphore bulkhead;
+    /**
+     * 舱壁许可总数
+     */
+    private volatile int permits;
+    /**
+     * 熔断器：数据库不可达时快速失败，不再等待连接超时
+     */
+    private CircuitBreaker circuitBreaker;
+    /**
+     * 执行计划预估值缓存(语句形状 -> 预估值)，未开启代价校验时为空
+     */
+    private Cache<String, PlanEstimate> planEstimates;
+    /**
+     * SQL 只读校验
+     */
+    @Resource
+    private SqlGuard sqlGuard;
+    /**
+     * 数据源指标
+     */
+    @Resource
+    private DataSourceMetrics metrics;
 
     /**
      * 初始化数据源参数
@@ -57,22 +108,186 @@ public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
      */
     @Override
     public void init(DataSourceProperties.DataSourceProperty config) {
+        if (this.config != null) {
+            throw new IllegalStateException("数据源 [" + this.config.getId() + "] 已初始化，同一策略实例不可复用");
+        }
         HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("mcp-" + config.getId() + "-" + POOL_SEQUENCE.incrementAndGet());
         hikariConfig.setJdbcUrl(config.getUrl());
         hikariConfig.setUsername(config.getUsername());
         hikariConfig.setPassword(config.getPassword());
         hikariConfig.setDriverClassName(config.getDriverClassName());
         hikariConfig.setMaximumPoolSize(config.getMaxPoolSize());
+        if (config.getMinIdle() >= 0) {
+            hikariConfig.setMinimumIdle(Math.min(config.getMinIdle(), config.getMaxPoolSize()));
+        }
         hikariConfig.setConnectionTimeout(config.getConnectionTimeOut());
+        hikariConfig.setReadOnly(config.isReadOnly());
+        hikariConfig.setMetricsTrackerFactory(metrics.trackerFactory());
+        configure(hikariConfig, config);
 
-        this.dataSource = new HikariDataSource(hikariConfig);
+        int permits = config.getMaxConcurrentQueries() > 0 ? config.getMaxConcurrentQueries() : config.getMaxPoolSize();
+        this.config = config;
+        this.permits = permits;
+        this.bulkhead = new ResizableSemaphore(permits);
+        this.hikariConfig = hikariConfig;
+        this.circuitBreaker = new CircuitBreaker(config.getId(), config.getCircuitBreaker());
+        if (config.getCostGuard().isEnabled()) {
+            this.planEstimates = Caffeine.newBuilder()
+                    .maximumSize(1000)
+                    .expireAfterWrite(Math.max(1, config.getCostGuard().getPlanCacheTtl()), TimeUnit.SECONDS)
+                    .build();
+        }
+        if (!config.isLazyInit()) {
+            // 非延迟模式保持原有行为：数据库不可达时启动失败
+            this.dataSource = createPool();
+        }
+    }
+
+    /**
+     * 获取连接池，未创建时创建(双重检查，只会创建一次；创建失败时下次使用会重试)
+     *
+     * @return {@link HikariDataSource }
+     * @throws SQLException 连接池创建失败(如数据库不可达)
+     */
+    protected HikariDataSource dataSource() throws SQLException {
+        HikariDataSource current = dataSource;
+        if (current == null) {
+            synchronized (this) {
+                current = dataSource;
+                if (current == null) {
+                    if (closed) {
+                        throw new SQLNonTransientConnectionException("数据源 [" + config.getId() + "] 已关闭");
+                    }
+                    try {
+                        current = createPool();
+                    } catch (RuntimeException e) {
+                        throw new SQLTransientConnectionException(
+                                "数据源 [" + config.getId() + "] 连接池创建失败: " + e.getMessage(), e);
+                    }
+                    dataSource = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private HikariDataSource createPool() {
+        long start = System.nanoTime();
+        HikariDataSource pool = new HikariDataSource(hikariConfig);
+        log.info("数据源 [{}] 连接池已创建，耗时 {} ms", config.getId(), (System.nanoTime() - start) / 1_000_000);
+        return pool;
+    }
+
+    @Override
+    public boolean isPoolCreated() {
+        return dataSource != null;
+    }
+
+    @Override
+    public void warmUp() throws SQLException {
+        HikariDataSource pool = dataSource();
+        // 同时持有最小空闲数量的连接，确保这些物理连接均已建立，归还后留在池中
+        int idle = Math.max(1, Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize()));
+        List<Connection> connections = new ArrayList<>(idle);
+        try {
+            for (int i = 0; i < idle; i++) {
+                connections.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 数据源个性化配置(如驱动级别的游标/抓取参数)，由子类按需覆盖
+     *
+     * @param hikariConfig 连接池配置
+     * @param config       数据源配置
+     */
+    protected void configure(HikariConfig hikariConfig, DataSourceProperties.DataSourceProperty config) {
+    }
+
+    @Override
+    public synchronized void resize(int maxPoolSize, int minIdle) {
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("最大连接数必须大于 0");
+        }
+        int idle = minIdle >= 0 ? Math.min(minIdle, maxPoolSize) : maxPoolSize;
+        config.setMaxPoolSize(maxPoolSize);
+        config.setMinIdle(minIdle);
+        if (dataSource != null) {
+            // 运行时调整：扩容时按需建立新连接，缩容时多余连接归还后被逐出，进行中的查询不受影响
+            dataSource.getHikariConfigMXBean().setMaximumPoolSize(maxPoolSize);
+            dataSource.getHikariConfigMXBean().setMinimumIdle(idle);
+        } else {
+            hikariConfig.setMaximumPoolSize(maxPoolSize);
+            hikariConfig.setMinimumIdle(idle);
+        }
+        // 未单独配置并发查询上限时，舱壁随连接池大小调整
+        if (config.getMaxConcurrentQueries() <= 0) {
+            int delta = maxPoolSize - permits;
+            if (delta > 0) {
+                bulkhead.release(delta);
+            } else if (delta < 0) {
+                bulkhead.reducePermits(-delta);
+            }
+            permits = maxPoolSize;
+        }
+    }
+
+    @Override
+    public boolean drain(long timeoutMillis) {
+        boolean drained = false;
+        try {
+            // 公平舱壁：拿到全部许可即表示进行中的查询均已结束
+            drained = bulkhead.tryAcquire(permits, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        shutdown();
+        if (drained) {
+            // 仍持有旧引用的调用会拿到许可并得到"已关闭"错误，而不是一直等待
+            bulkhead.release(permits);
+        }
+        return drained;
+    }
+
+    @Override
+    public String getId() {
+        return config == null ? null : config.getId();
+    }
+
+    @Override
+    public DataSourceProperties.DataSourceProperty getConfig() {
+        return config;
+    }
+
+    @Override
+    public void checkAvailable() throws DataSourceUnavailableException {
+        if (circuitBreaker != null) {
+            circuitBreaker.check();
+        }
+    }
+
+    @Override
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+    }
+
+    @Override
+    public String getPoolName() {
+        return hikariConfig == null ? null : hikariConfig.getPoolName();
     }
 
     /**
      * 关闭数据源
      */
     @Override
-    public void shutdown() {
+    public synchronized void shutdown() {
+        closed = true;
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
@@ -80,21 +295,595 @@ public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
 
     @Override
     public List<Map<String, Object>> executeQuery(String sql) throws SQLException {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)){
+        MapRowCollector collector = new MapRowCollector();
+        executeStream(sql, null, collector);
+        return collector.getRows();
+    }
 
-            return processResultSet(stmt.executeQuery());
+    @Override
+    public List<Map<String, Object>> executeQuery(String sql, Map<Integer, Object> params) throws SQLException {
+        MapRowCollector collector = new MapRowCollector();
+        executeStream(sql, params, collector);
+        return collector.getRows();
+    }
+
+    @Override
+    public StreamStats executeStream(String sql, Map<Integer, Object> params, RowHandler handler, QueryHandle handle,
+                                     StreamLimits limits) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            StreamStats stats = stream(sql, params, handler, handle, limits);
+            metrics.recordSuccess(this, System.nanoTime() - start, stats);
+            return stats;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordError(this, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private StreamStats stream(String sql, Map<Integer, Object> params, RowHandler handler, QueryHandle handle,
+                               StreamLimits limits) throws SQLException {
+        validate(sql);
+        acquirePermit();
+        try (Connection conn = connect()) {
+            if (handle != null) {
+                if (handle.isCancelled()) {
+                    throw new SQLTimeoutException("查询已取消");
+                }
+                handle.markStarted();
+            }
+            String statement = applyCostGuard(conn, sql, params);
+            boolean autoCommit = conn.getAutoCommit();
+            beforeStreaming(conn);
+            try (PreparedStatement stmt = prepareQuery(conn, statement, limits.getMaxRows(), limits.getQueryTimeout())) {
+                if (params != null) {
+                    bindParameters(stmt, params);
+                }
+                if (handle != null) {
+                    handle.attach(stmt);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return readStream(rs, handler, limits);
+                } finally {
+                    if (handle != null) {
+                        handle.detach();
+                    }
+                }
+            } finally {
+                afterStreaming(conn, autoCommit);
+            }
+        } finally {
+            bulkhead.release();
         }
     }
 
     @Override
-    public List<Map<String, Object>> executeQuery(String sql, Map<Integer, Object> params) throws SQLException {
+    public <T> T withConnection(ConnectionCallback<T> callback) throws SQLException {
+        acquirePermit();
+        try (Connection conn = connect()) {
+            return callback.doInConnection(conn);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public HeldCursor openCursor(String sql, Map<Integer, Object> params, QueryHandle handle) throws SQLException {
+        validate(sql);
+        acquirePermit();
+        Connection conn = null;
+        try {
+            conn = connect();
+            if (handle != null) {
+                if (handle.isCancelled()) {
+                    throw new SQLTimeoutException("查询已取消");
+                }
+                handle.markStarted();
+            }
+            String statement = applyCostGuard(conn, sql, params);
+            boolean autoCommit = conn.getAutoCommit();
+            beforeStreaming(conn);
+            PreparedStatement stmt = conn.prepareStatement(statement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                if (config.getFetchSize() > 0) {
+                    stmt.setFetchSize(config.getFetchSize());
+                }
+                if (config.getQueryTimeout() > 0) {
+                    stmt.setQueryTimeout(config.getQueryTimeout());
+                }
+                if (params != null) {
+                    bindParameters(stmt, params);
+                }
+                if (handle != null) {
+                    handle.attach(stmt);
+                }
+                try {
+                    return new OpenCursor(conn, autoCommit, stmt, stmt.executeQuery());
+                } finally {
+                    if (handle != null) {
+                        handle.detach();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                stmt.close();
+                afterStreaming(conn, autoCommit);
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) {
+                conn.close();
+            }
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<QueryResult> queryBatch(String sql, List<Map<Integer, Object>> paramSets, QueryHandle handle)
+            throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<QueryResult> results = batch(sql, paramSets, handle);
+            metrics.recordSuccess(this, System.nanoTime() - start, StreamStats.of(results));
+            return results;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordError(this, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private List<QueryResult> batch(String sql, List<Map<Integer, Object>> paramSets, QueryHandle handle)
+            throws SQLException {
+        if (paramSets == null || paramSets.isEmpty()) {
+            throw new IllegalArgumentException("参数组不能为空");
+        }
+        if (config.getMaxBatchSize() > 0 && paramSets.size() > config.getMaxBatchSize()) {
+            throw new IllegalArgumentException("参数组数量 " + paramSets.size() + " 超出上限 " + config.getMaxBatchSize());
+        }
         validate(sql);
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        InListQuery lookup = paramSets.size() > 1 && isLookupBatch(paramSets)
+                ? InListQuery.parse(sql, getDbType()) : null;
+        acquirePermit();
+        try (Connection conn = connect()) {
+            if (handle != null) {
+                if (handle.isCancelled()) {
+                    throw new SQLTimeoutException("查询已取消");
+                }
+                handle.markStarted();
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            beforeStreaming(conn);
+            try {
+                if (lookup != null) {
+                    List<QueryResult> results = lookupBatch(conn, lookup, paramSets, handle);
+                    if (results != null) {
+                        return results;
+                    }
+                }
+                return preparedBatch(conn, sql, paramSets, handle);
+            } finally {
+                afterStreaming(conn, autoCommit);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 各组参数是否为可合并的查找值：只有一个参数，且均为数值或均为字符串。
+     * MySQL 默认排序规则不区分大小写与尾部空格，字符串查找值无法按原值分回各组，不做合并
+     */
+    private boolean isLookupBatch(List<Map<Integer, Object>> paramSets) {
+        boolean numbers = true;
+        boolean strings = !MYSQL.equals(getDbType());
+        for (Map<Integer, Object> params : paramSets) {
+            Object value = params == null || params.size() != 1 ? null : params.get(1);
+            numbers &= value instanceof Number;
+            strings &= value instanceof String;
+            if (!numbers && !strings) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找值的归一化形式(数值按数值相等比较，与数据库返回的数值类型无关)
+     */
+    private static Object lookupKey(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return value;
+            }
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros();
+        }
+        return value;
+    }
+
+    /**
+     * 改写为 IN 列表执行(每条语句最多 {@value #IN_LIST_SIZE} 个去重后的查找值)，按追加的查找列将结果行分回各组参数；
+     * 改写后的语句被数据库拒绝、被代价校验改写，或存在无法分回的行(如排序规则不区分大小写)时返回 null，由调用方逐组执行
+     */
+    private List<QueryResult> lookupBatch(Connection conn, InListQuery lookup, List<Map<Integer, Object>> paramSets,
+                                          QueryHandle handle) throws SQLException {
+        // 去重后的查找值 -> 参数组下标(重复的查找值只查询一次)
+        Map<Object, List<Integer>> keys = new LinkedHashMap<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < paramSets.size(); i++) {
+            Object value = paramSets.get(i).get(1);
+            keys.computeIfAbsent(lookupKey(value), key -> {
+                values.add(value);
+                return new ArrayList<>(1);
+            }).add(i);
+        }
+        int size = paramSets.size();
+        List<List<Object[]>> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new ArrayList<>());
+        }
+        long[] bytes = new long[size];
+        boolean[] truncated = new boolean[size];
+        List<String> columns = List.of();
+        List<String> types = List.of();
+        long remaining = config.getMaxResultBytes() > 0 ? config.getMaxResultBytes() : Long.MAX_VALUE;
+        for (int from = 0; from < values.size(); from += IN_LIST_SIZE) {
+            List<Object> chunk = values.subList(from, Math.min(from + IN_LIST_SIZE, values.size()));
+            if (remaining <= 0) {
+                // 字节数上限已用完，剩余各组不再查询
+                markTruncated(keys, chunk, truncated);
+                continue;
+            }
+            Map<Integer, Object> params = new HashMap<>((int) (chunk.size() / 0.75f) + 1);
+            for (int i = 0; i < chunk.size(); i++) {
+                params.put(i + 1, chunk.get(i));
+            }
+            String chunkSql = lookup.toSql(chunk.size());
+            if (!chunkSql.equals(applyCostGuard(conn, chunkSql, params))) {
+                return null;
+            }
+            long maxRows = config.getMaxRows() > 0 ? (long) config.getMaxRows() * chunk.size() : 0;
+            ColumnarRowCollector collector = new ColumnarRowCollector();
+            StreamStats stats;
+            try (PreparedStatement stmt = prepareQuery(conn, chunkSql, maxRows, config.getQueryTimeout())) {
+                bindParameters(stmt, params);
+                if (handle != null) {
+                    handle.attach(stmt);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    stats = readStream(rs, collector, new StreamLimits(maxRows, remaining, config.getQueryTimeout()));
+                } finally {
+                    if (handle != null) {
+                        handle.detach();
+                    }
+                }
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("42")) {
+                    throw e;
+                }
+                log.debug("数据源 [{}] IN 列表改写执行失败，改为逐组执行：{}", config.getId(), e.getMessage());
+                if (!conn.getAutoCommit()) {
+                    // PostgreSQL 出错后事务处于中止状态，回滚后才能继续执行
+                    conn.rollback();
+                }
+                return null;
+            }
+            QueryResult result = collector.toResult(stats);
+            int keyColumn = result.getColumns().size() - 1;
+            if (keyColumn < 0 || !InListQuery.KEY_LABEL.equals(result.getColumns().get(keyColumn))) {
+                return null;
+            }
+            columns = result.getColumns().subList(0, keyColumn);
+            types = result.getTypes().subList(0, keyColumn);
+            for (Object[] row : result.getRows()) {
+                List<Integer> sets = keys.get(lookupKey(row[keyColumn]));
+                if (sets == null) {
+                    return null;
+                }
+                Object[] trimmed = Arrays.copyOf(row, keyColumn);
+                long rowBytes = 0;
+                for (Object value : trimmed) {
+                    rowBytes += estimateSize(value);
+                }
+                for (int index : sets) {
+                    if (config.getMaxRows() > 0 && rows.get(index).size() >= config.getMaxRows()) {
+                        truncated[index] = true;
+                    } else {
+                        rows.get(index).add(trimmed);
+                        bytes[index] += rowBytes;
+                    }
+                }
+            }
+            if (stats.isTruncated()) {
+                // 无法确定被截断的行属于哪一组，本批各组均标记为截断
+                markTruncated(keys, chunk, truncated);
+            }
+            remaining -= stats.getBytes();
+        }
+        List<QueryResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(new QueryResult(columns, types, rows.get(i), truncated[i], bytes[i]));
+        }
+        return results;
+    }
 
-            bindParameters(stmt,params);
-            return processResultSet(stmt.executeQuery());
+    private static void markTruncated(Map<Object, List<Integer>> keys, List<Object> chunk, boolean[] truncated) {
+        for (Object value : chunk) {
+            for (int index : keys.get(lookupKey(value))) {
+                truncated[index] = true;
+            }
+        }
+    }
+
+    /**
+     * 语句只准备一次，逐组绑定参数执行，各组共享字节数上限
+     */
+    private List<QueryResult> preparedBatch(Connection conn, String sql, List<Map<Integer, Object>> paramSets,
+                                            QueryHandle handle) throws SQLException {
+        String statement = applyCostGuard(conn, sql, paramSets.get(0));
+        List<QueryResult> results = new ArrayList<>(paramSets.size());
+        long remaining = config.getMaxResultBytes() > 0 ? config.getMaxResultBytes() : Long.MAX_VALUE;
+        try (PreparedStatement stmt = prepareQuery(conn, statement, config.getMaxRows(), config.getQueryTimeout())) {
+            if (handle != null) {
+                handle.attach(stmt);
+            }
+            try {
+                for (Map<Integer, Object> params : paramSets) {
+                    if (handle != null && handle.isCancelled()) {
+                        throw new SQLTimeoutException("查询已取消");
+                    }
+                    if (remaining <= 0) {
+                        QueryResult first = results.get(0);
+                        results.add(new QueryResult(first.getColumns(), first.getTypes(), List.of(), true, 0));
+                        continue;
+                    }
+                    stmt.clearParameters();
+                    if (params != null) {
+                        bindParameters(stmt, params);
+                    }
+                    ColumnarRowCollector collector = new ColumnarRowCollector();
+                    StreamStats stats;
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        stats = readStream(rs, collector,
+                                new StreamLimits(config.getMaxRows(), remaining, config.getQueryTimeout()));
+                    }
+                    remaining -= stats.getBytes();
+                    results.add(collector.toResult(stats));
+                }
+            } finally {
+                if (handle != null) {
+                    handle.detach();
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 准备只读的前向查询语句(设置抓取大小、行数上限与超时)
+     *
+     * @param conn         连接
+     * @param sql          SQL
+     * @param maxRows      行数上限(小于等于 0 时不限制)
+     * @param queryTimeout 超时时长(秒，小于等于 0 时不限制)
+     * @return {@link PreparedStatement }
+     * @throws SQLException sql异常
+     */
+    private PreparedStatement prepareQuery(Connection conn, String sql, long maxRows, int queryTimeout)
+            throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            if (config.getFetchSize() > 0) {
+                stmt.setFetchSize(config.getFetchSize());
+            }
+            if (maxRows > 0 && maxRows < Integer.MAX_VALUE) {
+                // 多取一行用于判断是否被截断，同时让数据库侧也能提前结束
+                stmt.setMaxRows((int) maxRows + 1);
+            }
+            if (queryTimeout > 0) {
+                stmt.setQueryTimeout(queryTimeout);
+            }
+            return stmt;
+        } catch (SQLException | RuntimeException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 执行前的代价校验：通过 EXPLAIN 预估返回行数与代价(按语句形状缓存)，超出上限时拒绝执行；
+     * 处理方式为 LIMIT 时先将语句包装为子查询并追加行数限制，限制后仍超出上限或无法预估时拒绝
+     *
+     * @param conn   连接
+     * @param sql    SQL(已通过只读校验)
+     * @param params 参数
+     * @return 实际执行的语句
+     * @throws SQLException 预估代价超出上限(SQLState 54000)
+     */
+    protected String applyCostGuard(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        DataSourceProperties.CostGuardProperty guard = config.getCostGuard();
+        if (planEstimates == null || !guard.isEnabled() || !isQuery(sql)) {
+            return sql;
+        }
+        PlanEstimate estimate = estimate(conn, sql, params);
+        if (PlanEstimate.decide(estimate, null, 0, guard) == PlanEstimate.Decision.PASS) {
+            return sql;
+        }
+        long limit = PlanEstimate.limitRows(guard, config.getMaxRows());
+        if (guard.getAction() == DataSourceProperties.CostGuardProperty.Action.LIMIT && limit > 0) {
+            // 多取一行，结果被截断时的标记仍然准确；原语句末尾可能是行注释，右括号需另起一行
+            String limited = "SELECT * FROM (\n" + stripSemicolon(sql) + "\n) mcp_guard" + limitClause((int) limit + 1);
+            PlanEstimate limitedEstimate = estimate(conn, limited, params);
+            if (PlanEstimate.decide(estimate, limitedEstimate, limit, guard) == PlanEstimate.Decision.LIMIT) {
+                log.info("数据源 [{}] 查询预估超出上限({})，已追加行数限制 {}", config.getId(), estimate, limit);
+                return limited;
+            }
+            if (limitedEstimate == null) {
+                log.warn("数据源 [{}] 追加行数限制后无法预估代价，按原语句的预估拒绝执行", config.getId());
+            } else {
+                estimate = PlanEstimate.capRows(limitedEstimate, limit);
+            }
+        }
+        throw new SQLNonTransientException("查询预估代价超出上限(" + estimate + ")，请添加过滤条件、使用索引列或缩小查询范围",
+                "54000");
+    }
+
+    /**
+     * 获取执行计划预估值，EXPLAIN 失败时返回 null(无法预估，由 {@link PlanEstimate#decide} 决定如何处理)
+     */
+    private PlanEstimate estimate(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        String shape = SqlGuard.shape(sql, getDbType());
+        PlanEstimate cached = shape == null ? null : planEstimates.getIfPresent(shape);
+        if (cached != null) {
+            return cached;
+        }
+        PlanEstimate estimate;
+        try {
+            estimate = explain(conn, sql, params);
+        } catch (SQLTimeoutException e) {
+            throw e;
+        } catch (SQLException e) {
+            log.warn("数据源 [{}] EXPLAIN 失败，无法预估代价：{}", config.getId(), e.getMessage());
+            return null;
+        }
+        if (estimate != null && shape != null) {
+            planEstimates.put(shape, estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * 通过方言相关的 EXPLAIN 预估返回行数与代价，由子类实现；不支持时返回 null(跳过代价校验)
+     *
+     * @param conn   连接
+     * @param sql    SQL
+     * @param params 参数
+     * @return {@link PlanEstimate }
+     * @throws SQLException sql异常
+     */
+    protected PlanEstimate explain(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        return null;
+    }
+
+    /**
+     * 准备 EXPLAIN 语句(设置超时并绑定原语句的参数)
+     *
+     * @param conn        连接
+     * @param explainSql  EXPLAIN 语句
+     * @param params      参数
+     * @return {@link PreparedStatement }
+     * @throws SQLException sql异常
+     */
+    protected PreparedStatement prepareExplain(Connection conn, String explainSql, Map<Integer, Object> params)
+            throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(explainSql);
+        try {
+            if (config.getQueryTimeout() > 0) {
+                stmt.setQueryTimeout(config.getQueryTimeout());
+            }
+            if (params != null) {
+                bindParameters(stmt, params);
+            }
+            return stmt;
+        } catch (SQLException | RuntimeException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 是否为可预估的查询语句(SELECT/WITH 开头；SHOW、EXPLAIN 等无需校验)
+     */
+    private boolean isQuery(String sql) {
+        SqlLexer lexer = new SqlLexer(sql, getDbType());
+        while (lexer.next()) {
+            if (lexer.isSymbol('(')) {
+                continue;
+            }
+            return lexer.isWord("SELECT") || lexer.isWord("WITH");
+        }
+        return false;
+    }
+
+    /**
+     * 去掉末尾的分号(包装为子查询时不能保留)
+     */
+    protected String stripSemicolon(String sql) {
+        SqlLexer lexer = new SqlLexer(sql, getDbType());
+        int end = sql.length();
+        while (lexer.next()) {
+            if (lexer.type() == SqlLexer.TokenType.SEMICOLON) {
+                end = lexer.start();
+                break;
+            }
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * 流式读取前的连接准备(如 PostgreSQL 需关闭自动提交才会启用游标)，由子类按需覆盖
+     *
+     * @param conn 连接
+     * @throws SQLException sql异常
+     */
+    protected void beforeStreaming(Connection conn) throws SQLException {
+    }
+
+    /**
+     * 流式读取结束后恢复连接状态，由子类按需覆盖
+     *
+     * @param conn       连接
+     * @param autoCommit 原自动提交状态
+     * @throws SQLException sql异常
+     */
+    protected void afterStreaming(Connection conn, boolean autoCommit) throws SQLException {
+    }
+
+    /**
+     * 从连接池获取连接，经过熔断器：熔断中时直接失败，并按结果更新熔断状态
+     *
+     * @return {@link Connection }
+     * @throws SQLException 熔断中或获取连接失败
+     */
+    protected Connection connect() throws SQLException {
+        boolean probe = circuitBreaker.acquire();
+        Connection conn;
+        try {
+            conn = dataSource().getConnection();
+        } catch (SQLException e) {
+            if (CircuitBreaker.isConnectionFailure(e)) {
+                circuitBreaker.onFailure(e);
+            } else {
+                circuitBreaker.onIgnored(probe);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onIgnored(probe);
+            throw e;
+        }
+        circuitBreaker.onSuccess();
+        return conn;
+    }
+
+    /**
+     * 获取舱壁许可(最多等待连接超时时长)；熔断中时不等待许可，直接失败
+     *
+     * @throws SQLException 熔断中、数据源繁忙或线程被中断
+     */
+    protected void acquirePermit() throws SQLException {
+        if (bulkhead == null) {
+            throw new IllegalStateException("数据源尚未初始化");
+        }
+        circuitBreaker.check();
+        try {
+            if (!bulkhead.tryAcquire(config.getConnectionTimeOut(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("数据源 [" + config.getId() + "] 繁忙，并发查询数已达上限");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据源 [" + config.getId() + "] 时线程被中断", e);
         }
     }
 
@@ -117,6 +906,9 @@ public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
                     statement.setDate(index, Date.valueOf(v));
                 } else if (value instanceof LocalDateTime v) {
                     statement.setTimestamp(index, Timestamp.valueOf(v));
+                } else {
+                    // 其余时间类型(LocalTime、OffsetDateTime 等)由 JDBC 4.2 驱动直接支持
+                    statement.setObject(index, value);
                 }
             } else {
                 statement.setObject(index, value); // 通用处理
@@ -133,40 +925,260 @@ public abstract class AbstractDataSourceStrategy implements DataSourceStrategy {
     protected List<Map<String, Object>> processResultSet(ResultSet rs)
             throws SQLException {
 
-        List<Map<String, Object>> resultList = new ArrayList<>();
+        MapRowCollector collector = new MapRowCollector();
+        readStream(rs, collector);
+        return collector.getRows();
+    }
+
+    /**
+     * 逐行读取结果集并回调，达到行数/字节数上限或处理器要求停止时提前结束(游标随之关闭)
+     *
+     * @param rs      结果集
+     * @param handler 行处理器
+     * @return {@link StreamStats }
+     * @throws SQLException sql异常
+     */
+    protected StreamStats readStream(ResultSet rs, RowHandler handler) throws SQLException {
+        return readStream(rs, handler, StreamLimits.of(config));
+    }
+
+    /**
+     * 逐行读取结果集并回调，按指定的限制提前结束
+     *
+     * @param rs      结果集
+     * @param handler 行处理器
+     * @param limits  行数与字节数限制
+     * @return {@link StreamStats }
+     * @throws SQLException sql异常
+     */
+    protected StreamStats readStream(ResultSet rs, RowHandler handler, StreamLimits limits) throws SQLException {
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
+        // 列标签、类型与读取器每次查询只解析一次
+        String[] columns = new String[columnCount];
+        String[] types = new String[columnCount];
+        ColumnReader[] readers = ColumnReaders.of(metaData);
+        // 定长列的字节数预先累加，逐行只需估算变长列
+        long fixedRowBytes = 0;
+        int[] variableColumns = new int[columnCount];
+        int variableCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+            types[i] = metaData.getColumnTypeName(i + 1);
+            if (ColumnReaders.isVariableWidth(metaData.getColumnType(i + 1))) {
+                variableColumns[variableCount++] = i;
+            } else {
+                fixedRowBytes += 16;
+            }
+        }
+        handler.onColumns(columns, types);
+
+        long maxRows = limits.getMaxRows() > 0 ? limits.getMaxRows() : Long.MAX_VALUE;
+        long maxBytes = limits.getMaxBytes() > 0 ? limits.getMaxBytes() : Long.MAX_VALUE;
+        long rows = 0;
+        long bytes = 0;
+        boolean truncated = false;
 
         while (rs.next()) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnLabel(i).toLowerCase();
-                Object value = rs.getObject(i);
+            if (rows >= maxRows) {
+                truncated = true;
+                break;
+            }
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = readers[i].read(rs, i + 1);
+            }
+            long rowBytes = fixedRowBytes;
+            for (int j = 0; j < variableCount; j++) {
+                rowBytes += estimateSize(row[variableColumns[j]]);
+            }
+            if (bytes + rowBytes > maxBytes) {
+                truncated = true;
+                break;
+            }
+            rows++;
+            bytes += rowBytes;
+            if (!handler.onRow(row)) {
+                break;
+            }
+        }
+        return new StreamStats(rows, bytes, truncated);
+    }
+
+    /**
+     * 粗略估算单元格占用的字节数
+     *
+     * @param value 值
+     * @return long
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence v) {
+            return 40 + 2L * v.length();
+        }
+        if (value instanceof byte[] v) {
+            return 16 + v.length;
+        }
+        return 16;
+    }
+
+    /**
+     * 保持打开的游标：持有连接、语句与舱壁许可直至关闭；每次读取后预读一行，用于准确判断是否还有数据
+     */
+    private class OpenCursor implements HeldCursor {
+
+        private final Connection conn;
 
-                // 转换SQL日期到Java时间
-                if (value instanceof Date) {
-                    value = ((Date) value).toLocalDate();
+        private final boolean autoCommit;
+
+        private final PreparedStatement stmt;
+
+        private final ResultSet rs;
+
+        private final List<String> columns;
+
+        private final List<String> types;
+
+        private final ColumnReader[] readers;
+
+        private Object[] pending;
+
+        private boolean exhausted;
+
+        private boolean closed;
+
+        OpenCursor(Connection conn, boolean autoCommit, PreparedStatement stmt, ResultSet rs) throws SQLException {
+            this.conn = conn;
+            this.autoCommit = autoCommit;
+            this.stmt = stmt;
+            this.rs = rs;
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            String[] labels = new String[columnCount];
+            String[] typeNames = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+                typeNames[i] = metaData.getColumnTypeName(i + 1);
+            }
+            this.columns = List.of(labels);
+            this.types = List.of(typeNames);
+            this.readers = ColumnReaders.of(metaData);
+        }
+
+        @Override
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        @Override
+        public List<String> getTypes() {
+            return types;
+        }
+
+        @Override
+        public synchronized int fetch(int rows, RowHandler handler, QueryHandle handle) throws SQLException {
+            if (closed) {
+                throw new SQLException("游标已关闭");
+            }
+            if (handle != null) {
+                handle.markStarted();
+                handle.attach(stmt);
+            }
+            try {
+                int read = 0;
+                if (pending != null && read < rows) {
+                    Object[] row = pending;
+                    pending = null;
+                    read++;
+                    if (!handler.onRow(row)) {
+                        return read;
+                    }
+                }
+                while (read < rows && !exhausted) {
+                    Object[] row = readRow();
+                    if (row == null) {
+                        break;
+                    }
+                    read++;
+                    if (!handler.onRow(row)) {
+                        return read;
+                    }
+                }
+                if (pending == null && !exhausted) {
+                    pending = readRow();
+                }
+                return read;
+            } finally {
+                if (handle != null) {
+                    handle.detach();
                 }
-                row.put(columnName, value);
             }
-            resultList.add(row);
         }
-        return resultList;
+
+        private Object[] readRow() throws SQLException {
+            if (!rs.next()) {
+                exhausted = true;
+                return null;
+            }
+            Object[] row = new Object[readers.length];
+            for (int i = 0; i < readers.length; i++) {
+                row[i] = readers[i].read(rs, i + 1);
+            }
+            return row;
+        }
+
+        @Override
+        public synchronized boolean isExhausted() {
+            return exhausted && pending == null;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                rs.close();
+                stmt.close();
+                afterStreaming(conn, autoCommit);
+            } catch (SQLException e) {
+                // 关闭失败不影响连接归还
+            } finally {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // 连接池会处理损坏的连接
+                }
+                bulkhead.release();
+            }
+        }
     }
 
     /**
-     * 校验 SQL 语句(这里只是简单校验了一下)
+     * 可调整许可总数的公平信号量
+     */
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    /**
+     * 校验 SQL 语句(只允许单条只读查询，校验结论按语句形状缓存)
      * @param sql SQL
      */
     protected void validate(String sql) {
-        String[] tokens = sql.split("\\s+");
-        for (String token : tokens) {
-            if (!ALLOWED_KEYWORDS.contains(token.toUpperCase())) {
-                // 这里只允许查询语句通过
-                // 例如：drop table 等危险操作会被拦截(避免人为恶意删库跑路(bushi))
-                throw new SecurityException("禁止的SQL操作: " + token);
-            }
-        }
+        // 例如：drop table 等危险操作会被拦截(避免人为恶意删库跑路(bushi))
+        sqlGuard.check(sql, getDbType());
     }
 
 }
@@ -0,0 +1,195 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源熔断器
+ * <p>
+ * 数据库不可达时，每次获取连接都要等满连接超时时长，调用方重试会进一步堆积线程。
+ * 连续连接失败达到阈值后熔断(OPEN)，熔断期间的请求不再等待连接，直接得到带重试间隔的错误；
+ * 熔断到期后进入半开(HALF_OPEN)，只放行一个请求试探，成功则恢复(CLOSED)，失败则再次熔断且熔断时长翻倍。
+ * 只统计连接失败，语法错误、超时等语句级错误不影响熔断状态
+ *
+ * @author Onism
+ * @date 2025-08-14
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String datasourceId;
+
+    private final DataSourceProperties.CircuitBreakerProperty config;
+
+    private volatile State state = State.CLOSED;
+
+    private int failures;
+
+    /**
+     * 熔断截止时间(System.nanoTime)
+     */
+    private long openUntil;
+
+    /**
+     * 本次熔断时长(秒)
+     */
+    private long openSeconds;
+
+    /**
+     * 半开状态下是否已有请求在试探
+     */
+    private boolean probing;
+
+    private String lastError;
+
+    public CircuitBreaker(String datasourceId, DataSourceProperties.CircuitBreakerProperty config) {
+        this.datasourceId = datasourceId;
+        this.config = config;
+    }
+
+    /**
+     * 检查是否可用(不占用半开状态的试探名额)
+     *
+     * @throws DataSourceUnavailableException 熔断中
+     */
+    public void check() throws DataSourceUnavailableException {
+        if (state == State.CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openUntil < 0 || state == State.HALF_OPEN && probing) {
+                throw unavailable();
+            }
+        }
+    }
+
+    /**
+     * 获取连接前调用：熔断中时直接拒绝；熔断到期后只放行一个请求试探
+     *
+     * @return 当前请求是否为试探请求(需通过 {@link #onSuccess}、{@link #onFailure} 或 {@link #onIgnored} 报告结果)
+     * @throws DataSourceUnavailableException 熔断中
+     */
+    public boolean acquire() throws DataSourceUnavailableException {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        synchronized (this) {
+            switch (state) {
+                case OPEN -> {
+                    if (System.nanoTime() - openUntil < 0) {
+                        throw unavailable();
+                    }
+                    state = State.HALF_OPEN;
+                    probing = true;
+                    log.info("数据源 [{}] 熔断到期，放行一个请求试探", datasourceId);
+                    return true;
+                }
+                case HALF_OPEN -> {
+                    if (probing) {
+                        throw unavailable();
+                    }
+                    probing = true;
+                    return true;
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * 连接成功
+     */
+    public void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                log.info("数据源 [{}] 连接恢复，熔断解除", datasourceId);
+            }
+            state = State.CLOSED;
+            failures = 0;
+            probing = false;
+            openSeconds = 0;
+        }
+    }
+
+    /**
+     * 连接失败
+     *
+     * @param error 异常
+     */
+    public synchronized void onFailure(SQLException error) {
+        lastError = error.getMessage();
+        failures++;
+        if (!config.isEnabled() || config.getFailureThreshold() <= 0) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            open(Math.min(Math.max(openSeconds, 1) * 2, Math.max(config.getMaxOpenDuration(), config.getOpenDuration())));
+        } else if (state == State.CLOSED && failures >= config.getFailureThreshold()) {
+            open(config.getOpenDuration());
+        }
+    }
+
+    /**
+     * 试探请求未能得到连接结果(如等待并发许可超时、线程被中断)，释放试探名额
+     *
+     * @param probe 是否为试探请求
+     */
+    public synchronized void onIgnored(boolean probe) {
+        if (probe) {
+            probing = false;
+        }
+    }
+
+    private void open(long seconds) {
+        state = State.OPEN;
+        openSeconds = Math.max(1, seconds);
+        openUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(openSeconds);
+        log.warn("数据源 [{}] 连续 {} 次连接失败，熔断 {} 秒：{}", datasourceId, failures, openSeconds, lastError);
+    }
+
+    private DataSourceUnavailableException unavailable() {
+        long retryAfter = state == State.OPEN
+                ? Math.max(1, TimeUnit.NANOSECONDS.toSeconds(openUntil - System.nanoTime() + 999_999_999L))
+                : 1;
+        return new DataSourceUnavailableException("数据源 [" + datasourceId + "] 暂不可用(连续 " + failures
+                + " 次连接失败，已熔断" + (lastError == null ? "" : "，最近一次错误：" + lastError) + ")，请在 "
+                + retryAfter + " 秒后重试，期间重复调用会直接失败", retryAfter);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否为连接失败(数据库不可达、连接被拒绝/中断、连接池无法建立连接)
+     *
+     * @param e 异常
+     * @return boolean
+     */
+    public static boolean isConnectionFailure(SQLException e) {
+        if (e instanceof DataSourceUnavailableException) {
+            return false;
+        }
+        // 连接池等待超时：带原因时为无法建立连接，不带原因时只是连接均被占用
+        return e instanceof SQLNonTransientConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"))
+                || (e instanceof SQLTransientConnectionException && e.getCause() != null);
+    }
+}
@@ -0,0 +1,26 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 列读取器
+ * <p>
+ * 根据列类型在查询开始时确定，逐行读取时直接调用对应的类型化 getter，无需再逐个单元格做类型判断
+ *
+ * @author Onism
+ * @date 2025-07-27
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    /**
+     * 读取当前行指定列的值
+     *
+     * @param rs    结果集
+     * @param index 列位置(从 1 开始)
+     * @return {@link Object }
+     * @throws SQLException sql异常
+     */
+    Object read(ResultSet rs, int index) throws SQLException;
+}
@@ -0,0 +1,121 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.*;
+import java.time.OffsetDateTime;
+
+/**
+ * 列读取器工厂
+ * <p>
+ * 每条语句只根据 {@link ResultSetMetaData} 构建一次读取器数组，时间类型的转换也在读取器内一次完成
+ *
+ * @author Onism
+ * @date 2025-07-27
+ */
+public final class ColumnReaders {
+
+    private static final ColumnReader BOOLEAN = (rs, i) -> {
+        boolean v = rs.getBoolean(i);
+        return rs.wasNull() ? null : v;
+    };
+
+    private static final ColumnReader INT = (rs, i) -> {
+        int v = rs.getInt(i);
+        return rs.wasNull() ? null : v;
+    };
+
+    private static final ColumnReader LONG = (rs, i) -> {
+        long v = rs.getLong(i);
+        return rs.wasNull() ? null : v;
+    };
+
+    private static final ColumnReader DOUBLE = (rs, i) -> {
+        double v = rs.getDouble(i);
+        return rs.wasNull() ? null : v;
+    };
+
+    private static final ColumnReader DECIMAL = ResultSet::getBigDecimal;
+
+    private static final ColumnReader STRING = ResultSet::getString;
+
+    private static final ColumnReader BYTES = ResultSet::getBytes;
+
+    private static final ColumnReader DATE = (rs, i) -> {
+        Date v = rs.getDate(i);
+        return v == null ? null : v.toLocalDate();
+    };
+
+    private static final ColumnReader TIME = (rs, i) -> {
+        Time v = rs.getTime(i);
+        return v == null ? null : v.toLocalTime();
+    };
+
+    private static final ColumnReader TIMESTAMP = (rs, i) -> {
+        Timestamp v = rs.getTimestamp(i);
+        return v == null ? null : v.toLocalDateTime();
+    };
+
+    private static final ColumnReader TIMESTAMP_TZ = (rs, i) -> rs.getObject(i, OffsetDateTime.class);
+
+    private static final ColumnReader OBJECT = ResultSet::getObject;
+
+    private ColumnReaders() {
+    }
+
+    /**
+     * 根据结果集元数据构建读取器
+     *
+     * @param metaData 元数据
+     * @return {@link ColumnReader }[]
+     * @throws SQLException sql异常
+     */
+    public static ColumnReader[] of(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        ColumnReader[] readers = new ColumnReader[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            readers[i] = forType(metaData.getColumnType(i + 1), metaData.isSigned(i + 1));
+        }
+        return readers;
+    }
+
+    /**
+     * 根据 JDBC 类型选择读取器
+     *
+     * @param sqlType JDBC 类型({@link Types})
+     * @param signed  是否有符号(MySQL 无符号整型需要放大一级读取，避免溢出)
+     * @return {@link ColumnReader }
+     */
+    public static ColumnReader forType(int sqlType, boolean signed) {
+        return switch (sqlType) {
+            case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+            case Types.TINYINT, Types.SMALLINT -> INT;
+            case Types.INTEGER -> signed ? INT : LONG;
+            case Types.BIGINT -> signed ? LONG : DECIMAL;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> DOUBLE;
+            case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR,
+                 Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+                 Types.CLOB, Types.NCLOB -> STRING;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> BYTES;
+            case Types.DATE -> DATE;
+            case Types.TIME -> TIME;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            case Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP_TZ;
+            default -> OBJECT;
+        };
+    }
+
+    /**
+     * 是否为变长类型(定长类型的字节数在构建读取器时即可确定，无需逐个单元格估算)
+     *
+     * @param sqlType JDBC 类型
+     * @return boolean
+     */
+    public static boolean isVariableWidth(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIT, Types.BOOLEAN, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                 Types.REAL, Types.FLOAT, Types.DOUBLE, Types.DATE, Types.TIME, Types.TIMESTAMP,
+                 Types.TIMESTAMP_WITH_TIMEZONE -> false;
+            default -> true;
+        };
+    }
+}
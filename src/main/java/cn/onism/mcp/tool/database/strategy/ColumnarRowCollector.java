@@ -0,0 +1,56 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 列式结果收集器
+ * <p>
+ * 列信息只保存一次，行数据按列位置保存为数组，避免每行重复保存列名(节省堆内存与返回给模型的 token)
+ *
+ * @author Onism
+ * @date 2025-07-26
+ */
+public class ColumnarRowCollector implements RowHandler {
+
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private List<String> columns = List.of();
+
+    private List<String> types = List.of();
+
+    @Override
+    public void onColumns(String[] columns, String[] types) {
+        this.columns = Arrays.asList(columns);
+        this.types = Arrays.asList(types);
+    }
+
+    @Override
+    public boolean onRow(Object[] row) {
+        rows.add(row);
+        return true;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * 结合流式统计信息生成查询结果
+     *
+     * @param stats 流式查询统计
+     * @return {@link QueryResult }
+     */
+    public QueryResult toResult(StreamStats stats) {
+        return new QueryResult(columns, types, rows, stats.isTruncated(), stats.getBytes());
+    }
+}
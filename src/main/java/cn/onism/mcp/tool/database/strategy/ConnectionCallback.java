@@ -0,0 +1,23 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 连接回调(用于读取元数据等内部操作，回调中不得执行未经校验的 SQL)
+ *
+ * @author Onism
+ * @date 2025-08-09
+ */
+@FunctionalInterface
+public interface ConnectionCallback<T> {
+
+    /**
+     * 使用连接
+     *
+     * @param connection 连接(回调结束后归还连接池)
+     * @return 回调结果
+     * @throws SQLException sql异常
+     */
+    T doInConnection(Connection connection) throws SQLException;
+}
@@ -3,6 +3,7 @@ package cn.onism.mcp.tool.database.strategy;
 import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
 
 import javax.validation.constraints.NotNull;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
@@ -20,11 +21,56 @@ public interface DataSourceStrategy {
      */
     void init(DataSourceProperties.DataSourceProperty config);
 
+    /**
+     * 预热连接池：创建连接池(延迟创建时)并预先建立最小空闲连接
+     *
+     * @throws SQLException 数据库不可达
+     */
+    void warmUp() throws SQLException;
+
+    /**
+     * 连接池是否已创建
+     */
+    boolean isPoolCreated();
+
+    /**
+     * 运行时调整连接池大小(无需重建连接池)
+     *
+     * @param maxPoolSize 最大连接数
+     * @param minIdle     最小空闲连接数，小于 0 时与最大连接数一致
+     */
+    void resize(int maxPoolSize, int minIdle);
+
+    /**
+     * 等待进行中的查询结束后关闭数据源(超时后强制关闭)
+     *
+     * @param timeoutMillis 最长等待时长(毫秒)
+     * @return 是否在超时前完成排空
+     */
+    boolean drain(long timeoutMillis);
+
+    /**
+     * 检查数据源是否可用(熔断中时直接失败，不等待连接超时)
+     *
+     * @throws DataSourceUnavailableException 熔断中
+     */
+    void checkAvailable() throws DataSourceUnavailableException;
+
+    /**
+     * 获取熔断状态
+     */
+    CircuitBreaker.State getCircuitState();
+
     /**
      * 获取数据库类型（代替之前的类型推断）
      */
     String getDbType();
 
+    /**
+     * 获取数据源 ID(每个数据源配置对应一个独立的策略实例)
+     */
+    String getId();
+
     /**
      * 执行查询(无需封装参数)
      *
@@ -39,6 +85,144 @@ public interface DataSourceStrategy {
      */
     List<Map<String, Object>> executeQuery(@NotNull String sql, Map<Integer, Object> params) throws SQLException;
 
+    /**
+     * 流式执行查询：按配置的抓取大小逐批读取，逐行回调处理器，
+     * 达到行数/字节数上限或处理器返回 false 时提前关闭游标，内存占用与结果集大小无关
+     *
+     * @param sql     SQL
+     * @param params  参数(可为空)
+     * @param handler 行处理器
+     * @return {@link StreamStats }
+     * @throws SQLException sql异常
+     */
+    default StreamStats executeStream(@NotNull String sql, Map<Integer, Object> params, RowHandler handler) throws SQLException {
+        return executeStream(sql, params, handler, null);
+    }
+
+    /**
+     * 流式执行查询(可取消)：执行期间语句会关联到查询句柄，其他线程可通过句柄取消，超过数据源配置的查询超时时长由驱动中断
+     *
+     * @param sql     SQL
+     * @param params  参数(可为空)
+     * @param handler 行处理器
+     * @param handle  查询句柄(可为空)
+     * @return {@link StreamStats }
+     * @throws SQLException sql异常
+     */
+    default StreamStats executeStream(@NotNull String sql, Map<Integer, Object> params, RowHandler handler,
+                                      QueryHandle handle) throws SQLException {
+        return executeStream(sql, params, handler, handle, StreamLimits.of(getConfig()));
+    }
+
+    /**
+     * 流式执行查询，按指定的限制读取(如导出到文件时放宽行数上限)
+     *
+     * @param sql     SQL
+     * @param params  参数(可为空)
+     * @param handler 行处理器
+     * @param handle  查询句柄(可为空)
+     * @param limits  行数、字节数与超时限制
+     * @return {@link StreamStats }
+     * @throws SQLException sql异常
+     */
+    StreamStats executeStream(@NotNull String sql, Map<Integer, Object> params, RowHandler handler, QueryHandle handle,
+                              StreamLimits limits) throws SQLException;
+
+    /**
+     * 通过数据库原生的批量导出协议(如 PostgreSQL 的 COPY ... TO STDOUT)将查询结果以 CSV(含表头)写出，
+     * 不支持(或该语句不适合)时返回 null 且不写出任何数据，由调用方改用 {@link #executeStream}
+     *
+     * @param sql    SQL(不支持参数)
+     * @param out    输出流
+     * @param limits 行数与超时限制(不限制字节数)
+     * @return 写出的行数、字节数与是否被截断
+     * @throws SQLException sql异常(写出失败时 SQLState 为 58030)
+     */
+    default StreamStats copyOut(@NotNull String sql, OutputStream out, StreamLimits limits) throws SQLException {
+        return null;
+    }
+
+    /**
+     * 打开保持在服务端的游标(用于分页等需要多次续读的场景)，不受单次查询的行数上限约束
+     *
+     * @param sql    SQL
+     * @param params 参数(可为空)
+     * @param handle 查询句柄(打开期间用于取消，可为空)
+     * @return {@link HeldCursor }
+     * @throws SQLException sql异常
+     */
+    HeldCursor openCursor(@NotNull String sql, Map<Integer, Object> params, QueryHandle handle) throws SQLException;
+
+    /**
+     * 在受舱壁保护的连接上执行内部操作(如读取 {@link java.sql.DatabaseMetaData})
+     *
+     * @param callback 连接回调
+     * @return 回调结果
+     * @throws SQLException sql异常
+     */
+    <T> T withConnection(ConnectionCallback<T> callback) throws SQLException;
+
+    /**
+     * 限制返回行数的子句(追加在查询末尾)，由方言覆盖
+     *
+     * @param rows 行数
+     * @return {@link String }
+     */
+    default String limitClause(int rows) {
+        return " LIMIT " + rows;
+    }
+
+    /**
+     * 执行查询并以列式结果返回(受行数/字节数上限约束)
+     *
+     * @param sql    SQL
+     * @param params 参数(可为空)
+     * @return {@link QueryResult }
+     * @throws SQLException sql异常
+     */
+    default QueryResult query(@NotNull String sql, Map<Integer, Object> params) throws SQLException {
+        return query(sql, params, null);
+    }
+
+    /**
+     * 执行查询并以列式结果返回(可取消)
+     *
+     * @param sql    SQL
+     * @param params 参数(可为空)
+     * @param handle 查询句柄(可为空)
+     * @return {@link QueryResult }
+     * @throws SQLException sql异常
+     */
+    default QueryResult query(@NotNull String sql, Map<Integer, Object> params, QueryHandle handle) throws SQLException {
+        ColumnarRowCollector collector = new ColumnarRowCollector();
+        StreamStats stats = executeStream(sql, params, collector, handle);
+        return collector.toResult(stats);
+    }
+
+    /**
+     * 以多组参数批量执行同一条查询：语句只准备一次，逐组绑定参数执行；
+     * 单参数的等值查找(WHERE col = ?)改写为 IN 列表一次执行，再按查找列将结果行分回各组参数。
+     * 各组结果共享字节数上限，每组受行数上限约束
+     *
+     * @param sql       SQL
+     * @param paramSets 参数组(不可为空，数量受 maxBatchSize 限制)
+     * @param handle    查询句柄(可为空)
+     * @return 与参数组按下标一一对应的结果
+     * @throws SQLException sql异常
+     */
+    List<QueryResult> queryBatch(@NotNull String sql, List<Map<Integer, Object>> paramSets, QueryHandle handle)
+            throws SQLException;
+
+    /**
+     * 获取数据源配置
+     */
+    DataSourceProperties.DataSourceProperty getConfig();
+
+    /**
+     * 获取连接池名称(同一 ID 被替换后新旧连接池的名称不同，连接池指标以此区分)
+     */
+    String getPoolName();
+
     /**
      * 关闭连接池
      */
@@ -0,0 +1,26 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 数据源熔断中(连续连接失败)，请求未访问数据库即被拒绝
+ *
+ * @author Onism
+ * @date 2025-08-14
+ */
+public class DataSourceUnavailableException extends SQLTransientConnectionException {
+
+    /**
+     * 建议的重试间隔(秒)
+     */
+    private final long retryAfterSeconds;
+
+    public DataSourceUnavailableException(String reason, long retryAfterSeconds) {
+        super(reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,47 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 保持打开的服务端游标
+ * <p>
+ * 游标打开期间独占一个连接与一个舱壁许可，使用完毕或闲置超时后必须关闭
+ *
+ * @author Onism
+ * @date 2025-08-07
+ */
+public interface HeldCursor extends AutoCloseable {
+
+    /**
+     * 列标签(已转为小写)
+     */
+    List<String> getColumns();
+
+    /**
+     * 列的数据库类型名称
+     */
+    List<String> getTypes();
+
+    /**
+     * 从当前位置继续读取
+     *
+     * @param rows    最多读取的行数
+     * @param handler 行处理器
+     * @param handle  查询句柄(读取期间用于取消，可为空)
+     * @return 实际读取的行数
+     * @throws SQLException sql异常
+     */
+    int fetch(int rows, RowHandler handler, QueryHandle handle) throws SQLException;
+
+    /**
+     * 是否已读取完毕
+     */
+    boolean isExhausted();
+
+    /**
+     * 关闭游标并归还连接与舱壁许可
+     */
+    @Override
+    void close();
+}
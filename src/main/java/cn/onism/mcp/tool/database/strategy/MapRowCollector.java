@@ -0,0 +1,38 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将流式结果收集为 {@code List<Map<String, Object>>} 的行处理器
+ *
+ * @author Onism
+ * @date 2025-07-25
+ */
+public class MapRowCollector implements RowHandler {
+
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    private String[] columns;
+
+    @Override
+    public void onColumns(String[] columns, String[] types) {
+        this.columns = columns;
+    }
+
+    @Override
+    public boolean onRow(Object[] row) {
+        Map<String, Object> map = new LinkedHashMap<>((int) (columns.length / 0.75f) + 1);
+        for (int i = 0; i < columns.length; i++) {
+            map.put(columns[i], row[i]);
+        }
+        rows.add(map);
+        return true;
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+}
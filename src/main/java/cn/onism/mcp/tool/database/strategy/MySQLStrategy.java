@@ -1,7 +1,17 @@
 package cn.onism.mcp.tool.database.strategy;
 
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.zaxxer.hikari.HikariConfig;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
 /**
  * MySQL 数据源策略
  *
@@ -9,9 +19,35 @@ import org.springframework.stereotype.Component;
  * @date 2025-03-24
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class MySQLStrategy extends AbstractDataSourceStrategy {
     @Override
     public String getDbType() {
         return MYSQL;
     }
+
+    /**
+     * MySQL 驱动默认会把整个结果集读入内存，需开启服务端游标 fetchSize 才会生效
+     */
+    @Override
+    protected void configure(HikariConfig hikariConfig, DataSourceProperties.DataSourceProperty config) {
+        if (config.getFetchSize() > 0) {
+            hikariConfig.addDataSourceProperty("useCursorFetch", "true");
+            hikariConfig.addDataSourceProperty("defaultFetchSize", String.valueOf(config.getFetchSize()));
+        }
+    }
+
+    /**
+     * EXPLAIN FORMAT=JSON：代价取 query_cost，行数取各表 rows_produced_per_join 的最大值(嵌套循环关联的输出行数)
+     */
+    @Override
+    protected PlanEstimate explain(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        try (PreparedStatement stmt = prepareExplain(conn, "EXPLAIN FORMAT=JSON " + sql, params);
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            return PlanEstimate.ofMySql(rs.getString(1));
+        }
+    }
 }
@@ -1,7 +1,18 @@
 package cn.onism.mcp.tool.database.strategy;
 
+import cn.onism.mcp.tool.database.sql.SqlLexer;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Oracle 数据源策略
  *
@@ -9,9 +20,76 @@ import org.springframework.stereotype.Component;
  * @date 2025-03-27
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class OracleStrategy extends AbstractDataSourceStrategy{
     @Override
     public String getDbType() {
         return ORACLE;
     }
+
+    /**
+     * Oracle 12c 及以上的行限制子句
+     */
+    @Override
+    public String limitClause(int rows) {
+        return " FETCH FIRST " + rows + " ROWS ONLY";
+    }
+
+    /**
+     * EXPLAIN PLAN 写入 PLAN_TABLE 后读取各步骤中最大的 CARDINALITY 与根节点(ID = 0)的 COST，读取后删除本次记录；
+     * EXPLAIN PLAN 不接受绑定值，占位符改写为未绑定的命名变量(优化器按未知值估算)；
+     * 写入与清理 PLAN_TABLE 期间临时取消连接的只读模式(被解释的语句本身不会执行)
+     */
+    @Override
+    protected PlanEstimate explain(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        boolean readOnly = conn.isReadOnly();
+        if (readOnly) {
+            conn.setReadOnly(false);
+        }
+        try {
+            return explainPlan(conn, sql);
+        } finally {
+            if (readOnly) {
+                conn.setReadOnly(true);
+            }
+        }
+    }
+
+    private PlanEstimate explainPlan(Connection conn, String sql) throws SQLException {
+        String statementId = "mcp" + UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+        try (Statement stmt = conn.createStatement()) {
+            if (config.getQueryTimeout() > 0) {
+                stmt.setQueryTimeout(config.getQueryTimeout());
+            }
+            stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + namedBinds(sql));
+            try (PreparedStatement query = conn.prepareStatement(
+                    "SELECT MAX(CARDINALITY), MAX(CASE WHEN ID = 0 THEN COST END) FROM PLAN_TABLE WHERE STATEMENT_ID = ?")) {
+                query.setString(1, statementId);
+                try (ResultSet rs = query.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    double rows = rs.getDouble(1);
+                    // 没有本次记录时聚合结果为 NULL
+                    return rs.wasNull() ? null : new PlanEstimate(rows, rs.getDouble(2));
+                }
+            } finally {
+                stmt.executeUpdate("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = '" + statementId + "'");
+            }
+        }
+    }
+
+    private static String namedBinds(String sql) {
+        SqlLexer lexer = new SqlLexer(sql, ORACLE);
+        StringBuilder builder = new StringBuilder(sql.length() + 16);
+        int last = 0;
+        int index = 0;
+        while (lexer.next()) {
+            if (lexer.type() == SqlLexer.TokenType.PARAMETER) {
+                builder.append(sql, last, lexer.start()).append(":b").append(++index);
+                last = lexer.end();
+            }
+        }
+        return builder.append(sql, last, sql.length()).toString();
+    }
 }
@@ -0,0 +1,196 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.SQLException;
+
+/**
+ * 执行计划预估值
+ * <p>
+ * 行数为预估返回行数(大结果集可通过追加行数限制缓解)，代价为优化器的总代价(扫描大表、排序、
+ * 大表关联等均会体现在代价中，追加行数限制不一定能降低)
+ *
+ * @author Onism
+ * @date 2025-08-10
+ */
+public class PlanEstimate {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 预估返回行数
+     */
+    private final double rows;
+
+    /**
+     * 优化器预估的总代价
+     */
+    private final double cost;
+
+    public PlanEstimate(double rows, double cost) {
+        this.rows = rows;
+        this.cost = cost;
+    }
+
+    public double getRows() {
+        return rows;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * 是否超出上限
+     *
+     * @param guard 代价校验配置
+     * @return boolean
+     */
+    public boolean exceeds(DataSourceProperties.CostGuardProperty guard) {
+        return (guard.getMaxRows() > 0 && rows > guard.getMaxRows())
+                || (guard.getMaxCost() > 0 && cost > guard.getMaxCost());
+    }
+
+    /**
+     * 解析 MySQL 的 EXPLAIN FORMAT=JSON：行数取各节点 rows_produced_per_join 的最大值，代价取 query_cost
+     *
+     * @param json JSON
+     * @return {@link PlanEstimate }
+     * @throws SQLException 无法解析
+     */
+    public static PlanEstimate ofMySql(String json) throws SQLException {
+        JsonNode plan = readPlan(json);
+        return new PlanEstimate(maxOf(plan, "rows_produced_per_join"), maxOf(plan, "query_cost"));
+    }
+
+    /**
+     * 解析 PostgreSQL 的 EXPLAIN (FORMAT JSON)：行数取计划树中各节点 Plan Rows 的最大值
+     * (中间节点的扫描量可能远大于根节点的返回行数)，代价取根节点的 Total Cost(已累计子节点)
+     *
+     * @param json JSON
+     * @return {@link PlanEstimate }，没有执行计划时返回 null
+     * @throws SQLException 无法解析
+     */
+    public static PlanEstimate ofPostgres(String json) throws SQLException {
+        JsonNode plan = readPlan(json).path(0).path("Plan");
+        if (plan.isMissingNode()) {
+            return null;
+        }
+        return new PlanEstimate(maxOf(plan, "Plan Rows"), plan.path("Total Cost").asDouble());
+    }
+
+    /**
+     * 代价校验决策
+     *
+     * @param original 原语句的预估值，EXPLAIN 失败时为 null(无法预估，不做拦截，语句本身有误时会在执行时报错)
+     * @param limited  追加行数限制后的预估值，未尝试或 EXPLAIN 失败时为 null(如子查询存在重名列时 SELECT * 报错，
+     *                 无法确认限制有效，维持原语句的判定)
+     * @param limit    追加的行数限制，小于等于 0 时不追加
+     * @param guard    代价校验配置
+     * @return {@link Decision }
+     */
+    public static Decision decide(PlanEstimate original, PlanEstimate limited, long limit,
+                                  DataSourceProperties.CostGuardProperty guard) {
+        if (original == null || !original.exceeds(guard)) {
+            return Decision.PASS;
+        }
+        if (guard.getAction() != DataSourceProperties.CostGuardProperty.Action.LIMIT || limit <= 0 || limited == null) {
+            return Decision.REJECT;
+        }
+        return capRows(limited, limit).exceeds(guard) ? Decision.REJECT : Decision.LIMIT;
+    }
+
+    /**
+     * LIMIT 方式追加的行数限制：优先 limitRows，否则使用数据源的 maxRows，且不超过预估行数上限
+     *
+     * @param guard          代价校验配置
+     * @param sourceMaxRows  数据源的最大返回行数
+     * @return 行数限制，小于等于 0 时不追加
+     */
+    public static long limitRows(DataSourceProperties.CostGuardProperty guard, long sourceMaxRows) {
+        long limit = guard.getLimitRows() > 0 ? guard.getLimitRows() : sourceMaxRows;
+        if (guard.getMaxRows() > 0) {
+            limit = limit > 0 ? Math.min(limit, guard.getMaxRows()) : guard.getMaxRows();
+        }
+        return limit;
+    }
+
+    /**
+     * 按行数限制封顶预估行数(部分数据库如 MySQL 的预估行数不体现行数限制)
+     */
+    static PlanEstimate capRows(PlanEstimate estimate, long limit) {
+        return new PlanEstimate(Math.min(estimate.rows, limit), estimate.cost);
+    }
+
+    /**
+     * 解析 JSON 格式的执行计划
+     *
+     * @param json JSON
+     * @return {@link JsonNode }
+     * @throws SQLException 无法解析
+     */
+    static JsonNode readPlan(String json) throws SQLException {
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("无法解析执行计划: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * 递归查找 JSON 执行计划中某个字段的最大值(字段值可为数字或数字字符串)
+     *
+     * @param node  节点
+     * @param field 字段名
+     * @return 最大值，未找到时为 0
+     */
+    static double maxOf(JsonNode node, String field) {
+        double max = 0;
+        if (node.isObject()) {
+            JsonNode value = node.get(field);
+            if (value != null) {
+                max = value.isNumber() ? value.asDouble() : parseOrZero(value.asText());
+            }
+        }
+        if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                max = Math.max(max, maxOf(child, field));
+            }
+        }
+        return max;
+    }
+
+    private static double parseOrZero(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 代价校验结论
+     */
+    public enum Decision {
+        /**
+         * 直接执行
+         */
+        PASS,
+        /**
+         * 追加行数限制后执行
+         */
+        LIMIT,
+        /**
+         * 拒绝执行
+         */
+        REJECT
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows≈%.0f, cost≈%.1f", rows, cost);
+    }
+}
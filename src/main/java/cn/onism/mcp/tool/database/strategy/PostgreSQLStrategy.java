@@ -1,7 +1,23 @@
 package cn.onism.mcp.tool.database.strategy;
 
+import cn.onism.mcp.tool.database.sql.SqlLexer;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.zaxxer.hikari.HikariConfig;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
 /**
  * Postgre SQL策略
  *
@@ -9,9 +25,175 @@ import org.springframework.stereotype.Component;
  * @date 2025-03-27
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class PostgreSQLStrategy extends AbstractDataSourceStrategy {
     @Override
     public String getDbType() {
         return POSTGRESQL;
     }
+
+    /**
+     * 驱动默认只在非自动提交模式下将事务设为只读，只读连接需在自动提交模式下同样生效
+     */
+    @Override
+    protected void configure(HikariConfig hikariConfig, DataSourceProperties.DataSourceProperty config) {
+        if (config.isReadOnly()) {
+            hikariConfig.addDataSourceProperty("readOnlyMode", "always");
+        }
+    }
+
+    /**
+     * PostgreSQL 驱动仅在非自动提交模式下才会使用游标按 fetchSize 分批拉取
+     */
+    @Override
+    protected void beforeStreaming(Connection conn) throws SQLException {
+        if (config.getFetchSize() > 0 && conn.getAutoCommit()) {
+            conn.setAutoCommit(false);
+        }
+    }
+
+    @Override
+    protected void afterStreaming(Connection conn, boolean autoCommit) throws SQLException {
+        if (autoCommit && !conn.getAutoCommit()) {
+            // 只读查询，直接回滚结束事务(同时关闭游标)
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * EXPLAIN (FORMAT JSON)：取计划树中最大的 Plan Rows 与根节点的 Total Cost
+     */
+    @Override
+    protected PlanEstimate explain(Connection conn, String sql, Map<Integer, Object> params) throws SQLException {
+        try (PreparedStatement stmt = prepareExplain(conn, "EXPLAIN (FORMAT JSON) " + sql, params);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? PlanEstimate.ofPostgres(rs.getString(1)) : null;
+        }
+    }
+
+    /**
+     * COPY (查询) TO STDOUT：由服务端直接生成 CSV 并按流写出，客户端不逐行解析结果集；
+     * 超时通过事务内的 statement_timeout 控制。语句以拼接方式嵌入 COPY，含注释、反斜杠或括号不配对时
+     * 不使用 COPY(返回 null，改用流式导出)，避免闭合括号后追加 TO PROGRAM 等子句；
+     * 行数限制多取一行用于判断截断，多出的一行不写出
+     */
+    @Override
+    public StreamStats copyOut(String sql, OutputStream out, StreamLimits limits) throws SQLException {
+        validate(sql);
+        if (!isSelfContained(sql)) {
+            return null;
+        }
+        return withConnection(conn -> {
+            String statement = applyCostGuard(conn, stripSemicolon(sql), null);
+            long maxRows = limits.getMaxRows() > 0 && limits.getMaxRows() < Integer.MAX_VALUE ? limits.getMaxRows() : 0;
+            if (maxRows > 0) {
+                statement = "SELECT * FROM (\n" + statement + "\n) mcp_export" + limitClause((int) maxRows + 1);
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                if (limits.getQueryTimeout() > 0) {
+                    stmt.execute("SET LOCAL statement_timeout = " + limits.getQueryTimeout() * 1000L);
+                }
+                CsvRecordLimiter limiter = new CsvRecordLimiter(out, maxRows > 0 ? maxRows + 1 : 0);
+                long copied = conn.unwrap(PGConnection.class).getCopyAPI()
+                        .copyOut("COPY (\n" + statement + "\n) TO STDOUT WITH (FORMAT csv, HEADER true)", limiter);
+                boolean truncated = maxRows > 0 && copied > maxRows;
+                return new StreamStats(truncated ? maxRows : copied, limiter.getWritten(), truncated);
+            } catch (IOException e) {
+                throw new SQLException("写出导出文件失败: " + e.getMessage(), "58030", e);
+            } finally {
+                // 只读导出，回滚结束事务
+                conn.rollback();
+                conn.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * 语句是否可以安全地嵌入括号：不含注释与反斜杠，且括号配对(字符串、引号标识符与美元引号内的括号不计)；
+     * 反斜杠是否转义引号取决于字符串前缀(E'...')与服务端的 standard_conforming_strings，
+     * 含反斜杠的语句无法确定字符串边界与服务端一致
+     */
+    private static boolean isSelfContained(String sql) {
+        if (sql.indexOf('\\') >= 0) {
+            return false;
+        }
+        SqlLexer lexer = new SqlLexer(sql, POSTGRESQL);
+        int depth = 0;
+        while (lexer.next()) {
+            if (lexer.isSymbol('(')) {
+                depth++;
+            } else if (lexer.isSymbol(')') && --depth < 0) {
+                return false;
+            }
+        }
+        return depth == 0 && !lexer.hasComment() && !lexer.isUnterminated();
+    }
+
+    /**
+     * 只写出前 maxRecords 条 CSV 记录(含表头)的输出流，之后的数据直接丢弃；
+     * 按引号状态识别记录结尾，字段内的换行不会被误判
+     */
+    private static class CsvRecordLimiter extends FilterOutputStream {
+
+        /**
+         * 最多写出的记录数，0 表示不限制
+         */
+        private final long maxRecords;
+
+        private long records;
+
+        private boolean quoted;
+
+        private long written;
+
+        CsvRecordLimiter(OutputStream out, long maxRecords) {
+            super(out);
+            this.maxRecords = maxRecords;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (maxRecords > 0 && records >= maxRecords) {
+                return;
+            }
+            out.write(b);
+            written++;
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                records++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (maxRecords <= 0) {
+                out.write(b, off, len);
+                written += len;
+                return;
+            }
+            int start = off;
+            int end = off + len;
+            int i = off;
+            while (i < end && records < maxRecords) {
+                byte c = b[i++];
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == '\n' && !quoted) {
+                    records++;
+                }
+            }
+            if (i > start) {
+                out.write(b, start, i - start);
+                written += i - start;
+            }
+        }
+
+        long getWritten() {
+            return written;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 查询句柄
+ * <p>
+ * 用于在其他线程取消正在执行的语句({@link Statement#cancel()})，并分别记录排队等待与执行耗时
+ *
+ * @author Onism
+ * @date 2025-07-30
+ */
+@Slf4j
+public class QueryHandle {
+
+    /**
+     * 提交时间
+     */
+    private final long submittedAt = System.nanoTime();
+
+    /**
+     * 开始执行时间(已获取舱壁许可与连接)
+     */
+    private volatile long startedAt;
+
+    /**
+     * 结束时间
+     */
+    private volatile long finishedAt;
+
+    private volatile Statement statement;
+
+    private volatile boolean cancelled;
+
+    /**
+     * 标记开始执行
+     */
+    public void markStarted() {
+        startedAt = System.nanoTime();
+    }
+
+    /**
+     * 标记执行结束
+     */
+    public void markFinished() {
+        finishedAt = System.nanoTime();
+    }
+
+    /**
+     * 关联正在执行的语句(若已被取消则立即取消该语句)
+     *
+     * @param statement 语句
+     * @throws SQLException sql异常
+     */
+    public void attach(Statement statement) throws SQLException {
+        this.statement = statement;
+        if (cancelled) {
+            statement.cancel();
+        }
+    }
+
+    /**
+     * 解除关联(语句关闭前调用)
+     */
+    public void detach() {
+        this.statement = null;
+    }
+
+    /**
+     * 取消查询
+     */
+    public void cancel() {
+        cancelled = true;
+        Statement current = statement;
+        if (current != null) {
+            try {
+                current.cancel();
+            } catch (SQLException e) {
+                log.warn("取消查询失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 排队等待耗时(线程池排队 + 舱壁 + 获取连接)
+     */
+    public long getQueueMillis() {
+        long start = startedAt == 0 ? (finishedAt == 0 ? System.nanoTime() : finishedAt) : startedAt;
+        return (start - submittedAt) / 1_000_000;
+    }
+
+    /**
+     * 执行耗时(执行语句 + 读取结果)
+     */
+    public long getExecutionMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = finishedAt == 0 ? System.nanoTime() : finishedAt;
+        return (end - startedAt) / 1_000_000;
+    }
+}
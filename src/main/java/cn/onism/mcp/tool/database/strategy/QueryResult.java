@@ -0,0 +1,69 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询结果(列式)
+ *
+ * @author Onism
+ * @date 2025-07-28
+ */
+@Getter
+public class QueryResult {
+
+    /**
+     * 列名
+     */
+    private final List<String> columns;
+
+    /**
+     * 列的数据库类型
+     */
+    private final List<String> types;
+
+    /**
+     * 行数据(按列位置排列)
+     */
+    private final List<Object[]> rows;
+
+    /**
+     * 是否被截断
+     */
+    private final boolean truncated;
+
+    /**
+     * 估算字节数
+     */
+    private final long bytes;
+
+    public QueryResult(List<String> columns, List<String> types, List<Object[]> rows, boolean truncated, long bytes) {
+        this.columns = columns;
+        this.types = types;
+        this.rows = rows;
+        this.truncated = truncated;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 转换为逐行 Map(列名 -> 值)
+     *
+     * @return {@link List }<{@link Map }<{@link String }, {@link Object }>>
+     */
+    public List<Map<String, Object>> toMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>(rows.size());
+        int columnCount = columns.size();
+        for (Object[] row : rows) {
+            Map<String, Object> map = new LinkedHashMap<>((int) (columnCount / 0.75f) + 1);
+            for (int i = 0; i < columnCount; i++) {
+                map.put(columns.get(i), row[i]);
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+}
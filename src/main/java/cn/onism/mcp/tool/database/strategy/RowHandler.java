@@ -0,0 +1,34 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import java.sql.SQLException;
+
+/**
+ * 行处理器
+ * <p>
+ * 流式查询时逐行回调，结果集不会在内存中整体物化
+ *
+ * @author Onism
+ * @date 2025-07-25
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * 列信息回调(每次查询只回调一次，在第一行之前)
+     *
+     * @param columns 列标签(已转为小写)
+     * @param types   列的数据库类型名称(与列标签一一对应)
+     * @throws SQLException sql异常
+     */
+    default void onColumns(String[] columns, String[] types) throws SQLException {
+    }
+
+    /**
+     * 行回调
+     *
+     * @param row 按列位置排列的行数据
+     * @return 是否继续读取，返回 false 时会提前关闭游标
+     * @throws SQLException sql异常
+     */
+    boolean onRow(Object[] row) throws SQLException;
+}
@@ -0,0 +1,43 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 流式查询的限制(行数、估算字节数与超时)
+ * <p>
+ * 默认取自数据源配置(面向大模型的结果需要控制体积)；导出到文件等场景可单独放宽
+ *
+ * @author Onism
+ * @date 2025-08-12
+ */
+@Getter
+@AllArgsConstructor
+public class StreamLimits {
+
+    /**
+     * 最大行数，小于等于 0 时不限制
+     */
+    private final long maxRows;
+
+    /**
+     * 最大估算字节数，小于等于 0 时不限制
+     */
+    private final long maxBytes;
+
+    /**
+     * 查询超时时长(单位：秒)，小于等于 0 时不限制
+     */
+    private final int queryTimeout;
+
+    /**
+     * 数据源配置的限制
+     *
+     * @param config 数据源配置
+     * @return {@link StreamLimits }
+     */
+    public static StreamLimits of(DataSourceProperties.DataSourceProperty config) {
+        return new StreamLimits(config.getMaxRows(), config.getMaxResultBytes(), config.getQueryTimeout());
+    }
+}
@@ -0,0 +1,54 @@
+package cn.onism.mcp.tool.database.strategy;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 流式查询统计
+ *
+ * @author Onism
+ * @date 2025-07-25
+ */
+@Getter
+public class StreamStats {
+
+    /**
+     * 已回调的行数
+     */
+    private final long rows;
+
+    /**
+     * 已回调行的估算字节数
+     */
+    private final long bytes;
+
+    /**
+     * 是否因行数/字节数上限被截断
+     */
+    private final boolean truncated;
+
+    public StreamStats(long rows, long bytes, boolean truncated) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.truncated = truncated;
+    }
+
+    /**
+     * 汇总批量执行各组结果的统计
+     *
+     * @param results 各组结果
+     * @return {@link StreamStats }
+     */
+    public static StreamStats of(List<QueryResult> results) {
+        long rows = 0;
+        long bytes = 0;
+        boolean truncated = false;
+        for (QueryResult result : results) {
+            rows += result.getRows().size();
+            bytes += result.getBytes();
+            truncated |= result.isTruncated();
+        }
+        return new StreamStats(rows, bytes, truncated);
+    }
+}
@@ -19,6 +19,46 @@ public class DataSourceProperties {
     @Valid
     private List<DataSourceProperty> datasource;
 
+    /**
+     * 查询结果缓存配置
+     */
+    private QueryCacheProperty cache = new QueryCacheProperty();
+
+    /**
+     * 异步查询执行器配置
+     */
+    private ExecutorProperty executor = new ExecutorProperty();
+
+    /**
+     * 跨数据源关联查询配置
+     */
+    private FederationProperty federation = new FederationProperty();
+
+    /**
+     * 运行时管理接口配置
+     */
+    private AdminProperty admin = new AdminProperty();
+
+    /**
+     * 分页查询配置
+     */
+    private PageProperty page = new PageProperty();
+
+    /**
+     * 表结构目录配置
+     */
+    private SchemaProperty schema = new SchemaProperty();
+
+    /**
+     * 查询结果导出配置
+     */
+    private ExportProperty export = new ExportProperty();
+
+    /**
+     * 查询结果裁剪配置
+     */
+    private ShapeProperty shape = new ShapeProperty();
+
     public List<DataSourceProperty> getDatasource() {
         return datasource;
     }
@@ -27,6 +67,415 @@ public class DataSourceProperties {
         this.datasource = datasource;
     }
 
+    public QueryCacheProperty getCache() {
+        return cache;
+    }
+
+    public void setCache(QueryCacheProperty cache) {
+        this.cache = cache;
+    }
+
+    public ExecutorProperty getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorProperty executor) {
+        this.executor = executor;
+    }
+
+    public FederationProperty getFederation() {
+        return federation;
+    }
+
+    public void setFederation(FederationProperty federation) {
+        this.federation = federation;
+    }
+
+    public AdminProperty getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(AdminProperty admin) {
+        this.admin = admin;
+    }
+
+    public PageProperty getPage() {
+        return page;
+    }
+
+    public void setPage(PageProperty page) {
+        this.page = page;
+    }
+
+    public SchemaProperty getSchema() {
+        return schema;
+    }
+
+    public void setSchema(SchemaProperty schema) {
+        this.schema = schema;
+    }
+
+    public ExportProperty getExport() {
+        return export;
+    }
+
+    public void setExport(ExportProperty export) {
+        this.export = export;
+    }
+
+    public ShapeProperty getShape() {
+        return shape;
+    }
+
+    public void setShape(ShapeProperty shape) {
+        this.shape = shape;
+    }
+
+    public static class ShapeProperty {
+
+        /**
+         * 默认的结果 token 预算(估算值)，超出时只返回前若干行、列统计与续读句柄；小于等于 0 时不裁剪
+         */
+        private int defaultTokenBudget = 4000;
+        /**
+         * 续读句柄的闲置过期时长(单位：秒)
+         */
+        private int handleTtl = 600;
+        /**
+         * 续读句柄保留的结果总字节数上限(估算值)
+         */
+        private long maxHandleBytes = 64L * 1024 * 1024;
+        /**
+         * 列统计中精确计算去重数的上限，超出后只返回下限
+         */
+        private int maxDistinct = 10000;
+
+        public int getDefaultTokenBudget() {
+            return defaultTokenBudget;
+        }
+
+        public void setDefaultTokenBudget(int defaultTokenBudget) {
+            this.defaultTokenBudget = defaultTokenBudget;
+        }
+
+        public int getHandleTtl() {
+            return handleTtl;
+        }
+
+        public void setHandleTtl(int handleTtl) {
+            this.handleTtl = handleTtl;
+        }
+
+        public long getMaxHandleBytes() {
+            return maxHandleBytes;
+        }
+
+        public void setMaxHandleBytes(long maxHandleBytes) {
+            this.maxHandleBytes = maxHandleBytes;
+        }
+
+        public int getMaxDistinct() {
+            return maxDistinct;
+        }
+
+        public void setMaxDistinct(int maxDistinct) {
+            this.maxDistinct = maxDistinct;
+        }
+    }
+
+    public static class ExportProperty {
+
+        /**
+         * 导出目录，为空时使用系统临时目录下的 mcp-export
+         */
+        private String dir;
+        /**
+         * 单次导出的最大行数，小于等于 0 时不限制
+         */
+        private long maxRows = 1_000_000;
+        /**
+         * 导出的查询超时时长(单位：秒)，小于等于 0 时不限制
+         */
+        private int queryTimeout = 600;
+        /**
+         * xlsx 导出时内存中保留的行数(其余行写入临时文件)
+         */
+        private int windowSize = 200;
+        /**
+         * CSV 是否写入 UTF-8 BOM(便于 Excel 正确识别编码)
+         */
+        private boolean csvBom = true;
+
+        public String getDir() {
+            return dir;
+        }
+
+        public void setDir(String dir) {
+            this.dir = dir;
+        }
+
+        public long getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(long maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        public int getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        public void setQueryTimeout(int queryTimeout) {
+            this.queryTimeout = queryTimeout;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public boolean isCsvBom() {
+            return csvBom;
+        }
+
+        public void setCsvBom(boolean csvBom) {
+            this.csvBom = csvBom;
+        }
+    }
+
+    public static class SchemaProperty {
+
+        /**
+         * 后台刷新间隔(单位：秒)，表结构未变化时只比对指纹
+         */
+        private int refreshInterval = 300;
+        /**
+         * 每个数据源最多加载的表数量
+         */
+        private int maxTables = 2000;
+
+        public int getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(int refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getMaxTables() {
+            return maxTables;
+        }
+
+        public void setMaxTables(int maxTables) {
+            this.maxTables = maxTables;
+        }
+    }
+
+    public static class PageProperty {
+
+        /**
+         * 单页最大行数
+         */
+        private int maxPageSize = 1000;
+        /**
+         * 服务端游标闲置超时时长(单位：秒)，超时后关闭并归还连接
+         */
+        private int cursorIdleTimeout = 60;
+        /**
+         * 每个数据源同时保持打开的服务端游标数上限(每个游标占用一个连接与一个舱壁许可，
+         * 实际上限不超过数据源的最大并发查询数减一)
+         */
+        private int maxCursors = 4;
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public int getCursorIdleTimeout() {
+            return cursorIdleTimeout;
+        }
+
+        public void setCursorIdleTimeout(int cursorIdleTimeout) {
+            this.cursorIdleTimeout = cursorIdleTimeout;
+        }
+
+        public int getMaxCursors() {
+            return maxCursors;
+        }
+
+        public void setMaxCursors(int maxCursors) {
+            this.maxCursors = maxCursors;
+        }
+    }
+
+    public static class AdminProperty {
+
+        /**
+         * 是否开放数据源管理接口(/admin/datasources)
+         */
+        private boolean enabled = false;
+        /**
+         * 注销/替换数据源时等待进行中查询结束的最长时长(单位：毫秒)，超时后强制关闭
+         */
+        private long drainTimeout = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getDrainTimeout() {
+            return drainTimeout;
+        }
+
+        public void setDrainTimeout(long drainTimeout) {
+            this.drainTimeout = drainTimeout;
+        }
+    }
+
+    public static class FederationProperty {
+
+        /**
+         * 哈希表内存预算(单位：字节)，超出后按关联键分区溢写到磁盘
+         */
+        private long memoryBudget = 64L * 1024 * 1024;
+        /**
+         * 溢写分区数
+         */
+        private int spillPartitions = 16;
+        /**
+         * 溢写目录(不配置则使用系统临时目录)
+         */
+        private String spillDir;
+        /**
+         * 关联结果最大返回行数
+         */
+        private int maxRows = 10000;
+
+        public long getMemoryBudget() {
+            return memoryBudget;
+        }
+
+        public void setMemoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+        }
+
+        public int getSpillPartitions() {
+            return spillPartitions;
+        }
+
+        public void setSpillPartitions(int spillPartitions) {
+            this.spillPartitions = spillPartitions;
+        }
+
+        public String getSpillDir() {
+            return spillDir;
+        }
+
+        public void setSpillDir(String spillDir) {
+            this.spillDir = spillDir;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+    }
+
+    public static class ExecutorProperty {
+
+        /**
+         * 核心线程数
+         */
+        private int coreSize = 8;
+        /**
+         * 最大线程数
+         */
+        private int maxSize = 32;
+        /**
+         * 等待队列容量(队列已满时直接拒绝，避免请求无限堆积)
+         */
+        private int queueCapacity = 200;
+        /**
+         * 是否使用虚拟线程(需运行在 JDK 21 及以上，否则回退为线程池)
+         */
+        private boolean virtualThreads = false;
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+    }
+
+    public static class QueryCacheProperty {
+
+        /**
+         * 最大缓存条目数
+         */
+        private int maxEntries = 10000;
+        /**
+         * 缓存占用的最大字节数(按结果估算字节数计算)
+         */
+        private long maxBytes = 64 * 1024 * 1024;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
     public static class DataSourceProperty {
 
         /**
@@ -65,6 +514,66 @@ public class DataSourceProperties {
          * 连接超时时长
          */
         private int connectionTimeOut = 30000;
+        /**
+         * 最小空闲连接数(小于 0 时与 maxPoolSize 一致，即 HikariCP 默认行为)
+         */
+        private int minIdle = -1;
+        /**
+         * 最大并发查询数(舱壁隔离，小于等于 0 时与 maxPoolSize 一致)
+         */
+        private int maxConcurrentQueries = 0;
+        /**
+         * JDBC 抓取大小(每次网络往返拉取的行数，小于等于 0 时使用驱动默认行为)
+         */
+        private int fetchSize = 500;
+        /**
+         * 单次查询返回的最大行数
+         */
+        private int maxRows = 10000;
+        /**
+         * 单次查询返回结果的最大字节数(粗略估算)
+         */
+        private long maxResultBytes = 8 * 1024 * 1024;
+        /**
+         * 批量执行时单次允许的最大参数组数(小于等于 0 时不限制)
+         */
+        private int maxBatchSize = 500;
+        /**
+         * 查询结果缓存时长(单位：秒)，小于等于 0 时不缓存
+         */
+        private long cacheTtl = 0;
+        /**
+         * 查询超时时长(单位：秒)，小于等于 0 时不限制
+         */
+        private int queryTimeout = 30;
+        /**
+         * 是否延迟创建连接池(首次使用时才创建，启动时不依赖数据库可达)
+         */
+        private boolean lazyInit = false;
+        /**
+         * 是否在启动完成后于后台预热连接池(预先建立最小空闲连接)
+         */
+        private boolean warmUp = false;
+        /**
+         * 是否以只读模式建立连接(SQL 只读校验之外的第二道防线，由驱动在会话级别拒绝写操作)
+         */
+        private boolean readOnly = true;
+        /**
+         * 执行前的 EXPLAIN 代价校验
+         */
+        private CostGuardProperty costGuard = new CostGuardProperty();
+        /**
+         * 只读副本(配置后查询在副本间负载均衡，主库在副本均不可用时兜底)
+         */
+        private List<ReplicaProperty> replicas;
+        /**
+         * 副本路由配置
+         */
+        private RoutingProperty routing = new RoutingProperty();
+        /**
+         * 熔断配置
+         */
+        private CircuitBreakerProperty circuitBreaker = new CircuitBreakerProperty();
 
         public String getId() {
             return id;
@@ -129,5 +638,416 @@ public class DataSourceProperties {
         public void setConnectionTimeOut(int connectionTimeOut) {
             this.connectionTimeOut = connectionTimeOut;
         }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxConcurrentQueries() {
+            return maxConcurrentQueries;
+        }
+
+        public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+            this.maxConcurrentQueries = maxConcurrentQueries;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        public long getMaxResultBytes() {
+            return maxResultBytes;
+        }
+
+        public void setMaxResultBytes(long maxResultBytes) {
+            this.maxResultBytes = maxResultBytes;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(long cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public int getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        public void setQueryTimeout(int queryTimeout) {
+            this.queryTimeout = queryTimeout;
+        }
+
+        public boolean isLazyInit() {
+            return lazyInit;
+        }
+
+        public void setLazyInit(boolean lazyInit) {
+            this.lazyInit = lazyInit;
+        }
+
+        public boolean isWarmUp() {
+            return warmUp;
+        }
+
+        public void setWarmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+        }
+
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        public void setReadOnly(boolean readOnly) {
+            this.readOnly = readOnly;
+        }
+
+        public CostGuardProperty getCostGuard() {
+            return costGuard;
+        }
+
+        public void setCostGuard(CostGuardProperty costGuard) {
+            this.costGuard = costGuard;
+        }
+
+        public List<ReplicaProperty> getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(List<ReplicaProperty> replicas) {
+            this.replicas = replicas;
+        }
+
+        public RoutingProperty getRouting() {
+            return routing;
+        }
+
+        public void setRouting(RoutingProperty routing) {
+            this.routing = routing;
+        }
+
+        public CircuitBreakerProperty getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public void setCircuitBreaker(CircuitBreakerProperty circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+    }
+
+    public static class ReplicaProperty {
+
+        /**
+         * 副本名称(与数据源 ID 组合为 数据源ID@名称，用于日志与指标)，为空时按顺序命名为 replica-N
+         */
+        private String name;
+        /**
+         * 副本 url
+         */
+        @NotNull
+        private String url;
+        /**
+         * 用户名，为空时与主库一致
+         */
+        private String username;
+        /**
+         * 密码，为空时与主库一致
+         */
+        private String password;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
+    public static class RoutingProperty {
+
+        /**
+         * 负载均衡方式
+         */
+        private Balancer balancer = Balancer.EWMA;
+        /**
+         * 主库是否与副本一起承担查询(默认只在副本均不可用时兜底)
+         */
+        private boolean readFromPrimary = false;
+        /**
+         * 健康检查间隔(单位：秒)
+         */
+        private int healthCheckInterval = 10;
+        /**
+         * 连续失败多少次后摘除副本
+         */
+        private int maxFailures = 3;
+        /**
+         * 慢副本判定：耗时均值超过最快副本的多少倍
+         */
+        private double ejectLatencyFactor = 3.0;
+        /**
+         * 慢副本判定：耗时均值至少超过多少毫秒(避免在耗时都很低时误判)
+         */
+        private long ejectMinLatency = 100;
+        /**
+         * 摘除时长(单位：秒)，到期后健康检查通过才会恢复
+         */
+        private int ejectDuration = 30;
+
+        public Balancer getBalancer() {
+            return balancer;
+        }
+
+        public void setBalancer(Balancer balancer) {
+            this.balancer = balancer;
+        }
+
+        public boolean isReadFromPrimary() {
+            return readFromPrimary;
+        }
+
+        public void setReadFromPrimary(boolean readFromPrimary) {
+            this.readFromPrimary = readFromPrimary;
+        }
+
+        public int getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(int healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+
+        public int getMaxFailures() {
+            return maxFailures;
+        }
+
+        public void setMaxFailures(int maxFailures) {
+            this.maxFailures = maxFailures;
+        }
+
+        public double getEjectLatencyFactor() {
+            return ejectLatencyFactor;
+        }
+
+        public void setEjectLatencyFactor(double ejectLatencyFactor) {
+            this.ejectLatencyFactor = ejectLatencyFactor;
+        }
+
+        public long getEjectMinLatency() {
+            return ejectMinLatency;
+        }
+
+        public void setEjectMinLatency(long ejectMinLatency) {
+            this.ejectMinLatency = ejectMinLatency;
+        }
+
+        public int getEjectDuration() {
+            return ejectDuration;
+        }
+
+        public void setEjectDuration(int ejectDuration) {
+            this.ejectDuration = ejectDuration;
+        }
+
+        public enum Balancer {
+            /**
+             * 最少进行中请求
+             */
+            LEAST_OUTSTANDING,
+            /**
+             * 按耗时均值(指数加权)与进行中请求数加权
+             */
+            EWMA
+        }
+    }
+
+    public static class CircuitBreakerProperty {
+
+        /**
+         * 是否开启熔断
+         */
+        private boolean enabled = true;
+        /**
+         * 连续多少次连接失败后熔断
+         */
+        private int failureThreshold = 5;
+        /**
+         * 熔断时长(单位：秒)，到期后放行一个请求试探，试探失败时熔断时长翻倍
+         */
+        private int openDuration = 10;
+        /**
+         * 最长熔断时长(单位：秒)
+         */
+        private int maxOpenDuration = 120;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public int getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(int openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getMaxOpenDuration() {
+            return maxOpenDuration;
+        }
+
+        public void setMaxOpenDuration(int maxOpenDuration) {
+            this.maxOpenDuration = maxOpenDuration;
+        }
+    }
+
+    public static class CostGuardProperty {
+
+        /**
+         * 是否在执行查询前通过 EXPLAIN 预估代价
+         */
+        private boolean enabled = false;
+        /**
+         * 预估扫描行数上限(执行计划中单个节点的最大预估行数)，小于等于 0 时不限制
+         */
+        private long maxRows = 0;
+        /**
+         * 预估代价上限(数据库优化器的代价单位，各数据库不可直接比较)，小于等于 0 时不限制
+         */
+        private double maxCost = 0;
+        /**
+         * 超出上限时的处理方式
+         */
+        private Action action = Action.REJECT;
+        /**
+         * LIMIT 方式追加的行数限制，小于等于 0 时使用数据源的 maxRows
+         */
+        private int limitRows = 0;
+        /**
+         * 执行计划预估值的缓存时长(单位：秒)
+         */
+        private long planCacheTtl = 600;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(long maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        public double getMaxCost() {
+            return maxCost;
+        }
+
+        public void setMaxCost(double maxCost) {
+            this.maxCost = maxCost;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public void setAction(Action action) {
+            this.action = action;
+        }
+
+        public int getLimitRows() {
+            return limitRows;
+        }
+
+        public void setLimitRows(int limitRows) {
+            this.limitRows = limitRows;
+        }
+
+        public long getPlanCacheTtl() {
+            return planCacheTtl;
+        }
+
+        public void setPlanCacheTtl(long planCacheTtl) {
+            this.planCacheTtl = planCacheTtl;
+        }
+
+        public enum Action {
+            /**
+             * 拒绝执行
+             */
+            REJECT,
+            /**
+             * 包装为子查询并追加行数限制，限制后仍超出上限时拒绝执行
+             */
+            LIMIT
+        }
     }
 }
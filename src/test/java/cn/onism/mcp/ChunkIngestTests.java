@@ -0,0 +1,204 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.entity.VectorChunk;
+import cn.onism.mcp.service.ingest.ChunkBatchWriter;
+import cn.onism.mcp.service.ingest.ChunkingContentHandler;
+import cn.onism.mcp.service.ingest.IngestProgress;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 文档增量分割与分块增量写入测试
+ */
+class ChunkIngestTests {
+
+    private static final int WINDOW_CHARS = 1024;
+
+    @Test
+    void testBoundaryIndependentOfReadSize() {
+        String text = document(400, -1);
+        Assertions.assertEquals(chunk(text, 100), chunk(text, 37));
+        Assertions.assertEquals(chunk(text, 100), chunk(text, text.length()));
+    }
+
+    @Test
+    void testBoundaryStableAfterEdit() {
+        List<String> before = chunk(document(400, -1), 100);
+        List<String> after = chunk(document(400, 20), 100);
+        Assertions.assertNotEquals(before, after);
+        // 修改处之后的切分点与修改前一致，只有修改附近的分块变化
+        Set<String> previous = new HashSet<>(before);
+        long changed = after.stream().filter(chunk -> !previous.contains(chunk)).count();
+        Assertions.assertTrue(changed <= 3, "changed = " + changed + " of " + after.size());
+        Assertions.assertEquals(before.get(before.size() - 1), after.get(after.size() - 1));
+    }
+
+    @Test
+    void testRewriteOnlyChangedChunks() {
+        List<String> events = new ArrayList<>();
+        String before = document(400, -1);
+        ChunkBatchWriter first = new ChunkBatchWriter(store(events, -1), 8, List.of(), new IngestProgress(), ids -> {
+        });
+        feed(before, 100, first);
+        first.flush();
+        Assertions.assertTrue(first.getKept().isEmpty());
+        List<VectorChunk> previous = new ArrayList<>();
+        for (VectorChunk chunk : first.getAdded()) {
+            previous.add(new VectorChunk(1L, chunk.getVectorId(), chunk.getContentHash()));
+        }
+
+        events.clear();
+        String after = document(400, 20);
+        ChunkBatchWriter second = new ChunkBatchWriter(store(events, -1), 8, previous, new IngestProgress(), ids -> {
+        });
+        feed(after, 100, second);
+        second.flush();
+        int total = chunk(after, 100).size();
+        Assertions.assertEquals(total, second.getKept().size() + second.getWritten());
+        Assertions.assertTrue(second.getWritten() > 0 && second.getWritten() <= 3, "written = " + second.getWritten());
+        Assertions.assertEquals(previous.size() - second.getKept().size(), second.getStale().size());
+        // 沿用的分块不会再次写入向量库
+        Assertions.assertEquals(second.getWritten(), events.stream().filter(event -> event.startsWith("add ")).mapToInt(
+                event -> Integer.parseInt(event.substring(4))).sum());
+
+        // 内容未变化时全部沿用
+        ChunkBatchWriter same = new ChunkBatchWriter(store(events, -1), 8, previous, new IngestProgress(), ids -> {
+        });
+        feed(before, 100, same);
+        same.flush();
+        Assertions.assertEquals(0, same.getWritten());
+        Assertions.assertTrue(same.getStale().isEmpty());
+    }
+
+    @Test
+    void testBatchWriterRecordsPendingBeforeWrite() {
+        List<String> events = new ArrayList<>();
+        ChunkBatchWriter writer = new ChunkBatchWriter(store(events, -1), 2, List.of(), new IngestProgress(),
+                ids -> events.add("pending " + ids.size()));
+        for (int i = 0; i < 5; i++) {
+            writer.accept(new Document("chunk " + i, Map.of()));
+        }
+        writer.flush();
+        Assertions.assertEquals(List.of("pending 2", "add 2", "pending 2", "add 2", "pending 1", "add 1"), events);
+        Assertions.assertEquals(5, writer.getWritten());
+    }
+
+    @Test
+    void testRollbackDeletesFailedBatch() {
+        List<String> events = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        ChunkBatchWriter writer = new ChunkBatchWriter(store(events, 3), 2, List.of(), new IngestProgress(),
+                pending::addAll);
+        for (int i = 0; i < 4; i++) {
+            writer.accept(new Document("chunk " + i, Map.of()));
+        }
+        writer.accept(new Document("chunk 4", Map.of()));
+        Assertions.assertThrows(IllegalStateException.class, writer::flush);
+
+        // 写入失败的批次可能已部分写入，同样需要删除
+        List<String> deleted = writer.rollback();
+        Assertions.assertEquals(pending, deleted);
+        Assertions.assertEquals(5, deleted.size());
+        Assertions.assertEquals("delete 5", events.get(events.size() - 1));
+        Assertions.assertEquals(0, writer.getWritten());
+        Assertions.assertTrue(writer.rollback().isEmpty());
+    }
+
+    /**
+     * 记录调用的向量库，failAt 为第几次 add 时抛出异常(小于等于 0 时不抛出)
+     */
+    private static VectorStore store(List<String> events, int failAt) {
+        int[] adds = {0};
+        return (VectorStore) Proxy.newProxyInstance(VectorStore.class.getClassLoader(), new Class<?>[]{VectorStore.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "add" -> {
+                            if (++adds[0] == failAt) {
+                                throw new IllegalStateException("vector store unavailable");
+                            }
+                            events.add("add " + ((List<?>) args[0]).size());
+                        }
+                        case "delete" -> events.add("delete " + ((List<?>) args[0]).size());
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+    }
+
+    private static List<String> chunk(String text, int readSize) {
+        List<String> chunks = new ArrayList<>();
+        feed(text, readSize, document -> chunks.add(document.getText()));
+        return chunks;
+    }
+
+    private static void feed(String text, int readSize, Consumer<Document> consumer) {
+        ChunkingContentHandler handler = new ChunkingContentHandler(new LineSplitter(), WINDOW_CHARS, Map.of(),
+                consumer);
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i += readSize) {
+            handler.characters(chars, i, Math.min(readSize, chars.length - i));
+        }
+        handler.endDocument();
+    }
+
+    /**
+     * 生成多行文本，edited 行(大于等于 0 时)的内容被修改
+     */
+    private static String document(int lines, int edited) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("line ").append(i);
+            int words = 3 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                builder.append(' ').append(Integer.toString(random.nextInt(1 << 20), 36));
+            }
+            if (i == edited) {
+                builder.append(" edited");
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 按行合并为不超过 300 字符的分块
+     */
+    private static class LineSplitter extends TextSplitter {
+
+        @Override
+        protected List<String> splitText(String text) {
+            List<String> chunks = new ArrayList<>();
+            StringBuilder chunk = new StringBuilder();
+            for (String line : text.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!chunk.isEmpty() && chunk.length() + line.length() + 1 > 300) {
+                    chunks.add(chunk.toString());
+                    chunk.setLength(0);
+                }
+                if (!chunk.isEmpty()) {
+                    chunk.append('\n');
+                }
+                chunk.append(line.trim());
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk.toString());
+            }
+            return chunks;
+        }
+    }
+}
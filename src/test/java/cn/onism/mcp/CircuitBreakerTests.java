@@ -0,0 +1,131 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.strategy.CircuitBreaker;
+import cn.onism.mcp.tool.database.strategy.DataSourceUnavailableException;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 数据源熔断器状态转换测试
+ */
+class CircuitBreakerTests {
+
+    private static final SQLException REFUSED = new SQLNonTransientConnectionException("Connection refused", "08001");
+
+    @Test
+    void testOpenAfterThreshold() throws SQLException {
+        CircuitBreaker breaker = new CircuitBreaker("db", config(true, 3));
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertFalse(breaker.acquire());
+            breaker.onFailure(REFUSED);
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure(REFUSED);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        DataSourceUnavailableException e = Assertions.assertThrows(DataSourceUnavailableException.class,
+                breaker::acquire);
+        Assertions.assertEquals(1, e.getRetryAfterSeconds());
+        Assertions.assertTrue(e.getMessage().contains("Connection refused"));
+        Assertions.assertThrows(DataSourceUnavailableException.class, breaker::check);
+    }
+
+    @Test
+    void testSuccessResetsFailures() throws SQLException {
+        CircuitBreaker breaker = new CircuitBreaker("db", config(true, 3));
+        breaker.onFailure(REFUSED);
+        breaker.onFailure(REFUSED);
+        breaker.onSuccess();
+        breaker.onFailure(REFUSED);
+        breaker.onFailure(REFUSED);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.check();
+    }
+
+    @Test
+    void testHalfOpenProbeSucceeds() throws Exception {
+        CircuitBreaker breaker = open(config(true, 1));
+        Thread.sleep(1100);
+
+        // 熔断到期后只放行一个试探请求
+        breaker.check();
+        Assertions.assertTrue(breaker.acquire());
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assertions.assertThrows(DataSourceUnavailableException.class, breaker::acquire);
+        Assertions.assertThrows(DataSourceUnavailableException.class, breaker::check);
+
+        breaker.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertFalse(breaker.acquire());
+    }
+
+    @Test
+    void testHalfOpenProbeFailsDoublesDuration() throws Exception {
+        CircuitBreaker breaker = open(config(true, 1));
+        Thread.sleep(1100);
+
+        Assertions.assertTrue(breaker.acquire());
+        breaker.onFailure(REFUSED);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        DataSourceUnavailableException e = Assertions.assertThrows(DataSourceUnavailableException.class,
+                breaker::acquire);
+        Assertions.assertEquals(2, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testIgnoredProbeReleasesSlot() throws Exception {
+        CircuitBreaker breaker = open(config(true, 1));
+        Thread.sleep(1100);
+
+        Assertions.assertTrue(breaker.acquire());
+        breaker.onIgnored(true);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assertions.assertTrue(breaker.acquire());
+        breaker.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testDisabledNeverOpens() throws SQLException {
+        CircuitBreaker breaker = new CircuitBreaker("db", config(false, 1));
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure(REFUSED);
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertFalse(breaker.acquire());
+    }
+
+    @Test
+    void testConnectionFailureClassification() {
+        Assertions.assertTrue(CircuitBreaker.isConnectionFailure(REFUSED));
+        Assertions.assertTrue(CircuitBreaker.isConnectionFailure(new SQLException("I/O error", "08006")));
+        Assertions.assertTrue(CircuitBreaker.isConnectionFailure(
+                new SQLTransientConnectionException("pool timeout", "08001", REFUSED)));
+        // 连接池等待超时但没有原因：只是连接均被占用
+        Assertions.assertFalse(CircuitBreaker.isConnectionFailure(new SQLTransientConnectionException("pool timeout")));
+        Assertions.assertFalse(CircuitBreaker.isConnectionFailure(new SQLSyntaxErrorException("syntax", "42601")));
+        Assertions.assertFalse(CircuitBreaker.isConnectionFailure(new DataSourceUnavailableException("open", 1)));
+    }
+
+    private static CircuitBreaker open(DataSourceProperties.CircuitBreakerProperty config) {
+        CircuitBreaker breaker = new CircuitBreaker("db", config);
+        breaker.onFailure(REFUSED);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static DataSourceProperties.CircuitBreakerProperty config(boolean enabled, int failureThreshold) {
+        DataSourceProperties.CircuitBreakerProperty config = new DataSourceProperties.CircuitBreakerProperty();
+        config.setEnabled(enabled);
+        config.setFailureThreshold(failureThreshold);
+        config.setOpenDuration(1);
+        config.setMaxOpenDuration(60);
+        return config;
+    }
+}
@@ -0,0 +1,141 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.federation.HashJoiner;
+import cn.onism.mcp.tool.database.federation.JoinType;
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 跨数据源哈希关联测试
+ */
+class HashJoinerTests {
+
+    private static final Path TMP = Path.of(System.getProperty("java.io.tmpdir"));
+
+    @Test
+    void testInnerJoin() throws SQLException {
+        try (HashJoiner joiner = joiner(JoinType.INNER, 1 << 20, 0, TMP)) {
+            build(joiner, new Object[]{1L, "a"}, new Object[]{2L, "b"}, new Object[]{2L, "c"});
+            // 不同数据库返回的数值类型不同，归一化后应能匹配
+            probe(joiner, new Object[]{1, "x"}, new Object[]{new BigDecimal("2.00"), "y"}, new Object[]{3L, "z"});
+            joiner.finish();
+
+            Assertions.assertEquals(List.of("l.id", "l.name", "r.id", "r.title"), joiner.columns("l", "r"));
+            Assertions.assertEquals(3, joiner.getRows().size());
+            Assertions.assertArrayEquals(new Object[]{1, "x", 1L, "a"}, joiner.getRows().get(0));
+            Assertions.assertFalse(joiner.isSpilled());
+        }
+    }
+
+    @Test
+    void testLeftJoinWithNullKeys() throws SQLException {
+        try (HashJoiner joiner = joiner(JoinType.LEFT, 1 << 20, 0, TMP)) {
+            build(joiner, new Object[]{1L, "a"}, new Object[]{null, "n"});
+            probe(joiner, new Object[]{1L, "x"}, new Object[]{null, "y"}, new Object[]{3L, "z"});
+            joiner.finish();
+
+            // null 键不匹配任何行(包括构建侧的 null 键)，LEFT 模式下保留探测侧的行
+            Assertions.assertEquals(3, joiner.getRows().size());
+            Assertions.assertArrayEquals(new Object[]{null, "y", null, null}, joiner.getRows().get(1));
+            Assertions.assertArrayEquals(new Object[]{3L, "z", null, null}, joiner.getRows().get(2));
+        }
+    }
+
+    @Test
+    void testInnerJoinSkipsNullKeys() throws SQLException {
+        try (HashJoiner joiner = joiner(JoinType.INNER, 1 << 20, 0, TMP)) {
+            build(joiner, new Object[]{null, "n"});
+            probe(joiner, new Object[]{null, "y"});
+            joiner.finish();
+            Assertions.assertTrue(joiner.getRows().isEmpty());
+        }
+    }
+
+    @Test
+    void testSpillMatchesInMemoryJoin() throws SQLException, IOException {
+        Path dir = Files.createTempDirectory("hash-joiner-test");
+        List<Object[]> expected;
+        try (HashJoiner joiner = joiner(JoinType.LEFT, 1 << 26, 0, dir)) {
+            joinSample(joiner);
+            Assertions.assertFalse(joiner.isSpilled());
+            expected = joiner.getRows();
+        }
+        // 预算极小：构建侧溢写，且每个分区都超出预算，需要逐层再分区
+        try (HashJoiner joiner = joiner(JoinType.LEFT, 64, 0, dir)) {
+            joinSample(joiner);
+            Assertions.assertTrue(joiner.isSpilled());
+            Assertions.assertEquals(sorted(expected), sorted(joiner.getRows()));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(0L, files.count());
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void testMaxRows() throws SQLException {
+        try (HashJoiner joiner = joiner(JoinType.INNER, 1 << 20, 2, TMP)) {
+            build(joiner, new Object[]{1L, "a"}, new Object[]{1L, "b"}, new Object[]{1L, "c"});
+            probe(joiner, new Object[]{1L, "x"});
+            joiner.finish();
+            Assertions.assertEquals(2, joiner.getRows().size());
+            Assertions.assertTrue(joiner.isTruncated());
+        }
+    }
+
+    private static HashJoiner joiner(JoinType joinType, long memoryBudget, long maxRows, Path spillDir) {
+        return new HashJoiner(joinType, List.of("id"), List.of("r.id"), memoryBudget, 4, spillDir, maxRows);
+    }
+
+    private static void joinSample(HashJoiner joiner) throws SQLException {
+        RowHandler build = joiner.buildHandler();
+        build.onColumns(new String[]{"id", "title"}, new String[]{"BIGINT", "VARCHAR"});
+        for (long i = 0; i < 500; i++) {
+            build.onRow(new Object[]{i % 200, "t" + i});
+        }
+        build.onRow(new Object[]{null, "null"});
+        RowHandler probe = joiner.probeHandler();
+        probe.onColumns(new String[]{"id", "name"}, new String[]{"INT", "VARCHAR"});
+        for (int i = 0; i < 300; i++) {
+            probe.onRow(new Object[]{i, "n" + i});
+        }
+        probe.onRow(new Object[]{null, "null"});
+        joiner.finish();
+    }
+
+    private static void build(HashJoiner joiner, Object[]... rows) throws SQLException {
+        RowHandler handler = joiner.buildHandler();
+        handler.onColumns(new String[]{"id", "title"}, new String[]{"BIGINT", "VARCHAR"});
+        for (Object[] row : rows) {
+            handler.onRow(row);
+        }
+    }
+
+    private static void probe(HashJoiner joiner, Object[]... rows) throws SQLException {
+        RowHandler handler = joiner.probeHandler();
+        handler.onColumns(new String[]{"id", "name"}, new String[]{"INT", "VARCHAR"});
+        for (Object[] row : rows) {
+            handler.onRow(row);
+        }
+    }
+
+    private static List<String> sorted(List<Object[]> rows) {
+        List<String> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(Arrays.toString(row));
+        }
+        result.sort(null);
+        return result;
+    }
+}
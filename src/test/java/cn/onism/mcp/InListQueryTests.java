@@ -0,0 +1,81 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.sql.InListQuery;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 单值查找改写为 IN 列表查询测试
+ */
+class InListQueryTests {
+
+    @Test
+    void testRewriteLookup() {
+        Assertions.assertEquals("SELECT id, name, id AS mcp_key FROM users WHERE id IN (?, ?, ?)",
+                rewrite("SELECT id, name FROM users WHERE id = ?", "mysql", 3));
+        Assertions.assertEquals("select u.*, d.name AS dept, u.dept_id AS mcp_key from users u join dept d on d.id = u.dept_id "
+                        + "where u.dept_id IN (?, ?) and u.status = 'active'",
+                rewrite("select u.*, d.name AS dept from users u join dept d on d.id = u.dept_id "
+                        + "where u.dept_id = ? and u.status = 'active'", "postgres", 2));
+        Assertions.assertEquals("SELECT *, \"Order\".\"Id\" AS mcp_key FROM \"Order\" WHERE (a = 1 OR b = 2) "
+                        + "AND \"Order\".\"Id\" IN (?, ?);",
+                rewrite("SELECT * FROM \"Order\" WHERE (a = 1 OR b = 2) AND \"Order\".\"Id\" = ?;", "postgres", 2));
+        Assertions.assertNotNull(InListQuery.parse(
+                "SELECT o.id FROM orders o LEFT OUTER JOIN items i ON i.order_id = o.id "
+                        + "WHERE o.customer_id = ? AND i.sku IS NOT NULL AND o.note LIKE '%x%' AND o.total >= 10 "
+                        + "AND o.status IN ('a', 'b') AND o.region_id = (SELECT id FROM region WHERE code = 'cn')",
+                "mysql"));
+        Assertions.assertNotNull(InListQuery.parse("SELECT t.id FROM (SELECT id FROM t LIMIT 10) t WHERE t.id = ?",
+                "postgres"));
+    }
+
+    @Test
+    void testFallbackOnAggregatesAndFunctions() {
+        assertFallback("SELECT COUNT(*) FROM orders WHERE customer_id = ?");
+        assertFallback("SELECT customer_id, GROUP_CONCAT(id) FROM orders WHERE customer_id = ?");
+        assertFallback("SELECT STRING_AGG(name, ',') FROM users WHERE dept_id = ?");
+        assertFallback("SELECT ARRAY_AGG(name) FROM users WHERE dept_id = ?");
+        assertFallback("SELECT LISTAGG(name, ',') WITHIN GROUP (ORDER BY name) FROM users WHERE dept_id = ?");
+        assertFallback("SELECT name, ROW_NUMBER() OVER (ORDER BY id) FROM users WHERE dept_id = ?");
+        assertFallback("SELECT UPPER(name) FROM users WHERE dept_id = ?");
+        assertFallback("SELECT (SELECT MAX(id) FROM users) FROM users WHERE dept_id = ?");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? AND created_at > NOW()");
+    }
+
+    @Test
+    void testFallbackOnRowLimitsAndClauses() {
+        assertFallback("SELECT DISTINCT name FROM users WHERE dept_id = ?");
+        assertFallback("SELECT TOP 10 name FROM users WHERE dept_id = ?");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? LIMIT 10");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? FETCH FIRST 10 ROWS ONLY");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? AND ROWNUM <= 10");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? ORDER BY name");
+        assertFallback("SELECT dept_id FROM users WHERE dept_id = ? GROUP BY dept_id");
+        assertFallback("SELECT name FROM users WHERE dept_id = ? FOR UPDATE");
+        assertFallback("SELECT name FROM users UNION SELECT name FROM admins WHERE dept_id = ?");
+        assertFallback("SELECT name FROM users WHERE a = 1 OR dept_id = ?");
+        assertFallback("SELECT name FROM users WHERE NOT dept_id = ?");
+        assertFallback("SELECT name n FROM users WHERE dept_id = ?");
+    }
+
+    @Test
+    void testFallbackOnParameters() {
+        assertFallback("SELECT name FROM users WHERE dept_id = ? AND status = ?");
+        assertFallback("SELECT name FROM users WHERE dept_id > ?");
+        assertFallback("SELECT name FROM users WHERE dept_id IN (SELECT id FROM dept WHERE code = ?)");
+        assertFallback("SELECT u.name FROM users u JOIN dept d ON d.id = ? WHERE u.id = 1");
+        assertFallback("SELECT name FROM users WHERE dept_id = ?::int");
+        assertFallback("SELECT name FROM users WHERE (dept_id = ?");
+    }
+
+    private static String rewrite(String sql, String dbType, int size) {
+        InListQuery query = InListQuery.parse(sql, dbType);
+        Assertions.assertNotNull(query, sql);
+        return query.toSql(size);
+    }
+
+    private static void assertFallback(String sql) {
+        Assertions.assertNull(InListQuery.parse(sql, "mysql"), sql);
+        Assertions.assertNull(InListQuery.parse(sql, "postgres"), sql);
+    }
+}
@@ -3,16 +3,28 @@ package cn.onism.mcp;
 import cn.onism.mcp.tool.EmailTool;
 import cn.onism.mcp.tool.MonitorTool;
 import cn.onism.mcp.tool.database.DatabaseTool;
+import cn.onism.mcp.tool.database.manage.DataSourceManager;
+import cn.onism.mcp.tool.database.strategy.DataSourceStrategy;
+import cn.onism.mcp.tool.database.strategy.StreamLimits;
+import cn.onism.mcp.tool.database.strategy.StreamStats;
 import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
 @SpringBootTest
 class McpDemoApplicationTests {
 
     @Resource
     private DatabaseTool databaseTool;
 
+    @Resource
+    private DataSourceManager dataSourceManager;
+
     @Resource
     private MonitorTool monitorTool;
 
@@ -41,6 +53,58 @@ class McpDemoApplicationTests {
         System.out.println(result);
     }
 
+    /**
+     * 10 万行结果集解码基准：逐列 getObject(原实现) 与类型化列读取器对比
+     * 两条路径均放开行数与字节数上限，读取完整结果集
+     */
+    @Test
+    void benchmarkStreamDecode() throws Exception {
+        String sql = "select g as id, g * 0.5 as score, 'name_' || g as name, now() as created_at, current_date as day " +
+                "from generate_series(1, 100000) g";
+        DataSourceStrategy strategy = dataSourceManager.getStrategy("postgres");
+        StreamLimits unlimited = new StreamLimits(0, 0, strategy.getConfig().getQueryTimeout());
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            long baselineRows = strategy.withConnection(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setFetchSize(strategy.getConfig().getFetchSize());
+                    connection.setAutoCommit(false);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        int columnCount = rs.getMetaData().getColumnCount();
+                        long count = 0;
+                        while (rs.next()) {
+                            Object[] row = new Object[columnCount];
+                            for (int c = 0; c < columnCount; c++) {
+                                Object value = rs.getObject(c + 1);
+                                if (value instanceof Date date) {
+                                    value = date.toLocalDate();
+                                }
+                                row[c] = value;
+                            }
+                            count++;
+                        }
+                        return count;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                }
+            });
+            long baselineMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            long[] rows = {0};
+            StreamStats stats = strategy.executeStream(sql, null, row -> {
+                rows[0]++;
+                return true;
+            }, null, unlimited);
+            long readerMillis = (System.nanoTime() - start) / 1_000_000;
+            Assertions.assertFalse(stats.isTruncated());
+            Assertions.assertEquals(baselineRows, rows[0]);
+            System.out.printf("第 %d 轮：%d 行，getObject %d ms，类型化读取器 %d ms%n", i + 1, rows[0],
+                    baselineMillis, readerMillis);
+        }
+    }
+
     /**
      * 测试系统监控功能
      */
@@ -0,0 +1,108 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.strategy.PlanEstimate;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+/**
+ * 执行计划预估与代价校验决策测试
+ */
+class PlanEstimateTests {
+
+    @Test
+    void testParsePostgresPlan() throws SQLException {
+        // 根节点只返回 10 行，但子节点顺序扫描了 50 万行
+        String json = """
+                [{"Plan": {"Node Type": "Limit", "Plan Rows": 10, "Total Cost": 1234.5,
+                  "Plans": [{"Node Type": "Sort", "Plan Rows": 1000, "Total Cost": 1200.0,
+                    "Plans": [{"Node Type": "Seq Scan", "Plan Rows": 500000, "Total Cost": 900.0}]}]}}]
+                """;
+        PlanEstimate estimate = PlanEstimate.ofPostgres(json);
+        Assertions.assertEquals(500000, estimate.getRows(), 0);
+        Assertions.assertEquals(1234.5, estimate.getCost(), 0);
+
+        Assertions.assertNull(PlanEstimate.ofPostgres("[{}]"));
+        Assertions.assertThrows(SQLException.class, () -> PlanEstimate.ofPostgres("[{\"Plan\": "));
+    }
+
+    @Test
+    void testParseMySqlPlan() throws SQLException {
+        // MySQL 的数值可能是字符串
+        String json = """
+                {"query_block": {"cost_info": {"query_cost": "52.75"},
+                  "nested_loop": [
+                    {"table": {"table_name": "a", "rows_produced_per_join": 200}},
+                    {"table": {"table_name": "b", "rows_produced_per_join": "4000"}}]}}
+                """;
+        PlanEstimate estimate = PlanEstimate.ofMySql(json);
+        Assertions.assertEquals(4000, estimate.getRows(), 0);
+        Assertions.assertEquals(52.75, estimate.getCost(), 0);
+    }
+
+    @Test
+    void testExceeds() {
+        DataSourceProperties.CostGuardProperty guard = guard(1000, 0, DataSourceProperties.CostGuardProperty.Action.REJECT);
+        Assertions.assertFalse(new PlanEstimate(1000, 1e9).exceeds(guard));
+        Assertions.assertTrue(new PlanEstimate(1001, 0).exceeds(guard));
+
+        guard.setMaxRows(0);
+        guard.setMaxCost(100);
+        Assertions.assertFalse(new PlanEstimate(1e9, 100).exceeds(guard));
+        Assertions.assertTrue(new PlanEstimate(0, 100.5).exceeds(guard));
+    }
+
+    @Test
+    void testDecideReject() {
+        DataSourceProperties.CostGuardProperty guard = guard(1000, 0, DataSourceProperties.CostGuardProperty.Action.REJECT);
+        Assertions.assertEquals(PlanEstimate.Decision.PASS, PlanEstimate.decide(new PlanEstimate(10, 1), null, 0, guard));
+        // 无法预估时不拦截
+        Assertions.assertEquals(PlanEstimate.Decision.PASS, PlanEstimate.decide(null, null, 0, guard));
+        Assertions.assertEquals(PlanEstimate.Decision.REJECT,
+                PlanEstimate.decide(new PlanEstimate(5000, 1), new PlanEstimate(10, 1), 100, guard));
+    }
+
+    @Test
+    void testDecideLimit() {
+        DataSourceProperties.CostGuardProperty guard = guard(1000, 500, DataSourceProperties.CostGuardProperty.Action.LIMIT);
+        PlanEstimate original = new PlanEstimate(5000, 100);
+        // 预估行数未体现行数限制时按限制封顶
+        Assertions.assertEquals(PlanEstimate.Decision.LIMIT,
+                PlanEstimate.decide(original, new PlanEstimate(5000, 100), 1000, guard));
+        // 限制后代价仍超出上限
+        Assertions.assertEquals(PlanEstimate.Decision.REJECT,
+                PlanEstimate.decide(original, new PlanEstimate(1000, 800), 1000, guard));
+        // 包装后的语句无法预估(如重名列)时维持原判定
+        Assertions.assertEquals(PlanEstimate.Decision.REJECT, PlanEstimate.decide(original, null, 1000, guard));
+        // 没有可追加的行数限制
+        Assertions.assertEquals(PlanEstimate.Decision.REJECT,
+                PlanEstimate.decide(original, new PlanEstimate(10, 1), 0, guard));
+    }
+
+    @Test
+    void testLimitRows() {
+        DataSourceProperties.CostGuardProperty guard = guard(1000, 0, DataSourceProperties.CostGuardProperty.Action.LIMIT);
+        Assertions.assertEquals(1000, PlanEstimate.limitRows(guard, 0));
+        Assertions.assertEquals(200, PlanEstimate.limitRows(guard, 200));
+        Assertions.assertEquals(1000, PlanEstimate.limitRows(guard, 5000));
+
+        guard.setLimitRows(50);
+        Assertions.assertEquals(50, PlanEstimate.limitRows(guard, 5000));
+
+        guard.setMaxRows(0);
+        guard.setLimitRows(0);
+        Assertions.assertEquals(0, PlanEstimate.limitRows(guard, 0));
+    }
+
+    private static DataSourceProperties.CostGuardProperty guard(long maxRows, double maxCost,
+                                                                DataSourceProperties.CostGuardProperty.Action action) {
+        DataSourceProperties.CostGuardProperty guard = new DataSourceProperties.CostGuardProperty();
+        guard.setEnabled(true);
+        guard.setMaxRows(maxRows);
+        guard.setMaxCost(maxCost);
+        guard.setAction(action);
+        return guard;
+    }
+}
@@ -0,0 +1,32 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.cache.QueryResultCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 查询结果缓存测试
+ */
+class QueryResultCacheTests {
+
+    @Test
+    void testCacheableQueries() {
+        Assertions.assertTrue(QueryResultCache.isCacheable("select * from t where id = ?", "mysql"));
+        Assertions.assertTrue(QueryResultCache.isCacheable("  (select 1) union all (select 2)", "postgres"));
+        Assertions.assertTrue(QueryResultCache.isCacheable("with x as (select 1 as id) select * from x", "postgres"));
+        Assertions.assertTrue(QueryResultCache.isCacheable("select 'now()' as s from t", "postgres"));
+    }
+
+    @Test
+    void testNotCacheable() {
+        Assertions.assertFalse(QueryResultCache.isCacheable(
+                "with x as (insert into t values (1) returning *) select * from x", "postgres"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("with x as (update t set a = 1 returning *) select 1", "postgres"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("select * from t for update", "mysql"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("select * from t for key share", "postgres"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("select now()", "postgres"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("select * from t order by random()", "postgres"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("select * from t where d > current_date", "mysql"));
+        Assertions.assertFalse(QueryResultCache.isCacheable("show tables", "mysql"));
+    }
+}
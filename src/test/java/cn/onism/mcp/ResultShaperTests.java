@@ -0,0 +1,169 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.shape.ColumnStats;
+import cn.onism.mcp.tool.database.shape.ResultShaper;
+import cn.onism.mcp.tool.database.shape.ShapedResult;
+import cn.onism.mcp.tool.database.strategy.QueryResult;
+import cn.onism.mcp.tool.database.strategy.config.DataSourceProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 查询结果按 token 预算裁剪与列统计测试
+ */
+class ResultShaperTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testSmallResultUnchanged() {
+        ResultShaper shaper = shaper(4000);
+        QueryResult result = result(10);
+        ShapedResult shaped = shaper.shape(result, null, false);
+        Assertions.assertFalse(shaped.isSampled());
+        Assertions.assertSame(result, shaped.getResult());
+        Assertions.assertNull(shaped.getHandle());
+        Assertions.assertNull(shaped.getColumnStats());
+
+        // 预算小于等于 0 时不裁剪
+        Assertions.assertFalse(shaper(4000).shape(result(5000), 0, false).isSampled());
+    }
+
+    @Test
+    void testSampledWithinBudget() throws Exception {
+        ResultShaper shaper = shaper(4000);
+        QueryResult result = result(1000);
+        ShapedResult shaped = shaper.shape(result, 500, true);
+        Assertions.assertTrue(shaped.isSampled());
+        Assertions.assertEquals(1000, shaped.getTotalRows());
+        Assertions.assertNotNull(shaped.getHandle());
+        Assertions.assertEquals(3, shaped.getColumnStats().size());
+
+        int head = shaped.getResult().getRows().size();
+        Assertions.assertTrue(head > 0 && head < 1000);
+        // 返回的行、列名与统计合计不超出预算(约 4 字节/token)
+        long bytes = MAPPER.writeValueAsBytes(shaped.getResult().getRows()).length
+                + MAPPER.writeValueAsBytes(result.getColumns()).length
+                + MAPPER.writeValueAsBytes(result.getTypes()).length
+                + MAPPER.writeValueAsBytes(shaped.getColumnStats()).length;
+        Assertions.assertTrue(bytes <= 500 * 4, "bytes = " + bytes);
+    }
+
+    @Test
+    void testRowFormatCountsColumnNames() {
+        ResultShaper shaper = shaper(4000);
+        int columnar = shaper.shape(result(1000), 2000, true).getResult().getRows().size();
+        int rows = shaper.shape(result(1000), 2000, false).getResult().getRows().size();
+        Assertions.assertTrue(rows < columnar, rows + " >= " + columnar);
+    }
+
+    @Test
+    void testFetchMoreReadsRemainingRowsInOrder() {
+        ResultShaper shaper = shaper(4000);
+        QueryResult result = result(1000);
+        ShapedResult shaped = shaper.shape(result, 300, true);
+        List<Object[]> seen = new ArrayList<>(shaped.getResult().getRows());
+        String handle = shaped.getHandle();
+        String last = handle;
+        int pages = 0;
+        while (handle != null) {
+            ShapedResult next = shaper.fetchMore(handle, 300);
+            Assertions.assertEquals(1000, next.getTotalRows());
+            Assertions.assertNull(next.getColumnStats());
+            seen.addAll(next.getResult().getRows());
+            last = handle;
+            handle = next.getHandle();
+            Assertions.assertEquals(handle != null, next.isSampled());
+            pages++;
+        }
+        Assertions.assertTrue(pages > 1);
+        Assertions.assertEquals(1000, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            Assertions.assertArrayEquals(result.getRows().get(i), seen.get(i));
+        }
+        // 读取完毕后结果已释放
+        String consumed = last;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore(consumed, 300));
+    }
+
+    @Test
+    void testInvalidHandle() {
+        ResultShaper shaper = shaper(4000);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore(null, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore("abc", null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore("abc:x", null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore("missing:10", null));
+
+        String handle = shaper.shape(result(1000), 300, true).getHandle();
+        String id = handle.substring(0, handle.lastIndexOf(':'));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore(id + ":-1", null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shaper.fetchMore(id + ":1000", null));
+    }
+
+    @Test
+    void testColumnStats() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{3L, "b", null});
+        rows.add(new Object[]{1L, "a".repeat(100), new byte[]{1, 2}});
+        rows.add(new Object[]{2L, null, new byte[]{1, 2}});
+        rows.add(new Object[]{3L, "c", new byte[]{3}});
+        QueryResult result = new QueryResult(List.of("id", "name", "data"), List.of("BIGINT", "VARCHAR", "BLOB"),
+                rows, false, 0);
+        List<ColumnStats> stats = ColumnStats.compute(result, 100);
+
+        ColumnStats id = stats.get(0);
+        Assertions.assertEquals("id", id.getName());
+        Assertions.assertEquals("BIGINT", id.getType());
+        Assertions.assertEquals(1L, id.getMin());
+        Assertions.assertEquals(3L, id.getMax());
+        Assertions.assertEquals(3, id.getDistinct());
+        Assertions.assertEquals(0, id.getNulls());
+        Assertions.assertNull(id.getDistinctCapped());
+
+        ColumnStats name = stats.get(1);
+        Assertions.assertEquals(1, name.getNulls());
+        Assertions.assertEquals("c", name.getMax());
+        // 过长的字符串最值被截断
+        Assertions.assertEquals("a".repeat(64) + "...", name.getMin());
+
+        // 二进制按内容去重，不统计最值
+        ColumnStats data = stats.get(2);
+        Assertions.assertEquals(2, data.getDistinct());
+        Assertions.assertNull(data.getMin());
+    }
+
+    @Test
+    void testColumnStatsDistinctCapped() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(new Object[]{i});
+        }
+        ColumnStats stats = ColumnStats.compute(new QueryResult(List.of("n"), List.of("INTEGER"), rows, false, 0), 10)
+                .get(0);
+        Assertions.assertEquals(Boolean.TRUE, stats.getDistinctCapped());
+        Assertions.assertEquals(10, stats.getDistinct());
+        // 达到上限后仍统计最值
+        Assertions.assertEquals(0, stats.getMin());
+        Assertions.assertEquals(49, stats.getMax());
+    }
+
+    private static ResultShaper shaper(int defaultTokenBudget) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.getShape().setDefaultTokenBudget(defaultTokenBudget);
+        return new ResultShaper(MAPPER, properties);
+    }
+
+    private static QueryResult result(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{i, "user-" + i, i % 7 == 0 ? null : "dept-" + (i % 5)});
+        }
+        return new QueryResult(Arrays.asList("id", "name", "dept"), Arrays.asList("INTEGER", "VARCHAR", "VARCHAR"),
+                rows, false, 0);
+    }
+}
@@ -0,0 +1,121 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.fanout.FanOutMode;
+import cn.onism.mcp.tool.database.fanout.FanOutResult;
+import cn.onism.mcp.tool.database.fanout.ShardMerger;
+import cn.onism.mcp.tool.database.fanout.ShardStat;
+import cn.onism.mcp.tool.database.strategy.RowHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 分片结果合并测试
+ */
+class ShardMergerTests {
+
+    private static final String[] COLUMNS = {"region", "cnt"};
+
+    private static final String[] TYPES = {"VARCHAR", "BIGINT"};
+
+    @Test
+    void testMerge() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.MERGE, null, 3);
+        RowHandler a = shard(merger, "a");
+        RowHandler b = shard(merger, "b");
+        Assertions.assertTrue(a.onRow(new Object[]{"east", 1L}));
+        Assertions.assertTrue(b.onRow(new Object[]{"west", 2L}));
+        Assertions.assertTrue(b.onRow(new Object[]{"west", 3L}));
+        // 超过行数上限时通知分片关闭游标
+        Assertions.assertFalse(a.onRow(new Object[]{"east", 4L}));
+
+        FanOutResult result = merger.toResult(List.of());
+        Assertions.assertEquals(List.of("datasource", "region", "cnt"), result.getColumns());
+        Assertions.assertEquals(3, result.getRows().size());
+        Assertions.assertArrayEquals(new Object[]{"b", "west", 2L}, result.getRows().get(1));
+        Assertions.assertTrue(result.isTruncated());
+    }
+
+    @Test
+    void testUnion() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.UNION, null, 0);
+        RowHandler a = shard(merger, "a");
+        RowHandler b = shard(merger, "b");
+        a.onRow(new Object[]{"east", 1L});
+        b.onRow(new Object[]{"east", 1L});
+        b.onRow(new Object[]{"west", 1L});
+
+        FanOutResult result = merger.toResult(List.of());
+        Assertions.assertEquals(List.of("region", "cnt"), result.getColumns());
+        Assertions.assertEquals(2, result.getRows().size());
+        Assertions.assertFalse(result.isTruncated());
+    }
+
+    @Test
+    void testAggregate() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.AGGREGATE, null, 0);
+        RowHandler a = shard(merger, "a");
+        RowHandler b = shard(merger, "b");
+        a.onRow(new Object[]{"east", 1L});
+        a.onRow(new Object[]{"west", Long.MAX_VALUE});
+        b.onRow(new Object[]{"east", 2});
+        b.onRow(new Object[]{"west", 1L});
+
+        List<Object[]> rows = merger.toResult(List.of()).getRows();
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertEquals(3L, rows.get(0)[1]);
+        // long 溢出时转为 BigDecimal
+        Assertions.assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE), rows.get(1)[1]);
+    }
+
+    @Test
+    void testRejectMismatchedColumns() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.MERGE, null, 0);
+        shard(merger, "a");
+        Assertions.assertThrows(SQLException.class,
+                () -> merger.forShard("b").onColumns(new String[]{"region"}, new String[]{"VARCHAR"}));
+    }
+
+    @Test
+    void testShardFailedAfterRows() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.AGGREGATE, List.of("region"), 0);
+        RowHandler a = shard(merger, "a");
+        RowHandler b = shard(merger, "b");
+        a.onRow(new Object[]{"east", 1L});
+        b.onRow(new Object[]{"east", 2L});
+        // b 在读取部分行后失败，已累加的部分聚合值无法撤回
+        FanOutResult result = merger.toResult(List.of(new ShardStat("a", 1, 0, 0, false, null),
+                new ShardStat("b", 0, 0, 0, false, "connection reset")));
+        Assertions.assertTrue(result.isIncomplete());
+        Assertions.assertTrue(result.isTruncated());
+
+        ShardMerger complete = new ShardMerger(FanOutMode.MERGE, null, 0);
+        shard(complete, "a").onRow(new Object[]{"east", 1L});
+        FanOutResult succeeded = complete.toResult(List.of(new ShardStat("a", 1, 0, 0, false, null)));
+        Assertions.assertFalse(succeeded.isIncomplete());
+        Assertions.assertFalse(succeeded.isTruncated());
+    }
+
+    @Test
+    void testResultIsDetached() throws SQLException {
+        ShardMerger merger = new ShardMerger(FanOutMode.AGGREGATE, List.of("region"), 0);
+        RowHandler a = shard(merger, "a");
+        a.onRow(new Object[]{"east", 1L});
+
+        FanOutResult result = merger.toResult(List.of(new ShardStat("a", 1, 0, 0, false, null)));
+        // 生成结果后仍在执行的分片不能再修改结果
+        Assertions.assertFalse(a.onRow(new Object[]{"east", 5L}));
+        Assertions.assertEquals(1L, result.getRows().get(0)[1]);
+        result.getRows().get(0)[1] = 100L;
+        Assertions.assertEquals(1L, merger.toResult(List.of()).getRows().get(0)[1]);
+    }
+
+    private static RowHandler shard(ShardMerger merger, String datasourceId) throws SQLException {
+        RowHandler handler = merger.forShard(datasourceId);
+        handler.onColumns(COLUMNS, TYPES);
+        return handler;
+    }
+}
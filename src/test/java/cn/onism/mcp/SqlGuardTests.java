@@ -0,0 +1,83 @@
+package cn.onism.mcp;
+
+import cn.onism.mcp.tool.database.sql.SqlGuard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SQL 只读校验测试
+ */
+class SqlGuardTests {
+
+    private final SqlGuard sqlGuard = new SqlGuard();
+
+    @Test
+    void testAllowQueries() {
+        Assertions.assertTrue(sqlGuard.verify("select * from friends where id = 1", "postgres").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("SELECT u.name, count(*) AS c FROM users u LEFT JOIN orders o ON o.uid = u.id " +
+                "WHERE u.name LIKE 'a%' GROUP BY u.name ORDER BY c DESC LIMIT 10;", "mysql").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("with t as (select 1 as id) select * from t", "postgres").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select 'drop table t' as s, `delete` from posts", "mysql").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select $$ delete $$ as s", "postgres").isAllowed());
+    }
+
+    @Test
+    void testRejectWrites() {
+        Assertions.assertThrows(SecurityException.class, () -> sqlGuard.check("delete from t", "mysql"));
+        Assertions.assertThrows(SecurityException.class, () -> sqlGuard.check("select 1; drop table t", "mysql"));
+        Assertions.assertThrows(SecurityException.class,
+                () -> sqlGuard.check("with x as (delete from t returning *) select * from x", "postgres"));
+        Assertions.assertThrows(SecurityException.class, () -> sqlGuard.check("select * from t for update", "mysql"));
+        Assertions.assertThrows(SecurityException.class, () -> sqlGuard.check("select * into outfile '/tmp/x' from t", "mysql"));
+        Assertions.assertThrows(SecurityException.class, () -> sqlGuard.check("select pg_catalog.pg_sleep(10)", "postgres"));
+    }
+
+    @Test
+    void testRejectAmbiguousLexing() {
+        // MySQL 中 \' 为转义，PostgreSQL 中字符串在此结束，后续语句会被执行
+        Assertions.assertFalse(sqlGuard.verify("select 'abc\\' ; drop table x; --'", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select /*!50000 drop */ 1", "mysql").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select 'unterminated", "mysql").isAllowed());
+        // MySQL 中 \' 为转义、'' 之后的内容仍在字符串内，PostgreSQL 中字符串在 \' 处结束
+        Assertions.assertFalse(sqlGuard.verify("select '\\'' into outfile '/tmp/x' -- '", "mysql").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select '\\'', sleep(10) -- '", "mysql").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select '\\'', pg_sleep(10) -- '", "postgres").isAllowed());
+    }
+
+    @Test
+    void testEscapeStrings() {
+        // PostgreSQL E'...' 中反斜杠总是转义，字符串在第二个引号之后结束
+        Assertions.assertFalse(sqlGuard.verify("select E'\\''; delete from users -- '", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select E'\\'', pg_sleep(10) -- '", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select e'\\\\'; drop table t; -- '", "postgres").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select E'it\\'s', e'a\\\\b' as s", "postgres").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select E'it''s ; delete from t'", "postgres").isAllowed());
+    }
+
+    @Test
+    void testRejectCommentBypasses() {
+        // 各数据库按自己的规则识别注释，注释中的引号不能让后续内容被当作字符串跳过
+        Assertions.assertFalse(sqlGuard.verify("select 1 --'\n; drop table t; --'", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select * from t --'\nfor update --'", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select * from t --'\nfor update --'", "oracle").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select 1 /* /* */ ' */ ; drop table t; -- '", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select 1 #'\nfrom dual where 1=sleep(10) #'", "mysql").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select 1 -- comment\nfrom t", "mysql").isAllowed());
+    }
+
+    @Test
+    void testRejectQuotedFunctions() {
+        Assertions.assertFalse(sqlGuard.verify("select \"pg_sleep\"(10)", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select \"pg_sleep\"(10)", "mysql").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select `sleep`(10)", "mysql").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select U&\"\\0070g_sleep\"(10)", "postgres").isAllowed());
+        Assertions.assertFalse(sqlGuard.verify("select dbms_lock.sleep(10) from dual", "oracle").isAllowed());
+        Assertions.assertTrue(sqlGuard.verify("select \"name\" from \"users\"", "postgres").isAllowed());
+    }
+
+    @Test
+    void testSameShape() {
+        Assertions.assertEquals(SqlGuard.shape("select * from t where id = 1", "mysql"),
+                SqlGuard.shape("SELECT *\n FROM t WHERE id = 42", "mysql"));
+    }
+}